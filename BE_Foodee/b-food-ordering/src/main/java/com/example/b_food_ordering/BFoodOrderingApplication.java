@@ -2,8 +2,10 @@ package com.example.b_food_ordering;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling
 public class BFoodOrderingApplication {
 
 	public static void main(String[] args) {
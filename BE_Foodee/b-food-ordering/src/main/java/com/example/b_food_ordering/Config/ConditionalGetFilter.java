@@ -0,0 +1,165 @@
+package com.example.b_food_ordering.Config;
+
+import com.example.b_food_ordering.Service.ResourceVersions;
+import com.example.b_food_ordering.Service.ResourceVersions.Family;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+import org.springframework.http.HttpHeaders;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.Enumeration;
+import java.util.List;
+
+/**
+ * GET có điều kiện cho các API đọc danh sách món / danh mục / loại món / tin tức.
+ * ETag lấy từ ResourceVersions (không băm body): If-None-Match khớp -> trả 304 ngay,
+ * không chạy controller, không truy vấn DB, không serialize JSON.
+ * Đặt sau AuthorizationFilter trong SecurityConfig để route chỉ dành cho ADMIN vẫn bị kiểm tra quyền trước.
+ */
+public class ConditionalGetFilter extends OncePerRequestFilter {
+
+    // no-cache: trình duyệt luôn hỏi lại server (304 rất rẻ), để sửa dữ liệu thấy ngay ở lần tải sau
+    private static final String PUBLIC_REVALIDATE = "public, no-cache";
+    private static final String PRIVATE_REVALIDATE = "private, no-cache";
+
+    private record Route(String pattern, String cacheControl, Family... families) {
+    }
+
+    // Khớp theo thứ tự, route cụ thể đứng trước
+    private static final List<Route> ROUTES = List.of(
+            new Route("/api/products", PUBLIC_REVALIDATE, Family.PRODUCTS),
+            new Route("/api/products/search", PUBLIC_REVALIDATE, Family.PRODUCTS),
+            new Route("/api/products/suggest", PUBLIC_REVALIDATE, Family.PRODUCTS),
+            new Route("/api/products/**", PRIVATE_REVALIDATE, Family.PRODUCTS),
+            new Route("/api/categories", PUBLIC_REVALIDATE, Family.CATEGORIES),
+            new Route("/api/categories/*", PUBLIC_REVALIDATE, Family.CATEGORIES),
+            new Route("/api/product-types/stats", PUBLIC_REVALIDATE, Family.PRODUCTS, Family.PRODUCT_TYPES),
+            new Route("/api/product-types", PUBLIC_REVALIDATE, Family.PRODUCT_TYPES),
+            new Route("/api/product-types/*", PUBLIC_REVALIDATE, Family.PRODUCT_TYPES),
+            new Route("/api/news", PUBLIC_REVALIDATE, Family.NEWS),
+            new Route("/api/news/search", PUBLIC_REVALIDATE, Family.NEWS),
+            new Route("/api/news/*", PRIVATE_REVALIDATE, Family.NEWS)
+    );
+
+    private final ResourceVersions resourceVersions;
+    private final AntPathMatcher pathMatcher = new AntPathMatcher();
+
+    public ConditionalGetFilter(ResourceVersions resourceVersions) {
+        this.resourceVersions = resourceVersions;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String method = request.getMethod();
+        return !"GET".equals(method) && !"HEAD".equals(method);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request,
+                                    HttpServletResponse response,
+                                    FilterChain filterChain)
+            throws ServletException, IOException {
+
+        Route route = match(request.getServletPath());
+        if (route == null) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        // Lấy tag trước khi đọc dữ liệu: có ghi xen giữa thì tag cũ hơn dữ liệu, lần sau client chỉ tải lại
+        String etag = resourceVersions.etag(route.families());
+        if (matches(request.getHeaders(HttpHeaders.IF_NONE_MATCH), etag)) {
+            response.setHeader(HttpHeaders.ETAG, etag);
+            response.setHeader(HttpHeaders.CACHE_CONTROL, route.cacheControl());
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+
+        CacheHeadersResponse wrapped = new CacheHeadersResponse(response, etag, route.cacheControl());
+        filterChain.doFilter(request, wrapped);
+        wrapped.applyHeaders();
+    }
+
+    private Route match(String path) {
+        if (path == null) {
+            return null;
+        }
+        for (Route route : ROUTES) {
+            if (pathMatcher.match(route.pattern(), path)) {
+                return route;
+            }
+        }
+        return null;
+    }
+
+    // If-None-Match: danh sách tag cách nhau dấu phẩy hoặc "*"; so sánh yếu (bỏ tiền tố W/)
+    static boolean matches(Enumeration<String> ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        String opaque = stripWeak(etag);
+        while (ifNoneMatch.hasMoreElements()) {
+            for (String candidate : ifNoneMatch.nextElement().split(",")) {
+                String tag = candidate.trim();
+                if (tag.equals("*") || stripWeak(tag).equals(opaque)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static String stripWeak(String tag) {
+        return tag.startsWith("W/") ? tag.substring(2) : tag;
+    }
+
+    // Chỉ gắn ETag / Cache-Control cho response 200, ngay trước khi ghi body (404 / 500 không được cache)
+    private static final class CacheHeadersResponse extends HttpServletResponseWrapper {
+
+        private final String etag;
+        private final String cacheControl;
+        private boolean applied;
+
+        CacheHeadersResponse(HttpServletResponse response, String etag, String cacheControl) {
+            super(response);
+            this.etag = etag;
+            this.cacheControl = cacheControl;
+        }
+
+        void applyHeaders() {
+            if (applied || isCommitted()) {
+                return;
+            }
+            applied = true;
+            if (getStatus() == HttpServletResponse.SC_OK) {
+                setHeader(HttpHeaders.ETAG, etag);
+                setHeader(HttpHeaders.CACHE_CONTROL, cacheControl);
+            }
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() throws IOException {
+            applyHeaders();
+            return super.getOutputStream();
+        }
+
+        @Override
+        public PrintWriter getWriter() throws IOException {
+            applyHeaders();
+            return super.getWriter();
+        }
+
+        @Override
+        public void flushBuffer() throws IOException {
+            applyHeaders();
+            super.flushBuffer();
+        }
+    }
+}
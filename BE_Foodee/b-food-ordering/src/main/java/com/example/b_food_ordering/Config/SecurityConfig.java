@@ -2,6 +2,8 @@ package com.example.b_food_ordering.Config;
 
 import com.example.b_food_ordering.Entity.Role;
 import com.example.b_food_ordering.Repository.UserRepository;
+import com.example.b_food_ordering.Service.ResourceVersions;
+import jakarta.servlet.DispatcherType;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.HttpMethod;
@@ -17,6 +19,7 @@ import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.access.intercept.AuthorizationFilter;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 import org.springframework.web.cors.CorsConfiguration;
 import org.springframework.web.cors.CorsConfigurationSource;
@@ -29,10 +32,12 @@ import java.util.Arrays;
 public class SecurityConfig {
     private final UserRepository userRepository;
     private final JwtUtil jwtUtil;
+    private final ResourceVersions resourceVersions;
 
-    public SecurityConfig(UserRepository userRepository, JwtUtil jwtUtil) {
+    public SecurityConfig(UserRepository userRepository, JwtUtil jwtUtil, ResourceVersions resourceVersions) {
         this.userRepository = userRepository;
         this.jwtUtil = jwtUtil;
+        this.resourceVersions = resourceVersions;
     }
 
     @Bean
@@ -83,12 +88,14 @@ public class SecurityConfig {
                 .authorizeHttpRequests(auth -> auth
                         // Cho phép toàn bộ preflight CORS
                         .requestMatchers(HttpMethod.OPTIONS, "/**").permitAll()
+                        // Lượt dispatch ASYNC của SSE: request gốc đã được kiểm tra quyền
+                        .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
 
                         // Mở toàn bộ auth API (login, register, forgot, reset...)
                         .requestMatchers("/api/auth/**").permitAll()
 
                         // Các API public khác
-                        .requestMatchers("/api/products", "/api/products/search").permitAll()
+                        .requestMatchers("/api/products", "/api/products/search", "/api/products/suggest").permitAll()
                         .requestMatchers("/api/product-types/**").permitAll()
                         .requestMatchers("/api/categories/**").permitAll()
                         .requestMatchers("/api/chatbot").permitAll()
@@ -105,8 +112,8 @@ public class SecurityConfig {
                         .requestMatchers("/api/booking/create", "/api/booking/history",
                                 "/api/booking/user/cancel/**", "/api/booking/{id}").authenticated()
                         .requestMatchers("/api/booking/**").hasRole("ADMIN")
-                        .requestMatchers("/api/orders").authenticated()
-                        .requestMatchers("/api/orders/admin").hasRole("ADMIN")
+                        .requestMatchers("/api/orders", "/api/orders/stream").authenticated()
+                        .requestMatchers("/api/orders/admin", "/api/orders/admin/**").hasRole("ADMIN")
                         .requestMatchers(
                                 "/api/orders/{id}/status",
                                 "/api/orders/{id}/payment-status",
@@ -132,7 +139,9 @@ public class SecurityConfig {
                             response.getWriter().write("{\"error\": \"Không có quyền truy cập\"}");
                         })
                 )
-                .addFilterBefore(jwtAuthenticationFilter(), UsernamePasswordAuthenticationFilter.class);
+                .addFilterBefore(jwtAuthenticationFilter(), UsernamePasswordAuthenticationFilter.class)
+                // ETag / 304 sau bước kiểm tra quyền (không khai báo @Bean để không bị đăng ký lần 2 ngoài chain)
+                .addFilterAfter(new ConditionalGetFilter(resourceVersions), AuthorizationFilter.class);
 
         return http.build();
     }
@@ -1,25 +1,34 @@
 package com.example.b_food_ordering.Controller;
 
+import com.example.b_food_ordering.Dto.CursorPageDTO;
 import com.example.b_food_ordering.Dto.OrderDTO;
+import com.example.b_food_ordering.Dto.OrderStatusUpdateResultDTO;
+import com.example.b_food_ordering.Dto.OrderSummaryDTO;
 import com.example.b_food_ordering.Dto.ResponseDTO;
 import com.example.b_food_ordering.Repository.UserRepository;
+import com.example.b_food_ordering.Service.IdempotencyService;
 import com.example.b_food_ordering.Service.OrderService;
+import com.example.b_food_ordering.Service.OrderStreamService;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import jakarta.validation.Valid;
 import jakarta.validation.constraints.NotBlank;
-import jakarta.validation.constraints.Pattern;
+import jakarta.validation.constraints.NotEmpty;
 import jakarta.validation.constraints.Positive;
 import jakarta.validation.constraints.Size;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.List;
 
@@ -29,13 +38,20 @@ public class OrderController {
 
     private static final Logger logger = LoggerFactory.getLogger(OrderController.class);
 
+    private static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+
     private final OrderService orderService;
     private final UserRepository userRepository;
+    private final IdempotencyService idempotencyService;
+    private final OrderStreamService orderStreamService;
 
     @Autowired
-    public OrderController(OrderService orderService, UserRepository userRepository) {
+    public OrderController(OrderService orderService, UserRepository userRepository,
+                           IdempotencyService idempotencyService, OrderStreamService orderStreamService) {
         this.orderService = orderService;
         this.userRepository = userRepository;
+        this.idempotencyService = idempotencyService;
+        this.orderStreamService = orderStreamService;
     }
 
     private Long getCurrentUserId() {
@@ -52,13 +68,18 @@ public class OrderController {
     // Người dùng đặt hàng từ giỏ hàng
     @PostMapping
     @PreAuthorize("hasAnyRole('USER', 'ADMIN')")
-    public ResponseEntity<ResponseDTO<OrderDTO>> createOrder(@Valid @RequestBody OrderRequest orderRequest) {
+    public ResponseEntity<ResponseDTO<OrderDTO>> createOrder(
+            @Valid @RequestBody OrderRequest orderRequest,
+            @RequestHeader(value = IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey) {
         try {
             Long userId = getCurrentUserId();
             logger.info("Creating order for user {} with delivery address: {} and payment method: {}", 
                         userId, orderRequest.getDeliveryAddress(), orderRequest.getPaymentMethod());
-            OrderDTO order = orderService.createOrder(userId, orderRequest.getDeliveryAddress(), 
-                                                    orderRequest.getPaymentMethod());
+            // Client gửi lại cùng Idempotency-Key -> trả lại đơn đã tạo, không tạo đơn mới
+            OrderDTO order = idempotencyService.execute(userId, "create", idempotencyKey,
+                    orderRequest.getDeliveryAddress() + "|" + orderRequest.getPaymentMethod(),
+                    () -> orderService.createOrder(userId, orderRequest.getDeliveryAddress(),
+                                                   orderRequest.getPaymentMethod()));
             return ResponseEntity.status(201).body(new ResponseDTO<>("Đặt hàng thành công", order));
         } catch (IllegalArgumentException e) {
             logger.error("Bad request: {}", e.getMessage());
@@ -72,13 +93,18 @@ public class OrderController {
     // Người dùng đặt hàng trực tiếp từ sản phẩm
     @PostMapping("/create-from-product")
     @PreAuthorize("hasAnyRole('USER', 'ADMIN')")
-    public ResponseEntity<ResponseDTO<OrderDTO>> createOrderFromProduct(@Valid @RequestBody OrderFromProductRequest orderRequest) {
+    public ResponseEntity<ResponseDTO<OrderDTO>> createOrderFromProduct(
+            @Valid @RequestBody OrderFromProductRequest orderRequest,
+            @RequestHeader(value = IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey) {
         try {
             Long userId = getCurrentUserId();
             logger.info("Creating order from product for user {} with productId: {}, quantity: {}, delivery address: {}, and payment method: {}", 
                         userId, orderRequest.getProductId(), orderRequest.getQuantity(), orderRequest.getDeliveryAddress(), orderRequest.getPaymentMethod());
-            OrderDTO order = orderService.createOrderFromProduct(userId, orderRequest.getProductId(), orderRequest.getQuantity(),
-                                                                orderRequest.getDeliveryAddress(), orderRequest.getPaymentMethod());
+            OrderDTO order = idempotencyService.execute(userId, "create-from-product", idempotencyKey,
+                    orderRequest.getProductId() + "|" + orderRequest.getQuantity() + "|"
+                            + orderRequest.getDeliveryAddress() + "|" + orderRequest.getPaymentMethod(),
+                    () -> orderService.createOrderFromProduct(userId, orderRequest.getProductId(), orderRequest.getQuantity(),
+                                                              orderRequest.getDeliveryAddress(), orderRequest.getPaymentMethod()));
             return ResponseEntity.status(201).body(new ResponseDTO<>("Đặt hàng trực tiếp từ sản phẩm thành công", order));
         } catch (IllegalArgumentException e) {
             logger.error("Bad request: {}", e.getMessage());
@@ -89,15 +115,71 @@ public class OrderController {
         }
     }
 
-    // Người dùng xem danh sách đơn hàng của mình
+    // Người dùng nhận thay đổi trạng thái đơn hàng theo thời gian thực (SSE), thay cho việc gọi lại GET /api/orders.
+    // Kết nối lại kèm header Last-Event-ID sẽ được gửi bù các event bị lỡ.
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @PreAuthorize("hasAnyRole('USER', 'ADMIN')")
+    public SseEmitter streamOrderStatus(@RequestHeader(value = "Last-Event-ID", required = false) String lastEventId) {
+        Long userId = getCurrentUserId();
+        return orderStreamService.subscribe(userId, lastEventId);
+    }
+
+    // Người dùng xem danh sách đơn hàng của mình.
+    // Không truyền limit/cursor: trả toàn bộ như cũ; có limit/cursor: trả 1 trang dạng CursorPageDTO như /summary và /admin
     @GetMapping
     @PreAuthorize("hasAnyRole('USER', 'ADMIN')")
-    public ResponseEntity<ResponseDTO<List<OrderDTO>>> getUserOrders() {
+    public ResponseEntity<ResponseDTO<Object>> getUserOrders(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit) {
+        try {
+            Long userId = getCurrentUserId();
+            logger.info("Fetching orders for user {} (cursor={}, limit={})", userId, cursor, limit);
+            if (cursor == null && limit == null) {
+                List<OrderDTO> orders = orderService.getUserOrders(userId);
+                return ResponseEntity.ok(new ResponseDTO<>("Lấy danh sách đơn hàng thành công", orders));
+            }
+            CursorPageDTO<OrderDTO> page = orderService.getUserOrderPage(userId, cursor, limit);
+            return ResponseEntity.ok(new ResponseDTO<>("Lấy danh sách đơn hàng thành công", page));
+        } catch (IllegalArgumentException e) {
+            logger.error("Bad request: {}", e.getMessage());
+            return ResponseEntity.badRequest().body(new ResponseDTO<>("Lỗi: " + e.getMessage(), null));
+        } catch (Exception e) {
+            logger.error("Server error: {}", e.getMessage(), e);
+            return ResponseEntity.status(500).body(new ResponseDTO<>("Lỗi server: " + e.getMessage(), null));
+        }
+    }
+
+    // Người dùng xem danh sách đơn rút gọn (màn hình danh sách), phân trang keyset
+    @GetMapping("/summary")
+    @PreAuthorize("hasAnyRole('USER', 'ADMIN')")
+    public ResponseEntity<ResponseDTO<CursorPageDTO<OrderSummaryDTO>>> getUserOrderSummaries(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit) {
+        try {
+            Long userId = getCurrentUserId();
+            logger.info("Fetching order summaries for user {} (cursor={}, limit={})", userId, cursor, limit);
+            CursorPageDTO<OrderSummaryDTO> page = orderService.getUserOrderSummaries(userId, cursor, limit);
+            return ResponseEntity.ok(new ResponseDTO<>("Lấy danh sách đơn hàng thành công", page));
+        } catch (IllegalArgumentException e) {
+            logger.error("Bad request: {}", e.getMessage());
+            return ResponseEntity.badRequest().body(new ResponseDTO<>("Lỗi: " + e.getMessage(), null));
+        } catch (Exception e) {
+            logger.error("Server error: {}", e.getMessage(), e);
+            return ResponseEntity.status(500).body(new ResponseDTO<>("Lỗi server: " + e.getMessage(), null));
+        }
+    }
+
+    // Xem chi tiết 1 đơn hàng (chủ đơn hoặc admin)
+    @GetMapping("/{id}")
+    @PreAuthorize("hasAnyRole('USER', 'ADMIN')")
+    public ResponseEntity<ResponseDTO<OrderDTO>> getOrderDetail(@PathVariable @Positive Long id) {
         try {
             Long userId = getCurrentUserId();
-            logger.info("Fetching orders for user {}", userId);
-            List<OrderDTO> orders = orderService.getUserOrders(userId);
-            return ResponseEntity.ok(new ResponseDTO<>("Lấy danh sách đơn hàng thành công", orders));
+            boolean isAdmin = SecurityContextHolder.getContext().getAuthentication().getAuthorities().stream()
+                    .anyMatch(a -> "ROLE_ADMIN".equals(a.getAuthority()));
+            logger.info("Fetching order {} for user {}", id, userId);
+            OrderDTO order = orderService.getOrderDetail(id, userId, isAdmin);
+            return ResponseEntity.ok(new ResponseDTO<>("Lấy chi tiết đơn hàng thành công", order));
         } catch (IllegalArgumentException e) {
             logger.error("Bad request: {}", e.getMessage());
             return ResponseEntity.badRequest().body(new ResponseDTO<>("Lỗi: " + e.getMessage(), null));
@@ -107,27 +189,38 @@ public class OrderController {
         }
     }
 
-    // Admin xem tất cả đơn hàng
+    // Admin xem đơn hàng: phân trang keyset (cursor) + lọc theo trạng thái, khoảng ngày, email/SĐT khách
     @GetMapping("/admin")
     @PreAuthorize("hasRole('ADMIN')")
-    public ResponseEntity<ResponseDTO<List<OrderDTO>>> getAllOrders() {
+    public ResponseEntity<ResponseDTO<CursorPageDTO<OrderDTO>>> getAllOrders(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) String orderStatus,
+            @RequestParam(required = false) String paymentStatus,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false) String customer) {
         try {
-            logger.info("Admin fetching all orders");
-            List<OrderDTO> orders = orderService.getAllOrders();
-            return ResponseEntity.ok(new ResponseDTO<>("Lấy danh sách tất cả đơn hàng thành công", orders));
+            logger.info("Admin fetching orders page (cursor={}, limit={}, orderStatus={}, paymentStatus={}, from={}, to={})",
+                        cursor, limit, orderStatus, paymentStatus, from, to);
+            CursorPageDTO<OrderDTO> page = orderService.getAdminOrderFeed(orderStatus, paymentStatus, from, to,
+                                                                         customer, cursor, limit);
+            return ResponseEntity.ok(new ResponseDTO<>("Lấy danh sách đơn hàng thành công", page));
+        } catch (IllegalArgumentException e) {
+            logger.error("Bad request: {}", e.getMessage());
+            return ResponseEntity.badRequest().body(new ResponseDTO<>("Lỗi: " + e.getMessage(), null));
         } catch (Exception e) {
             logger.error("Server error: {}", e.getMessage(), e);
             return ResponseEntity.status(500).body(new ResponseDTO<>("Lỗi server: " + e.getMessage(), null));
         }
     }
 
-    // Admin cập nhật trạng thái đơn hàng
+    // Admin cập nhật trạng thái đơn hàng (giá trị và bước chuyển được kiểm tra bởi OrderStateMachine)
     @PutMapping("/{id}/status")
     @PreAuthorize("hasRole('ADMIN')")
     public ResponseEntity<ResponseDTO<OrderDTO>> updateOrderStatus(
             @PathVariable @Positive Long id,
-            @RequestParam @Pattern(regexp = "^(PENDING|CONFIRMED|SHIPPING|DELIVERED|CANCELLED|CANCEL_REQUESTED)$",
-                                  message = "Trạng thái đơn hàng phải là PENDING, CONFIRMED, SHIPPING, DELIVERED, CANCELLED hoặc CANCEL_REQUESTED") String status) {
+            @RequestParam String status) {
         try {
             logger.info("Admin updating order {} to status {}", id, status);
             OrderDTO order = orderService.updateOrderStatus(id, status);
@@ -141,13 +234,34 @@ public class OrderController {
         }
     }
 
+    // Admin chuyển trạng thái nhiều đơn trong 1 request, trả về kết quả theo từng đơn
+    @PutMapping("/admin/bulk-status")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ResponseDTO<List<OrderStatusUpdateResultDTO>>> bulkUpdateOrderStatus(
+            @Valid @RequestBody BulkStatusRequest request) {
+        try {
+            logger.info("Admin bulk updating {} orders to status {}", request.getOrderIds().size(), request.getStatus());
+            List<OrderStatusUpdateResultDTO> results = orderService.bulkUpdateOrderStatus(request.getOrderIds(), request.getStatus());
+            long updated = results.stream()
+                    .filter(r -> r.getOutcome() == OrderStatusUpdateResultDTO.Outcome.UPDATED)
+                    .count();
+            return ResponseEntity.ok(new ResponseDTO<>(
+                    "Đã cập nhật " + updated + "/" + results.size() + " đơn hàng", results));
+        } catch (IllegalArgumentException e) {
+            logger.error("Bad request: {}", e.getMessage());
+            return ResponseEntity.badRequest().body(new ResponseDTO<>("Lỗi: " + e.getMessage(), null));
+        } catch (Exception e) {
+            logger.error("Server error: {}", e.getMessage(), e);
+            return ResponseEntity.status(500).body(new ResponseDTO<>("Lỗi server: " + e.getMessage(), null));
+        }
+    }
+
     // Admin cập nhật trạng thái thanh toán
     @PutMapping("/{id}/payment-status")
     @PreAuthorize("hasRole('ADMIN')")
     public ResponseEntity<ResponseDTO<OrderDTO>> updatePaymentStatus(
             @PathVariable @Positive Long id,
-            @RequestParam @Pattern(regexp = "^(PENDING|PAID|FAILED|REFUNDED)$",
-                                  message = "Trạng thái thanh toán phải là PENDING, PAID, FAILED hoặc REFUNDED") String status) {
+            @RequestParam String status) {
         try {
             logger.info("Admin updating payment status for order {} to {}", id, status);
             OrderDTO order = orderService.updatePaymentStatus(id, status);
@@ -335,4 +449,29 @@ class DeliveryDateRequest {
     public void setDeliveryDate(LocalDateTime deliveryDate) {
         this.deliveryDate = deliveryDate;
     }
-}
\ No newline at end of file
+}
+
+class BulkStatusRequest {
+    @NotEmpty(message = "Danh sách đơn hàng không được để trống")
+    private List<@Positive(message = "ID đơn hàng phải là số dương") Long> orderIds;
+
+    @NotBlank(message = "Trạng thái không được để trống")
+    private String status;
+
+    // Getters and setters
+    public List<Long> getOrderIds() {
+        return orderIds;
+    }
+
+    public void setOrderIds(List<Long> orderIds) {
+        this.orderIds = orderIds;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public void setStatus(String status) {
+        this.status = status;
+    }
+}
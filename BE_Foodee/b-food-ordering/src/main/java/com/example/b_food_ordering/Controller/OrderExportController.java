@@ -0,0 +1,87 @@
+package com.example.b_food_ordering.Controller;
+
+import com.example.b_food_ordering.Dto.ResponseDTO;
+import com.example.b_food_ordering.Service.OrderExportService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+
+// Xuất đơn hàng cho kế toán: ghi thẳng ra response, không dựng toàn bộ danh sách trong bộ nhớ
+@RestController
+@RequestMapping("/api/orders/admin/export")
+public class OrderExportController {
+
+    private static final Logger logger = LoggerFactory.getLogger(OrderExportController.class);
+
+    private final OrderExportService orderExportService;
+    private final ObjectMapper objectMapper;
+
+    @Autowired
+    public OrderExportController(OrderExportService orderExportService, ObjectMapper objectMapper) {
+        this.orderExportService = orderExportService;
+        this.objectMapper = objectMapper;
+    }
+
+    // GET /api/orders/admin/export?format=csv|ndjson&from=2025-01-01&to=2025-01-31
+    @GetMapping
+    @PreAuthorize("hasRole('ADMIN')")
+    public void exportOrders(
+            @RequestParam(required = false, defaultValue = "csv") String format,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            HttpServletResponse response) throws IOException {
+        OrderExportService.Format exportFormat;
+        try {
+            exportFormat = OrderExportService.Format.parse(format);
+            orderExportService.validateRange(from, to);
+        } catch (IllegalArgumentException e) {
+            logger.error("Bad request: {}", e.getMessage());
+            writeError(response, HttpStatus.BAD_REQUEST, "Lỗi: " + e.getMessage());
+            return;
+        }
+
+        String filename = "orders"
+                + (from != null ? "_" + from : "")
+                + (to != null ? "_" + to : "")
+                + "." + exportFormat.getExtension();
+        response.setContentType(exportFormat.getContentType());
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + filename + "\"");
+        response.setHeader(HttpHeaders.CACHE_CONTROL, "no-store");
+
+        try {
+            long rows = orderExportService.export(exportFormat, from, to, response.getOutputStream());
+            logger.info("Exported {} order lines ({}, from={}, to={})", rows, exportFormat, from, to);
+        } catch (IOException e) {
+            // Thường do client ngắt kết nối giữa chừng
+            logger.warn("Order export aborted: {}", e.getMessage());
+        } catch (Exception e) {
+            logger.error("Server error: {}", e.getMessage(), e);
+            if (!response.isCommitted()) {
+                response.reset();
+                writeError(response, HttpStatus.INTERNAL_SERVER_ERROR, "Lỗi server: " + e.getMessage());
+            }
+        }
+    }
+
+    private void writeError(HttpServletResponse response, HttpStatus status, String message) throws IOException {
+        response.setStatus(status.value());
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        objectMapper.writeValue(response.getOutputStream(), new ResponseDTO<>(message, null));
+    }
+}
@@ -1,6 +1,8 @@
 package com.example.b_food_ordering.Controller;
 
 import com.example.b_food_ordering.Dto.ProductDTO;
+import com.example.b_food_ordering.Dto.ProductPageDTO;
+import com.example.b_food_ordering.Dto.SuggestionDTO;
 import com.example.b_food_ordering.Service.ProductService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
@@ -53,15 +55,49 @@ public class ProductController {
         }
     }
 
-    // Lấy danh sách tất cả sản phẩm
+    // Lấy danh sách sản phẩm.
+    // Không truyền tham số: trả toàn bộ như cũ; có tham số lọc / sắp xếp / phân trang: trả 1 trang
+    // (page + size, hoặc cursor từ nextCursor của trang trước). Tổng số món chỉ đếm khi withTotal=true.
     @GetMapping
-    public ResponseEntity<?> getAllProducts() {
+    public ResponseEntity<?> getAllProducts(
+            @RequestParam(required = false) Long categoryId,
+            @RequestParam(required = false) Long productTypeId,
+            @RequestParam(required = false) String status,
+            @RequestParam(required = false) Double minPrice,
+            @RequestParam(required = false) Double maxPrice,
+            @RequestParam(required = false) Boolean discounted,
+            @RequestParam(required = false) String sort,
+            @RequestParam(required = false) String direction,
+            @RequestParam(required = false) Integer page,
+            @RequestParam(required = false) Integer size,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Boolean withTotal) {
         try {
-            List<ProductDTO> products = productService.getAllProducts();
             Map<String, Object> response = new HashMap<>();
             response.put("message", "Lấy danh sách sản phẩm thành công");
-            response.put("products", products);
+            if (categoryId == null && productTypeId == null && status == null && minPrice == null
+                    && maxPrice == null && discounted == null && sort == null && direction == null
+                    && page == null && size == null && cursor == null && withTotal == null) {
+                List<ProductDTO> products = productService.getAllProducts();
+                response.put("products", products);
+                return ResponseEntity.ok(response);
+            }
+
+            ProductPageDTO productPage = productService.getProductPage(categoryId, productTypeId, status,
+                    minPrice, maxPrice, Boolean.TRUE.equals(discounted), sort, direction, page, size, cursor,
+                    Boolean.TRUE.equals(withTotal));
+            response.put("products", productPage.getItems());
+            response.put("page", productPage.getPage());
+            response.put("size", productPage.getSize());
+            response.put("hasNext", productPage.isHasNext());
+            response.put("nextCursor", productPage.getNextCursor());
+            if (productPage.getTotalElements() != null) {
+                response.put("totalElements", productPage.getTotalElements());
+                response.put("totalPages", productPage.getTotalPages());
+            }
             return ResponseEntity.ok(response);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body("Lỗi: " + e.getMessage());
         } catch (Exception e) {
             return ResponseEntity.status(500).body("Lỗi khi lấy danh sách sản phẩm: " + e.getMessage());
         }
@@ -85,6 +121,20 @@ public class ProductController {
         }
     }
 
+    // Gợi ý khi gõ ô tìm kiếm: chỉ trả loại, id và tên
+    @GetMapping("/suggest")
+    public ResponseEntity<?> suggest(@RequestParam(value = "q", required = false) String q,
+                                     @RequestParam(required = false) Integer limit) {
+        try {
+            List<SuggestionDTO> suggestions = productService.suggest(q, limit);
+            Map<String, Object> response = new HashMap<>();
+            response.put("suggestions", suggestions);
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            return ResponseEntity.status(500).body("Lỗi server khi lấy gợi ý: " + e.getMessage());
+        }
+    }
+
     // Lấy sản phẩm theo ID
     @GetMapping("/{id}")
     public ResponseEntity<?> getProductById(@PathVariable Long id) {
@@ -4,7 +4,14 @@ import com.example.b_food_ordering.Dto.DashboardOverviewDTO;
 import com.example.b_food_ordering.Dto.OrderItemDTO;
 import com.example.b_food_ordering.Dto.TopFoodDTO;
 import com.example.b_food_ordering.Entity.Category;
+import com.example.b_food_ordering.Entity.Order;
 import com.example.b_food_ordering.Entity.ProductType;
+import com.example.b_food_ordering.Service.ActivityFeedService;
+import com.example.b_food_ordering.Service.CatalogCacheService;
+import com.example.b_food_ordering.Service.DashboardCompositeService;
+import com.example.b_food_ordering.Service.DashboardSnapshotService;
+import com.example.b_food_ordering.Service.HeavyHittersService;
+import com.example.b_food_ordering.Service.SalesCubeService;
 import com.example.b_food_ordering.Service.StatisticsService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
@@ -26,6 +33,25 @@ public class StatisticsController {
     @Autowired
     private StatisticsService statisticsService;
 
+    // Các API dashboard / summary đọc từ snapshot tính sẵn
+    @Autowired
+    private DashboardSnapshotService dashboardSnapshotService;
+
+    @Autowired
+    private HeavyHittersService heavyHittersService;
+
+    @Autowired
+    private ActivityFeedService activityFeedService;
+
+    @Autowired
+    private DashboardCompositeService dashboardCompositeService;
+
+    @Autowired
+    private SalesCubeService salesCubeService;
+
+    @Autowired
+    private CatalogCacheService catalogCacheService;
+
     //---------------------------
     // 1. API CŨ (GIỮ NGUYÊN)
     //---------------------------
@@ -49,7 +75,7 @@ public class StatisticsController {
     @GetMapping("/recent-activities")
     public ResponseEntity<List<String>> getRecentActivities(
             @RequestParam(defaultValue = "10") int limit) {
-        return ResponseEntity.ok(statisticsService.getRecentActivities(limit));
+        return ResponseEntity.ok(activityFeedService.getRecentActivities(limit));
     }
 
     @GetMapping("/top-foods")
@@ -68,7 +94,7 @@ public class StatisticsController {
 
     @GetMapping("/summary")
     public ResponseEntity<Map<String, Object>> getQuickSummary() {
-        return ResponseEntity.ok(statisticsService.getQuickSummary());
+        return ResponseEntity.ok(dashboardSnapshotService.getQuickSummary());
     }
 
 
@@ -87,7 +113,7 @@ public class StatisticsController {
      */
     @GetMapping("/dashboard/overview")
     public ResponseEntity<DashboardOverviewDTO> getDashboardOverview() {
-        return ResponseEntity.ok(statisticsService.getDashboardOverview());
+        return ResponseEntity.ok(dashboardSnapshotService.getDashboardOverview());
     }
 
 
@@ -98,7 +124,7 @@ public class StatisticsController {
     @GetMapping("/dashboard/revenue")
     public ResponseEntity<List<Map<String, Object>>> getRevenueByMonth(
             @RequestParam(required = false) Integer year) {
-        return ResponseEntity.ok(statisticsService.getRevenueByMonth(year));
+        return ResponseEntity.ok(dashboardSnapshotService.getRevenueByMonth(year));
     }
 
 
@@ -108,7 +134,7 @@ public class StatisticsController {
     @GetMapping("/dashboard/top-foods")
     public ResponseEntity<List<Map<String, Object>>> getDashboardTopFoods(
             @RequestParam(defaultValue = "5") int limit) {
-        return ResponseEntity.ok(statisticsService.getDashboardTopFoods(limit));
+        return ResponseEntity.ok(dashboardSnapshotService.getDashboardTopFoods(limit));
     }
 
 
@@ -118,7 +144,7 @@ public class StatisticsController {
     @GetMapping("/dashboard/top-users-advanced")
     public ResponseEntity<List<Map<String, Object>>> getDashboardTopUsers(
             @RequestParam(defaultValue = "5") int limit) {
-        return ResponseEntity.ok(statisticsService.getDashboardTopUsers(limit));
+        return ResponseEntity.ok(dashboardSnapshotService.getDashboardTopUsers(limit));
     }
 
     /**
@@ -136,4 +162,79 @@ public class StatisticsController {
         return ResponseEntity.ok(statisticsService.getOrderStatusSummary(from, to));
     }
 
+    /**
+     * 📌 API: Toàn bộ dữ liệu trang dashboard trong 1 request, các phần được tính song song.
+     * FE gọi: /dashboard/all?year=2025&limit=5&from=2025-12-01&to=2025-12-02
+     * Phần nào quá hạn / lỗi sẽ không có trong kết quả và được liệt kê trong "failedParts".
+     */
+    @GetMapping("/dashboard/all")
+    public ResponseEntity<Map<String, Object>> getDashboardAll(
+            @RequestParam(required = false) Integer year,
+            @RequestParam(defaultValue = "5") int limit,
+            @RequestParam(required = false)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        return ResponseEntity.ok(dashboardCompositeService.getAll(year, from, to, limit));
+    }
+
+    /**
+     * 📌 API: Số liệu cache snapshot dashboard (hit/miss, thời gian làm mới, tuổi snapshot)
+     */
+    @GetMapping("/dashboard/cache-stats")
+    public ResponseEntity<Map<String, Object>> getDashboardCacheStats() {
+        return ResponseEntity.ok(dashboardSnapshotService.getStats());
+    }
+
+    /**
+     * 📌 API: Top món bán chạy gần đúng theo thời gian thực (không đọc bảng đơn hàng)
+     * FE gọi: /live/top-dishes?window=hour|day|week&limit=10
+     */
+    @GetMapping("/live/top-dishes")
+    public ResponseEntity<?> getLiveTopDishes(
+            @RequestParam(required = false) String window,
+            @RequestParam(defaultValue = "10") int limit) {
+        try {
+            return ResponseEntity.ok(heavyHittersService.getTopDishes(HeavyHittersService.Window.parse(window), limit));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    /**
+     * 📌 API: Doanh số gom nhóm tuỳ ý trên dữ liệu trong bộ nhớ (không đọc DB)
+     * FE gọi: /sales-cube?groupBy=productType,category,month&from=2025-01-01&to=2025-12-31&orderStatus=DELIVERED
+     * groupBy: product | productType | category | year | month | day | weekday | orderStatus | paymentStatus (tối đa 3)
+     */
+    @GetMapping("/sales-cube")
+    public ResponseEntity<?> querySalesCube(
+            @RequestParam(required = false) String groupBy,
+            @RequestParam(required = false)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false) Order.OrderStatus orderStatus,
+            @RequestParam(required = false) Order.PaymentStatus paymentStatus,
+            @RequestParam(required = false) Long productTypeId,
+            @RequestParam(required = false) Long categoryId,
+            @RequestParam(required = false) Integer limit) {
+        try {
+            return ResponseEntity.ok(salesCubeService.query(groupBy, from, to, orderStatus, paymentStatus,
+                    productTypeId, categoryId, limit));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    @GetMapping("/sales-cube/stats")
+    public ResponseEntity<Map<String, Object>> getSalesCubeStats() {
+        return ResponseEntity.ok(salesCubeService.getStats());
+    }
+
+    // Tỉ lệ trúng cache danh sách món, số lần nạp lại...
+    @GetMapping("/catalog-cache/stats")
+    public ResponseEntity<Map<String, Object>> getCatalogCacheStats() {
+        return ResponseEntity.ok(catalogCacheService.getStats());
+    }
+
 }
@@ -17,6 +17,15 @@ public class DashboardOverviewDTO {
     // Tổng doanh thu
     private double totalRevenue;
 
+    // Số khách phân biệt đã đặt đơn (gần đúng, HyperLogLog)
+    private long uniqueCustomersToday;
+    private long uniqueCustomersThisMonth;
+    private long uniqueCustomersThisYear;
+
+    // Số khách quay lại: đặt đơn trong kỳ và đã từng đặt trước kỳ (gần đúng)
+    private long repeatCustomersToday;
+    private long repeatCustomersThisMonth;
+
     public long getTotalProducts() {
         return totalProducts;
     }
@@ -56,4 +65,44 @@ public class DashboardOverviewDTO {
     public void setTotalRevenue(double totalRevenue) {
         this.totalRevenue = totalRevenue;
     }
+
+    public long getUniqueCustomersToday() {
+        return uniqueCustomersToday;
+    }
+
+    public void setUniqueCustomersToday(long uniqueCustomersToday) {
+        this.uniqueCustomersToday = uniqueCustomersToday;
+    }
+
+    public long getUniqueCustomersThisMonth() {
+        return uniqueCustomersThisMonth;
+    }
+
+    public void setUniqueCustomersThisMonth(long uniqueCustomersThisMonth) {
+        this.uniqueCustomersThisMonth = uniqueCustomersThisMonth;
+    }
+
+    public long getUniqueCustomersThisYear() {
+        return uniqueCustomersThisYear;
+    }
+
+    public void setUniqueCustomersThisYear(long uniqueCustomersThisYear) {
+        this.uniqueCustomersThisYear = uniqueCustomersThisYear;
+    }
+
+    public long getRepeatCustomersToday() {
+        return repeatCustomersToday;
+    }
+
+    public void setRepeatCustomersToday(long repeatCustomersToday) {
+        this.repeatCustomersToday = repeatCustomersToday;
+    }
+
+    public long getRepeatCustomersThisMonth() {
+        return repeatCustomersThisMonth;
+    }
+
+    public void setRepeatCustomersThisMonth(long repeatCustomersThisMonth) {
+        this.repeatCustomersThisMonth = repeatCustomersThisMonth;
+    }
 }
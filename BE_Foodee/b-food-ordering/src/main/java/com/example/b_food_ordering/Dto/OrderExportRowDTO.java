@@ -0,0 +1,120 @@
+package com.example.b_food_ordering.Dto;
+
+import com.example.b_food_ordering.Entity.Order;
+import com.example.b_food_ordering.Entity.Payment;
+
+import java.time.LocalDateTime;
+
+// 1 dòng xuất file = 1 món trong 1 đơn (dữ liệu đơn lặp lại trên mỗi dòng).
+// Dựng thẳng bằng constructor expression trong JPQL, không đi qua entity.
+public class OrderExportRowDTO {
+    private final Long orderId;
+    private final LocalDateTime orderDate;
+    private final String fullname;
+    private final String email;
+    private final String phoneNumber;
+    private final String deliveryAddress;
+    private final Order.OrderStatus orderStatus;
+    private final Order.PaymentStatus paymentStatus;
+    private final Payment.PaymentMethod paymentMethod;
+    private final double totalAmount;
+    private final LocalDateTime deliveryDate;
+    private final Long itemId;
+    private final Long productId;
+    private final String productName;
+    private final int quantity;
+    private final double unitPrice;
+    private final double subtotal;
+
+    public OrderExportRowDTO(Long orderId, LocalDateTime orderDate, String fullname, String email,
+                             String phoneNumber, String deliveryAddress, Order.OrderStatus orderStatus,
+                             Order.PaymentStatus paymentStatus, Payment.PaymentMethod paymentMethod,
+                             double totalAmount, LocalDateTime deliveryDate, Long itemId, Long productId,
+                             String productName, int quantity, double unitPrice, double subtotal) {
+        this.orderId = orderId;
+        this.orderDate = orderDate;
+        this.fullname = fullname;
+        this.email = email;
+        this.phoneNumber = phoneNumber;
+        this.deliveryAddress = deliveryAddress;
+        this.orderStatus = orderStatus;
+        this.paymentStatus = paymentStatus;
+        this.paymentMethod = paymentMethod;
+        this.totalAmount = totalAmount;
+        this.deliveryDate = deliveryDate;
+        this.itemId = itemId;
+        this.productId = productId;
+        this.productName = productName;
+        this.quantity = quantity;
+        this.unitPrice = unitPrice;
+        this.subtotal = subtotal;
+    }
+
+    public Long getOrderId() {
+        return orderId;
+    }
+
+    public LocalDateTime getOrderDate() {
+        return orderDate;
+    }
+
+    public String getFullname() {
+        return fullname;
+    }
+
+    public String getEmail() {
+        return email;
+    }
+
+    public String getPhoneNumber() {
+        return phoneNumber;
+    }
+
+    public String getDeliveryAddress() {
+        return deliveryAddress;
+    }
+
+    public Order.OrderStatus getOrderStatus() {
+        return orderStatus;
+    }
+
+    public Order.PaymentStatus getPaymentStatus() {
+        return paymentStatus;
+    }
+
+    public Payment.PaymentMethod getPaymentMethod() {
+        return paymentMethod;
+    }
+
+    public double getTotalAmount() {
+        return totalAmount;
+    }
+
+    public LocalDateTime getDeliveryDate() {
+        return deliveryDate;
+    }
+
+    public Long getItemId() {
+        return itemId;
+    }
+
+    public Long getProductId() {
+        return productId;
+    }
+
+    public String getProductName() {
+        return productName;
+    }
+
+    public int getQuantity() {
+        return quantity;
+    }
+
+    public double getUnitPrice() {
+        return unitPrice;
+    }
+
+    public double getSubtotal() {
+        return subtotal;
+    }
+}
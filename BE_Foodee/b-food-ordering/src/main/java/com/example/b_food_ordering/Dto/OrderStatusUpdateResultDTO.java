@@ -0,0 +1,57 @@
+package com.example.b_food_ordering.Dto;
+
+// Kết quả cập nhật trạng thái cho từng đơn trong thao tác hàng loạt
+public class OrderStatusUpdateResultDTO {
+
+    public enum Outcome {
+        UPDATED,            // đã chuyển sang trạng thái mới
+        UNCHANGED,          // đơn đã ở trạng thái đó sẵn
+        NOT_FOUND,          // không có đơn
+        INVALID_TRANSITION, // không được phép chuyển từ trạng thái hiện tại
+        CONFLICT            // trạng thái bị thay đổi đồng thời bởi thao tác khác
+    }
+
+    private Long orderId;
+    private Outcome outcome;
+    private String previousStatus;
+    private String orderStatus;
+
+    public OrderStatusUpdateResultDTO(Long orderId, Outcome outcome, String previousStatus, String orderStatus) {
+        this.orderId = orderId;
+        this.outcome = outcome;
+        this.previousStatus = previousStatus;
+        this.orderStatus = orderStatus;
+    }
+
+    public Long getOrderId() {
+        return orderId;
+    }
+
+    public void setOrderId(Long orderId) {
+        this.orderId = orderId;
+    }
+
+    public Outcome getOutcome() {
+        return outcome;
+    }
+
+    public void setOutcome(Outcome outcome) {
+        this.outcome = outcome;
+    }
+
+    public String getPreviousStatus() {
+        return previousStatus;
+    }
+
+    public void setPreviousStatus(String previousStatus) {
+        this.previousStatus = previousStatus;
+    }
+
+    public String getOrderStatus() {
+        return orderStatus;
+    }
+
+    public void setOrderStatus(String orderStatus) {
+        this.orderStatus = orderStatus;
+    }
+}
@@ -0,0 +1,85 @@
+package com.example.b_food_ordering.Dto;
+
+import com.example.b_food_ordering.Entity.Order;
+
+import java.time.LocalDateTime;
+
+// 1 dòng trong danh sách đơn của người dùng; dựng thẳng bằng constructor expression trong JPQL.
+// Chi tiết đầy đủ lấy qua GET /api/orders/{id}.
+public class OrderSummaryDTO {
+    private Long id;
+    private LocalDateTime orderDate;
+    private String orderStatus;
+    private String paymentStatus;
+    private double totalAmount;
+    private long itemCount;
+    private String firstItemImage;
+
+    public OrderSummaryDTO(Long id, LocalDateTime orderDate, Order.OrderStatus orderStatus,
+                           Order.PaymentStatus paymentStatus, double totalAmount,
+                           Long itemCount, String firstItemImage) {
+        this.id = id;
+        this.orderDate = orderDate;
+        this.orderStatus = orderStatus != null ? orderStatus.name() : null;
+        this.paymentStatus = paymentStatus != null ? paymentStatus.name() : null;
+        this.totalAmount = totalAmount;
+        this.itemCount = itemCount != null ? itemCount : 0;
+        this.firstItemImage = firstItemImage;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public LocalDateTime getOrderDate() {
+        return orderDate;
+    }
+
+    public void setOrderDate(LocalDateTime orderDate) {
+        this.orderDate = orderDate;
+    }
+
+    public String getOrderStatus() {
+        return orderStatus;
+    }
+
+    public void setOrderStatus(String orderStatus) {
+        this.orderStatus = orderStatus;
+    }
+
+    public String getPaymentStatus() {
+        return paymentStatus;
+    }
+
+    public void setPaymentStatus(String paymentStatus) {
+        this.paymentStatus = paymentStatus;
+    }
+
+    public double getTotalAmount() {
+        return totalAmount;
+    }
+
+    public void setTotalAmount(double totalAmount) {
+        this.totalAmount = totalAmount;
+    }
+
+    public long getItemCount() {
+        return itemCount;
+    }
+
+    public void setItemCount(long itemCount) {
+        this.itemCount = itemCount;
+    }
+
+    public String getFirstItemImage() {
+        return firstItemImage;
+    }
+
+    public void setFirstItemImage(String firstItemImage) {
+        this.firstItemImage = firstItemImage;
+    }
+}
@@ -16,6 +16,9 @@ public class ProductDTO {
     private String status; 
     private Long categoryId; 
     private String categoryName; 
+    private long ratingCount;
+    private double averageRating;
+    private long[] ratingHistogram; // số lượt 1..5 sao
 
     public ProductDTO() {}
 
@@ -131,4 +134,28 @@ public class ProductDTO {
     public void setCategoryName(String categoryName) {
         this.categoryName = categoryName;
     }
+
+    public long getRatingCount() {
+        return ratingCount;
+    }
+
+    public void setRatingCount(long ratingCount) {
+        this.ratingCount = ratingCount;
+    }
+
+    public double getAverageRating() {
+        return averageRating;
+    }
+
+    public void setAverageRating(double averageRating) {
+        this.averageRating = averageRating;
+    }
+
+    public long[] getRatingHistogram() {
+        return ratingHistogram;
+    }
+
+    public void setRatingHistogram(long[] ratingHistogram) {
+        this.ratingHistogram = ratingHistogram;
+    }
 }
\ No newline at end of file
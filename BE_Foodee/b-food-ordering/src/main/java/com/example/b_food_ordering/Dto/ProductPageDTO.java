@@ -0,0 +1,82 @@
+package com.example.b_food_ordering.Dto;
+
+import java.util.List;
+
+// 1 trang danh sách món: phân trang theo số trang (page != null) hoặc theo con trỏ keyset (nextCursor).
+// totalElements / totalPages = null khi client không yêu cầu đếm tổng (bỏ qua query COUNT).
+public class ProductPageDTO {
+    private List<ProductDTO> items;
+    private Integer page;
+    private int size;
+    private boolean hasNext;
+    private String nextCursor;
+    private Long totalElements;
+    private Integer totalPages;
+
+    public ProductPageDTO(List<ProductDTO> items, Integer page, int size, boolean hasNext,
+                          String nextCursor, Long totalElements) {
+        this.items = items;
+        this.page = page;
+        this.size = size;
+        this.hasNext = hasNext;
+        this.nextCursor = nextCursor;
+        this.totalElements = totalElements;
+        this.totalPages = totalElements != null ? (int) ((totalElements + size - 1) / size) : null;
+    }
+
+    public List<ProductDTO> getItems() {
+        return items;
+    }
+
+    public void setItems(List<ProductDTO> items) {
+        this.items = items;
+    }
+
+    public Integer getPage() {
+        return page;
+    }
+
+    public void setPage(Integer page) {
+        this.page = page;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public void setSize(int size) {
+        this.size = size;
+    }
+
+    public boolean isHasNext() {
+        return hasNext;
+    }
+
+    public void setHasNext(boolean hasNext) {
+        this.hasNext = hasNext;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public void setNextCursor(String nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+
+    public Long getTotalElements() {
+        return totalElements;
+    }
+
+    public void setTotalElements(Long totalElements) {
+        this.totalElements = totalElements;
+    }
+
+    public Integer getTotalPages() {
+        return totalPages;
+    }
+
+    public void setTotalPages(Integer totalPages) {
+        this.totalPages = totalPages;
+    }
+}
@@ -0,0 +1,40 @@
+package com.example.b_food_ordering.Dto;
+
+// 1 gợi ý của ô tìm kiếm: chỉ loại (PRODUCT | CATEGORY | PRODUCT_TYPE), id và tên hiển thị
+public class SuggestionDTO {
+    private String type;
+    private Long id;
+    private String name;
+
+    public SuggestionDTO() {}
+
+    public SuggestionDTO(String type, Long id, String name) {
+        this.type = type;
+        this.id = id;
+        this.name = name;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public void setType(String type) {
+        this.type = type;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+}
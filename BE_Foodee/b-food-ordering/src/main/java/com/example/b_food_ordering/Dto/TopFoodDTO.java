@@ -11,5 +11,5 @@ public class TopFoodDTO {
     private Long productId;
     private String name;    // tên món
     private Long orders;    // số lượt đặt
-    private Double rating;  // tạm thời 0.0 nếu chưa có hệ thống đánh giá
+    private Double rating;  // điểm trung bình, 0.0 nếu chưa có đánh giá
 }
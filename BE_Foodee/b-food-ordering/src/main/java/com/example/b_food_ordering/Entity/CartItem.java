@@ -48,7 +48,9 @@ public class CartItem {
 	}
 
 	@Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "cart_items_gen")
+    @TableGenerator(name = "cart_items_gen", table = "id_generators", pkColumnName = "gen_name",
+            valueColumnName = "next_val", pkColumnValue = "cart_items", allocationSize = 50)
     private Long id;
 
     @ManyToOne
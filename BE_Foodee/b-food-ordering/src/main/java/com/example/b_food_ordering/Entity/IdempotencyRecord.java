@@ -0,0 +1,67 @@
+package com.example.b_food_ordering.Entity;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+// Kết quả đã hoàn tất của 1 request có Idempotency-Key (để trả lại khi client gửi lại)
+@Entity
+@Table(name = "idempotency_keys")
+public class IdempotencyRecord {
+
+    // userId:endpoint:key -> key chỉ có nghĩa trong phạm vi 1 user + 1 API
+    @Id
+    @Column(name = "id_key", length = 191)
+    private String idKey;
+
+    @Column(nullable = false, length = 64)
+    private String requestHash;
+
+    @Column(nullable = false, columnDefinition = "TEXT")
+    private String responseBody;
+
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(nullable = false)
+    private LocalDateTime expiresAt;
+
+    public String getIdKey() {
+        return idKey;
+    }
+
+    public void setIdKey(String idKey) {
+        this.idKey = idKey;
+    }
+
+    public String getRequestHash() {
+        return requestHash;
+    }
+
+    public void setRequestHash(String requestHash) {
+        this.requestHash = requestHash;
+    }
+
+    public String getResponseBody() {
+        return responseBody;
+    }
+
+    public void setResponseBody(String responseBody) {
+        this.responseBody = responseBody;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    public LocalDateTime getExpiresAt() {
+        return expiresAt;
+    }
+
+    public void setExpiresAt(LocalDateTime expiresAt) {
+        this.expiresAt = expiresAt;
+    }
+}
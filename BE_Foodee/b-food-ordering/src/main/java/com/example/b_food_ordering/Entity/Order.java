@@ -11,9 +11,27 @@ import java.util.List;
 @Entity
 @Data
 @Table(name = "orders")
+// Nạp sẵn user + item + product trong 1 query để tránh N+1 khi dựng OrderDTO
+@NamedEntityGraph(
+        name = "Order.details",
+        attributeNodes = {
+                @NamedAttributeNode(value = "user", subgraph = "user"),
+                @NamedAttributeNode(value = "orderItems", subgraph = "items")
+        },
+        subgraphs = {
+                @NamedSubgraph(name = "user", attributeNodes = @NamedAttributeNode("roles")),
+                @NamedSubgraph(name = "items", attributeNodes = @NamedAttributeNode(value = "product", subgraph = "product")),
+                @NamedSubgraph(name = "product", attributeNodes = {
+                        @NamedAttributeNode("productType"),
+                        @NamedAttributeNode("category")
+                })
+        }
+)
 public class Order {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "orders_gen")
+    @TableGenerator(name = "orders_gen", table = "id_generators", pkColumnName = "gen_name",
+            valueColumnName = "next_val", pkColumnValue = "orders", allocationSize = 50)
     private Long id;
 
     @ManyToOne
@@ -36,6 +36,33 @@ public class Product {
     @JoinColumn(name = "category_id")
     private Category category; 
 
+    // Giá bán = discountedPrice > 0 ? discountedPrice : originalPrice, cột sinh sẵn (STORED) trong DB để lọc / sắp xếp có index
+    @Column(name = "selling_price", insertable = false, updatable = false)
+    private double sellingPrice;
+
+    // Tổng hợp đánh giá, chỉ cập nhật bằng câu UPDATE cộng dồn (ProductRepository.addRating)
+    // và job đối soát, không bao giờ ghi đè khi lưu entity
+    @Column(name = "rating_count", insertable = false, updatable = false)
+    private long ratingCount;
+
+    @Column(name = "rating_sum", insertable = false, updatable = false)
+    private long ratingSum;
+
+    @Column(name = "rating_1", insertable = false, updatable = false)
+    private long rating1;
+
+    @Column(name = "rating_2", insertable = false, updatable = false)
+    private long rating2;
+
+    @Column(name = "rating_3", insertable = false, updatable = false)
+    private long rating3;
+
+    @Column(name = "rating_4", insertable = false, updatable = false)
+    private long rating4;
+
+    @Column(name = "rating_5", insertable = false, updatable = false)
+    private long rating5;
+
     public Long getId() {
         return id;
     }
@@ -115,4 +142,25 @@ public class Product {
     public void setCategory(Category category) {
         this.category = category;
     }
+
+    public double getSellingPrice() {
+        return sellingPrice;
+    }
+
+    public long getRatingCount() {
+        return ratingCount;
+    }
+
+    public long getRatingSum() {
+        return ratingSum;
+    }
+
+    public double getAverageRating() {
+        return ratingCount > 0 ? (double) ratingSum / ratingCount : 0.0;
+    }
+
+    // Số lượt đánh giá 1..5 sao (phần tử 0 = 1 sao)
+    public long[] getRatingHistogram() {
+        return new long[]{rating1, rating2, rating3, rating4, rating5};
+    }
 }
\ No newline at end of file
@@ -0,0 +1,69 @@
+package com.example.b_food_ordering.Event;
+
+import com.example.b_food_ordering.Entity.Booking;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+
+// Phát ra khi 1 đơn đặt bàn được tạo hoặc bị xoá. Mang sẵn thông tin cần hiển thị
+// để listener không phải đọc lại DB.
+public class BookingLifecycleEvent {
+
+    public enum Type {
+        CREATED, DELETED
+    }
+
+    private final Type type;
+    private final Long bookingId;
+    private final String username;
+    private final Integer numberOfGuests;
+    private final LocalDate bookingDate;
+    private final LocalTime bookingTime;
+    private final LocalDateTime createdAt;
+
+    public BookingLifecycleEvent(Type type, Long bookingId, String username, Integer numberOfGuests,
+                                 LocalDate bookingDate, LocalTime bookingTime, LocalDateTime createdAt) {
+        this.type = type;
+        this.bookingId = bookingId;
+        this.username = username;
+        this.numberOfGuests = numberOfGuests;
+        this.bookingDate = bookingDate;
+        this.bookingTime = bookingTime;
+        this.createdAt = createdAt;
+    }
+
+    public static BookingLifecycleEvent of(Type type, Booking booking) {
+        String username = booking.getUser() != null ? booking.getUser().getUsername() : null;
+        return new BookingLifecycleEvent(type, booking.getId(), username, booking.getNumberOfGuests(),
+                booking.getBookingDate(), booking.getBookingTime(), booking.getCreatedAt());
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public Long getBookingId() {
+        return bookingId;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public Integer getNumberOfGuests() {
+        return numberOfGuests;
+    }
+
+    public LocalDate getBookingDate() {
+        return bookingDate;
+    }
+
+    public LocalTime getBookingTime() {
+        return bookingTime;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+}
@@ -0,0 +1,26 @@
+package com.example.b_food_ordering.Event;
+
+// Phát ra khi dữ liệu public thay đổi (món, danh mục, loại món, tổng hợp đánh giá, tin tức).
+// Listener nhận sau khi transaction commit (xem CatalogCacheService, ResourceVersions).
+public class CatalogChangedEvent {
+
+    public enum Source {
+        PRODUCT, CATEGORY, PRODUCT_TYPE, RATING, NEWS
+    }
+
+    private final Source source;
+    private final Long id;
+
+    public CatalogChangedEvent(Source source, Long id) {
+        this.source = source;
+        this.id = id;
+    }
+
+    public Source getSource() {
+        return source;
+    }
+
+    public Long getId() {
+        return id;
+    }
+}
@@ -0,0 +1,102 @@
+package com.example.b_food_ordering.Event;
+
+import com.example.b_food_ordering.Entity.Order;
+import com.example.b_food_ordering.Entity.OrderItem;
+import com.example.b_food_ordering.Entity.Product;
+
+import java.time.LocalDateTime;
+import java.util.StringJoiner;
+
+// Phát ra khi 1 đơn được tạo hoặc bị xoá. Mang sẵn số liệu của đơn
+// để listener không phải đọc lại DB (đơn mới có thể chưa được flush, đơn bị xoá thì đã mất).
+public class OrderLifecycleEvent {
+
+    public enum Type {
+        CREATED, DELETED
+    }
+
+    private final Type type;
+    private final Long orderId;
+    private final LocalDateTime orderDate;
+    private final Order.OrderStatus orderStatus;
+    private final Order.PaymentStatus paymentStatus;
+    private final double totalAmount;
+    private final long itemQuantity;
+    private final Long userId;
+    private final String username;
+    // "Tên món (xSL) [Loại món], ..." cho feed hoạt động gần đây
+    private final String itemSummary;
+
+    public OrderLifecycleEvent(Type type, Long orderId, LocalDateTime orderDate,
+                               Order.OrderStatus orderStatus, Order.PaymentStatus paymentStatus,
+                               double totalAmount, long itemQuantity, Long userId, String username, String itemSummary) {
+        this.type = type;
+        this.orderId = orderId;
+        this.orderDate = orderDate;
+        this.orderStatus = orderStatus;
+        this.paymentStatus = paymentStatus;
+        this.totalAmount = totalAmount;
+        this.itemQuantity = itemQuantity;
+        this.userId = userId;
+        this.username = username;
+        this.itemSummary = itemSummary;
+    }
+
+    public static OrderLifecycleEvent of(Type type, Order order) {
+        long itemQuantity = 0;
+        StringJoiner itemSummary = new StringJoiner(", ");
+        for (OrderItem item : order.getOrderItems()) {
+            itemQuantity += item.getQuantity();
+            Product product = item.getProduct();
+            if (product != null) {
+                itemSummary.add(product.getName() + " (x" + item.getQuantity() + ")"
+                        + (product.getProductType() != null ? " [" + product.getProductType().getName() + "]" : ""));
+            }
+        }
+        Long userId = order.getUser() != null ? order.getUser().getId() : null;
+        String username = order.getUser() != null ? order.getUser().getUsername() : null;
+        return new OrderLifecycleEvent(type, order.getId(), order.getOrderDate(),
+                order.getOrderStatus(), order.getPaymentStatus(), order.getTotalAmount(), itemQuantity,
+                userId, username, itemSummary.toString());
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public Long getOrderId() {
+        return orderId;
+    }
+
+    public LocalDateTime getOrderDate() {
+        return orderDate;
+    }
+
+    public Order.OrderStatus getOrderStatus() {
+        return orderStatus;
+    }
+
+    public Order.PaymentStatus getPaymentStatus() {
+        return paymentStatus;
+    }
+
+    public double getTotalAmount() {
+        return totalAmount;
+    }
+
+    public long getItemQuantity() {
+        return itemQuantity;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public String getItemSummary() {
+        return itemSummary;
+    }
+}
@@ -0,0 +1,96 @@
+package com.example.b_food_ordering.Event;
+
+import com.example.b_food_ordering.Entity.Order;
+import com.example.b_food_ordering.Entity.OrderItem;
+
+import java.time.LocalDateTime;
+
+// Phát ra khi trạng thái đơn hoặc trạng thái thanh toán của 1 đơn thay đổi.
+// Listener nhận sau khi transaction commit (xem OrderStreamService).
+// Mang sẵn ngày đặt / tổng tiền / số lượng món để DailySalesRollupService không phải đọc lại đơn.
+public class OrderStatusChangedEvent {
+    private final Long orderId;
+    private final Long userId;
+    private final Order.OrderStatus previousOrderStatus;
+    private final Order.OrderStatus orderStatus;
+    private final Order.PaymentStatus previousPaymentStatus;
+    private final Order.PaymentStatus paymentStatus;
+    private final LocalDateTime orderDate;
+    private final double totalAmount;
+    private final long itemQuantity;
+    private final LocalDateTime changedAt;
+
+    public OrderStatusChangedEvent(Long orderId, Long userId,
+                                   Order.OrderStatus previousOrderStatus, Order.OrderStatus orderStatus,
+                                   Order.PaymentStatus previousPaymentStatus, Order.PaymentStatus paymentStatus,
+                                   LocalDateTime orderDate, double totalAmount, long itemQuantity,
+                                   LocalDateTime changedAt) {
+        this.orderId = orderId;
+        this.userId = userId;
+        this.previousOrderStatus = previousOrderStatus;
+        this.orderStatus = orderStatus;
+        this.previousPaymentStatus = previousPaymentStatus;
+        this.paymentStatus = paymentStatus;
+        this.orderDate = orderDate;
+        this.totalAmount = totalAmount;
+        this.itemQuantity = itemQuantity;
+        this.changedAt = changedAt;
+    }
+
+    // Dựng event từ đơn sau khi đổi; null nếu không có gì thay đổi
+    public static OrderStatusChangedEvent of(Order order, Order.OrderStatus previousOrderStatus,
+                                             Order.PaymentStatus previousPaymentStatus) {
+        if (order.getOrderStatus() == previousOrderStatus && order.getPaymentStatus() == previousPaymentStatus) {
+            return null;
+        }
+        long itemQuantity = 0;
+        for (OrderItem item : order.getOrderItems()) {
+            itemQuantity += item.getQuantity();
+        }
+        return new OrderStatusChangedEvent(order.getId(), order.getUser().getId(),
+                previousOrderStatus, order.getOrderStatus(),
+                previousPaymentStatus, order.getPaymentStatus(),
+                order.getOrderDate(), order.getTotalAmount(), itemQuantity,
+                LocalDateTime.now());
+    }
+
+    public Long getOrderId() {
+        return orderId;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public Order.OrderStatus getPreviousOrderStatus() {
+        return previousOrderStatus;
+    }
+
+    public Order.OrderStatus getOrderStatus() {
+        return orderStatus;
+    }
+
+    public Order.PaymentStatus getPreviousPaymentStatus() {
+        return previousPaymentStatus;
+    }
+
+    public Order.PaymentStatus getPaymentStatus() {
+        return paymentStatus;
+    }
+
+    public LocalDateTime getOrderDate() {
+        return orderDate;
+    }
+
+    public double getTotalAmount() {
+        return totalAmount;
+    }
+
+    public long getItemQuantity() {
+        return itemQuantity;
+    }
+
+    public LocalDateTime getChangedAt() {
+        return changedAt;
+    }
+}
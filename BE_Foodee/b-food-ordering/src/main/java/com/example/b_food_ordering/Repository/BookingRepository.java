@@ -1,15 +1,31 @@
 package com.example.b_food_ordering.Repository;
 
 import com.example.b_food_ordering.Entity.Booking;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
 import java.util.List;
 
 public interface BookingRepository extends JpaRepository<Booking, Long> {
 
-    // Hàm cũ - đang được StatisticsService sử dụng
+    // Hàm cũ
     List<Booking> findByUserUsername(String username);
 
+    // Đặt bàn của nhiều user trong 1 query: [userId, số khách, ngày đặt], mới nhất trước
+    @Query("SELECT b.user.id, b.numberOfGuests, b.bookingDate " +
+            "FROM Booking b WHERE b.user.id IN :userIds " +
+            "ORDER BY b.user.id, b.bookingDate DESC, b.id DESC")
+    List<Object[]> findSummariesByUserIds(@Param("userIds") Collection<Long> userIds);
+
+    // Đặt bàn mới nhất cho feed hoạt động (index idx_bookings_created):
+    // [id, username, số khách, ngày đặt, giờ đặt, thời điểm tạo]
+    @Query("SELECT b.id, b.user.username, b.numberOfGuests, b.bookingDate, b.bookingTime, b.createdAt " +
+            "FROM Booking b ORDER BY b.createdAt DESC, b.id DESC")
+    List<Object[]> findRecentActivityRows(Pageable pageable);
+
     // Hàm mới: lịch sử đặt bàn của 1 user, mới nhất -> cũ nhất
     List<Booking> findByUserUsernameOrderByCreatedAtDesc(String username);
 
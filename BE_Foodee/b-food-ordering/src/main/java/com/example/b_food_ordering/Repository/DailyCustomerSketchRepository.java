@@ -0,0 +1,72 @@
+package com.example.b_food_ordering.Repository;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.function.BiConsumer;
+
+// Bảng daily_customer_sketch: 1 dòng / ngày, cột sketch = thanh ghi HyperLogLog của user_id đã đặt đơn
+@Repository
+public class DailyCustomerSketchRepository {
+
+    // Dòng đánh dấu đã dựng lại từ orders (ngày nhỏ nhất MySQL hỗ trợ, không trùng ngày có đơn)
+    private static final Date BACKFILL_MARKER = Date.valueOf(LocalDate.of(1000, 1, 1));
+
+    private final NamedParameterJdbcTemplate jdbc;
+
+    @Autowired
+    public DailyCustomerSketchRepository(NamedParameterJdbcTemplate jdbc) {
+        this.jdbc = jdbc;
+    }
+
+    // Giành quyền dựng lại (gọi trong transaction): true nếu dòng đánh dấu chưa có và vừa được chèn.
+    // Instance khác đang dựng thì câu này chờ nó commit rồi trả false.
+    public boolean claimBackfill() {
+        return jdbc.update("INSERT IGNORE INTO daily_customer_sketch (sketch_date, sketch, updated_at) " +
+                        "VALUES (:marker, :sketch, NOW(6))",
+                new MapSqlParameterSource("marker", BACKFILL_MARKER).addValue("sketch", new byte[0])) == 1;
+    }
+
+    // Khoá dòng của ngày để gộp rồi ghi lại (gọi trong transaction); null nếu chưa có
+    public byte[] findForUpdate(LocalDate sketchDate) {
+        List<byte[]> rows = jdbc.query(
+                "SELECT sketch FROM daily_customer_sketch WHERE sketch_date = :sketchDate FOR UPDATE",
+                new MapSqlParameterSource("sketchDate", Date.valueOf(sketchDate)),
+                (rs, i) -> rs.getBytes("sketch"));
+        return rows.isEmpty() ? null : rows.get(0);
+    }
+
+    public void save(LocalDate sketchDate, byte[] sketch) {
+        jdbc.update("INSERT INTO daily_customer_sketch (sketch_date, sketch, updated_at) " +
+                        "VALUES (:sketchDate, :sketch, NOW(6)) " +
+                        "ON DUPLICATE KEY UPDATE sketch = VALUES(sketch), updated_at = VALUES(updated_at)",
+                new MapSqlParameterSource("sketchDate", Date.valueOf(sketchDate)).addValue("sketch", sketch));
+    }
+
+    // Duyệt sketch của mọi ngày trước before (tăng dần theo ngày), bỏ qua dòng đánh dấu
+    public void forEachBefore(LocalDate before, BiConsumer<LocalDate, byte[]> consumer) {
+        jdbc.query("SELECT sketch_date, sketch FROM daily_customer_sketch " +
+                        "WHERE sketch_date > :marker AND sketch_date < :before ORDER BY sketch_date",
+                new MapSqlParameterSource("before", Date.valueOf(before)).addValue("marker", BACKFILL_MARKER),
+                (RowCallbackHandler) rs -> consumer.accept(rs.getDate("sketch_date").toLocalDate(), rs.getBytes("sketch")));
+    }
+
+    // Dựng lại từ đầu: mọi cặp (ngày đặt, user) phân biệt trong orders + orders_archive, đọc dạng streaming
+    public void streamOrderCustomers(BiConsumer<LocalDate, Long> consumer) {
+        String sql = "SELECT DISTINCT DATE(order_date) AS order_day, user_id FROM orders " +
+                "UNION SELECT DATE(order_date), user_id FROM orders_archive";
+        jdbc.getJdbcTemplate().query(con -> {
+            PreparedStatement ps = con.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            ps.setFetchSize(Integer.MIN_VALUE);
+            return ps;
+        }, (RowCallbackHandler) rs -> consumer.accept(rs.getDate("order_day").toLocalDate(), rs.getLong("user_id")));
+    }
+}
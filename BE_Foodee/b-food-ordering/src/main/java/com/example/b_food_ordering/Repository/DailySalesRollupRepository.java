@@ -0,0 +1,109 @@
+package com.example.b_food_ordering.Repository;
+
+import com.example.b_food_ordering.Entity.Order;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Bảng daily_sales_rollup: 1 dòng / (ngày, trạng thái đơn, trạng thái thanh toán)
+@Repository
+public class DailySalesRollupRepository {
+
+    private final NamedParameterJdbcTemplate jdbc;
+
+    @Autowired
+    public DailySalesRollupRepository(NamedParameterJdbcTemplate jdbc) {
+        this.jdbc = jdbc;
+    }
+
+    // Delta (có thể âm) cộng vào 1 ô (ngày, trạng thái đơn, trạng thái thanh toán)
+    public record Delta(LocalDate salesDate, Order.OrderStatus orderStatus, Order.PaymentStatus paymentStatus,
+                        long orderCount, double revenue, long itemQuantity) {
+    }
+
+    // Cộng dồn các delta vào ô tương ứng, tạo dòng nếu chưa có.
+    // Gửi dạng batch (rewriteBatchedStatements gộp thành 1 câu INSERT nhiều dòng).
+    public void addDeltas(Collection<Delta> deltas) {
+        if (deltas.isEmpty()) {
+            return;
+        }
+        SqlParameterSource[] params = new SqlParameterSource[deltas.size()];
+        int i = 0;
+        for (Delta delta : deltas) {
+            params[i++] = new MapSqlParameterSource("salesDate", Date.valueOf(delta.salesDate()))
+                    .addValue("orderStatus", delta.orderStatus().name())
+                    .addValue("paymentStatus", delta.paymentStatus().name())
+                    .addValue("orderCount", delta.orderCount())
+                    .addValue("revenue", delta.revenue())
+                    .addValue("itemQuantity", delta.itemQuantity());
+        }
+        jdbc.batchUpdate("INSERT INTO daily_sales_rollup " +
+                        "(sales_date, order_status, payment_status, order_count, revenue, item_quantity) " +
+                        "VALUES (:salesDate, :orderStatus, :paymentStatus, :orderCount, :revenue, :itemQuantity) " +
+                        "ON DUPLICATE KEY UPDATE order_count = order_count + VALUES(order_count), " +
+                        "  revenue = revenue + VALUES(revenue), item_quantity = item_quantity + VALUES(item_quantity)",
+                params);
+    }
+
+    // Dựng lại toàn bộ bảng từ orders + orders_archive. Gọi trong 1 transaction.
+    public int rebuild() {
+        jdbc.getJdbcTemplate().update("DELETE FROM daily_sales_rollup");
+        return jdbc.getJdbcTemplate().update(
+                "INSERT INTO daily_sales_rollup " +
+                        "(sales_date, order_status, payment_status, order_count, revenue, item_quantity) " +
+                        "SELECT DATE(o.order_date), o.order_status, o.payment_status, COUNT(*), " +
+                        "       SUM(o.total_amount), COALESCE(SUM(q.quantity), 0) " +
+                        "FROM (SELECT id, order_date, order_status, payment_status, total_amount FROM orders " +
+                        "      UNION ALL " +
+                        "      SELECT id, order_date, order_status, payment_status, total_amount FROM orders_archive) o " +
+                        "LEFT JOIN (SELECT order_id, SUM(quantity) AS quantity FROM order_items GROUP BY order_id " +
+                        "           UNION ALL " +
+                        "           SELECT order_id, SUM(quantity) FROM order_items_archive GROUP BY order_id) q " +
+                        "  ON q.order_id = o.id " +
+                        "GROUP BY DATE(o.order_date), o.order_status, o.payment_status");
+    }
+
+    // ================== Đọc cho dashboard ==================
+
+    // tháng (1-12) -> doanh thu trong [start, end)
+    public Map<Integer, Double> sumRevenueByMonth(LocalDate start, LocalDate end) {
+        Map<Integer, Double> result = new HashMap<>();
+        jdbc.query("SELECT MONTH(sales_date), SUM(revenue) FROM daily_sales_rollup " +
+                        "WHERE sales_date >= :start AND sales_date < :end " +
+                        "GROUP BY MONTH(sales_date) HAVING SUM(order_count) > 0",
+                new MapSqlParameterSource("start", Date.valueOf(start)).addValue("end", Date.valueOf(end)),
+                rs -> {
+                    result.put(rs.getInt(1), rs.getDouble(2));
+                });
+        return result;
+    }
+
+    // [orderStatus, count] trong [start, end)
+    public List<Object[]> countOrdersByStatus(LocalDate start, LocalDate end) {
+        return jdbc.query("SELECT order_status, SUM(order_count) FROM daily_sales_rollup " +
+                        "WHERE sales_date >= :start AND sales_date < :end GROUP BY order_status",
+                new MapSqlParameterSource("start", Date.valueOf(start)).addValue("end", Date.valueOf(end)),
+                (rs, i) -> new Object[]{Order.OrderStatus.valueOf(rs.getString(1)), rs.getLong(2)});
+    }
+
+    public long sumOrderCount() {
+        Long count = jdbc.getJdbcTemplate().queryForObject(
+                "SELECT COALESCE(SUM(order_count), 0) FROM daily_sales_rollup", Long.class);
+        return count != null ? count : 0;
+    }
+
+    public double sumRevenue() {
+        Double sum = jdbc.getJdbcTemplate().queryForObject(
+                "SELECT COALESCE(SUM(revenue), 0) FROM daily_sales_rollup", Double.class);
+        return sum != null ? sum : 0;
+    }
+}
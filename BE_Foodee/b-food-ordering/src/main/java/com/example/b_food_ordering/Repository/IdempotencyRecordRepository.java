@@ -0,0 +1,22 @@
+package com.example.b_food_ordering.Repository;
+
+import com.example.b_food_ordering.Entity.IdempotencyRecord;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+
+public interface IdempotencyRecordRepository extends JpaRepository<IdempotencyRecord, String> {
+
+    // Xoá các key đã hết hạn
+    @Modifying
+    @Query("DELETE FROM IdempotencyRecord r WHERE r.expiresAt < :now")
+    int deleteExpired(@Param("now") LocalDateTime now);
+
+    // Xoá bản ghi đã hết hạn (chưa kịp dọn) của 1 key trước khi ghi lại key đó
+    @Modifying
+    @Query("DELETE FROM IdempotencyRecord r WHERE r.idKey = :idKey AND r.expiresAt <= :now")
+    int deleteExpiredKey(@Param("idKey") String idKey, @Param("now") LocalDateTime now);
+}
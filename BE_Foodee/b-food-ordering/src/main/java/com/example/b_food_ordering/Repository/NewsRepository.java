@@ -2,6 +2,7 @@ package com.example.b_food_ordering.Repository;
 
 import com.example.b_food_ordering.Entity.News;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -9,4 +10,8 @@ import java.util.List;
 @Repository
 public interface NewsRepository extends JpaRepository<News, Long> {
     List<News> findByTitleContainingIgnoreCase(String title);
+
+    @Query(value = "SELECT CONCAT(COUNT(*), ':', COALESCE(SUM(CRC32(CONCAT_WS('|', " +
+            "id, title, description, image_url, news_url, timestamp))), 0)) FROM news", nativeQuery = true)
+    String contentFingerprint();
 }
\ No newline at end of file
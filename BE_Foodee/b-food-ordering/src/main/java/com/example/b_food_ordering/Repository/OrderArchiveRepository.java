@@ -0,0 +1,254 @@
+package com.example.b_food_ordering.Repository;
+
+import com.example.b_food_ordering.Dto.OrderDTO;
+import com.example.b_food_ordering.Dto.OrderExportRowDTO;
+import com.example.b_food_ordering.Dto.OrderItemDTO;
+import com.example.b_food_ordering.Dto.OrderSummaryDTO;
+import com.example.b_food_ordering.Entity.Order;
+import com.example.b_food_ordering.Entity.Payment;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+// Truy cập orders_archive / order_items_archive bằng JDBC (2 bảng này không map entity)
+@Repository
+public class OrderArchiveRepository {
+
+    private static final String ORDER_COLUMNS = "id, delivery_address, delivery_date, email, fullname, order_date, " +
+            "order_status, payment_status, phone_number, total_amount, user_id";
+
+    // Điều kiện keyset (order_date, id) giảm dần, giống các query trên bảng orders
+    // Chỉ thêm khi có cursor, để trang đầu không mang điều kiện ":cursorDate IS NULL OR ..." chặn index
+    private static final String KEYSET = " AND (o.order_date < :cursorDate " +
+            "OR (o.order_date = :cursorDate AND o.id < :cursorId)) ";
+
+    private final NamedParameterJdbcTemplate jdbc;
+
+    @Autowired
+    public OrderArchiveRepository(NamedParameterJdbcTemplate jdbc) {
+        this.jdbc = jdbc;
+    }
+
+    // ================== Chuyển đơn sang archive ==================
+
+    // Khoá (FOR UPDATE) 1 lô đơn đủ điều kiện; bỏ qua đơn đã có đánh giá (reviews còn tham chiếu tới orders)
+    public List<Long> lockArchivableOrderIds(LocalDateTime olderThan, int limit) {
+        return jdbc.queryForList(
+                "SELECT o.id FROM orders o " +
+                        "WHERE o.order_status IN ('DELIVERED', 'CANCELLED') AND o.order_date < :olderThan " +
+                        "  AND NOT EXISTS (SELECT 1 FROM reviews r WHERE r.order_id = o.id) " +
+                        "ORDER BY o.id LIMIT :limit FOR UPDATE",
+                new MapSqlParameterSource("olderThan", Timestamp.valueOf(olderThan)).addValue("limit", limit),
+                Long.class);
+    }
+
+    // Chép đơn + món sang archive rồi xoá khỏi bảng chính (payments -> order_items -> orders).
+    // Gọi trong 1 transaction.
+    public void moveToArchive(Collection<Long> orderIds, LocalDateTime archivedAt) {
+        MapSqlParameterSource params = new MapSqlParameterSource("ids", orderIds)
+                .addValue("archivedAt", Timestamp.valueOf(archivedAt));
+        jdbc.update("INSERT INTO orders_archive (" + ORDER_COLUMNS + ", payment_method, archived_at) " +
+                "SELECT o.id, o.delivery_address, o.delivery_date, o.email, o.fullname, o.order_date, " +
+                "       o.order_status, o.payment_status, o.phone_number, o.total_amount, o.user_id, " +
+                "       p.payment_method, :archivedAt " +
+                "FROM orders o LEFT JOIN payments p ON p.order_id = o.id WHERE o.id IN (:ids)", params);
+        jdbc.update("INSERT INTO order_items_archive (id, quantity, subtotal, unit_price, order_id, product_id) " +
+                "SELECT id, quantity, subtotal, unit_price, order_id, product_id " +
+                "FROM order_items WHERE order_id IN (:ids)", params);
+        jdbc.update("DELETE FROM payments WHERE order_id IN (:ids)", params);
+        jdbc.update("DELETE FROM order_items WHERE order_id IN (:ids)", params);
+        jdbc.update("DELETE FROM orders WHERE id IN (:ids)", params);
+    }
+
+    // Ngày đặt mới nhất trong archive (mọi đơn archive đều có order_date <= giá trị này)
+    public Optional<LocalDateTime> findMaxOrderDate() {
+        Timestamp max = jdbc.getJdbcTemplate().queryForObject("SELECT MAX(order_date) FROM orders_archive", Timestamp.class);
+        return Optional.ofNullable(max).map(Timestamp::toLocalDateTime);
+    }
+
+    // ================== Đọc đơn của người dùng ==================
+
+    public List<OrderSummaryDTO> findSummariesByUser(Long userId, LocalDateTime cursorDate, Long cursorId, int limit) {
+        return jdbc.query(
+                "SELECT o.id, o.order_date, o.order_status, o.payment_status, o.total_amount, " +
+                        "  (SELECT COUNT(*) FROM order_items_archive oi WHERE oi.order_id = o.id) AS item_count, " +
+                        "  (SELECT p.img FROM order_items_archive fi JOIN products p ON p.id = fi.product_id " +
+                        "    WHERE fi.order_id = o.id ORDER BY fi.id LIMIT 1) AS first_image " +
+                        "FROM orders_archive o WHERE o.user_id = :userId" + keyset(cursorDate, cursorId) +
+                        "ORDER BY o.order_date DESC, o.id DESC LIMIT :limit",
+                keysetParams(userId, cursorDate, cursorId, limit),
+                (rs, i) -> new OrderSummaryDTO(
+                        rs.getLong("id"),
+                        rs.getTimestamp("order_date").toLocalDateTime(),
+                        Order.OrderStatus.valueOf(rs.getString("order_status")),
+                        Order.PaymentStatus.valueOf(rs.getString("payment_status")),
+                        rs.getDouble("total_amount"),
+                        rs.getLong("item_count"),
+                        rs.getString("first_image")));
+    }
+
+    // limit null = lấy hết
+    public List<OrderDTO> findOrdersByUser(Long userId, LocalDateTime cursorDate, Long cursorId, Integer limit) {
+        String sql = "SELECT o.* FROM orders_archive o WHERE o.user_id = :userId" + keyset(cursorDate, cursorId) +
+                "ORDER BY o.order_date DESC, o.id DESC" + (limit != null ? " LIMIT :limit" : "");
+        List<OrderDTO> orders = jdbc.query(sql, keysetParams(userId, cursorDate, cursorId, limit),
+                (rs, i) -> mapOrder(rs));
+        attachItems(orders);
+        return orders;
+    }
+
+    // userId null = admin (không kiểm tra chủ đơn)
+    public Optional<OrderDTO> findOrder(Long orderId, Long userId) {
+        List<OrderDTO> orders = jdbc.query(
+                "SELECT o.* FROM orders_archive o WHERE o.id = :id AND (:userId IS NULL OR o.user_id = :userId)",
+                new MapSqlParameterSource("id", orderId).addValue("userId", userId),
+                (rs, i) -> mapOrder(rs));
+        attachItems(orders);
+        return orders.stream().findFirst();
+    }
+
+    public boolean existsById(Long orderId) {
+        Integer count = jdbc.queryForObject("SELECT COUNT(*) FROM orders_archive WHERE id = :id",
+                new MapSqlParameterSource("id", orderId), Integer.class);
+        return count != null && count > 0;
+    }
+
+    // ================== Xuất file ==================
+
+    /**
+     * Dòng xuất file của cả orders và orders_archive trong [start, end), sắp theo (order_date, order_id, item_id).
+     * Đọc dạng streaming (fetch size Integer.MIN_VALUE) giống OrderItemRepository.streamExportRows.
+     * Phải gọi trong transaction và đóng Stream sau khi dùng.
+     */
+    public Stream<OrderExportRowDTO> streamExportRowsWithArchive(LocalDateTime start, LocalDateTime end) {
+        // Chỉ thêm mốc ngày có giá trị để MySQL quét theo khoảng trên index order_date của từng bảng
+        String range = " WHERE 1 = 1" +
+                (start != null ? " AND o.order_date >= ?" : "") +
+                (end != null ? " AND o.order_date < ?" : "") + " ";
+        String sql = "SELECT * FROM (" +
+                "  SELECT o.id AS order_id, o.order_date, o.fullname, o.email, o.phone_number, o.delivery_address, " +
+                "         o.order_status, o.payment_status, pay.payment_method, o.total_amount, o.delivery_date, " +
+                "         oi.id AS item_id, p.id AS product_id, p.name AS product_name, oi.quantity, oi.unit_price, oi.subtotal " +
+                "  FROM order_items oi JOIN orders o ON o.id = oi.order_id JOIN products p ON p.id = oi.product_id " +
+                "  LEFT JOIN payments pay ON pay.order_id = o.id" + range +
+                "  UNION ALL " +
+                "  SELECT o.id, o.order_date, o.fullname, o.email, o.phone_number, o.delivery_address, " +
+                "         o.order_status, o.payment_status, o.payment_method, o.total_amount, o.delivery_date, " +
+                "         oi.id, p.id, p.name, oi.quantity, oi.unit_price, oi.subtotal " +
+                "  FROM order_items_archive oi JOIN orders_archive o ON o.id = oi.order_id " +
+                "  JOIN products p ON p.id = oi.product_id" + range +
+                ") rows_all ORDER BY order_date, order_id, item_id";
+        Timestamp from = start != null ? Timestamp.valueOf(start) : null;
+        Timestamp to = end != null ? Timestamp.valueOf(end) : null;
+
+        return jdbc.getJdbcTemplate().queryForStream(con -> {
+            PreparedStatement ps = con.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            ps.setFetchSize(Integer.MIN_VALUE);
+            int index = 1;
+            for (int part = 0; part < 2; part++) {
+                if (from != null) {
+                    ps.setTimestamp(index++, from);
+                }
+                if (to != null) {
+                    ps.setTimestamp(index++, to);
+                }
+            }
+            return ps;
+        }, (rs, i) -> new OrderExportRowDTO(
+                rs.getLong("order_id"),
+                rs.getTimestamp("order_date").toLocalDateTime(),
+                rs.getString("fullname"),
+                rs.getString("email"),
+                rs.getString("phone_number"),
+                rs.getString("delivery_address"),
+                Order.OrderStatus.valueOf(rs.getString("order_status")),
+                Order.PaymentStatus.valueOf(rs.getString("payment_status")),
+                paymentMethod(rs.getString("payment_method")),
+                rs.getDouble("total_amount"),
+                toLocalDateTime(rs.getTimestamp("delivery_date")),
+                rs.getLong("item_id"),
+                rs.getLong("product_id"),
+                rs.getString("product_name"),
+                rs.getInt("quantity"),
+                rs.getDouble("unit_price"),
+                rs.getDouble("subtotal")));
+    }
+
+    // ================== Helpers ==================
+
+    // Nạp món cho các đơn archive bằng 1 query IN (...)
+    private void attachItems(List<OrderDTO> orders) {
+        if (orders.isEmpty()) {
+            return;
+        }
+        Map<Long, OrderDTO> byId = new LinkedHashMap<>();
+        for (OrderDTO order : orders) {
+            order.setOrderItems(new ArrayList<>());
+            byId.put(order.getId(), order);
+        }
+        jdbc.query("SELECT oi.id, oi.order_id, oi.product_id, oi.quantity, oi.unit_price, oi.subtotal, p.name, p.img " +
+                        "FROM order_items_archive oi LEFT JOIN products p ON p.id = oi.product_id " +
+                        "WHERE oi.order_id IN (:ids) ORDER BY oi.id",
+                new MapSqlParameterSource("ids", byId.keySet()),
+                rs -> {
+                    OrderItemDTO item = new OrderItemDTO();
+                    item.setId(rs.getLong("id"));
+                    item.setProductId(rs.getLong("product_id"));
+                    item.setProductName(rs.getString("name"));
+                    item.setProductImage(rs.getString("img"));
+                    item.setQuantity(rs.getInt("quantity"));
+                    item.setUnitPrice(rs.getDouble("unit_price"));
+                    item.setSubtotal(rs.getDouble("subtotal"));
+                    byId.get(rs.getLong("order_id")).getOrderItems().add(item);
+                });
+    }
+
+    private static OrderDTO mapOrder(ResultSet rs) throws SQLException {
+        OrderDTO order = new OrderDTO();
+        order.setId(rs.getLong("id"));
+        order.setFullname(rs.getString("fullname"));
+        order.setEmail(rs.getString("email"));
+        order.setPhoneNumber(rs.getString("phone_number"));
+        order.setDeliveryAddress(rs.getString("delivery_address"));
+        order.setOrderDate(rs.getTimestamp("order_date").toLocalDateTime());
+        order.setDeliveryDate(toLocalDateTime(rs.getTimestamp("delivery_date")));
+        order.setOrderStatus(rs.getString("order_status"));
+        order.setPaymentStatus(rs.getString("payment_status"));
+        order.setPaymentMethod(rs.getString("payment_method"));
+        order.setTotalAmount(rs.getDouble("total_amount"));
+        return order;
+    }
+
+    private static String keyset(LocalDateTime cursorDate, Long cursorId) {
+        return cursorDate != null && cursorId != null ? KEYSET : " ";
+    }
+
+    private static MapSqlParameterSource keysetParams(Long userId, LocalDateTime cursorDate, Long cursorId, Integer limit) {
+        return new MapSqlParameterSource("userId", userId)
+                .addValue("cursorDate", cursorDate != null ? Timestamp.valueOf(cursorDate) : null)
+                .addValue("cursorId", cursorId)
+                .addValue("limit", limit);
+    }
+
+    private static LocalDateTime toLocalDateTime(Timestamp timestamp) {
+        return timestamp != null ? timestamp.toLocalDateTime() : null;
+    }
+
+    private static Payment.PaymentMethod paymentMethod(String value) {
+        return value != null ? Payment.PaymentMethod.valueOf(value) : null;
+    }
+}
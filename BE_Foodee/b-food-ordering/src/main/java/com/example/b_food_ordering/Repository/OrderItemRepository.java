@@ -3,27 +3,92 @@ package com.example.b_food_ordering.Repository;
 import com.example.b_food_ordering.Dto.TopFoodDTO;
 import com.example.b_food_ordering.Entity.Order;
 import com.example.b_food_ordering.Entity.OrderItem;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
 import java.util.List;
 
-public interface OrderItemRepository extends JpaRepository<OrderItem, Long> {
+public interface OrderItemRepository extends JpaRepository<OrderItem, Long>, OrderItemRepositoryCustom {
 
     @Query("SELECT new com.example.b_food_ordering.Dto.TopFoodDTO(" +
-            "   oi.product.id, " +
-            "   oi.product.name, " +
+            "   p.id, " +
+            "   p.name, " +
             "   COUNT(oi.id), " +
-            "   0.0 " +                 // tạm chưa có rating thật
+            "   CASE WHEN p.ratingCount > 0 THEN p.ratingSum * 1.0 / p.ratingCount ELSE 0.0 END " +
             ") " +
-            "FROM OrderItem oi " +
+            "FROM OrderItem oi JOIN oi.product p " +
             "WHERE oi.order.paymentStatus = :paymentStatus " +
             "  AND oi.order.orderStatus = :orderStatus " +
-            "GROUP BY oi.product.id, oi.product.name " +
+            "GROUP BY p.id, p.name, p.ratingCount, p.ratingSum " +
             "ORDER BY COUNT(oi.id) DESC")
     List<TopFoodDTO> findTopFoods(
             @Param("paymentStatus") Order.PaymentStatus paymentStatus,
             @Param("orderStatus") Order.OrderStatus orderStatus
     );
+
+    // Món bán chạy: [productId, name, img, doanh thu, tổng số lượng] theo tổng số lượng giảm dần.
+    // Doanh thu tính theo đơn giá lúc đặt (oi.unitPrice), không theo giá hiện tại của món.
+    // Gom nhóm trong DB, chỉ trả về đúng số dòng của trang (LIMIT theo Pageable).
+    @Query("SELECT p.id, p.name, p.img, " +
+            "   SUM(oi.unitPrice * oi.quantity), " +
+            "   SUM(oi.quantity) " +
+            "FROM OrderItem oi " +
+            "JOIN oi.order o " +
+            "JOIN oi.product p " +
+            "WHERE o.orderStatus = :orderStatus " +
+            "GROUP BY p.id, p.name, p.img " +
+            "ORDER BY SUM(oi.quantity) DESC, p.id")
+    List<Object[]> findTopDishes(@Param("orderStatus") Order.OrderStatus orderStatus, Pageable pageable);
+
+    // Như findTopDishes nhưng tính cả đơn đã lưu trữ (orders_archive)
+    @Query(value = "SELECT p.id, p.name, p.img, " +
+            "   SUM(t.unit_price * t.quantity), " +
+            "   SUM(t.quantity) AS total_quantity " +
+            "FROM (SELECT oi.product_id, oi.quantity, oi.unit_price FROM order_items oi " +
+            "      JOIN orders o ON o.id = oi.order_id WHERE o.order_status = :orderStatus " +
+            "      UNION ALL " +
+            "      SELECT oi.product_id, oi.quantity, oi.unit_price FROM order_items_archive oi " +
+            "      JOIN orders_archive o ON o.id = oi.order_id WHERE o.order_status = :orderStatus) t " +
+            "JOIN products p ON p.id = t.product_id " +
+            "GROUP BY p.id, p.name, p.img " +
+            "ORDER BY total_quantity DESC, p.id " +
+            "LIMIT :limit", nativeQuery = true)
+    List<Object[]> findTopDishesWithArchive(@Param("orderStatus") String orderStatus, @Param("limit") int limit);
+
+    // Món đã đặt của nhiều user trong 1 query, gộp theo món:
+    // [userId, tên món, tên loại món, tổng số lượng], mỗi user sắp theo số lượng giảm dần
+    @Query("SELECT o.user.id, p.name, pt.name, SUM(oi.quantity) " +
+            "FROM OrderItem oi " +
+            "JOIN oi.order o " +
+            "JOIN oi.product p " +
+            "LEFT JOIN p.productType pt " +
+            "WHERE o.user.id IN :userIds " +
+            "GROUP BY o.user.id, p.id, p.name, pt.name " +
+            "ORDER BY o.user.id, SUM(oi.quantity) DESC, p.id")
+    List<Object[]> sumQuantitiesByUserIds(@Param("userIds") Collection<Long> userIds);
+
+    // Như sumQuantitiesByUserIds nhưng tính cả đơn đã lưu trữ
+    @Query(value = "SELECT t.user_id, p.name, pt.name, SUM(t.quantity) AS total_quantity " +
+            "FROM (SELECT o.user_id, oi.product_id, oi.quantity FROM order_items oi " +
+            "      JOIN orders o ON o.id = oi.order_id WHERE o.user_id IN (:userIds) " +
+            "      UNION ALL " +
+            "      SELECT o.user_id, oi.product_id, oi.quantity FROM order_items_archive oi " +
+            "      JOIN orders_archive o ON o.id = oi.order_id WHERE o.user_id IN (:userIds)) t " +
+            "JOIN products p ON p.id = t.product_id " +
+            "LEFT JOIN product_types pt ON pt.id = p.product_type_id " +
+            "GROUP BY t.user_id, p.id, p.name, pt.name " +
+            "ORDER BY t.user_id, total_quantity DESC, p.id", nativeQuery = true)
+    List<Object[]> sumQuantitiesByUserIdsWithArchive(@Param("userIds") Collection<Long> userIds);
+
+    // [productId, số lượng] của các món thuộc nhiều đơn
+    @Query("SELECT oi.product.id, oi.quantity FROM OrderItem oi WHERE oi.order.id IN :orderIds")
+    List<Object[]> findProductQuantitiesByOrderIds(@Param("orderIds") Collection<Long> orderIds);
+
+    // Số món khác nhau từng xuất hiện trong đơn (cả đơn đã lưu trữ)
+    @Query(value = "SELECT COUNT(*) FROM (SELECT product_id FROM order_items " +
+            "UNION SELECT product_id FROM order_items_archive) p", nativeQuery = true)
+    long countDistinctOrderedProducts();
 }
@@ -0,0 +1,14 @@
+package com.example.b_food_ordering.Repository;
+
+import com.example.b_food_ordering.Dto.OrderExportRowDTO;
+
+import java.time.LocalDateTime;
+import java.util.stream.Stream;
+
+// Các query của OrderItemRepository cần dựng WHERE động (xem OrderItemRepositoryImpl)
+public interface OrderItemRepositoryCustom {
+
+    // Xuất đơn hàng: đọc tuần tự từng dòng (đơn x món) trong [startDate, endDate), null = không giới hạn.
+    // Phải gọi trong transaction và đóng Stream sau khi dùng.
+    Stream<OrderExportRowDTO> streamExportRows(LocalDateTime startDate, LocalDateTime endDate);
+}
@@ -0,0 +1,52 @@
+package com.example.b_food_ordering.Repository;
+
+import com.example.b_food_ordering.Dto.OrderExportRowDTO;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+import org.hibernate.jpa.HibernateHints;
+
+import java.time.LocalDateTime;
+import java.util.stream.Stream;
+
+// Chỉ đưa vào WHERE các mốc ngày có giá trị (không dùng ":x IS NULL OR ..."),
+// để MySQL quét theo khoảng trên idx_orders_date_id và không phải filesort
+public class OrderItemRepositoryImpl implements OrderItemRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public Stream<OrderExportRowDTO> streamExportRows(LocalDateTime startDate, LocalDateTime endDate) {
+        StringBuilder jpql = new StringBuilder("SELECT new com.example.b_food_ordering.Dto.OrderExportRowDTO(" +
+                "   o.id, o.orderDate, o.fullname, o.email, o.phoneNumber, o.deliveryAddress, " +
+                "   o.orderStatus, o.paymentStatus, pay.paymentMethod, o.totalAmount, o.deliveryDate, " +
+                "   oi.id, p.id, p.name, oi.quantity, oi.unitPrice, oi.subtotal" +
+                ") " +
+                "FROM OrderItem oi " +
+                "JOIN oi.order o " +
+                "JOIN oi.product p " +
+                "LEFT JOIN Payment pay ON pay.order = o " +
+                "WHERE 1 = 1");
+        if (startDate != null) {
+            jpql.append(" AND o.orderDate >= :startDate");
+        }
+        if (endDate != null) {
+            jpql.append(" AND o.orderDate < :endDate");
+        }
+        jpql.append(" ORDER BY o.orderDate, o.id, oi.id");
+
+        TypedQuery<OrderExportRowDTO> query = entityManager.createQuery(jpql.toString(), OrderExportRowDTO.class);
+        if (startDate != null) {
+            query.setParameter("startDate", startDate);
+        }
+        if (endDate != null) {
+            query.setParameter("endDate", endDate);
+        }
+        // Fetch size = Integer.MIN_VALUE -> MySQL Connector/J trả kết quả dạng streaming, từng dòng một
+        return query.setHint(HibernateHints.HINT_FETCH_SIZE, Integer.MIN_VALUE)
+                .setHint(HibernateHints.HINT_READ_ONLY, true)
+                .setHint(HibernateHints.HINT_CACHEABLE, false)
+                .getResultStream();
+    }
+}
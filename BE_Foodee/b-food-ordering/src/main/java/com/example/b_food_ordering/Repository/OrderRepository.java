@@ -1,17 +1,129 @@
 package com.example.b_food_ordering.Repository;
 
+import com.example.b_food_ordering.Dto.OrderSummaryDTO;
 import com.example.b_food_ordering.Entity.Order;
 import com.example.b_food_ordering.Entity.User;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
-public interface OrderRepository extends JpaRepository<Order, Long> {
+public interface OrderRepository extends JpaRepository<Order, Long>, OrderRepositoryCustom {
+    // Nạp kèm item/product/user trong cùng 1 query (xem Order.details)
+    @EntityGraph("Order.details")
     List<Order> findByUser(User user);
 
+    @Override
+    @EntityGraph("Order.details")
+    List<Order> findAll();
+
+    @EntityGraph("Order.details")
+    Optional<Order> findWithDetailsById(Long id);
+
+    @EntityGraph("Order.details")
+    List<Order> findByIdIn(Collection<Long> ids);
+
+    // Cột của OrderSummaryDTO: số món và ảnh món đầu tiên lấy bằng subquery, không nạp item/product/payment/review
+    String SUMMARY_COLUMNS = "o.id, o.orderDate, o.orderStatus, o.paymentStatus, o.totalAmount, " +
+            "(SELECT COUNT(oi.id) FROM OrderItem oi WHERE oi.order = o), " +
+            "(SELECT p.img FROM OrderItem fi JOIN fi.product p " +
+            "  WHERE fi.id = (SELECT MIN(mi.id) FROM OrderItem mi WHERE mi.order = o))";
+
+    // Danh sách đơn rút gọn của 1 user, keyset trên (orderDate, id) giảm dần (index idx_orders_user_date).
+    // Trang đầu và các trang sau là 2 query riêng để không có điều kiện ":cursor IS NULL OR ..." chặn index.
+    default List<OrderSummaryDTO> findSummariesByUser(Long userId, LocalDateTime cursorDate, Long cursorId,
+                                                      Pageable pageable) {
+        return cursorDate == null || cursorId == null
+                ? findLatestSummariesByUser(userId, pageable)
+                : findSummariesByUserBefore(userId, cursorDate, cursorId, pageable);
+    }
+
+    @Query("SELECT new com.example.b_food_ordering.Dto.OrderSummaryDTO(" + SUMMARY_COLUMNS + ") " +
+            "FROM Order o " +
+            "WHERE o.user.id = :userId " +
+            "ORDER BY o.orderDate DESC, o.id DESC")
+    List<OrderSummaryDTO> findLatestSummariesByUser(@Param("userId") Long userId, Pageable pageable);
+
+    @Query("SELECT new com.example.b_food_ordering.Dto.OrderSummaryDTO(" + SUMMARY_COLUMNS + ") " +
+            "FROM Order o " +
+            "WHERE o.user.id = :userId " +
+            "  AND (o.orderDate < :cursorDate OR (o.orderDate = :cursorDate AND o.id < :cursorId)) " +
+            "ORDER BY o.orderDate DESC, o.id DESC")
+    List<OrderSummaryDTO> findSummariesByUserBefore(@Param("userId") Long userId,
+                                                    @Param("cursorDate") LocalDateTime cursorDate,
+                                                    @Param("cursorId") Long cursorId,
+                                                    Pageable pageable);
+
+    // Id đơn đầy đủ của 1 user theo cùng keyset (chi tiết nạp sau bằng findByIdIn)
+    default List<Long> findUserOrderIds(Long userId, LocalDateTime cursorDate, Long cursorId, Pageable pageable) {
+        return cursorDate == null || cursorId == null
+                ? findLatestUserOrderIds(userId, pageable)
+                : findUserOrderIdsBefore(userId, cursorDate, cursorId, pageable);
+    }
+
+    @Query("SELECT o.id FROM Order o WHERE o.user.id = :userId ORDER BY o.orderDate DESC, o.id DESC")
+    List<Long> findLatestUserOrderIds(@Param("userId") Long userId, Pageable pageable);
+
+    @Query("SELECT o.id FROM Order o " +
+            "WHERE o.user.id = :userId " +
+            "  AND (o.orderDate < :cursorDate OR (o.orderDate = :cursorDate AND o.id < :cursorId)) " +
+            "ORDER BY o.orderDate DESC, o.id DESC")
+    List<Long> findUserOrderIdsBefore(@Param("userId") Long userId,
+                                      @Param("cursorDate") LocalDateTime cursorDate,
+                                      @Param("cursorId") Long cursorId,
+                                      Pageable pageable);
+
+    // [id, orderStatus, paymentStatus, userId] của các đơn, không nạp entity
+    @Query("SELECT o.id, o.orderStatus, o.paymentStatus, o.user.id FROM Order o WHERE o.id IN :ids")
+    List<Object[]> findStatusesByIdIn(@Param("ids") Collection<Long> ids);
+
+    // Như findStatusesByIdIn, thêm [orderDate, totalAmount, tổng số lượng món] cho event đổi trạng thái hàng loạt
+    @Query("SELECT o.id, o.orderStatus, o.paymentStatus, o.user.id, o.orderDate, o.totalAmount, " +
+            "(SELECT COALESCE(SUM(i.quantity), 0) FROM OrderItem i WHERE i.order = o) " +
+            "FROM Order o WHERE o.id IN :ids")
+    List<Object[]> findStatusFiguresByIdIn(@Param("ids") Collection<Long> ids);
+
+    // Chuyển trạng thái hàng loạt, chỉ áp dụng cho đơn còn đang ở trạng thái nguồn
+    @Modifying
+    @Query("UPDATE Order o SET o.orderStatus = :target WHERE o.id IN :ids AND o.orderStatus = :source")
+    int updateStatusWhereStatus(@Param("ids") Collection<Long> ids,
+                                @Param("source") Order.OrderStatus source,
+                                @Param("target") Order.OrderStatus target);
+
+    // Khoá (FOR UPDATE) các đơn còn ở trạng thái nguồn: UPDATE ngay sau đó đổi đúng các đơn này,
+    // nơi khác không thể chen vào đổi trạng thái giữa 2 câu
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT o.id FROM Order o WHERE o.id IN :ids AND o.orderStatus = :status")
+    List<Long> lockIdsByIdInAndStatus(@Param("ids") Collection<Long> ids,
+                                      @Param("status") Order.OrderStatus status);
+
+    // [orderStatus, paymentStatus, userId] của 1 đơn, khoá dòng (FOR UPDATE) tới hết transaction (dùng bởi OrderStateMachine)
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT o.orderStatus, o.paymentStatus, o.user.id FROM Order o WHERE o.id = :id")
+    List<Object[]> lockStatusById(@Param("id") Long id);
+
+    // Compare-and-set trạng thái 1 đơn: trả về 1 nếu đơn đang ở trạng thái nguồn
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Order o SET o.orderStatus = :target WHERE o.id = :id AND o.orderStatus = :source")
+    int compareAndSetOrderStatus(@Param("id") Long id,
+                                 @Param("source") Order.OrderStatus source,
+                                 @Param("target") Order.OrderStatus target);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Order o SET o.paymentStatus = :target WHERE o.id = :id AND o.paymentStatus = :source")
+    int compareAndSetPaymentStatus(@Param("id") Long id,
+                                   @Param("source") Order.PaymentStatus source,
+                                   @Param("target") Order.PaymentStatus target);
+
     // Đếm số đơn theo trạng thái trong khoảng [startDate, endDate)
     @Query("SELECT o.orderStatus, COUNT(o.id) " +
             "FROM Order o " +
@@ -19,4 +131,22 @@ public interface OrderRepository extends JpaRepository<Order, Long> {
             "GROUP BY o.orderStatus")
     List<Object[]> countOrdersByStatusInRange(@Param("startDate") LocalDateTime startDate,
                                               @Param("endDate") LocalDateTime endDate);
+
+    // Xếp hạng người dùng theo tổng chi tiêu (gồm cả user chưa có đơn): [userId, username, tổng chi tiêu]
+    @Query("SELECT u.id, u.username, COALESCE(SUM(o.totalAmount), 0) " +
+            "FROM User u LEFT JOIN Order o ON o.user = u " +
+            "GROUP BY u.id, u.username " +
+            "ORDER BY COALESCE(SUM(o.totalAmount), 0) DESC, u.id")
+    List<Object[]> findTopSpenders(Pageable pageable);
+
+    // Như findTopSpenders nhưng tính cả đơn đã lưu trữ (orders_archive)
+    @Query(value = "SELECT u.id, u.username, COALESCE(SUM(t.total_amount), 0) AS spending " +
+            "FROM users u " +
+            "LEFT JOIN (SELECT user_id, total_amount FROM orders " +
+            "           UNION ALL " +
+            "           SELECT user_id, total_amount FROM orders_archive) t ON t.user_id = u.id " +
+            "GROUP BY u.id, u.username " +
+            "ORDER BY spending DESC, u.id " +
+            "LIMIT :limit", nativeQuery = true)
+    List<Object[]> findTopSpendersWithArchive(@Param("limit") int limit);
 }
@@ -0,0 +1,23 @@
+package com.example.b_food_ordering.Repository;
+
+import com.example.b_food_ordering.Entity.Order;
+import org.springframework.data.domain.Pageable;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+// Các query của OrderRepository cần dựng WHERE động (xem OrderRepositoryImpl)
+public interface OrderRepositoryCustom {
+
+    // Feed đơn hàng cho admin: phân trang keyset trên (orderDate, id) giảm dần.
+    // Tham số null = bỏ qua điều kiện đó. Chỉ lấy id, chi tiết nạp sau bằng findByIdIn.
+    List<Long> findAdminFeedIds(Order.OrderStatus orderStatus,
+                                Order.PaymentStatus paymentStatus,
+                                LocalDateTime startDate,
+                                LocalDateTime endDate,
+                                String email,
+                                String phoneNumber,
+                                LocalDateTime cursorDate,
+                                Long cursorId,
+                                Pageable pageable);
+}
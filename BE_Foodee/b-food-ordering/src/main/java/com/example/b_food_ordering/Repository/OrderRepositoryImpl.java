@@ -0,0 +1,73 @@
+package com.example.b_food_ordering.Repository;
+
+import com.example.b_food_ordering.Entity.Order;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.springframework.data.domain.Pageable;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+// Chỉ đưa vào WHERE các điều kiện có giá trị (không dùng ":x IS NULL OR ..."), để MySQL chọn đúng
+// index cho từng tổ hợp lọc: idx_orders_date_id / idx_orders_status_date / idx_orders_payment_date /
+// idx_orders_email / idx_orders_phone
+public class OrderRepositoryImpl implements OrderRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<Long> findAdminFeedIds(Order.OrderStatus orderStatus,
+                                       Order.PaymentStatus paymentStatus,
+                                       LocalDateTime startDate,
+                                       LocalDateTime endDate,
+                                       String email,
+                                       String phoneNumber,
+                                       LocalDateTime cursorDate,
+                                       Long cursorId,
+                                       Pageable pageable) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Long> query = cb.createQuery(Long.class);
+        Root<Order> order = query.from(Order.class);
+        Path<LocalDateTime> orderDate = order.get("orderDate");
+        Path<Long> id = order.get("id");
+
+        List<Predicate> where = new ArrayList<>();
+        if (orderStatus != null) {
+            where.add(cb.equal(order.get("orderStatus"), orderStatus));
+        }
+        if (paymentStatus != null) {
+            where.add(cb.equal(order.get("paymentStatus"), paymentStatus));
+        }
+        if (startDate != null) {
+            where.add(cb.greaterThanOrEqualTo(orderDate, startDate));
+        }
+        if (endDate != null) {
+            where.add(cb.lessThan(orderDate, endDate));
+        }
+        if (email != null) {
+            where.add(cb.equal(order.get("email"), email));
+        }
+        if (phoneNumber != null) {
+            where.add(cb.equal(order.get("phoneNumber"), phoneNumber));
+        }
+        if (cursorDate != null && cursorId != null) {
+            where.add(cb.or(cb.lessThan(orderDate, cursorDate),
+                    cb.and(cb.equal(orderDate, cursorDate), cb.lessThan(id, cursorId))));
+        }
+
+        query.select(id)
+                .where(where.toArray(new Predicate[0]))
+                .orderBy(cb.desc(orderDate), cb.desc(id));
+        return entityManager.createQuery(query)
+                .setFirstResult((int) pageable.getOffset())
+                .setMaxResults(pageable.getPageSize())
+                .getResultList();
+    }
+}
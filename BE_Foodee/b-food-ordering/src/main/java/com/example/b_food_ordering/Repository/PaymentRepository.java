@@ -2,9 +2,18 @@ package com.example.b_food_ordering.Repository;
 
 import com.example.b_food_ordering.Entity.Payment;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
+
 @Repository
 public interface PaymentRepository extends JpaRepository<Payment, Long> {
     Payment findByOrderId(Long orderId);
-}
\ No newline at end of file
+
+    // Lấy hình thức thanh toán của nhiều đơn trong 1 query: [orderId, paymentMethod]
+    @Query("SELECT p.order.id, p.paymentMethod FROM Payment p WHERE p.order.id IN :orderIds")
+    List<Object[]> findPaymentMethodsByOrderIds(@Param("orderIds") Collection<Long> orderIds);
+}
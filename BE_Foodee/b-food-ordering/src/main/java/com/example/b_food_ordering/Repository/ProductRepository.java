@@ -4,16 +4,20 @@ import com.example.b_food_ordering.Entity.Category;
 import com.example.b_food_ordering.Entity.Product;
 import com.example.b_food_ordering.Entity.ProductType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.stereotype.Repository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import com.example.b_food_ordering.Dto.ProductTypeStatsDTO;
 
 
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
-public interface ProductRepository extends JpaRepository<Product, Long> {
+public interface ProductRepository extends JpaRepository<Product, Long>, JpaSpecificationExecutor<Product> {
     @Query("SELECT new com.example.b_food_ordering.Dto.ProductTypeStatsDTO(pt.name, COUNT(p)) " +
             "FROM Product p JOIN p.productType pt " +
             "GROUP BY pt.name")
@@ -32,8 +36,9 @@ public interface ProductRepository extends JpaRepository<Product, Long> {
     // Tìm sản phẩm theo ID loại sản phẩm
     List<Product> findByProductTypeId(Long productTypeId);
 
-    // Tìm sản phẩm theo tên (gần đúng, không phân biệt hoa thường)
-    List<Product> findByNameContainingIgnoreCase(String name);
+    // Toàn bộ món kèm loại món và danh mục trong 1 query (nạp cache danh sách món)
+    @Query("SELECT p FROM Product p JOIN FETCH p.productType LEFT JOIN FETCH p.category ORDER BY p.id")
+    List<Product> findAllWithTypeAndCategory();
 
     // Kiểm tra sự tồn tại của sản phẩm theo tên
     boolean existsByName(String name);
@@ -46,4 +51,36 @@ public interface ProductRepository extends JpaRepository<Product, Long> {
 
     // 🔹 Đếm số sản phẩm theo trạng thái (AVAILABLE / OUT_OF_STOCK / DISCONTINUED)
     long countByStatus(String status);
+
+    // Cộng 1 đánh giá vào tổng hợp của món, nguyên tử trong 1 câu UPDATE (không đọc - sửa - ghi)
+    @Modifying
+    @Query("UPDATE Product p SET p.ratingCount = p.ratingCount + 1, p.ratingSum = p.ratingSum + :rating, " +
+            "p.rating1 = p.rating1 + CASE WHEN :rating = 1 THEN 1 ELSE 0 END, " +
+            "p.rating2 = p.rating2 + CASE WHEN :rating = 2 THEN 1 ELSE 0 END, " +
+            "p.rating3 = p.rating3 + CASE WHEN :rating = 3 THEN 1 ELSE 0 END, " +
+            "p.rating4 = p.rating4 + CASE WHEN :rating = 4 THEN 1 ELSE 0 END, " +
+            "p.rating5 = p.rating5 + CASE WHEN :rating = 5 THEN 1 ELSE 0 END " +
+            "WHERE p.id = :productId")
+    int addRating(@Param("productId") Long productId, @Param("rating") int rating);
+
+    // Tổng hợp đánh giá của nhiều món theo khoá chính: [productId, ratingCount, ratingSum]
+    @Query("SELECT p.id, p.ratingCount, p.ratingSum FROM Product p WHERE p.id IN :ids")
+    List<Object[]> findRatingAggregatesByIds(@Param("ids") Collection<Long> ids);
+
+    // Đối soát tổng hợp đánh giá với bảng reviews; chỉ ghi các món bị lệch, trả về số món đã sửa
+    @Modifying
+    @Query(value = "UPDATE products p " +
+            "LEFT JOIN (SELECT product_id, COUNT(*) AS cnt, SUM(rating) AS total, " +
+            "                  SUM(rating = 1) AS r1, SUM(rating = 2) AS r2, SUM(rating = 3) AS r3, " +
+            "                  SUM(rating = 4) AS r4, SUM(rating = 5) AS r5 " +
+            "           FROM reviews GROUP BY product_id) r ON r.product_id = p.id " +
+            "SET p.rating_count = COALESCE(r.cnt, 0), p.rating_sum = COALESCE(r.total, 0), " +
+            "    p.rating_1 = COALESCE(r.r1, 0), p.rating_2 = COALESCE(r.r2, 0), p.rating_3 = COALESCE(r.r3, 0), " +
+            "    p.rating_4 = COALESCE(r.r4, 0), p.rating_5 = COALESCE(r.r5, 0) " +
+            "WHERE p.rating_count <> COALESCE(r.cnt, 0) OR p.rating_sum <> COALESCE(r.total, 0) " +
+            "   OR p.rating_1 <> COALESCE(r.r1, 0) OR p.rating_2 <> COALESCE(r.r2, 0) " +
+            "   OR p.rating_3 <> COALESCE(r.r3, 0) OR p.rating_4 <> COALESCE(r.r4, 0) " +
+            "   OR p.rating_5 <> COALESCE(r.r5, 0)",
+            nativeQuery = true)
+    int repairRatingAggregates();
 }
\ No newline at end of file
@@ -0,0 +1,85 @@
+package com.example.b_food_ordering.Repository;
+
+import com.example.b_food_ordering.Entity.Product;
+import jakarta.persistence.criteria.JoinType;
+import jakarta.persistence.criteria.Path;
+import org.springframework.data.jpa.domain.Specification;
+
+// Các điều kiện lọc danh sách món cho ProductRepository (JpaSpecificationExecutor).
+// Mỗi hàm trả về null khi không lọc -> Specification.where / and tự bỏ qua.
+public final class ProductSpecifications {
+
+    private ProductSpecifications() {
+    }
+
+    // Nạp luôn loại món + danh mục trong cùng query (trừ query COUNT)
+    public static Specification<Product> fetchTypeAndCategory() {
+        return (root, query, cb) -> {
+            Class<?> resultType = query.getResultType();
+            if (resultType != Long.class && resultType != long.class) {
+                root.fetch("productType", JoinType.INNER);
+                root.fetch("category", JoinType.LEFT);
+            }
+            return null;
+        };
+    }
+
+    public static Specification<Product> hasCategory(Long categoryId) {
+        return categoryId == null ? null : (root, query, cb) -> cb.equal(root.get("category").get("id"), categoryId);
+    }
+
+    public static Specification<Product> hasProductType(Long productTypeId) {
+        return productTypeId == null ? null : (root, query, cb) -> cb.equal(root.get("productType").get("id"), productTypeId);
+    }
+
+    public static Specification<Product> hasStatus(String status) {
+        return status == null ? null : (root, query, cb) -> cb.equal(root.get("status"), status);
+    }
+
+    // Lọc theo giá bán (sellingPrice - giá khách trả, xem Product)
+    public static Specification<Product> priceBetween(Double minPrice, Double maxPrice) {
+        if (minPrice == null && maxPrice == null) {
+            return null;
+        }
+        return (root, query, cb) -> {
+            Path<Double> price = root.get("sellingPrice");
+            if (minPrice == null) {
+                return cb.lessThanOrEqualTo(price, maxPrice);
+            }
+            if (maxPrice == null) {
+                return cb.greaterThanOrEqualTo(price, minPrice);
+            }
+            return cb.between(price, minPrice, maxPrice);
+        };
+    }
+
+    // Cùng định nghĩa "đang giảm giá" với selling_price và giá trong giỏ / đơn: discountedPrice > 0 (và thấp hơn giá gốc)
+    public static Specification<Product> discountedOnly(boolean discounted) {
+        if (!discounted) {
+            return null;
+        }
+        return (root, query, cb) -> {
+            Path<Double> discountedPrice = root.get("discountedPrice");
+            return cb.and(cb.greaterThan(discountedPrice, 0.0),
+                    cb.lessThan(discountedPrice, root.<Double>get("originalPrice")));
+        };
+    }
+
+    // Keyset: các món đứng sau (value, id) theo thứ tự (attribute, id) tăng / giảm dần
+    public static <V extends Comparable<? super V>> Specification<Product> after(String attribute, V value, Long id,
+                                                                                boolean descending) {
+        if (value == null || id == null) {
+            return null;
+        }
+        return (root, query, cb) -> {
+            Path<V> path = root.get(attribute);
+            Path<Long> idPath = root.get("id");
+            if (descending) {
+                return cb.or(cb.lessThan(path, value),
+                        cb.and(cb.equal(path, value), cb.lessThan(idPath, id)));
+            }
+            return cb.or(cb.greaterThan(path, value),
+                    cb.and(cb.equal(path, value), cb.greaterThan(idPath, id)));
+        };
+    }
+}
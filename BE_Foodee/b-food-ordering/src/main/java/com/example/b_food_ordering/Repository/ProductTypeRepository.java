@@ -2,6 +2,7 @@ package com.example.b_food_ordering.Repository;
 
 import com.example.b_food_ordering.Entity.ProductType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import java.util.Optional;
@@ -9,4 +10,8 @@ import java.util.Optional;
 @Repository
 public interface ProductTypeRepository extends JpaRepository<ProductType, Long> {
     Optional<ProductType> findByName(String name);
+
+    @Query(value = "SELECT CONCAT(COUNT(*), ':', COALESCE(SUM(CRC32(CONCAT_WS('|', id, name))), 0)) FROM product_types",
+            nativeQuery = true)
+    String contentFingerprint();
 }
\ No newline at end of file
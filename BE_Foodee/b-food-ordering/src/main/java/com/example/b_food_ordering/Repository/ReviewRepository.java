@@ -5,7 +5,10 @@ import com.example.b_food_ordering.Entity.User;
 import com.example.b_food_ordering.Entity.Product;
 import com.example.b_food_ordering.Entity.Order;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
 import java.util.Optional;
 import java.util.List;
 
@@ -17,5 +20,9 @@ public interface ReviewRepository extends JpaRepository<Review, Long> {
 
     List<Review> findByProduct(Product product);
 
+    // Đánh giá của nhiều đơn trong 1 query: [orderId, productId, userId, rating, comment]
+    @Query("SELECT r.order.id, r.product.id, r.user.id, r.rating, r.comment " +
+            "FROM Review r WHERE r.order.id IN :orderIds")
+    List<Object[]> findRatingsByOrderIds(@Param("orderIds") Collection<Long> orderIds);
 
 }
@@ -0,0 +1,87 @@
+package com.example.b_food_ordering.Repository;
+
+import com.example.b_food_ordering.Entity.Order;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.function.Consumer;
+
+// Đọc dòng món (order_items + orders + products) để nạp vào SalesCube
+@Repository
+public class SalesCubeRepository {
+
+    // Dòng món đã join sẵn loại món / danh mục hiện tại của sản phẩm
+    public record Line(long orderId, long productId, String productName,
+                       long productTypeId, String productTypeName,
+                       Long categoryId, String categoryName,
+                       LocalDate orderDate, int quantity, double subtotal,
+                       Order.OrderStatus orderStatus, Order.PaymentStatus paymentStatus) {
+    }
+
+    private static final String SELECT = "SELECT oi.order_id, p.id AS product_id, p.name AS product_name, " +
+            "pt.id AS product_type_id, pt.name AS product_type_name, c.id AS category_id, c.name AS category_name, " +
+            "o.order_date, oi.quantity, oi.subtotal, o.order_status, o.payment_status ";
+
+    private static final String JOIN_PRODUCT = " JOIN products p ON p.id = oi.product_id " +
+            "JOIN product_types pt ON pt.id = p.product_type_id " +
+            "LEFT JOIN categories c ON c.id = p.category_id ";
+
+    private final NamedParameterJdbcTemplate jdbc;
+
+    @Autowired
+    public SalesCubeRepository(NamedParameterJdbcTemplate jdbc) {
+        this.jdbc = jdbc;
+    }
+
+    /**
+     * Toàn bộ dòng món, cả đơn đang hoạt động lẫn đã lưu trữ, đọc dạng streaming.
+     * Mỗi bảng sắp theo order_id (index idx_order_items_order_product / idx_order_items_archive_order)
+     * để các dòng của cùng 1 đơn luôn liền nhau.
+     */
+    public void streamAllLines(Consumer<Line> consumer) {
+        stream(SELECT + "FROM order_items oi JOIN orders o ON o.id = oi.order_id" + JOIN_PRODUCT +
+                "ORDER BY oi.order_id, oi.id", consumer);
+        stream(SELECT + "FROM order_items_archive oi JOIN orders_archive o ON o.id = oi.order_id" + JOIN_PRODUCT +
+                "ORDER BY oi.order_id, oi.id", consumer);
+    }
+
+    // Dòng món của 1 lô đơn mới (chỉ bảng chính), sắp theo order_id
+    public void findLinesByOrderIds(Collection<Long> orderIds, Consumer<Line> consumer) {
+        jdbc.query(SELECT + "FROM order_items oi JOIN orders o ON o.id = oi.order_id" + JOIN_PRODUCT +
+                        "WHERE oi.order_id IN (:orderIds) ORDER BY oi.order_id, oi.id",
+                new MapSqlParameterSource("orderIds", orderIds),
+                (RowCallbackHandler) rs -> consumer.accept(toLine(rs)));
+    }
+
+    private void stream(String sql, Consumer<Line> consumer) {
+        jdbc.getJdbcTemplate().query(con -> {
+            PreparedStatement ps = con.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            ps.setFetchSize(Integer.MIN_VALUE);
+            return ps;
+        }, (RowCallbackHandler) rs -> consumer.accept(toLine(rs)));
+    }
+
+    private static Line toLine(ResultSet rs) throws SQLException {
+        return new Line(
+                rs.getLong("order_id"),
+                rs.getLong("product_id"),
+                rs.getString("product_name"),
+                rs.getLong("product_type_id"),
+                rs.getString("product_type_name"),
+                rs.getObject("category_id", Long.class),
+                rs.getString("category_name"),
+                rs.getTimestamp("order_date").toLocalDateTime().toLocalDate(),
+                rs.getInt("quantity"),
+                rs.getDouble("subtotal"),
+                Order.OrderStatus.valueOf(rs.getString("order_status")),
+                Order.PaymentStatus.valueOf(rs.getString("payment_status")));
+    }
+}
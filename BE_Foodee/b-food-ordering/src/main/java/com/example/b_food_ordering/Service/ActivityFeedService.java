@@ -0,0 +1,208 @@
+package com.example.b_food_ordering.Service;
+
+import com.example.b_food_ordering.Entity.Order;
+import com.example.b_food_ordering.Event.BookingLifecycleEvent;
+import com.example.b_food_ordering.Event.OrderLifecycleEvent;
+import com.example.b_food_ordering.Repository.BookingRepository;
+import com.example.b_food_ordering.Repository.OrderRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Feed "hoạt động gần đây" (đặt đơn / đặt bàn) cho dashboard admin.
+ * - Mỗi loại giữ trong 1 ActivityRing, ghi từ event sau commit.
+ * - Lúc khởi động nạp sẵn bằng 2 query ORDER BY ... LIMIT capacity. Event tới trước khi nạp xong được giữ lại
+ *   và ghi sau lịch sử, để lịch sử (cũ hơn) không đè mất mục mới trong vòng đệm.
+ * - Đọc: ghép 2 danh sách đã sắp theo thời gian (merge 2 chiều), không chạm DB.
+ */
+@Service
+public class ActivityFeedService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ActivityFeedService.class);
+
+    private final OrderRepository orderRepository;
+    private final BookingRepository bookingRepository;
+    private final ActivityRing orders;
+    private final ActivityRing bookings;
+
+    // Ghi từ event tới trước khi prefill xong; sau đó ghi thẳng vào vòng đệm
+    private final Object prefillLock = new Object();
+    private final List<PendingWrite> beforePrefill = new ArrayList<>();
+    private volatile boolean prefilled;
+
+    @Autowired
+    public ActivityFeedService(OrderRepository orderRepository, BookingRepository bookingRepository,
+                               @Value("${app.activity-feed.capacity:256}") int capacity) {
+        this.orderRepository = orderRepository;
+        this.bookingRepository = bookingRepository;
+        this.orders = new ActivityRing(capacity);
+        this.bookings = new ActivityRing(capacity);
+    }
+
+    public List<String> getRecentActivities(int limit) {
+        int size = Math.min(Math.max(1, limit), orders.capacity());
+        ActivityRing.Entry[] orderEntries = new ActivityRing.Entry[size];
+        ActivityRing.Entry[] bookingEntries = new ActivityRing.Entry[size];
+        int orderCount = orders.snapshot(orderEntries, size);
+        int bookingCount = bookings.snapshot(bookingEntries, size);
+
+        List<String> activities = new ArrayList<>(Math.min(size, orderCount + bookingCount));
+        int i = 0;
+        int j = 0;
+        while (activities.size() < size && (i < orderCount || j < bookingCount)) {
+            boolean takeOrder = j >= bookingCount
+                    || (i < orderCount && !orderEntries[i].time.isBefore(bookingEntries[j].time));
+            activities.add(takeOrder ? orderEntries[i++].text : bookingEntries[j++].text);
+        }
+        return activities;
+    }
+
+    // ================== Ghi từ event ==================
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onOrderLifecycle(OrderLifecycleEvent event) {
+        if (event.getOrderId() == null) {
+            return;
+        }
+        if (event.getType() == OrderLifecycleEvent.Type.CREATED) {
+            write(new PendingWrite(orders, event.getOrderId(), event.getOrderDate(),
+                    describeOrder(event.getUsername(), event.getItemSummary(), event.getOrderDate())));
+        } else {
+            write(new PendingWrite(orders, event.getOrderId(), null, null));
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBookingLifecycle(BookingLifecycleEvent event) {
+        if (event.getBookingId() == null) {
+            return;
+        }
+        if (event.getType() == BookingLifecycleEvent.Type.CREATED) {
+            write(new PendingWrite(bookings, event.getBookingId(), event.getCreatedAt(), describeBooking(event.getUsername(),
+                    event.getNumberOfGuests(), event.getBookingDate(), event.getBookingTime())));
+        } else {
+            write(new PendingWrite(bookings, event.getBookingId(), null, null));
+        }
+    }
+
+    private void write(PendingWrite write) {
+        if (!prefilled) {
+            synchronized (prefillLock) {
+                if (!prefilled) {
+                    beforePrefill.add(write);
+                    return;
+                }
+            }
+        }
+        write.apply();
+    }
+
+    // ================== Nạp sẵn lúc khởi động ==================
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void prefill() {
+        try {
+            PageRequest page = PageRequest.of(0, orders.capacity());
+            List<Long> orderIds = orderRepository.findAdminFeedIds(null, null, null, null, null, null, null, null, page);
+            List<Order> recentOrders = new ArrayList<>(orderRepository.findByIdIn(orderIds));
+            // Ghi cũ trước, mới sau để thứ tự trong vòng đệm khớp thời gian
+            recentOrders.sort(Comparator.comparing(Order::getOrderDate, Comparator.nullsFirst(Comparator.naturalOrder()))
+                    .thenComparing(Order::getId));
+            for (Order order : recentOrders) {
+                OrderLifecycleEvent event = OrderLifecycleEvent.of(OrderLifecycleEvent.Type.CREATED, order);
+                orders.add(order.getId(), order.getOrderDate(),
+                        describeOrder(event.getUsername(), event.getItemSummary(), order.getOrderDate()));
+            }
+
+            // [id, username, số khách, ngày đặt, giờ đặt, thời điểm tạo], mới nhất trước
+            List<Object[]> rows = bookingRepository.findRecentActivityRows(PageRequest.of(0, bookings.capacity()));
+            for (int i = rows.size() - 1; i >= 0; i--) {
+                Object[] row = rows.get(i);
+                bookings.add((Long) row[0], (LocalDateTime) row[5],
+                        describeBooking((String) row[1], (Integer) row[2], (LocalDate) row[3], (LocalTime) row[4]));
+            }
+            logger.info("Đã nạp {} đơn hàng, {} đặt bàn vào feed hoạt động", recentOrders.size(), rows.size());
+        } catch (RuntimeException e) {
+            logger.error("Không thể nạp sẵn feed hoạt động: {}", e.getMessage(), e);
+        } finally {
+            replayPending();
+        }
+    }
+
+    // Ghi các event đã giữ lại (mới hơn lịch sử) rồi mở cho event ghi thẳng
+    private void replayPending() {
+        synchronized (prefillLock) {
+            Set<Long> seenOrders = sourceIds(orders);
+            Set<Long> seenBookings = sourceIds(bookings);
+            for (PendingWrite write : beforePrefill) {
+                // Đơn / đặt bàn commit trước query nạp sẵn thì đã có trong lịch sử
+                Set<Long> seen = write.ring == orders ? seenOrders : seenBookings;
+                if (write.text == null || seen.add(write.sourceId)) {
+                    write.apply();
+                }
+            }
+            beforePrefill.clear();
+            prefilled = true;
+        }
+    }
+
+    private static Set<Long> sourceIds(ActivityRing ring) {
+        ActivityRing.Entry[] entries = new ActivityRing.Entry[ring.capacity()];
+        int n = ring.snapshot(entries, entries.length);
+        Set<Long> ids = new HashSet<>();
+        for (int i = 0; i < n; i++) {
+            ids.add(entries[i].sourceId);
+        }
+        return ids;
+    }
+
+    private static String describeOrder(String username, String itemSummary, LocalDateTime orderDate) {
+        return "User " + username + " đặt đơn hàng: " + itemSummary + " vào " + orderDate;
+    }
+
+    private static String describeBooking(String username, Integer numberOfGuests,
+                                          LocalDate bookingDate, LocalTime bookingTime) {
+        return "User " + username + " đặt bàn cho " + numberOfGuests + " người vào " + bookingDate + " " + bookingTime;
+    }
+
+    // 1 lần ghi vào vòng đệm; text == null là xoá
+    private static final class PendingWrite {
+        private final ActivityRing ring;
+        private final long sourceId;
+        private final LocalDateTime time;
+        private final String text;
+
+        private PendingWrite(ActivityRing ring, long sourceId, LocalDateTime time, String text) {
+            this.ring = ring;
+            this.sourceId = sourceId;
+            this.time = time;
+            this.text = text;
+        }
+
+        void apply() {
+            if (text == null) {
+                ring.remove(sourceId);
+            } else {
+                ring.add(sourceId, time, text);
+            }
+        }
+    }
+}
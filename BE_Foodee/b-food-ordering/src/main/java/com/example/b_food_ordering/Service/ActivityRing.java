@@ -0,0 +1,85 @@
+package com.example.b_food_ordering.Service;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Vòng đệm (ring buffer) cố định kích thước, không khoá, giữ các hoạt động mới nhất.
+ * - Ghi: lấy số thứ tự bằng AtomicLong rồi set vào slot seq & mask, mục cũ nhất bị đè.
+ * - Đọc: duyệt ngược từ seq mới nhất; slot đã bị đè bởi mục mới hơn (seq khác) hoặc chưa ghi xong thì bỏ qua.
+ * - Xoá: CAS slot về null, không đè nhầm mục vừa ghi vào cùng slot.
+ */
+final class ActivityRing {
+
+    // Mục bất biến: seq để nhận ra slot đã bị ghi đè trong lúc đọc
+    static final class Entry {
+        final long seq;
+        final long sourceId;
+        final LocalDateTime time;
+        final String text;
+
+        Entry(long seq, long sourceId, LocalDateTime time, String text) {
+            this.seq = seq;
+            this.sourceId = sourceId;
+            this.time = time;
+            this.text = text;
+        }
+    }
+
+    private final AtomicReferenceArray<Entry> slots;
+    private final int mask;
+    private final AtomicLong next = new AtomicLong();
+
+    // capacity được làm tròn lên luỹ thừa 2
+    ActivityRing(int capacity) {
+        int size = Integer.highestOneBit(Math.max(2, capacity) - 1) << 1;
+        this.slots = new AtomicReferenceArray<>(size);
+        this.mask = size - 1;
+    }
+
+    int capacity() {
+        return slots.length();
+    }
+
+    void add(long sourceId, LocalDateTime time, String text) {
+        long seq = next.getAndIncrement();
+        slots.set((int) (seq & mask), new Entry(seq, sourceId, time != null ? time : LocalDateTime.MIN, text));
+    }
+
+    void remove(long sourceId) {
+        for (int i = 0; i < slots.length(); i++) {
+            Entry entry = slots.get(i);
+            if (entry != null && entry.sourceId == sourceId) {
+                slots.compareAndSet(i, entry, null);
+            }
+        }
+    }
+
+    /**
+     * Chép tối đa limit mục mới nhất vào out, sắp theo time giảm dần; trả về số mục đã chép.
+     * Thứ tự ghi gần như trùng thứ tự thời gian (chỉ lệch khi nhiều transaction commit đan xen)
+     * nên sắp chèn ở đây gần như O(n).
+     */
+    int snapshot(Entry[] out, int limit) {
+        long head = next.get();
+        long oldest = Math.max(0, head - slots.length());
+        int n = 0;
+        for (long seq = head - 1; seq >= oldest && n < limit; seq--) {
+            Entry entry = slots.get((int) (seq & mask));
+            if (entry != null && entry.seq == seq) {
+                out[n++] = entry;
+            }
+        }
+        for (int i = 1; i < n; i++) {
+            Entry entry = out[i];
+            int j = i - 1;
+            while (j >= 0 && out[j].time.isBefore(entry.time)) {
+                out[j + 1] = out[j];
+                j--;
+            }
+            out[j + 1] = entry;
+        }
+        return n;
+    }
+}
@@ -3,9 +3,11 @@ package com.example.b_food_ordering.Service;
 import com.example.b_food_ordering.Dto.BookingDTO;
 import com.example.b_food_ordering.Entity.Booking;
 import com.example.b_food_ordering.Entity.User;
+import com.example.b_food_ordering.Event.BookingLifecycleEvent;
 import com.example.b_food_ordering.Repository.BookingRepository;
 import com.example.b_food_ordering.Repository.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -19,11 +21,14 @@ public class BookingService {
 
     private final BookingRepository bookingRepository;
     private final UserRepository userRepository;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Autowired
-    public BookingService(BookingRepository bookingRepository, UserRepository userRepository) {
+    public BookingService(BookingRepository bookingRepository, UserRepository userRepository,
+                          ApplicationEventPublisher eventPublisher) {
         this.bookingRepository = bookingRepository;
         this.userRepository = userRepository;
+        this.eventPublisher = eventPublisher;
     }
 
     // Người dùng đặt bàn
@@ -46,7 +51,9 @@ public class BookingService {
         booking.setStatus(Booking.BookingStatus.PENDING);
         booking.setUser(user);
 
-        return bookingRepository.save(booking);
+        Booking saved = bookingRepository.save(booking);
+        eventPublisher.publishEvent(BookingLifecycleEvent.of(BookingLifecycleEvent.Type.CREATED, saved));
+        return saved;
     }
 
     // Người dùng xem lịch sử đặt bàn
@@ -159,10 +166,10 @@ public class BookingService {
     // Admin xóa đơn đặt bàn
     @Transactional
     public void deleteBooking(Long id) {
-        if (!bookingRepository.existsById(id)) {
-            throw new RuntimeException("Đơn đặt bàn không tồn tại");
-        }
-        bookingRepository.deleteById(id);
+        Booking booking = bookingRepository.findById(id)
+                .orElseThrow(() -> new RuntimeException("Đơn đặt bàn không tồn tại"));
+        eventPublisher.publishEvent(BookingLifecycleEvent.of(BookingLifecycleEvent.Type.DELETED, booking));
+        bookingRepository.delete(booking);
     }
 
     // Chuyển từ Entity sang DTO
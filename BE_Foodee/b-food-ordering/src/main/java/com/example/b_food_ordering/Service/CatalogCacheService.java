@@ -0,0 +1,188 @@
+package com.example.b_food_ordering.Service;
+
+import com.example.b_food_ordering.Dto.ProductDTO;
+import com.example.b_food_ordering.Dto.SuggestionDTO;
+import com.example.b_food_ordering.Event.CatalogChangedEvent;
+import com.example.b_food_ordering.Repository.ProductRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+/**
+ * Cache đọc-qua cho danh sách món: GET /api/products, /{id}, /by-category, /by-product-type
+ * đọc từ CatalogSnapshot trong bộ nhớ, không truy vấn MySQL.
+ * - Đọc không khoá: 1 lần get() AtomicReference + so thế hệ.
+ * - Ghi (món / danh mục / loại món / đánh giá) phát CatalogChangedEvent; sau commit chỉ tăng thế hệ
+ *   -> ảnh chụp cũ hết hiệu lực ngay, lượt đọc kế tiếp dựng lại bằng 1 query (JOIN FETCH loại món, danh mục).
+ *   Ảnh chụp dựng dở mà gặp lúc bị huỷ sẽ mang thế hệ cũ nên cũng không được dùng.
+ * - Ảnh chụp mang sẵn chỉ mục tìm kiếm (GET /api/products/search) và trie gợi ý (/suggest); khi dựng lại, món không đổi nội dung
+ *   dùng lại kết quả phân tích cũ.
+ * - Làm mới định kỳ ở nền (sửa trực tiếp trong DB, instance khác ghi) mà không chặn lượt đọc;
+ *   mỗi lần nạp báo dấu vân tay nội dung cho ResourceVersions để ETag món đổi theo.
+ */
+@Service
+public class CatalogCacheService {
+
+    private static final Logger logger = LoggerFactory.getLogger(CatalogCacheService.class);
+
+    private final ProductRepository productRepository;
+    private final ResourceVersions resourceVersions;
+
+    private final AtomicReference<CatalogSnapshot> current = new AtomicReference<>();
+    private final AtomicLong generation = new AtomicLong();
+    private final Object loadLock = new Object();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+    private final LongAdder loads = new LongAdder();
+    private volatile long lastLoadMs;
+
+    @Autowired
+    public CatalogCacheService(ProductRepository productRepository, ResourceVersions resourceVersions) {
+        this.productRepository = productRepository;
+        this.resourceVersions = resourceVersions;
+    }
+
+    // ================== Đọc ==================
+
+    public List<ProductDTO> getAll() {
+        return snapshot().all();
+    }
+
+    public Optional<ProductDTO> getById(Long id) {
+        return Optional.ofNullable(snapshot().byId(id));
+    }
+
+    public List<ProductDTO> getByCategoryId(Long categoryId) {
+        return snapshot().byCategoryId(categoryId);
+    }
+
+    public List<ProductDTO> getByProductTypeId(Long productTypeId) {
+        return snapshot().byProductTypeId(productTypeId);
+    }
+
+    // Tìm toàn văn (bỏ dấu, BM25) trên chỉ mục đi kèm ảnh chụp
+    public List<ProductDTO> search(String query, int limit) {
+        return snapshot().search(query, limit);
+    }
+
+    // Gợi ý theo tiền tố cho ô tìm kiếm (trie đi kèm ảnh chụp)
+    public List<SuggestionDTO> suggest(String query, int limit) {
+        return snapshot().suggest(query, limit);
+    }
+
+    private CatalogSnapshot snapshot() {
+        CatalogSnapshot snapshot = current.get();
+        if (snapshot != null && snapshot.generation == generation.get()) {
+            hits.increment();
+            return snapshot;
+        }
+        misses.increment();
+        synchronized (loadLock) {
+            // Luồng khác có thể vừa dựng xong trong lúc chờ khoá
+            snapshot = current.get();
+            if (snapshot != null && snapshot.generation == generation.get()) {
+                return snapshot;
+            }
+            return load();
+        }
+    }
+
+    // Gọi trong synchronized (loadLock)
+    private CatalogSnapshot load() {
+        long startedAt = System.currentTimeMillis();
+        long loadGeneration = generation.get();
+        List<ProductDTO> products = productRepository.findAllWithTypeAndCategory().stream()
+                .map(ProductService::toDTO)
+                .collect(Collectors.toList());
+        CatalogSnapshot snapshot = new CatalogSnapshot(loadGeneration, startedAt, products, current.get());
+        current.set(snapshot);
+        // Lần nạp thấy nội dung khác (kể cả thay đổi không phát sự kiện) -> ETag món đổi theo
+        resourceVersions.observe(ResourceVersions.Family.PRODUCTS, fingerprint(products));
+        loads.increment();
+        lastLoadMs = System.currentTimeMillis() - startedAt;
+        return snapshot;
+    }
+
+    // Không phụ thuộc thứ tự: "số món:tổng hashCode" (ProductDTO là @Data, hashCode tính trên mọi trường)
+    private static String fingerprint(List<ProductDTO> products) {
+        long sum = 0;
+        for (ProductDTO product : products) {
+            sum += product.hashCode() * 0x9E3779B97F4A7C15L;
+        }
+        return products.size() + ":" + Long.toHexString(sum);
+    }
+
+    // ================== Huỷ / làm mới ==================
+
+    // Huỷ trước khi ResourceVersions đổi ETag
+    @TransactionalEventListener(fallbackExecution = true)
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void onCatalogChanged(CatalogChangedEvent event) {
+        if (event.getSource() == CatalogChangedEvent.Source.NEWS) {
+            return;
+        }
+        generation.incrementAndGet();
+        invalidations.increment();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadOnStartup() {
+        refresh();
+    }
+
+    @Scheduled(fixedDelayString = "${app.catalog-cache.refresh-interval-ms:60000}",
+            initialDelayString = "${app.catalog-cache.refresh-interval-ms:60000}")
+    public void refresh() {
+        try {
+            synchronized (loadLock) {
+                CatalogSnapshot snapshot = load();
+                logger.debug("Đã nạp {} món vào cache danh sách món", snapshot.size());
+            }
+        } catch (RuntimeException e) {
+            logger.error("Không thể nạp cache danh sách món: {}", e.getMessage(), e);
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        CatalogSnapshot snapshot = current.get();
+        long hitCount = hits.sum();
+        long missCount = misses.sum();
+        long total = hitCount + missCount;
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("hits", hitCount);
+        stats.put("misses", missCount);
+        stats.put("hitRatio", total > 0 ? (double) hitCount / total : 0.0);
+        stats.put("invalidations", invalidations.sum());
+        stats.put("loads", loads.sum());
+        stats.put("lastLoadMs", lastLoadMs);
+        stats.put("products", snapshot != null ? snapshot.size() : 0);
+        stats.put("searchTerms", snapshot != null ? snapshot.searchTerms() : 0);
+        stats.put("suggestEntries", snapshot != null ? snapshot.suggestEntries() : 0);
+        stats.put("loadedAt", snapshot != null
+                ? LocalDateTime.ofInstant(Instant.ofEpochMilli(snapshot.loadedAt), ZoneId.systemDefault())
+                : null);
+        stats.put("stale", snapshot == null || snapshot.generation != generation.get());
+        return stats;
+    }
+}
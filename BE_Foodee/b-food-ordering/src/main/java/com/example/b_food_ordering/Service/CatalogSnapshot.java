@@ -0,0 +1,122 @@
+package com.example.b_food_ordering.Service;
+
+import com.example.b_food_ordering.Dto.ProductDTO;
+import com.example.b_food_ordering.Dto.SuggestionDTO;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Ảnh chụp bất biến của toàn bộ danh sách món, đánh chỉ mục sẵn theo id, danh mục và loại món.
+ * Đã dựng xong thì không sửa nữa -> đọc đồng thời không cần khoá; DTO trả ra luôn là bản sao.
+ * Kèm chỉ mục tìm kiếm toàn văn (ProductSearchIndex) và trie gợi ý (ProductSuggestIndex) trên cùng danh sách món.
+ */
+final class CatalogSnapshot {
+
+    final long generation;
+    final long loadedAt;
+
+    private final List<ProductDTO> products;
+    private final Map<Long, ProductDTO> byId;
+    private final Map<Long, List<ProductDTO>> byCategoryId;
+    private final Map<Long, List<ProductDTO>> byProductTypeId;
+    private final ProductSearchIndex searchIndex;
+    private final ProductSuggestIndex suggestIndex;
+
+    // products đã sắp theo id; previous (có thể null) để chỉ mục tìm kiếm dùng lại phần đã phân tích
+    CatalogSnapshot(long generation, long loadedAt, List<ProductDTO> products, CatalogSnapshot previous) {
+        this.generation = generation;
+        this.loadedAt = loadedAt;
+        this.products = Collections.unmodifiableList(new ArrayList<>(products));
+
+        Map<Long, ProductDTO> ids = new HashMap<>(products.size() * 2);
+        Map<Long, List<ProductDTO>> categories = new HashMap<>();
+        Map<Long, List<ProductDTO>> productTypes = new HashMap<>();
+        for (ProductDTO product : products) {
+            ids.put(product.getId(), product);
+            if (product.getCategoryId() != null) {
+                categories.computeIfAbsent(product.getCategoryId(), k -> new ArrayList<>()).add(product);
+            }
+            if (product.getProductTypeId() != null) {
+                productTypes.computeIfAbsent(product.getProductTypeId(), k -> new ArrayList<>()).add(product);
+            }
+        }
+        this.byId = Collections.unmodifiableMap(ids);
+        this.byCategoryId = freeze(categories);
+        this.byProductTypeId = freeze(productTypes);
+        this.searchIndex = new ProductSearchIndex(this.products, previous != null ? previous.searchIndex : null);
+        this.suggestIndex = new ProductSuggestIndex(this.products);
+    }
+
+    private static Map<Long, List<ProductDTO>> freeze(Map<Long, List<ProductDTO>> index) {
+        index.replaceAll((key, list) -> Collections.unmodifiableList(list));
+        return Collections.unmodifiableMap(index);
+    }
+
+    int size() {
+        return products.size();
+    }
+
+    List<ProductDTO> all() {
+        return copyAll(products);
+    }
+
+    ProductDTO byId(Long id) {
+        ProductDTO product = byId.get(id);
+        return product != null ? copy(product) : null;
+    }
+
+    List<ProductDTO> byCategoryId(Long categoryId) {
+        return copyAll(byCategoryId.getOrDefault(categoryId, List.of()));
+    }
+
+    List<ProductDTO> byProductTypeId(Long productTypeId) {
+        return copyAll(byProductTypeId.getOrDefault(productTypeId, List.of()));
+    }
+
+    // Kết quả tìm kiếm theo điểm giảm dần (bằng điểm thì id tăng dần)
+    List<ProductDTO> search(String query, int limit) {
+        int[] hits = searchIndex.search(query, limit);
+        List<ProductDTO> result = new ArrayList<>(hits.length);
+        for (int hit : hits) {
+            result.add(copy(searchIndex.document(hit)));
+        }
+        return result;
+    }
+
+    int searchTerms() {
+        return searchIndex.termCount();
+    }
+
+    // Gợi ý chỉ chứa loại, id và tên - không sao chép DTO món
+    List<SuggestionDTO> suggest(String query, int limit) {
+        return suggestIndex.suggest(query, limit);
+    }
+
+    int suggestEntries() {
+        return suggestIndex.size();
+    }
+
+    private static List<ProductDTO> copyAll(List<ProductDTO> source) {
+        List<ProductDTO> result = new ArrayList<>(source.size());
+        for (ProductDTO product : source) {
+            result.add(copy(product));
+        }
+        return result;
+    }
+
+    // Bản sao để nơi gọi có sửa DTO cũng không làm hỏng ảnh chụp dùng chung
+    static ProductDTO copy(ProductDTO source) {
+        ProductDTO dto = new ProductDTO(source.getId(), source.getName(), source.getDescription(),
+                source.getOriginalPrice(), source.getDiscountedPrice(), source.getDiscount(),
+                source.getProductTypeId(), source.getProductTypeName(), source.getImg(), source.getStatus(),
+                source.getCategoryId(), source.getCategoryName());
+        dto.setRatingCount(source.getRatingCount());
+        dto.setAverageRating(source.getAverageRating());
+        dto.setRatingHistogram(source.getRatingHistogram() != null ? source.getRatingHistogram().clone() : null);
+        return dto;
+    }
+}
@@ -2,8 +2,10 @@ package com.example.b_food_ordering.Service;
 
 import com.example.b_food_ordering.Dto.CategoryDTO;
 import com.example.b_food_ordering.Entity.Category;
+import com.example.b_food_ordering.Event.CatalogChangedEvent;
 import com.example.b_food_ordering.Repository.CategoryRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
@@ -16,6 +18,9 @@ public class CategoryService {
     @Autowired
     private CategoryRepository categoryRepository;
 
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
     // Ánh xạ từ Category sang CategoryDTO
     private CategoryDTO toDTO(Category category) {
         CategoryDTO dto = new CategoryDTO();
@@ -46,6 +51,7 @@ public class CategoryService {
 
         Category category = toEntity(categoryDTO);
         Category savedCategory = categoryRepository.save(category);
+        eventPublisher.publishEvent(new CatalogChangedEvent(CatalogChangedEvent.Source.CATEGORY, savedCategory.getId()));
         return toDTO(savedCategory);
     }
 
@@ -89,6 +95,7 @@ public class CategoryService {
             Category category = existingCategory.get();
             category.setName(categoryDTO.getName());
             Category updatedCategory = categoryRepository.save(category);
+            eventPublisher.publishEvent(new CatalogChangedEvent(CatalogChangedEvent.Source.CATEGORY, id));
             return toDTO(updatedCategory);
         } else {
             throw new RuntimeException("Danh mục không tồn tại với ID: " + id);
@@ -102,6 +109,7 @@ public class CategoryService {
         }
         if (categoryRepository.existsById(id)) {
             categoryRepository.deleteById(id);
+            eventPublisher.publishEvent(new CatalogChangedEvent(CatalogChangedEvent.Source.CATEGORY, id));
         } else {
             throw new RuntimeException("Danh mục không tồn tại với ID: " + id);
         }
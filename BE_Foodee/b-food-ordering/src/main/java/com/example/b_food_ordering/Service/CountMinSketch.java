@@ -0,0 +1,86 @@
+package com.example.b_food_ordering.Service;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Count-Min sketch (Cormode & Muthukrishnan) trên 1 mảng long[depth * width].
+ * estimate(x) >= số thật của x, và với xác suất >= 1 - e^-depth:
+ *   estimate(x) <= số thật + (e / width) * N   (N = tổng trọng số đã thêm).
+ * width phải là luỹ thừa 2. Không thread-safe.
+ */
+final class CountMinSketch {
+
+    private final int depth;
+    private final int width;
+    private final int mask;
+    private final long[] table;
+    private final long[] seeds;
+
+    CountMinSketch(int depth, int width) {
+        if (Integer.bitCount(width) != 1) {
+            throw new IllegalArgumentException("width phải là luỹ thừa của 2");
+        }
+        this.depth = depth;
+        this.width = width;
+        this.mask = width - 1;
+        this.table = new long[depth * width];
+        this.seeds = new long[depth];
+        for (int row = 0; row < depth; row++) {
+            seeds[row] = mix(0x9E3779B97F4A7C15L * (row + 1));
+        }
+    }
+
+    void add(long key, long weight) {
+        for (int row = 0; row < depth; row++) {
+            table[row * width + bucket(key, row)] += weight;
+        }
+    }
+
+    long estimate(long key) {
+        long min = Long.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            min = Math.min(min, table[row * width + bucket(key, row)]);
+        }
+        return min;
+    }
+
+    void clear() {
+        Arrays.fill(table, 0L);
+    }
+
+    private int bucket(long key, int row) {
+        return (int) mix(key ^ seeds[row]) & mask;
+    }
+
+    // Hàm trộn 64 bit (fmix64 của MurmurHash3)
+    static long mix(long x) {
+        x ^= x >>> 33;
+        x *= 0xff51afd7ed558ccdL;
+        x ^= x >>> 33;
+        x *= 0xc4ceb9fe1a85ec53L;
+        x ^= x >>> 33;
+        return x;
+    }
+
+    void writeTo(DataOutputStream out) throws IOException {
+        out.writeInt(depth);
+        out.writeInt(width);
+        for (long value : table) {
+            out.writeLong(value);
+        }
+    }
+
+    // false nếu snapshot được ghi với kích thước khác
+    boolean readFrom(DataInputStream in) throws IOException {
+        if (in.readInt() != depth || in.readInt() != width) {
+            return false;
+        }
+        for (int i = 0; i < table.length; i++) {
+            table[i] = in.readLong();
+        }
+        return true;
+    }
+}
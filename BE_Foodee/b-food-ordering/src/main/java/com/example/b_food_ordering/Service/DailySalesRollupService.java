@@ -0,0 +1,116 @@
+package com.example.b_food_ordering.Service;
+
+import com.example.b_food_ordering.Entity.Order;
+import com.example.b_food_ordering.Event.OrderLifecycleEvent;
+import com.example.b_food_ordering.Event.OrderStatusChangedEvent;
+import com.example.b_food_ordering.Repository.DailySalesRollupRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDate;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Giữ bảng daily_sales_rollup khớp với orders.
+ * - Tạo đơn: +1 vào ô (ngày đặt, trạng thái đơn, trạng thái thanh toán).
+ * - Đổi trạng thái: chuyển đơn từ ô cũ sang ô mới. Xoá đơn: -1 khỏi ô của nó.
+ * Số liệu lấy từ event, không đọc lại đơn. Delta được gom theo ô trong suốt transaction
+ * và ghi 1 lần trước khi commit, trong cùng transaction với thay đổi đơn hàng:
+ * đơn rollback thì rollup cũng rollback, và đổi trạng thái N đơn chỉ tốn 1 batch upsert.
+ * Chuyển đơn sang archive không làm đổi rollup.
+ * Mỗi đêm dựng lại toàn bộ từ orders + orders_archive để sửa lệch (nếu có).
+ */
+@Service
+public class DailySalesRollupService {
+
+    private static final Logger logger = LoggerFactory.getLogger(DailySalesRollupService.class);
+
+    private final DailySalesRollupRepository dailySalesRollupRepository;
+
+    @Autowired
+    public DailySalesRollupService(DailySalesRollupRepository dailySalesRollupRepository) {
+        this.dailySalesRollupRepository = dailySalesRollupRepository;
+    }
+
+    // Nhận ngay lúc publish (trong transaction của đơn) để gom delta; ghi ở PendingDeltas.beforeCommit
+    @EventListener
+    public void onOrderLifecycle(OrderLifecycleEvent event) {
+        long sign = event.getType() == OrderLifecycleEvent.Type.CREATED ? 1 : -1;
+        record(event.getOrderDate().toLocalDate(), event.getOrderStatus(), event.getPaymentStatus(),
+                sign, sign * event.getTotalAmount(), sign * event.getItemQuantity());
+    }
+
+    @EventListener
+    public void onOrderStatusChanged(OrderStatusChangedEvent event) {
+        LocalDate salesDate = event.getOrderDate().toLocalDate();
+        record(salesDate, event.getPreviousOrderStatus(), event.getPreviousPaymentStatus(),
+                -1, -event.getTotalAmount(), -event.getItemQuantity());
+        record(salesDate, event.getOrderStatus(), event.getPaymentStatus(),
+                1, event.getTotalAmount(), event.getItemQuantity());
+    }
+
+    private void record(LocalDate salesDate, Order.OrderStatus orderStatus, Order.PaymentStatus paymentStatus,
+                        long orderCount, double revenue, long itemQuantity) {
+        DailySalesRollupRepository.Delta delta = new DailySalesRollupRepository.Delta(
+                salesDate, orderStatus, paymentStatus, orderCount, revenue, itemQuantity);
+        // Không có transaction (VD: IPN VNPay) -> ghi ngay
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            dailySalesRollupRepository.addDeltas(List.of(delta));
+            return;
+        }
+        PendingDeltas pending = (PendingDeltas) TransactionSynchronizationManager.getResource(this);
+        if (pending == null) {
+            pending = new PendingDeltas();
+            TransactionSynchronizationManager.bindResource(this, pending);
+            TransactionSynchronizationManager.registerSynchronization(pending);
+        }
+        pending.add(delta);
+    }
+
+    private record Cell(LocalDate salesDate, Order.OrderStatus orderStatus, Order.PaymentStatus paymentStatus) {
+    }
+
+    // Delta của 1 transaction, cộng dồn theo ô
+    private class PendingDeltas implements TransactionSynchronization {
+
+        private final Map<Cell, DailySalesRollupRepository.Delta> cells = new LinkedHashMap<>();
+
+        void add(DailySalesRollupRepository.Delta delta) {
+            cells.merge(new Cell(delta.salesDate(), delta.orderStatus(), delta.paymentStatus()), delta, (a, b) -> new DailySalesRollupRepository.Delta(
+                    a.salesDate(), a.orderStatus(), a.paymentStatus(),
+                    a.orderCount() + b.orderCount(), a.revenue() + b.revenue(), a.itemQuantity() + b.itemQuantity()));
+        }
+
+        @Override
+        public void beforeCommit(boolean readOnly) {
+            // Bỏ ô có delta bằng 0 (VD: đơn đổi trạng thái rồi đổi lại trong cùng transaction)
+            List<DailySalesRollupRepository.Delta> deltas = cells.values().stream()
+                    .filter(d -> d.orderCount() != 0 || d.revenue() != 0 || d.itemQuantity() != 0)
+                    .toList();
+            cells.clear();
+            dailySalesRollupRepository.addDeltas(deltas);
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            TransactionSynchronizationManager.unbindResourceIfPossible(DailySalesRollupService.this);
+        }
+    }
+
+    // Đối soát mỗi đêm (sau job lưu trữ đơn)
+    @Scheduled(cron = "${app.rollup.rebuild-cron:0 0 4 * * *}")
+    @Transactional
+    public void rebuild() {
+        int rows = dailySalesRollupRepository.rebuild();
+        logger.info("Đã dựng lại daily_sales_rollup: {} dòng", rows);
+    }
+}
@@ -0,0 +1,118 @@
+package com.example.b_food_ordering.Service;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Gộp các API của trang dashboard admin vào 1 request (/api/statistics/dashboard/all).
+ * - Mỗi phần (overview, doanh thu, top món, top user, trạng thái đơn, thống kê loại món)
+ *   chạy song song trên 1 pool có giới hạn (số luồng + hàng đợi cố định).
+ * - Mỗi phần có timeout riêng (tính từ lúc bắt đầu request); phần quá hạn / lỗi / bị từ chối
+ *   được bỏ qua và ghi vào "failedParts", các phần còn lại vẫn trả về.
+ * -> thời gian tải trang ~ phần chậm nhất thay vì tổng các phần.
+ */
+@Service
+public class DashboardCompositeService {
+
+    private static final Logger logger = LoggerFactory.getLogger(DashboardCompositeService.class);
+
+    private final DashboardSnapshotService dashboardSnapshotService;
+    private final StatisticsService statisticsService;
+    private final ProductService productService;
+    private final ThreadPoolExecutor executor;
+    private final long partTimeoutMs;
+
+    @Autowired
+    public DashboardCompositeService(DashboardSnapshotService dashboardSnapshotService,
+                                     StatisticsService statisticsService,
+                                     ProductService productService,
+                                     @Value("${app.dashboard.all.threads:6}") int threads,
+                                     @Value("${app.dashboard.all.queue-capacity:60}") int queueCapacity,
+                                     @Value("${app.dashboard.all.part-timeout-ms:3000}") long partTimeoutMs) {
+        this.dashboardSnapshotService = dashboardSnapshotService;
+        this.statisticsService = statisticsService;
+        this.productService = productService;
+        this.partTimeoutMs = partTimeoutMs;
+
+        AtomicInteger counter = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), r -> {
+            Thread thread = new Thread(r, "dashboard-part-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }, new ThreadPoolExecutor.AbortPolicy());
+        this.executor.allowCoreThreadTimeOut(true);
+    }
+
+    public Map<String, Object> getAll(Integer year, LocalDate from, LocalDate to, int limit) {
+        long start = System.nanoTime();
+        long deadline = start + TimeUnit.MILLISECONDS.toNanos(partTimeoutMs);
+
+        Map<String, Callable<Object>> tasks = new LinkedHashMap<>();
+        tasks.put("overview", dashboardSnapshotService::getDashboardOverview);
+        tasks.put("revenue", () -> dashboardSnapshotService.getRevenueByMonth(year));
+        tasks.put("topFoods", () -> dashboardSnapshotService.getDashboardTopFoods(limit));
+        tasks.put("topUsers", () -> dashboardSnapshotService.getDashboardTopUsers(limit));
+        tasks.put("orderStatusSummary", () -> statisticsService.getOrderStatusSummary(from, to));
+        tasks.put("productTypeStats", productService::getProductTypeStats);
+
+        Map<String, Future<Object>> futures = new LinkedHashMap<>();
+        Map<String, String> failedParts = new LinkedHashMap<>();
+        for (Map.Entry<String, Callable<Object>> task : tasks.entrySet()) {
+            try {
+                futures.put(task.getKey(), executor.submit(task.getValue()));
+            } catch (RejectedExecutionException e) {
+                failedParts.put(task.getKey(), "busy");
+            }
+        }
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        for (Map.Entry<String, Future<Object>> entry : futures.entrySet()) {
+            String part = entry.getKey();
+            Future<Object> future = entry.getValue();
+            try {
+                result.put(part, future.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS));
+            } catch (TimeoutException e) {
+                future.cancel(true);
+                failedParts.put(part, "timeout");
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause() != null ? e.getCause() : e;
+                logger.error("Lỗi khi tính phần '{}' của dashboard: {}", part, cause.getMessage(), cause);
+                failedParts.put(part, "error");
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                future.cancel(true);
+                failedParts.put(part, "interrupted");
+            }
+        }
+        if (!failedParts.isEmpty()) {
+            logger.warn("Dashboard trả về thiếu phần: {}", failedParts);
+        }
+
+        result.put("failedParts", failedParts);
+        result.put("elapsedMs", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        return result;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
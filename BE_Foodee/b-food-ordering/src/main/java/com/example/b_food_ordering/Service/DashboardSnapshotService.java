@@ -0,0 +1,223 @@
+package com.example.b_food_ordering.Service;
+
+import com.example.b_food_ordering.Dto.DashboardOverviewDTO;
+import com.example.b_food_ordering.Event.OrderLifecycleEvent;
+import com.example.b_food_ordering.Event.OrderStatusChangedEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
+
+/**
+ * Cache snapshot cho các API dashboard (overview, summary, doanh thu năm hiện tại, top món, top user).
+ * - Snapshot được tính lại ở scheduler nền rồi thay nguyên khối bằng AtomicReference:
+ *   request chỉ đọc snapshot hiện tại, không khoá, không chờ tính toán.
+ * - Tính lại sớm (refresh-ahead) khi có event đơn hàng đánh dấu dirty, tối đa 1 lần / min-refresh-interval.
+ * - Quá max-staleness (scheduler kẹt, DB lỗi...) hoặc tham số ngoài phạm vi snapshot
+ *   -> tính trực tiếp từ StatisticsService (tính là miss).
+ */
+@Service
+public class DashboardSnapshotService {
+
+    private static final Logger logger = LoggerFactory.getLogger(DashboardSnapshotService.class);
+
+    // Số dòng top món / top user giữ trong snapshot; limit lớn hơn sẽ đọc trực tiếp
+    private static final int SNAPSHOT_TOP_LIMIT = 10;
+
+    private final StatisticsService statisticsService;
+
+    @Value("${app.dashboard.refresh-interval-ms:60000}")
+    private long refreshIntervalMs;
+
+    @Value("${app.dashboard.min-refresh-interval-ms:2000}")
+    private long minRefreshIntervalMs;
+
+    @Value("${app.dashboard.max-staleness-ms:300000}")
+    private long maxStalenessMs;
+
+    private final AtomicReference<Snapshot> current = new AtomicReference<>();
+    private final AtomicBoolean dirty = new AtomicBoolean(true);
+
+    // Metrics
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final AtomicLong refreshCount = new AtomicLong();
+    private final AtomicLong refreshFailures = new AtomicLong();
+    private final AtomicLong totalRefreshNanos = new AtomicLong();
+    private final AtomicLong lastRefreshNanos = new AtomicLong();
+    private final AtomicLong maxRefreshNanos = new AtomicLong();
+
+    @Autowired
+    public DashboardSnapshotService(StatisticsService statisticsService) {
+        this.statisticsService = statisticsService;
+    }
+
+    // Snapshot bất biến: chỉ đọc sau khi publish
+    private static final class Snapshot {
+        final long createdAtNanos = System.nanoTime();
+        final LocalDateTime createdAt = LocalDateTime.now();
+        final int year;
+        final DashboardOverviewDTO overview;
+        final Map<String, Object> quickSummary;
+        final List<Map<String, Object>> revenueByMonth;
+        final List<Map<String, Object>> topFoods;
+        final List<Map<String, Object>> topUsers;
+
+        Snapshot(int year, DashboardOverviewDTO overview, Map<String, Object> quickSummary,
+                 List<Map<String, Object>> revenueByMonth, List<Map<String, Object>> topFoods,
+                 List<Map<String, Object>> topUsers) {
+            this.year = year;
+            this.overview = overview;
+            this.quickSummary = Collections.unmodifiableMap(new HashMap<>(quickSummary));
+            this.revenueByMonth = freeze(revenueByMonth);
+            this.topFoods = freeze(topFoods);
+            this.topUsers = freeze(topUsers);
+        }
+
+        long ageMs() {
+            return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - createdAtNanos);
+        }
+
+        private static List<Map<String, Object>> freeze(List<Map<String, Object>> rows) {
+            List<Map<String, Object>> copy = new ArrayList<>(rows.size());
+            for (Map<String, Object> row : rows) {
+                copy.add(Collections.unmodifiableMap(new HashMap<>(row)));
+            }
+            return Collections.unmodifiableList(copy);
+        }
+    }
+
+    // ================== Đọc ==================
+
+    public DashboardOverviewDTO getDashboardOverview() {
+        Snapshot snapshot = fresh();
+        return snapshot != null ? snapshot.overview : statisticsService.getDashboardOverview();
+    }
+
+    public Map<String, Object> getQuickSummary() {
+        Snapshot snapshot = fresh();
+        return snapshot != null ? snapshot.quickSummary : statisticsService.getQuickSummary();
+    }
+
+    public List<Map<String, Object>> getRevenueByMonth(Integer year) {
+        int requestedYear = year != null ? year : LocalDate.now().getYear();
+        Snapshot snapshot = fresh(s -> s.year == requestedYear);
+        return snapshot != null ? snapshot.revenueByMonth : statisticsService.getRevenueByMonth(requestedYear);
+    }
+
+    public List<Map<String, Object>> getDashboardTopFoods(int limit) {
+        int size = Math.max(1, limit);
+        Snapshot snapshot = fresh(s -> size <= SNAPSHOT_TOP_LIMIT);
+        return snapshot != null ? head(snapshot.topFoods, size) : statisticsService.getDashboardTopFoods(limit);
+    }
+
+    public List<Map<String, Object>> getDashboardTopUsers(int limit) {
+        int size = Math.max(1, limit);
+        Snapshot snapshot = fresh(s -> size <= SNAPSHOT_TOP_LIMIT);
+        return snapshot != null ? head(snapshot.topUsers, size) : statisticsService.getDashboardTopUsers(limit);
+    }
+
+    private Snapshot fresh() {
+        return fresh(s -> true);
+    }
+
+    // Snapshot dùng được cho request này, hoặc null (miss) nếu chưa có / quá cũ / ngoài phạm vi
+    private Snapshot fresh(Predicate<Snapshot> covers) {
+        Snapshot snapshot = current.get();
+        if (snapshot != null && snapshot.ageMs() <= maxStalenessMs && covers.test(snapshot)) {
+            hits.increment();
+            return snapshot;
+        }
+        misses.increment();
+        return null;
+    }
+
+    private static List<Map<String, Object>> head(List<Map<String, Object>> rows, int size) {
+        return rows.size() <= size ? rows : rows.subList(0, size);
+    }
+
+    // ================== Làm mới ==================
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onOrderStatusChanged(OrderStatusChangedEvent event) {
+        dirty.set(true);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onOrderLifecycle(OrderLifecycleEvent event) {
+        dirty.set(true);
+    }
+
+    @Scheduled(fixedDelayString = "${app.dashboard.check-interval-ms:1000}")
+    public void refreshIfNeeded() {
+        Snapshot snapshot = current.get();
+        boolean due = snapshot == null
+                || snapshot.ageMs() >= refreshIntervalMs
+                || snapshot.year != LocalDate.now().getYear()
+                || (dirty.get() && snapshot.ageMs() >= minRefreshIntervalMs);
+        if (due) {
+            refresh();
+        }
+    }
+
+    public void refresh() {
+        // Xoá cờ trước khi tính: event tới trong lúc tính sẽ bật lại cờ cho lần sau
+        dirty.set(false);
+        long start = System.nanoTime();
+        try {
+            int year = LocalDate.now().getYear();
+            Snapshot snapshot = new Snapshot(year,
+                    statisticsService.getDashboardOverview(),
+                    statisticsService.getQuickSummary(),
+                    statisticsService.getRevenueByMonth(year),
+                    statisticsService.getDashboardTopFoods(SNAPSHOT_TOP_LIMIT),
+                    statisticsService.getDashboardTopUsers(SNAPSHOT_TOP_LIMIT));
+            current.set(snapshot);
+
+            long elapsed = System.nanoTime() - start;
+            refreshCount.incrementAndGet();
+            totalRefreshNanos.addAndGet(elapsed);
+            lastRefreshNanos.set(elapsed);
+            maxRefreshNanos.accumulateAndGet(elapsed, Math::max);
+        } catch (RuntimeException e) {
+            dirty.set(true);
+            refreshFailures.incrementAndGet();
+            logger.error("Không thể làm mới snapshot dashboard: {}", e.getMessage(), e);
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        Snapshot snapshot = current.get();
+        long refreshes = refreshCount.get();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("hits", hits.sum());
+        stats.put("misses", misses.sum());
+        stats.put("refreshCount", refreshes);
+        stats.put("refreshFailures", refreshFailures.get());
+        stats.put("lastRefreshMs", lastRefreshNanos.get() / 1_000_000.0);
+        stats.put("avgRefreshMs", refreshes > 0 ? totalRefreshNanos.get() / 1_000_000.0 / refreshes : 0.0);
+        stats.put("maxRefreshMs", maxRefreshNanos.get() / 1_000_000.0);
+        stats.put("snapshotCreatedAt", snapshot != null ? snapshot.createdAt : null);
+        stats.put("snapshotAgeMs", snapshot != null ? snapshot.ageMs() : null);
+        stats.put("dirty", dirty.get());
+        return stats;
+    }
+}
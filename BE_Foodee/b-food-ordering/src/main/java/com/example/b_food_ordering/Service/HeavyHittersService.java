@@ -0,0 +1,325 @@
+package com.example.b_food_ordering.Service;
+
+import com.example.b_food_ordering.Entity.Order;
+import com.example.b_food_ordering.Entity.Product;
+import com.example.b_food_ordering.Event.OrderStatusChangedEvent;
+import com.example.b_food_ordering.Repository.OrderItemRepository;
+import com.example.b_food_ordering.Repository.ProductRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.DayOfWeek;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Top món bán chạy gần đúng theo thời gian thực (giờ này / hôm nay / tuần này), không đọc DB khi truy vấn.
+ * Nguồn dữ liệu: event đơn chuyển sang DELIVERED -> xếp hàng orderId, mỗi giây nạp món của cả lô bằng 1 query
+ * rồi cộng số lượng vào sketch của từng cửa sổ.
+ *
+ * Mỗi cửa sổ = 1 SpaceSavingCounter (CAPACITY bộ đếm) + 1 CountMinSketch (CMS_DEPTH x CMS_WIDTH).
+ * Cửa sổ là khung lịch cố định (đầu giờ / đầu ngày / thứ Hai), sang khung mới thì đếm lại từ 0.
+ * Sai số, với N = tổng số món đã giao trong cửa sổ:
+ * - Top-K: mọi món bán > N / CAPACITY chắc chắn có mặt; count trả về lệch lên tối đa N / CAPACITY,
+ *   "guaranteedCount" = count - error là cận dưới chắc chắn.
+ * - count trả về = min(Space-Saving, Count-Min); Count-Min lệch lên <= (e / CMS_WIDTH) * N
+ *   (~0.13% N) với xác suất >= 1 - e^-CMS_DEPTH (~98%).
+ * Sketch được ghi ra file định kỳ và khi tắt, nạp lại khi khởi động (bỏ các cửa sổ đã qua).
+ */
+@Service
+public class HeavyHittersService {
+
+    private static final Logger logger = LoggerFactory.getLogger(HeavyHittersService.class);
+
+    static final int CAPACITY = 256;
+    static final int CMS_DEPTH = 4;
+    static final int CMS_WIDTH = 2048;
+    static final int MAX_TOP = 50;
+
+    private static final int SNAPSHOT_MAGIC = 0x48485331; // "HHS1"
+    private static final int MAX_ORDERS_PER_BATCH = 500;
+
+    public enum Window {
+        HOUR, DAY, WEEK;
+
+        LocalDateTime startOf(LocalDateTime time) {
+            switch (this) {
+                case HOUR:
+                    return time.truncatedTo(ChronoUnit.HOURS);
+                case DAY:
+                    return time.truncatedTo(ChronoUnit.DAYS);
+                default:
+                    return time.truncatedTo(ChronoUnit.DAYS).with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+            }
+        }
+
+        public static Window parse(String value) {
+            if (value == null || value.isBlank()) {
+                return DAY;
+            }
+            try {
+                return Window.valueOf(value.trim().toUpperCase());
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Khung thời gian không hợp lệ (hour | day | week)");
+            }
+        }
+    }
+
+    // Sketch của 1 cửa sổ; mọi truy cập đều synchronized trên chính đối tượng này
+    private static final class WindowSketch {
+        final Window window;
+        final SpaceSavingCounter topCounter = new SpaceSavingCounter(CAPACITY);
+        final CountMinSketch sketch = new CountMinSketch(CMS_DEPTH, CMS_WIDTH);
+        LocalDateTime start;
+        long total;
+
+        WindowSketch(Window window, LocalDateTime now) {
+            this.window = window;
+            this.start = window.startOf(now);
+        }
+
+        // Sang khung mới -> đếm lại
+        void roll(LocalDateTime now) {
+            LocalDateTime currentStart = window.startOf(now);
+            if (!currentStart.equals(start)) {
+                start = currentStart;
+                total = 0;
+                topCounter.clear();
+                sketch.clear();
+            }
+        }
+    }
+
+    private final OrderItemRepository orderItemRepository;
+    private final ProductRepository productRepository;
+    private final Map<Window, WindowSketch> windows = new EnumMap<>(Window.class);
+    private final ConcurrentLinkedQueue<Long> deliveredOrderIds = new ConcurrentLinkedQueue<>();
+
+    @Value("${app.heavy-hitters.snapshot-file:data/heavy-hitters.bin}")
+    private String snapshotFile;
+
+    @Autowired
+    public HeavyHittersService(OrderItemRepository orderItemRepository, ProductRepository productRepository) {
+        this.orderItemRepository = orderItemRepository;
+        this.productRepository = productRepository;
+        LocalDateTime now = LocalDateTime.now();
+        for (Window window : Window.values()) {
+            windows.put(window, new WindowSketch(window, now));
+        }
+    }
+
+    // ================== Nhận dữ liệu ==================
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onOrderStatusChanged(OrderStatusChangedEvent event) {
+        if (event.getOrderStatus() == Order.OrderStatus.DELIVERED
+                && event.getPreviousOrderStatus() != Order.OrderStatus.DELIVERED) {
+            deliveredOrderIds.add(event.getOrderId());
+        }
+    }
+
+    @Scheduled(fixedDelay = 1000L)
+    public void drain() {
+        while (!deliveredOrderIds.isEmpty()) {
+            List<Long> orderIds = new ArrayList<>();
+            Long orderId;
+            while (orderIds.size() < MAX_ORDERS_PER_BATCH && (orderId = deliveredOrderIds.poll()) != null) {
+                orderIds.add(orderId);
+            }
+            List<Object[]> rows;
+            try {
+                rows = orderItemRepository.findProductQuantitiesByOrderIds(orderIds);
+            } catch (RuntimeException e) {
+                // Số liệu gần đúng: bỏ lô này thay vì giữ lại vô hạn khi DB lỗi
+                logger.warn("Không đọc được món của {} đơn đã giao: {}", orderIds.size(), e.getMessage());
+                return;
+            }
+            long[] productIds = new long[rows.size()];
+            long[] quantities = new long[rows.size()];
+            for (int i = 0; i < rows.size(); i++) {
+                productIds[i] = (Long) rows.get(i)[0];
+                quantities[i] = ((Number) rows.get(i)[1]).longValue();
+            }
+            record(productIds, quantities, rows.size(), LocalDateTime.now());
+        }
+    }
+
+    // Cộng số lượng bán vào mọi cửa sổ
+    void record(long[] productIds, long[] quantities, int count, LocalDateTime now) {
+        for (WindowSketch w : windows.values()) {
+            synchronized (w) {
+                w.roll(now);
+                for (int i = 0; i < count; i++) {
+                    w.topCounter.add(productIds[i], quantities[i]);
+                    w.sketch.add(productIds[i], quantities[i]);
+                    w.total += quantities[i];
+                }
+            }
+        }
+    }
+
+    // ================== Truy vấn ==================
+
+    /**
+     * Top món của cửa sổ: [{productId, productName, productImage, count, guaranteedCount, maxError}].
+     * Phần sketch là O(limit); thêm đúng 1 query lấy tên/ảnh của các món trả về.
+     */
+    public Map<String, Object> getTopDishes(Window window, int limit) {
+        int k = Math.min(Math.max(1, limit), MAX_TOP);
+        long[] keys = new long[k];
+        long[] counts = new long[k];
+        long[] errors = new long[k];
+        int n;
+        long total;
+        LocalDateTime start;
+        WindowSketch w = windows.get(window);
+        synchronized (w) {
+            w.roll(LocalDateTime.now());
+            n = w.topCounter.top(k, keys, counts, errors);
+            for (int i = 0; i < n; i++) {
+                counts[i] = Math.min(counts[i], w.sketch.estimate(keys[i]));
+            }
+            total = w.total;
+            start = w.start;
+        }
+
+        List<Long> ids = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            ids.add(keys[i]);
+        }
+        Map<Long, Product> products = new HashMap<>();
+        if (n > 0) {
+            for (Product product : productRepository.findAllById(ids)) {
+                products.put(product.getId(), product);
+            }
+        }
+
+        List<Map<String, Object>> items = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            Product product = products.get(keys[i]);
+            Map<String, Object> item = new LinkedHashMap<>();
+            item.put("productId", keys[i]);
+            item.put("productName", product != null ? product.getName() : null);
+            item.put("productImage", product != null ? product.getImg() : null);
+            item.put("count", counts[i]);
+            item.put("guaranteedCount", Math.max(0, counts[i] - errors[i]));
+            item.put("maxError", errors[i]);
+            items.add(item);
+        }
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("window", window.name());
+        result.put("windowStart", start);
+        result.put("totalQuantity", total);
+        // Cận sai số của Space-Saving cho cửa sổ này
+        result.put("errorBound", total / CAPACITY);
+        result.put("items", items);
+        return result;
+    }
+
+    // ================== Lưu / nạp snapshot ==================
+
+    @PostConstruct
+    void loadSnapshot() {
+        Path path = Paths.get(snapshotFile);
+        if (!Files.exists(path)) {
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+            if (in.readInt() != SNAPSHOT_MAGIC || in.readInt() != Window.values().length) {
+                logger.warn("Bỏ qua snapshot top món không hợp lệ: {}", path);
+                return;
+            }
+            for (Window window : Window.values()) {
+                LocalDateTime start = LocalDateTime.ofEpochSecond(in.readLong(), 0, ZoneOffset.UTC);
+                long total = in.readLong();
+                WindowSketch w = windows.get(window);
+                synchronized (w) {
+                    if (!w.topCounter.readFrom(in) || !w.sketch.readFrom(in)) {
+                        logger.warn("Snapshot top món khác cấu hình sketch, bỏ qua: {}", path);
+                        resetAll(now);
+                        return;
+                    }
+                    w.start = start;
+                    w.total = total;
+                    // Cửa sổ đã qua trong lúc tắt máy -> đếm lại
+                    w.roll(now);
+                }
+            }
+            logger.info("Đã nạp snapshot top món từ {}", path);
+        } catch (IOException e) {
+            logger.warn("Không đọc được snapshot top món {}: {}", path, e.getMessage());
+            resetAll(now);
+        }
+    }
+
+    private void resetAll(LocalDateTime now) {
+        for (WindowSketch w : windows.values()) {
+            synchronized (w) {
+                w.start = null;
+                w.roll(now);
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.heavy-hitters.snapshot-interval-ms:60000}")
+    public void saveSnapshot() {
+        Path path = Paths.get(snapshotFile);
+        try {
+            Path parent = path.toAbsolutePath().getParent();
+            if (parent != null) {
+                Files.createDirectories(parent);
+            }
+            // Ghi ra file tạm rồi đổi tên để không bao giờ để lại file ghi dở
+            Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+                out.writeInt(SNAPSHOT_MAGIC);
+                out.writeInt(Window.values().length);
+                for (Window window : Window.values()) {
+                    WindowSketch w = windows.get(window);
+                    synchronized (w) {
+                        out.writeLong(w.start.toEpochSecond(ZoneOffset.UTC));
+                        out.writeLong(w.total);
+                        w.topCounter.writeTo(out);
+                        w.sketch.writeTo(out);
+                    }
+                }
+            }
+            Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            logger.warn("Không ghi được snapshot top món {}: {}", path, e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        drain();
+        saveSnapshot();
+    }
+}
@@ -0,0 +1,93 @@
+package com.example.b_food_ordering.Service;
+
+/**
+ * HyperLogLog (Flajolet et al.) đếm gần đúng số phần tử phân biệt, 1 byte / thanh ghi.
+ * PRECISION = 12 -> 4096 thanh ghi = 4 KB, sai số chuẩn ~1.04 / sqrt(4096) ~ 1.6%.
+ * Gộp 2 sketch = max từng thanh ghi (giao hoán, luỹ đẳng) -> sketch ngày gộp thành tháng / năm.
+ * Không thread-safe.
+ */
+final class HyperLogLog {
+
+    static final int PRECISION = 12;
+    static final int REGISTERS = 1 << PRECISION;
+
+    private final byte[] registers;
+
+    HyperLogLog() {
+        this.registers = new byte[REGISTERS];
+    }
+
+    private HyperLogLog(byte[] registers) {
+        this.registers = registers;
+    }
+
+    // Nạp từ blob đã lưu; null / sai kích thước -> sketch rỗng
+    static HyperLogLog fromBytes(byte[] bytes) {
+        if (bytes == null || bytes.length != REGISTERS) {
+            return new HyperLogLog();
+        }
+        return new HyperLogLog(bytes.clone());
+    }
+
+    byte[] toBytes() {
+        return registers.clone();
+    }
+
+    HyperLogLog copy() {
+        return new HyperLogLog(registers.clone());
+    }
+
+    void add(long value) {
+        long hash = CountMinSketch.mix(value);
+        int index = (int) (hash >>> (64 - PRECISION));
+        // Vị trí bit 1 đầu tiên trong phần còn lại; bit chặn để rank tối đa = 64 - PRECISION + 1
+        int rank = Long.numberOfLeadingZeros((hash << PRECISION) | (1L << (PRECISION - 1))) + 1;
+        if (rank > registers[index]) {
+            registers[index] = (byte) rank;
+        }
+    }
+
+    void merge(HyperLogLog other) {
+        for (int i = 0; i < REGISTERS; i++) {
+            if (other.registers[i] > registers[i]) {
+                registers[i] = other.registers[i];
+            }
+        }
+    }
+
+    boolean isEmpty() {
+        for (byte register : registers) {
+            if (register != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    long estimate() {
+        double sum = 0;
+        int zeros = 0;
+        for (byte register : registers) {
+            sum += Math.scalb(1.0, -register);
+            if (register == 0) {
+                zeros++;
+            }
+        }
+        double alpha = 0.7213 / (1 + 1.079 / REGISTERS);
+        double estimate = alpha * REGISTERS * REGISTERS / sum;
+        // Tập nhỏ: dùng linear counting
+        if (estimate <= 2.5 * REGISTERS && zeros > 0) {
+            estimate = REGISTERS * Math.log((double) REGISTERS / zeros);
+        }
+        return Math.round(estimate);
+    }
+
+    // |a ∩ b| ~ |a| + |b| - |a ∪ b| (không âm); sai số tuyệt đối cỡ sai số của các tập lớn
+    static long intersection(HyperLogLog a, HyperLogLog b) {
+        HyperLogLog union = a.copy();
+        union.merge(b);
+        long estimateA = a.estimate();
+        long estimateB = b.estimate();
+        return Math.max(0, Math.min(Math.min(estimateA, estimateB), estimateA + estimateB - union.estimate()));
+    }
+}
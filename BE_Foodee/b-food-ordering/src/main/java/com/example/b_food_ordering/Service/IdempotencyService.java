@@ -0,0 +1,252 @@
+package com.example.b_food_ordering.Service;
+
+import com.example.b_food_ordering.Dto.OrderDTO;
+import com.example.b_food_ordering.Entity.IdempotencyRecord;
+import com.example.b_food_ordering.Repository.IdempotencyRecordRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.PersistenceException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Chống tạo đơn trùng khi client gửi lại request với cùng header Idempotency-Key.
+ * - Kết quả đã hoàn tất được giữ trong cache LRU có hạn (RAM) và bảng idempotency_keys (DB, sống qua restart).
+ * - Key đã có kết quả -> trả lại OrderDTO cũ, không đụng tới giỏ hàng / đơn / payment.
+ * - Nhiều request cùng key tới đồng thời -> chỉ request đầu chạy, các request sau chờ kết quả của nó.
+ * Đơn hàng và bản ghi key được lưu trong cùng 1 transaction: nếu 2 instance cùng chạy 1 key,
+ * instance ghi sau bị lỗi khoá chính -> rollback cả đơn của nó và trả về kết quả của instance trước.
+ */
+@Service
+public class IdempotencyService {
+
+    private static final Logger logger = LoggerFactory.getLogger(IdempotencyService.class);
+
+    private static final int MAX_KEY_LENGTH = 100;
+    private static final int MAX_CACHED_KEYS = 10_000;
+    private static final long TTL_HOURS = 24;
+    // Thời gian tối đa request trùng chờ request đầu tiên
+    private static final long WAIT_SECONDS = 30;
+
+    private final IdempotencyRecordRepository idempotencyRecordRepository;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    // Cache LRU (accessOrder = true), bỏ phần tử cũ nhất khi vượt MAX_CACHED_KEYS
+    private final Map<String, StoredResponse> cache = new LinkedHashMap<>(1024, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, StoredResponse> eldest) {
+            return size() > MAX_CACHED_KEYS;
+        }
+    };
+
+    // Các key đang được xử lý -> future mà request trùng sẽ chờ
+    private final ConcurrentHashMap<String, CompletableFuture<StoredResponse>> inFlight = new ConcurrentHashMap<>();
+
+    @Autowired
+    public IdempotencyService(IdempotencyRecordRepository idempotencyRecordRepository,
+                              ObjectMapper objectMapper,
+                              PlatformTransactionManager transactionManager) {
+        this.idempotencyRecordRepository = idempotencyRecordRepository;
+        this.objectMapper = objectMapper;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Chạy action đúng 1 lần cho mỗi (userId, endpoint, key).
+     * key rỗng -> chạy action bình thường. fingerprint = nội dung request, để phát hiện key bị dùng lại cho request khác.
+     */
+    public OrderDTO execute(Long userId, String endpoint, String key, String fingerprint, Supplier<OrderDTO> action) {
+        if (key == null || key.isBlank()) {
+            return action.get();
+        }
+        if (key.length() > MAX_KEY_LENGTH) {
+            throw new IllegalArgumentException("Idempotency-Key không được dài quá " + MAX_KEY_LENGTH + " ký tự");
+        }
+
+        String idKey = userId + ":" + endpoint + ":" + key.trim();
+        String requestHash = sha256(fingerprint);
+
+        StoredResponse stored = lookup(idKey);
+        if (stored != null) {
+            logger.info("Replaying idempotent response for key {}", idKey);
+            return replay(stored, requestHash);
+        }
+
+        CompletableFuture<StoredResponse> mine = new CompletableFuture<>();
+        CompletableFuture<StoredResponse> running = inFlight.putIfAbsent(idKey, mine);
+        if (running != null) {
+            logger.info("Waiting for in-flight request with key {}", idKey);
+            return replay(await(running), requestHash);
+        }
+
+        try {
+            // Request khác có thể vừa xong giữa lookup và putIfAbsent
+            stored = lookup(idKey);
+            if (stored == null) {
+                stored = runOnce(idKey, requestHash, action);
+            }
+            mine.complete(stored);
+            return replay(stored, requestHash);
+        } catch (RuntimeException e) {
+            // Không lưu lỗi: lần gửi lại sau được chạy lại từ đầu
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(idKey, mine);
+        }
+    }
+
+    private StoredResponse runOnce(String idKey, String requestHash, Supplier<OrderDTO> action) {
+        try {
+            StoredResponse result = transactionTemplate.execute(status -> {
+                OrderDTO orderDTO = action.get();
+                LocalDateTime now = LocalDateTime.now();
+
+                IdempotencyRecord record = new IdempotencyRecord();
+                record.setIdKey(idKey);
+                record.setRequestHash(requestHash);
+                record.setResponseBody(write(orderDTO));
+                record.setCreatedAt(now);
+                record.setExpiresAt(now.plusHours(TTL_HOURS));
+                // Key đã hết hạn nhưng job dọn chưa chạy: lookup coi như không có, xoá đi để persist không trùng khoá
+                idempotencyRecordRepository.deleteExpiredKey(idKey, now);
+                // persist + flush để lỗi trùng khoá xảy ra ngay trong transaction này
+                entityManager.persist(record);
+                entityManager.flush();
+                return new StoredResponse(record.getRequestHash(), record.getResponseBody(), record.getExpiresAt());
+            });
+            remember(idKey, result);
+            return result;
+        } catch (DataIntegrityViolationException | PersistenceException e) {
+            // Instance khác đã lưu key này trước -> đơn của request này đã bị rollback.
+            // flush() qua EntityManager không được Spring dịch lỗi: trùng khoá tới đây dưới dạng
+            // ConstraintViolationException của Hibernate (PersistenceException), không phải DataIntegrityViolationException
+            StoredResponse stored = lookup(idKey);
+            if (stored == null) {
+                throw e;
+            }
+            return stored;
+        }
+    }
+
+    private StoredResponse lookup(String idKey) {
+        LocalDateTime now = LocalDateTime.now();
+        synchronized (cache) {
+            StoredResponse cached = cache.get(idKey);
+            if (cached != null) {
+                if (cached.expiresAt.isAfter(now)) {
+                    return cached;
+                }
+                cache.remove(idKey);
+            }
+        }
+
+        IdempotencyRecord record = idempotencyRecordRepository.findById(idKey).orElse(null);
+        if (record == null || !record.getExpiresAt().isAfter(now)) {
+            return null;
+        }
+        StoredResponse stored = new StoredResponse(record.getRequestHash(), record.getResponseBody(), record.getExpiresAt());
+        remember(idKey, stored);
+        return stored;
+    }
+
+    private void remember(String idKey, StoredResponse stored) {
+        synchronized (cache) {
+            cache.put(idKey, stored);
+        }
+    }
+
+    private StoredResponse await(CompletableFuture<StoredResponse> running) {
+        try {
+            return running.get(WAIT_SECONDS, TimeUnit.SECONDS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (TimeoutException e) {
+            throw new IllegalArgumentException("Yêu cầu với Idempotency-Key này đang được xử lý, vui lòng thử lại sau");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Bị ngắt khi chờ yêu cầu trùng Idempotency-Key", e);
+        }
+    }
+
+    // Mỗi lần trả lại đều đọc từ JSON -> caller không sửa được bản lưu trong cache
+    private OrderDTO replay(StoredResponse stored, String requestHash) {
+        if (!stored.requestHash.equals(requestHash)) {
+            throw new IllegalArgumentException("Idempotency-Key đã được dùng cho một yêu cầu khác");
+        }
+        try {
+            return objectMapper.readValue(stored.body, OrderDTO.class);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Không đọc được kết quả đã lưu của Idempotency-Key", e);
+        }
+    }
+
+    private String write(OrderDTO orderDTO) {
+        try {
+            return objectMapper.writeValueAsString(orderDTO);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Không lưu được kết quả cho Idempotency-Key", e);
+        }
+    }
+
+    private static String sha256(String value) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(value.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    // Dọn key hết hạn trong DB mỗi giờ
+    @Scheduled(fixedDelay = 60 * 60 * 1000L, initialDelay = 60 * 1000L)
+    @Transactional
+    public void purgeExpired() {
+        int removed = idempotencyRecordRepository.deleteExpired(LocalDateTime.now());
+        if (removed > 0) {
+            logger.info("Purged {} expired idempotency keys", removed);
+        }
+    }
+
+    private static final class StoredResponse {
+        private final String requestHash;
+        private final String body;
+        private final LocalDateTime expiresAt;
+
+        private StoredResponse(String requestHash, String body, LocalDateTime expiresAt) {
+            this.requestHash = requestHash;
+            this.body = body;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
@@ -2,8 +2,10 @@ package com.example.b_food_ordering.Service;
 
 import com.example.b_food_ordering.Dto.NewsDTO;
 import com.example.b_food_ordering.Entity.News;
+import com.example.b_food_ordering.Event.CatalogChangedEvent;
 import com.example.b_food_ordering.Repository.NewsRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 
 import java.net.URL;
@@ -18,6 +20,9 @@ public class NewsService {
     @Autowired
     private NewsRepository newsRepository;
 
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
     // Ánh xạ từ News sang NewsDTO
     private NewsDTO toDTO(News news) {
         NewsDTO dto = new NewsDTO();
@@ -64,6 +69,7 @@ public class NewsService {
 
         News news = toEntity(newsDTO);
         News savedNews = newsRepository.save(news);
+        eventPublisher.publishEvent(new CatalogChangedEvent(CatalogChangedEvent.Source.NEWS, savedNews.getId()));
         return toDTO(savedNews);
     }
 
@@ -129,6 +135,7 @@ public class NewsService {
             news.setDescription(newsDTO.getDescription());
             news.setImageUrl(newsDTO.getImageUrl());
             News updatedNews = newsRepository.save(news);
+            eventPublisher.publishEvent(new CatalogChangedEvent(CatalogChangedEvent.Source.NEWS, id));
             return toDTO(updatedNews);
         } else {
             throw new RuntimeException("Tin tức không tồn tại với ID: " + id);
@@ -142,6 +149,7 @@ public class NewsService {
         }
         if (newsRepository.existsById(id)) {
             newsRepository.deleteById(id);
+            eventPublisher.publishEvent(new CatalogChangedEvent(CatalogChangedEvent.Source.NEWS, id));
         } else {
             throw new RuntimeException("Tin tức không tồn tại với ID: " + id);
         }
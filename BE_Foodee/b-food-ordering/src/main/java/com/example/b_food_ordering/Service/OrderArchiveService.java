@@ -0,0 +1,148 @@
+package com.example.b_food_ordering.Service;
+
+import com.example.b_food_ordering.Repository.OrderArchiveRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Chuyển đơn đã xong (DELIVERED / CANCELLED) cũ hơn app.archive.min-age-days sang orders_archive.
+ * - Mỗi lô (chunk-size đơn) là 1 transaction riêng, nghỉ pause-ms giữa 2 lô để không chiếm DB.
+ * - Đơn đã có đánh giá được giữ lại bảng chính vì reviews còn tham chiếu tới orders.
+ * - archivedUpTo: mọi đơn trong archive có order_date <= mốc này. Các màn hình đọc đơn
+ *   chỉ cần đọc thêm archive khi khoảng ngày cần xem bắt đầu trước mốc này.
+ * - Vòng chuyển (có Thread.sleep giữa các lô) chạy trên luồng riêng "order-archive",
+ *   không giữ luồng của scheduler chung mà các job @Scheduled khác đang dùng.
+ */
+@Service
+public class OrderArchiveService {
+
+    private static final Logger logger = LoggerFactory.getLogger(OrderArchiveService.class);
+
+    private final OrderArchiveRepository orderArchiveRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${app.archive.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.archive.min-age-days:365}")
+    private int minAgeDays;
+
+    @Value("${app.archive.chunk-size:500}")
+    private int chunkSize;
+
+    @Value("${app.archive.pause-ms:200}")
+    private long pauseMs;
+
+    @Value("${app.archive.max-chunks-per-run:200}")
+    private int maxChunksPerRun;
+
+    // null = archive rỗng
+    private volatile LocalDateTime archivedUpTo;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+    private final ExecutorService worker = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "order-archive");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @Autowired
+    public OrderArchiveService(OrderArchiveRepository orderArchiveRepository,
+                               PlatformTransactionManager transactionManager) {
+        this.orderArchiveRepository = orderArchiveRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @PostConstruct
+    void loadWatermark() {
+        archivedUpTo = orderArchiveRepository.findMaxOrderDate().orElse(null);
+    }
+
+    // Khoảng ngày bắt đầu từ start (null = từ đầu) có thể chứa đơn đã lưu trữ không
+    public boolean needsArchive(LocalDateTime start) {
+        LocalDateTime upTo = archivedUpTo;
+        return upTo != null && (start == null || !start.isAfter(upTo));
+    }
+
+    public LocalDateTime getArchivedUpTo() {
+        return archivedUpTo;
+    }
+
+    // Chỉ đưa việc sang luồng order-archive rồi trả luồng scheduler ngay; lần trước chưa xong thì bỏ qua
+    @Scheduled(cron = "${app.archive.cron:0 30 3 * * *}")
+    public void archiveOldOrders() {
+        if (!enabled || !running.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            worker.execute(() -> {
+                try {
+                    archiveNow();
+                } finally {
+                    running.set(false);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            running.set(false);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        worker.shutdownNow();
+    }
+
+    void archiveNow() {
+        LocalDateTime cutoff = LocalDateTime.now().minusDays(minAgeDays);
+
+        // Nâng mốc trước khi chuyển: đơn được chuyển luôn có order_date < cutoff,
+        // nên trong lúc đang chạy các màn hình đọc đã biết phải xem cả archive.
+        LocalDateTime upTo = archivedUpTo;
+        if (upTo == null || upTo.isBefore(cutoff)) {
+            archivedUpTo = cutoff;
+        }
+
+        long moved = 0;
+        try {
+            for (int chunk = 0; chunk < maxChunksPerRun; chunk++) {
+                Integer count = transactionTemplate.execute(status -> {
+                    List<Long> ids = orderArchiveRepository.lockArchivableOrderIds(cutoff, chunkSize);
+                    if (!ids.isEmpty()) {
+                        orderArchiveRepository.moveToArchive(ids, LocalDateTime.now());
+                    }
+                    return ids.size();
+                });
+                moved += count != null ? count : 0;
+                if (count == null || count < chunkSize) {
+                    break;
+                }
+                Thread.sleep(pauseMs);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (RuntimeException e) {
+            logger.error("Lưu trữ đơn hàng thất bại sau {} đơn: {}", moved, e.getMessage(), e);
+        } finally {
+            // Đọc lại mốc thật từ DB (có thể thấp hơn cutoff nếu không có đơn nào được chuyển)
+            loadWatermark();
+        }
+        if (moved > 0) {
+            logger.info("Đã chuyển {} đơn hàng cũ hơn {} sang orders_archive", moved, cutoff);
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package com.example.b_food_ordering.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+// Con trỏ keyset trên (orderDate, id) - mã hoá base64url để client coi như chuỗi mờ
+final class OrderCursor {
+
+    private final LocalDateTime orderDate;
+    private final Long id;
+
+    private OrderCursor(LocalDateTime orderDate, Long id) {
+        this.orderDate = orderDate;
+        this.id = id;
+    }
+
+    LocalDateTime getOrderDate() {
+        return orderDate;
+    }
+
+    Long getId() {
+        return id;
+    }
+
+    static String encode(LocalDateTime orderDate, Long id) {
+        String raw = orderDate + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    // Trả về null nếu không truyền cursor (trang đầu tiên)
+    static OrderCursor decode(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int sep = raw.indexOf('|');
+            return new OrderCursor(LocalDateTime.parse(raw.substring(0, sep)), Long.valueOf(raw.substring(sep + 1)));
+        } catch (IllegalArgumentException | DateTimeParseException | IndexOutOfBoundsException e) {
+            throw new IllegalArgumentException("Cursor không hợp lệ");
+        }
+    }
+}
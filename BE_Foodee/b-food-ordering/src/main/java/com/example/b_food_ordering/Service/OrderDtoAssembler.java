@@ -0,0 +1,125 @@
+package com.example.b_food_ordering.Service;
+
+import com.example.b_food_ordering.Dto.OrderDTO;
+import com.example.b_food_ordering.Dto.OrderItemDTO;
+import com.example.b_food_ordering.Entity.Order;
+import com.example.b_food_ordering.Entity.OrderItem;
+import com.example.b_food_ordering.Entity.Payment;
+import com.example.b_food_ordering.Repository.PaymentRepository;
+import com.example.b_food_ordering.Repository.ReviewRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Dựng OrderDTO theo lô.
+ * Với 1 danh sách đơn bất kỳ chỉ tốn đúng 2 query: 1 query IN (...) lấy payment,
+ * 1 query IN (...) lấy review. Kết quả được gom vào map theo orderId / productId
+ * rồi mới ghép vào từng DTO, thay vì gọi repository cho từng đơn, từng item.
+ */
+@Component
+public class OrderDtoAssembler {
+
+    private final PaymentRepository paymentRepository;
+    private final ReviewRepository reviewRepository;
+
+    @Autowired
+    public OrderDtoAssembler(PaymentRepository paymentRepository, ReviewRepository reviewRepository) {
+        this.paymentRepository = paymentRepository;
+        this.reviewRepository = reviewRepository;
+    }
+
+    // Dựng DTO cho 1 đơn (dùng cho các thao tác trên 1 đơn hàng)
+    public OrderDTO toDTO(Order order) {
+        return toDTOs(List.of(order)).get(0);
+    }
+
+    // Dựng DTO cho cả danh sách đơn, giữ nguyên thứ tự đầu vào
+    public List<OrderDTO> toDTOs(List<Order> orders) {
+        if (orders.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        List<Long> orderIds = new ArrayList<>(orders.size());
+        for (Order order : orders) {
+            orderIds.add(order.getId());
+        }
+
+        Map<Long, Payment.PaymentMethod> paymentMethods = loadPaymentMethods(orderIds);
+        Map<Long, Map<Long, Object[]>> reviews = loadReviews(orderIds);
+
+        List<OrderDTO> result = new ArrayList<>(orders.size());
+        for (Order order : orders) {
+            result.add(convert(order, paymentMethods.get(order.getId()),
+                    reviews.getOrDefault(order.getId(), Collections.emptyMap())));
+        }
+        return result;
+    }
+
+    // orderId -> hình thức thanh toán
+    private Map<Long, Payment.PaymentMethod> loadPaymentMethods(List<Long> orderIds) {
+        Map<Long, Payment.PaymentMethod> map = new HashMap<>();
+        for (Object[] row : paymentRepository.findPaymentMethodsByOrderIds(orderIds)) {
+            map.put((Long) row[0], (Payment.PaymentMethod) row[1]);
+        }
+        return map;
+    }
+
+    // orderId -> (productId -> [orderId, productId, userId, rating, comment])
+    private Map<Long, Map<Long, Object[]>> loadReviews(List<Long> orderIds) {
+        Map<Long, Map<Long, Object[]>> map = new HashMap<>();
+        for (Object[] row : reviewRepository.findRatingsByOrderIds(orderIds)) {
+            map.computeIfAbsent((Long) row[0], k -> new HashMap<>()).put((Long) row[1], row);
+        }
+        return map;
+    }
+
+    private OrderDTO convert(Order order, Payment.PaymentMethod paymentMethod, Map<Long, Object[]> reviewsByProduct) {
+        OrderDTO orderDTO = new OrderDTO();
+        orderDTO.setId(order.getId());
+        orderDTO.setFullname(order.getFullname());
+        orderDTO.setEmail(order.getEmail());
+        orderDTO.setPhoneNumber(order.getPhoneNumber());
+        orderDTO.setDeliveryAddress(order.getDeliveryAddress());
+        orderDTO.setOrderDate(order.getOrderDate());
+        orderDTO.setDeliveryDate(order.getDeliveryDate());
+        orderDTO.setPaymentStatus(order.getPaymentStatus().name());
+        orderDTO.setOrderStatus(order.getOrderStatus().name());
+        orderDTO.setTotalAmount(order.getTotalAmount());
+        if (paymentMethod != null) {
+            orderDTO.setPaymentMethod(paymentMethod.name());
+        }
+
+        Long ownerId = order.getUser() != null ? order.getUser().getId() : null;
+        List<OrderItemDTO> items = new ArrayList<>(order.getOrderItems().size());
+        for (OrderItem orderItem : order.getOrderItems()) {
+            items.add(convertItem(orderItem, ownerId, reviewsByProduct));
+        }
+        orderDTO.setOrderItems(items);
+        return orderDTO;
+    }
+
+    private OrderItemDTO convertItem(OrderItem orderItem, Long ownerId, Map<Long, Object[]> reviewsByProduct) {
+        OrderItemDTO orderItemDTO = new OrderItemDTO();
+        orderItemDTO.setId(orderItem.getId());
+        orderItemDTO.setProductId(orderItem.getProduct().getId());
+        orderItemDTO.setProductName(orderItem.getProduct().getName());
+        orderItemDTO.setQuantity(orderItem.getQuantity());
+        orderItemDTO.setProductImage(orderItem.getProduct().getImg());
+        orderItemDTO.setUnitPrice(orderItem.getUnitPrice());
+        orderItemDTO.setSubtotal(orderItem.getSubtotal());
+
+        // Chỉ lấy đánh giá do chính chủ đơn viết (giống findByUserAndOrderAndProduct trước đây)
+        Object[] review = reviewsByProduct.get(orderItem.getProduct().getId());
+        if (review != null && ownerId != null && ownerId.equals(review[2])) {
+            orderItemDTO.setUserRating((Integer) review[3]);
+            orderItemDTO.setUserComment((String) review[4]);
+        }
+        return orderItemDTO;
+    }
+}
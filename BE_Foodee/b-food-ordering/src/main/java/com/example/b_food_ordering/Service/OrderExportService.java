@@ -0,0 +1,233 @@
+package com.example.b_food_ordering.Service;
+
+import com.example.b_food_ordering.Dto.OrderExportRowDTO;
+import com.example.b_food_ordering.Repository.OrderArchiveRepository;
+import com.example.b_food_ordering.Repository.OrderItemRepository;
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * Xuất toàn bộ đơn hàng (kèm món) ra CSV hoặc NDJSON.
+ * Đọc DB bằng Stream tuần tự, ghi thẳng ra output stream của response và flush theo lô,
+ * nên bộ nhớ dùng không phụ thuộc khoảng ngày: tại mỗi thời điểm chỉ giữ 1 dòng.
+ * Client đọc chậm thì flush bị chặn lại -> việc đọc DB cũng chậm theo.
+ */
+@Service
+public class OrderExportService {
+
+    // Số dòng giữa 2 lần flush
+    private static final int FLUSH_EVERY = 500;
+
+    private static final String CSV_HEADER = "order_id,order_date,fullname,email,phone_number,delivery_address," +
+            "order_status,payment_status,payment_method,total_amount,delivery_date," +
+            "item_id,product_id,product_name,quantity,unit_price,subtotal";
+
+    public enum Format {
+        CSV("text/csv; charset=UTF-8", "csv"),
+        NDJSON("application/x-ndjson; charset=UTF-8", "ndjson");
+
+        private final String contentType;
+        private final String extension;
+
+        Format(String contentType, String extension) {
+            this.contentType = contentType;
+            this.extension = extension;
+        }
+
+        public String getContentType() {
+            return contentType;
+        }
+
+        public String getExtension() {
+            return extension;
+        }
+
+        public static Format parse(String value) {
+            if (value == null || value.isBlank()) {
+                return CSV;
+            }
+            try {
+                return Format.valueOf(value.trim().toUpperCase());
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Định dạng xuất không hợp lệ (csv | ndjson)");
+            }
+        }
+    }
+
+    private final OrderItemRepository orderItemRepository;
+    private final ObjectMapper objectMapper;
+    private final OrderArchiveRepository orderArchiveRepository;
+    private final OrderArchiveService orderArchiveService;
+
+    @Autowired
+    public OrderExportService(OrderItemRepository orderItemRepository, ObjectMapper objectMapper,
+                              OrderArchiveRepository orderArchiveRepository, OrderArchiveService orderArchiveService) {
+        this.orderItemRepository = orderItemRepository;
+        this.objectMapper = objectMapper;
+        this.orderArchiveRepository = orderArchiveRepository;
+        this.orderArchiveService = orderArchiveService;
+    }
+
+    public void validateRange(LocalDate from, LocalDate to) {
+        if (from != null && to != null && from.isAfter(to)) {
+            throw new IllegalArgumentException("Ngày bắt đầu phải trước ngày kết thúc");
+        }
+    }
+
+    // Ghi toàn bộ đơn trong [from, to] (tính theo ngày, null = không giới hạn). Trả về số dòng món đã ghi.
+    @Transactional(readOnly = true)
+    public long export(Format format, LocalDate from, LocalDate to, OutputStream out) throws IOException {
+        validateRange(from, to);
+        LocalDateTime startDate = from != null ? from.atStartOfDay() : null;
+        LocalDateTime endDate = to != null ? to.plusDays(1).atStartOfDay() : null;
+
+        // Chỉ đọc thêm archive khi khoảng ngày chạm tới các đơn đã lưu trữ
+        Stream<OrderExportRowDTO> source = orderArchiveService.needsArchive(startDate)
+                ? orderArchiveRepository.streamExportRowsWithArchive(startDate, endDate)
+                : orderItemRepository.streamExportRows(startDate, endDate);
+        try (Stream<OrderExportRowDTO> rows = source) {
+            return format == Format.NDJSON
+                    ? writeNdjson(rows.iterator(), out)
+                    : writeCsv(rows.iterator(), out);
+        }
+    }
+
+    // CSV: 1 dòng / món. Có BOM để Excel nhận đúng tiếng Việt.
+    private long writeCsv(Iterator<OrderExportRowDTO> rows, OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        writer.write('\uFEFF');
+        writer.write(CSV_HEADER);
+        writer.write("\r\n");
+
+        long count = 0;
+        StringBuilder line = new StringBuilder(256);
+        while (rows.hasNext()) {
+            OrderExportRowDTO row = rows.next();
+            line.setLength(0);
+            line.append(row.getOrderId()).append(',');
+            csv(line, row.getOrderDate()).append(',');
+            csv(line, row.getFullname()).append(',');
+            csv(line, row.getEmail()).append(',');
+            csv(line, row.getPhoneNumber()).append(',');
+            csv(line, row.getDeliveryAddress()).append(',');
+            csv(line, row.getOrderStatus()).append(',');
+            csv(line, row.getPaymentStatus()).append(',');
+            csv(line, row.getPaymentMethod()).append(',');
+            line.append(row.getTotalAmount()).append(',');
+            csv(line, row.getDeliveryDate()).append(',');
+            line.append(row.getItemId()).append(',');
+            line.append(row.getProductId()).append(',');
+            csv(line, row.getProductName()).append(',');
+            line.append(row.getQuantity()).append(',');
+            line.append(row.getUnitPrice()).append(',');
+            line.append(row.getSubtotal()).append("\r\n");
+            writer.append(line);
+
+            if (++count % FLUSH_EVERY == 0) {
+                writer.flush();
+            }
+        }
+        writer.flush();
+        return count;
+    }
+
+    private static StringBuilder csv(StringBuilder line, Object value) {
+        if (value == null) {
+            return line;
+        }
+        String text = value.toString();
+        boolean quote = text.indexOf(',') >= 0 || text.indexOf('"') >= 0
+                || text.indexOf('\n') >= 0 || text.indexOf('\r') >= 0;
+        if (!quote) {
+            return line.append(text);
+        }
+        line.append('"');
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '"') {
+                line.append('"');
+            }
+            line.append(c);
+        }
+        return line.append('"');
+    }
+
+    // NDJSON: 1 object / đơn, món nằm trong mảng "orderItems".
+    // Các dòng đã sắp theo đơn nên chỉ cần đóng object khi đổi sang đơn mới.
+    private long writeNdjson(Iterator<OrderExportRowDTO> rows, OutputStream out) throws IOException {
+        JsonGenerator json = objectMapper.getFactory().createGenerator(out, JsonEncoding.UTF8);
+        json.setRootValueSeparator(null);
+
+        long count = 0;
+        Long currentOrderId = null;
+        while (rows.hasNext()) {
+            OrderExportRowDTO row = rows.next();
+            if (!row.getOrderId().equals(currentOrderId)) {
+                if (currentOrderId != null) {
+                    endOrder(json);
+                }
+                startOrder(json, row);
+                currentOrderId = row.getOrderId();
+            }
+
+            json.writeStartObject();
+            json.writeNumberField("id", row.getItemId());
+            json.writeNumberField("productId", row.getProductId());
+            json.writeStringField("productName", row.getProductName());
+            json.writeNumberField("quantity", row.getQuantity());
+            json.writeNumberField("unitPrice", row.getUnitPrice());
+            json.writeNumberField("subtotal", row.getSubtotal());
+            json.writeEndObject();
+
+            if (++count % FLUSH_EVERY == 0) {
+                json.flush();
+            }
+        }
+        if (currentOrderId != null) {
+            endOrder(json);
+        }
+        json.flush();
+        return count;
+    }
+
+    private static void startOrder(JsonGenerator json, OrderExportRowDTO row) throws IOException {
+        json.writeStartObject();
+        json.writeNumberField("id", row.getOrderId());
+        json.writeStringField("orderDate", toText(row.getOrderDate()));
+        json.writeStringField("fullname", row.getFullname());
+        json.writeStringField("email", row.getEmail());
+        json.writeStringField("phoneNumber", row.getPhoneNumber());
+        json.writeStringField("deliveryAddress", row.getDeliveryAddress());
+        json.writeStringField("orderStatus", toText(row.getOrderStatus()));
+        json.writeStringField("paymentStatus", toText(row.getPaymentStatus()));
+        json.writeStringField("paymentMethod", toText(row.getPaymentMethod()));
+        json.writeNumberField("totalAmount", row.getTotalAmount());
+        json.writeStringField("deliveryDate", toText(row.getDeliveryDate()));
+        json.writeArrayFieldStart("orderItems");
+    }
+
+    private static void endOrder(JsonGenerator json) throws IOException {
+        json.writeEndArray();
+        json.writeEndObject();
+        json.writeRaw('\n');
+    }
+
+    private static String toText(Object value) {
+        return value != null ? value.toString() : null;
+    }
+}
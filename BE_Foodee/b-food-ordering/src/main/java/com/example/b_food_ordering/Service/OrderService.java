@@ -1,42 +1,83 @@
 package com.example.b_food_ordering.Service;
 
+import com.example.b_food_ordering.Dto.CursorPageDTO;
 import com.example.b_food_ordering.Dto.OrderDTO;
-import com.example.b_food_ordering.Dto.OrderItemDTO;
+import com.example.b_food_ordering.Dto.OrderStatusUpdateResultDTO;
+import com.example.b_food_ordering.Dto.OrderSummaryDTO;
 import com.example.b_food_ordering.Entity.*;
-import com.example.b_food_ordering.Repository.ReviewRepository;
+import com.example.b_food_ordering.Event.OrderLifecycleEvent;
+import com.example.b_food_ordering.Event.OrderStatusChangedEvent;
+import com.example.b_food_ordering.Repository.OrderArchiveRepository;
 import com.example.b_food_ordering.Repository.OrderRepository;
 import com.example.b_food_ordering.Repository.PaymentRepository;
 import com.example.b_food_ordering.Repository.ProductRepository;
 import com.example.b_food_ordering.Repository.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Map;
+import java.util.Set;
 
 @Service
 public class OrderService {
 
+    private static final int DEFAULT_FEED_LIMIT = 50;
+    private static final int MAX_FEED_LIMIT = 200;
+    private static final int MAX_BULK_SIZE = 500;
+    // Trạng thái người dùng được tự yêu cầu hủy
+    private static final Set<Order.OrderStatus> USER_CANCELLABLE =
+            EnumSet.of(Order.OrderStatus.PENDING, Order.OrderStatus.CONFIRMED);
+
     private final OrderRepository orderRepository;
     private final UserRepository userRepository;
     private final ProductRepository productRepository;
     private final PaymentRepository paymentRepository;
-    private final ReviewRepository reviewRepository;
     private final CartService cartService;
+    private final OrderDtoAssembler orderDtoAssembler;
+    private final OrderStateMachine orderStateMachine;
+    private final ApplicationEventPublisher eventPublisher;
+    private final OrderArchiveRepository orderArchiveRepository;
+    private final OrderArchiveService orderArchiveService;
 
     @Autowired
     public OrderService(OrderRepository orderRepository, UserRepository userRepository,
-                        ProductRepository productRepository, PaymentRepository paymentRepository, ReviewRepository reviewRepository,
-                        CartService cartService) {
+                        ProductRepository productRepository, PaymentRepository paymentRepository,
+                        CartService cartService, OrderDtoAssembler orderDtoAssembler,
+                        OrderStateMachine orderStateMachine, ApplicationEventPublisher eventPublisher,
+                        OrderArchiveRepository orderArchiveRepository, OrderArchiveService orderArchiveService) {
         this.orderRepository = orderRepository;
         this.userRepository = userRepository;
         this.productRepository = productRepository;
         this.paymentRepository = paymentRepository;
-        this.reviewRepository = reviewRepository;
         this.cartService = cartService;
+        this.orderDtoAssembler = orderDtoAssembler;
+        this.orderStateMachine = orderStateMachine;
+        this.eventPublisher = eventPublisher;
+        this.orderArchiveRepository = orderArchiveRepository;
+        this.orderArchiveService = orderArchiveService;
+    }
+
+    // Báo cho các listener (SSE...) khi trạng thái đơn/thanh toán đổi
+    private void publishStatusChange(Order order, Order.OrderStatus previousOrderStatus,
+                                     Order.PaymentStatus previousPaymentStatus) {
+        OrderStatusChangedEvent event = OrderStatusChangedEvent.of(order, previousOrderStatus, previousPaymentStatus);
+        if (event != null) {
+            eventPublisher.publishEvent(event);
+        }
     }
 
     // Đặt hàng từ giỏ hàng
@@ -94,7 +135,8 @@ public class OrderService {
 
         cartService.clearCart(userId);
 
-        return convertToDTO(savedOrder);
+        eventPublisher.publishEvent(OrderLifecycleEvent.of(OrderLifecycleEvent.Type.CREATED, savedOrder));
+        return orderDtoAssembler.toDTO(savedOrder);
     }
 
     // Đặt hàng trực tiếp từ sản phẩm
@@ -161,107 +203,372 @@ public class OrderService {
         payment.setPaymentMethod(paymentMethodEnum);
         paymentRepository.save(payment);
 
-        return convertToDTO(savedOrder);
+        eventPublisher.publishEvent(OrderLifecycleEvent.of(OrderLifecycleEvent.Type.CREATED, savedOrder));
+        return orderDtoAssembler.toDTO(savedOrder);
     }
     
-    // Lấy danh sách đơn hàng của người dùng
+    // Lấy danh sách đơn hàng của người dùng (cả đơn đã lưu trữ)
     @Transactional
     public List<OrderDTO> getUserOrders(Long userId) {
         User user = userRepository.findById(userId)
                 .orElseThrow(() -> new IllegalArgumentException("Người dùng không tồn tại"));
-        return orderRepository.findByUser(user).stream()
-                .map(this::convertToDTO)
-                .collect(Collectors.toList());
+        List<OrderDTO> orders = orderDtoAssembler.toDTOs(orderRepository.findByUser(user));
+        if (orderArchiveService.needsArchive(null)) {
+            orders.addAll(orderArchiveRepository.findOrdersByUser(userId, null, null, null));
+            // Giữ thứ tự cũ -> mới như danh sách không phân trang trước đây, đơn lưu trữ xen đúng chỗ theo ngày
+            orders.sort(Comparator.comparing(OrderDTO::getOrderDate, Comparator.nullsFirst(Comparator.naturalOrder()))
+                    .thenComparing(OrderDTO::getId));
+        }
+        return orders;
     }
     
-    // Lấy tất cả đơn hàng
-    @Transactional
-    public List<OrderDTO> getAllOrders() {
-        return orderRepository.findAll().stream()
-                .map(this::convertToDTO)
-                .collect(Collectors.toList());
+    // Admin: feed đơn hàng phân trang keyset, mới nhất -> cũ nhất, có lọc.
+    // Mỗi trang tốn cố định: 1 query lấy id + 1 query nạp chi tiết + 2 query payment/review.
+    @Transactional(readOnly = true)
+    public CursorPageDTO<OrderDTO> getAdminOrderFeed(String orderStatus, String paymentStatus,
+                                                     LocalDate from, LocalDate to, String customer,
+                                                     String cursor, Integer limit) {
+        Order.OrderStatus orderStatusEnum = null;
+        if (orderStatus != null && !orderStatus.isBlank()) {
+            try {
+                orderStatusEnum = Order.OrderStatus.valueOf(orderStatus.trim().toUpperCase());
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Trạng thái đơn hàng không hợp lệ");
+            }
+        }
+        Order.PaymentStatus paymentStatusEnum = null;
+        if (paymentStatus != null && !paymentStatus.isBlank()) {
+            try {
+                paymentStatusEnum = Order.PaymentStatus.valueOf(paymentStatus.trim().toUpperCase());
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Trạng thái thanh toán không hợp lệ");
+            }
+        }
+        if (from != null && to != null && from.isAfter(to)) {
+            throw new IllegalArgumentException("Ngày bắt đầu phải trước ngày kết thúc");
+        }
+
+        // Khách hàng: có '@' thì lọc theo email, ngược lại theo số điện thoại
+        String email = null;
+        String phoneNumber = null;
+        if (customer != null && !customer.isBlank()) {
+            if (customer.contains("@")) {
+                email = customer.trim();
+            } else {
+                phoneNumber = customer.trim();
+            }
+        }
+
+        int pageSize = pageSize(limit);
+        OrderCursor after = OrderCursor.decode(cursor);
+
+        // Lấy dư 1 bản ghi để biết còn trang sau hay không
+        List<Long> ids = orderRepository.findAdminFeedIds(
+                orderStatusEnum,
+                paymentStatusEnum,
+                from != null ? from.atStartOfDay() : null,
+                to != null ? to.plusDays(1).atStartOfDay() : null,
+                email,
+                phoneNumber,
+                after != null ? after.getOrderDate() : null,
+                after != null ? after.getId() : null,
+                PageRequest.of(0, pageSize + 1));
+
+        return loadOrderPage(ids, pageSize);
+    }
+
+    // Người dùng: danh sách đơn rút gọn (không nạp item/product/payment/review), phân trang keyset
+    @Transactional(readOnly = true)
+    public CursorPageDTO<OrderSummaryDTO> getUserOrderSummaries(Long userId, String cursor, Integer limit) {
+        int pageSize = pageSize(limit);
+        OrderCursor after = OrderCursor.decode(cursor);
+        LocalDateTime cursorDate = after != null ? after.getOrderDate() : null;
+        Long cursorId = after != null ? after.getId() : null;
+        List<OrderSummaryDTO> rows = orderRepository.findSummariesByUser(userId, cursorDate, cursorId,
+                PageRequest.of(0, pageSize + 1));
+        if (needsArchivePage(rows.size(), pageSize,
+                rows.isEmpty() ? null : rows.get(rows.size() - 1).getOrderDate())) {
+            rows = new ArrayList<>(rows);
+            rows.addAll(orderArchiveRepository.findSummariesByUser(userId, cursorDate, cursorId, pageSize + 1));
+            rows.sort(Comparator.comparing(OrderSummaryDTO::getOrderDate, Comparator.reverseOrder())
+                    .thenComparing(OrderSummaryDTO::getId, Comparator.reverseOrder()));
+        }
+
+        String nextCursor = null;
+        if (rows.size() > pageSize) {
+            rows = new ArrayList<>(rows.subList(0, pageSize));
+            OrderSummaryDTO last = rows.get(rows.size() - 1);
+            nextCursor = OrderCursor.encode(last.getOrderDate(), last.getId());
+        }
+        return new CursorPageDTO<>(rows, nextCursor);
+    }
+
+    // Người dùng: 1 trang đơn đầy đủ, phân trang keyset
+    @Transactional(readOnly = true)
+    public CursorPageDTO<OrderDTO> getUserOrderPage(Long userId, String cursor, Integer limit) {
+        int pageSize = pageSize(limit);
+        OrderCursor after = OrderCursor.decode(cursor);
+        LocalDateTime cursorDate = after != null ? after.getOrderDate() : null;
+        Long cursorId = after != null ? after.getId() : null;
+        List<Long> ids = orderRepository.findUserOrderIds(userId, cursorDate, cursorId,
+                PageRequest.of(0, pageSize + 1));
+        List<OrderDTO> orders = loadOrders(ids);
+        if (needsArchivePage(orders.size(), pageSize,
+                orders.isEmpty() ? null : orders.get(orders.size() - 1).getOrderDate())) {
+            orders.addAll(orderArchiveRepository.findOrdersByUser(userId, cursorDate, cursorId, pageSize + 1));
+            orders.sort(Comparator.comparing(OrderDTO::getOrderDate, Comparator.reverseOrder())
+                    .thenComparing(OrderDTO::getId, Comparator.reverseOrder()));
+        }
+        return toPage(orders, pageSize);
+    }
+
+    // Trang lấy từ bảng chính đã đủ (pageSize + 1 dòng) và dòng cuối còn mới hơn mốc lưu trữ
+    // -> chắc chắn không có đơn archive nào chen vào trang, bỏ qua query archive.
+    private boolean needsArchivePage(int hotRows, int pageSize, LocalDateTime lastHotDate) {
+        if (hotRows > pageSize && lastHotDate != null) {
+            return orderArchiveService.needsArchive(lastHotDate);
+        }
+        return orderArchiveService.needsArchive(null);
+    }
+
+    // Chi tiết 1 đơn: chủ đơn hoặc admin
+    @Transactional(readOnly = true)
+    public OrderDTO getOrderDetail(Long orderId, Long userId, boolean isAdmin) {
+        Order order = orderRepository.findWithDetailsById(orderId).orElse(null);
+        if (order == null) {
+            // Không còn ở bảng chính -> có thể đã được lưu trữ
+            return orderArchiveRepository.findOrder(orderId, isAdmin ? null : userId)
+                    .orElseThrow(() -> new IllegalArgumentException(orderArchiveRepository.existsById(orderId)
+                            ? "Bạn không có quyền xem đơn hàng này"
+                            : "Đơn hàng không tồn tại"));
+        }
+        if (!isAdmin && !order.getUser().getId().equals(userId)) {
+            throw new IllegalArgumentException("Bạn không có quyền xem đơn hàng này");
+        }
+        return orderDtoAssembler.toDTO(order);
+    }
+
+    private static int pageSize(Integer limit) {
+        return limit == null ? DEFAULT_FEED_LIMIT : Math.min(Math.max(limit, 1), MAX_FEED_LIMIT);
+    }
+
+    // ids: tối đa pageSize + 1 id theo thứ tự keyset (dư 1 để biết còn trang sau)
+    private CursorPageDTO<OrderDTO> loadOrderPage(List<Long> ids, int pageSize) {
+        return toPage(loadOrders(ids.size() > pageSize ? ids.subList(0, pageSize + 1) : ids), pageSize);
+    }
+
+    // orders: đã sắp theo keyset, có thể dư phần tử sau pageSize
+    private static CursorPageDTO<OrderDTO> toPage(List<OrderDTO> orders, int pageSize) {
+        String nextCursor = null;
+        if (orders.size() > pageSize) {
+            orders = new ArrayList<>(orders.subList(0, pageSize));
+            OrderDTO last = orders.get(orders.size() - 1);
+            nextCursor = OrderCursor.encode(last.getOrderDate(), last.getId());
+        }
+        return new CursorPageDTO<>(orders, nextCursor);
+    }
+
+    // Nạp chi tiết các đơn theo đúng thứ tự ids
+    private List<OrderDTO> loadOrders(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        // findByIdIn không giữ thứ tự -> sắp lại theo thứ tự id của trang
+        Map<Long, Order> byId = new HashMap<>();
+        for (Order order : orderRepository.findByIdIn(ids)) {
+            byId.put(order.getId(), order);
+        }
+        List<Order> page = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            Order order = byId.get(id);
+            if (order != null) {
+                page.add(order);
+            }
+        }
+        return orderDtoAssembler.toDTOs(page);
     }
     
-    // Cập nhật trạng thái đơn hàng
+    // Cập nhật trạng thái đơn hàng (theo bảng chuyển trạng thái của OrderStateMachine)
     @Transactional
     public OrderDTO updateOrderStatus(Long orderId, String newStatus) {
-        Order order = orderRepository.findById(orderId)
-                .orElseThrow(() -> new IllegalArgumentException("Đơn hàng không tồn tại"));
+        Order.OrderStatus target;
         try {
-            Order.OrderStatus statusEnum = Order.OrderStatus.valueOf(newStatus.toUpperCase());
-            order.setOrderStatus(statusEnum);
-        } catch (IllegalArgumentException e) {
+            target = Order.OrderStatus.valueOf(newStatus.trim().toUpperCase());
+        } catch (IllegalArgumentException | NullPointerException e) {
             throw new IllegalArgumentException("Trạng thái đơn hàng không hợp lệ");
         }
-        Order updatedOrder = orderRepository.save(order);
-        return convertToDTO(updatedOrder);
+        Order.OrderStatus previous = orderStateMachine.transition(orderId, target);
+        if (previous == null) {
+            Object[] current = currentStatus(orderId);
+            if (current[1] != target) {
+                throw new IllegalArgumentException("Không thể chuyển đơn hàng từ " + current[1] + " sang " + target);
+            }
+            // Đã ở đúng trạng thái -> không làm gì
+            previous = target;
+        }
+        Order order = loadOrder(orderId);
+        publishStatusChange(order, previous, order.getPaymentStatus());
+        return orderDtoAssembler.toDTO(order);
+    }
+
+    // Admin chuyển trạng thái nhiều đơn cùng lúc.
+    // 1 query đọc trạng thái hiện tại, kiểm tra chuyển trạng thái trong bộ nhớ,
+    // rồi mỗi trạng thái nguồn: khoá các đơn còn ở trạng thái đó + 1 câu UPDATE cho đúng các đơn đã khoá.
+    @Transactional
+    public List<OrderStatusUpdateResultDTO> bulkUpdateOrderStatus(List<Long> orderIds, String newStatus) {
+        if (orderIds == null || orderIds.isEmpty()) {
+            throw new IllegalArgumentException("Danh sách đơn hàng không được để trống");
+        }
+        Set<Long> ids = new LinkedHashSet<>(orderIds);
+        if (ids.size() > MAX_BULK_SIZE) {
+            throw new IllegalArgumentException("Chỉ được cập nhật tối đa " + MAX_BULK_SIZE + " đơn hàng mỗi lần");
+        }
+        Order.OrderStatus target;
+        try {
+            target = Order.OrderStatus.valueOf(newStatus.trim().toUpperCase());
+        } catch (IllegalArgumentException | NullPointerException e) {
+            throw new IllegalArgumentException("Trạng thái đơn hàng không hợp lệ");
+        }
+
+        // orderId -> [id, orderStatus, paymentStatus, userId, orderDate, totalAmount, itemQuantity]
+        Map<Long, Object[]> current = new HashMap<>();
+        for (Object[] row : orderRepository.findStatusFiguresByIdIn(ids)) {
+            current.put((Long) row[0], row);
+        }
+
+        Map<Long, OrderStatusUpdateResultDTO> results = new LinkedHashMap<>();
+        Map<Order.OrderStatus, List<Long>> bySource = new EnumMap<>(Order.OrderStatus.class);
+        for (Long id : ids) {
+            Object[] row = current.get(id);
+            if (row == null) {
+                results.put(id, new OrderStatusUpdateResultDTO(id, OrderStatusUpdateResultDTO.Outcome.NOT_FOUND, null, null));
+                continue;
+            }
+            Order.OrderStatus source = (Order.OrderStatus) row[1];
+            if (source == target) {
+                results.put(id, new OrderStatusUpdateResultDTO(id, OrderStatusUpdateResultDTO.Outcome.UNCHANGED,
+                        source.name(), source.name()));
+            } else if (!orderStateMachine.canTransition(source, target)) {
+                results.put(id, new OrderStatusUpdateResultDTO(id, OrderStatusUpdateResultDTO.Outcome.INVALID_TRANSITION,
+                        source.name(), source.name()));
+            } else {
+                bySource.computeIfAbsent(source, k -> new ArrayList<>()).add(id);
+                results.put(id, null);
+            }
+        }
+
+        for (Map.Entry<Order.OrderStatus, List<Long>> group : bySource.entrySet()) {
+            Order.OrderStatus source = group.getKey();
+            List<Long> groupIds = group.getValue();
+            // Đơn không còn ở trạng thái nguồn (vừa bị đổi ở nơi khác, kể cả đã sang đúng target) -> CONFLICT,
+            // không báo UPDATED và không phát lại event mà câu UPDATE này không gây ra
+            Set<Long> updatedIds = new HashSet<>(orderRepository.lockIdsByIdInAndStatus(groupIds, source));
+            if (!updatedIds.isEmpty()) {
+                orderRepository.updateStatusWhereStatus(updatedIds, source, target);
+            }
+            for (Long id : groupIds) {
+                if (updatedIds.contains(id)) {
+                    results.put(id, new OrderStatusUpdateResultDTO(id, OrderStatusUpdateResultDTO.Outcome.UPDATED,
+                            source.name(), target.name()));
+                    Object[] row = current.get(id);
+                    eventPublisher.publishEvent(new OrderStatusChangedEvent(id, (Long) row[3],
+                            source, target, (Order.PaymentStatus) row[2], (Order.PaymentStatus) row[2],
+                            (LocalDateTime) row[4], (Double) row[5], ((Number) row[6]).longValue(),
+                            LocalDateTime.now()));
+                } else {
+                    results.put(id, new OrderStatusUpdateResultDTO(id, OrderStatusUpdateResultDTO.Outcome.CONFLICT,
+                            source.name(), null));
+                }
+            }
+        }
+        return new ArrayList<>(results.values());
     }
 
     // Cập nhật trạng thái thanh toán
     @Transactional
     public OrderDTO updatePaymentStatus(Long orderId, String newStatus) {
-        Order order = orderRepository.findById(orderId)
-                .orElseThrow(() -> new IllegalArgumentException("Đơn hàng không tồn tại"));
+        Order.PaymentStatus target;
         try {
-            Order.PaymentStatus statusEnum = Order.PaymentStatus.valueOf(newStatus.toUpperCase());
-            order.setPaymentStatus(statusEnum);
-        } catch (IllegalArgumentException e) {
+            target = Order.PaymentStatus.valueOf(newStatus.trim().toUpperCase());
+        } catch (IllegalArgumentException | NullPointerException e) {
             throw new IllegalArgumentException("Trạng thái thanh toán không hợp lệ");
         }
-        Order updatedOrder = orderRepository.save(order);
-        return convertToDTO(updatedOrder);
+        Order.PaymentStatus previous = orderStateMachine.transition(orderId, target);
+        if (previous == null) {
+            Object[] current = currentStatus(orderId);
+            if (current[2] != target) {
+                throw new IllegalArgumentException("Không thể chuyển trạng thái thanh toán từ " + current[2] + " sang " + target);
+            }
+            previous = target;
+        }
+        Order order = loadOrder(orderId);
+        publishStatusChange(order, order.getOrderStatus(), previous);
+        return orderDtoAssembler.toDTO(order);
     }
     
-    // Người dùng yêu cầu hủy đơn hàng
+    // Người dùng yêu cầu hủy đơn hàng (chỉ chủ đơn, khi đơn đang chờ xác nhận hoặc đã xác nhận)
     @Transactional
     public OrderDTO cancelOrder(Long orderId, Long userId) {
-        Order order = orderRepository.findById(orderId)
-                .orElseThrow(() -> new IllegalArgumentException("Đơn hàng không tồn tại"));
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new IllegalArgumentException("Người dùng không tồn tại"));
-        if (!order.getUser().getId().equals(userId)) {
-            throw new IllegalArgumentException("Bạn không có quyền hủy đơn hàng này");
-        }
-        if (order.getOrderStatus() != Order.OrderStatus.PENDING && order.getOrderStatus() != Order.OrderStatus.CONFIRMED) {
+        Order.OrderStatus previous = orderStateMachine.transition(orderId, USER_CANCELLABLE,
+                Order.OrderStatus.CANCEL_REQUESTED, userId);
+        if (previous == null) {
+            Object[] current = currentStatus(orderId);
+            if (!userId.equals(current[3])) {
+                throw new IllegalArgumentException("Bạn không có quyền hủy đơn hàng này");
+            }
             throw new IllegalArgumentException("Chỉ có thể hủy đơn hàng ở trạng thái Chờ xác nhận hoặc Đã xác nhận");
         }
-        order.setOrderStatus(Order.OrderStatus.CANCEL_REQUESTED);
-        Order updatedOrder = orderRepository.save(order);
-        return convertToDTO(updatedOrder);
+        Order order = loadOrder(orderId);
+        publishStatusChange(order, previous, order.getPaymentStatus());
+        return orderDtoAssembler.toDTO(order);
     }
 
     // Admin đồng ý yêu cầu hủy đơn hàng
     @Transactional
     public OrderDTO approveCancelOrderByAdmin(Long orderId) {
-        Order order = orderRepository.findById(orderId)
-                .orElseThrow(() -> new IllegalArgumentException("Đơn hàng không tồn tại"));
-        if (order.getOrderStatus() != Order.OrderStatus.CANCEL_REQUESTED) {
-            throw new IllegalArgumentException("Đơn hàng không ở trạng thái yêu cầu hủy");
-        }
-        order.setOrderStatus(Order.OrderStatus.CANCELLED);
-        Order updatedOrder = orderRepository.save(order);
-        return convertToDTO(updatedOrder);
+        return resolveCancelRequest(orderId, Order.OrderStatus.CANCELLED);
     }
 
     // Admin từ chối yêu cầu hủy đơn hàng
     @Transactional
     public OrderDTO rejectCancelOrderByAdmin(Long orderId) {
-        Order order = orderRepository.findById(orderId)
-                .orElseThrow(() -> new IllegalArgumentException("Đơn hàng không tồn tại"));
-        if (order.getOrderStatus() != Order.OrderStatus.CANCEL_REQUESTED) {
+        return resolveCancelRequest(orderId, Order.OrderStatus.CONFIRMED);
+    }
+
+    // CANCEL_REQUESTED -> target
+    private OrderDTO resolveCancelRequest(Long orderId, Order.OrderStatus target) {
+        Order.OrderStatus previous = orderStateMachine.transition(orderId,
+                EnumSet.of(Order.OrderStatus.CANCEL_REQUESTED), target, null);
+        if (previous == null) {
+            currentStatus(orderId);
             throw new IllegalArgumentException("Đơn hàng không ở trạng thái yêu cầu hủy");
         }
-        order.setOrderStatus(Order.OrderStatus.CONFIRMED);
-        Order updatedOrder = orderRepository.save(order);
-        return convertToDTO(updatedOrder);
+        Order order = loadOrder(orderId);
+        publishStatusChange(order, previous, order.getPaymentStatus());
+        return orderDtoAssembler.toDTO(order);
+    }
+
+    private Order loadOrder(Long orderId) {
+        return orderRepository.findWithDetailsById(orderId)
+                .orElseThrow(() -> new IllegalArgumentException("Đơn hàng không tồn tại"));
+    }
+
+    // Chỉ đọc khi chuyển trạng thái thất bại, để báo lỗi đúng: [id, orderStatus, paymentStatus, userId]
+    private Object[] currentStatus(Long orderId) {
+        List<Object[]> rows = orderRepository.findStatusesByIdIn(List.of(orderId));
+        if (rows.isEmpty()) {
+            throw new IllegalArgumentException("Đơn hàng không tồn tại");
+        }
+        return rows.get(0);
     }
     
     // Admin xóa đơn hàng
     @Transactional
     public void deleteOrderByAdmin(Long orderId) {
-        Order order = orderRepository.findById(orderId)
+        Order order = orderRepository.findWithDetailsById(orderId)
                 .orElseThrow(() -> new IllegalArgumentException("Đơn hàng không tồn tại"));
-        if (order.getOrderStatus() != Order.OrderStatus.CANCELLED) {
+        if (!orderStateMachine.canDelete(order.getOrderStatus())) {
             throw new IllegalArgumentException("Chỉ có thể xóa đơn hàng ở trạng thái Đã hủy");
         }
         // Xóa Payment liên quan
@@ -270,13 +577,14 @@ public class OrderService {
             paymentRepository.delete(payment);
         }
         // Xóa Order (OrderItem sẽ tự động bị xóa nhờ cascade)
+        eventPublisher.publishEvent(OrderLifecycleEvent.of(OrderLifecycleEvent.Type.DELETED, order));
         orderRepository.delete(order);
     }
 
     // Admin cập nhật thời gian giao hàng
     @Transactional
     public OrderDTO updateDeliveryDateByAdmin(Long orderId, LocalDateTime newDeliveryDate) {
-        Order order = orderRepository.findById(orderId)
+        Order order = orderRepository.findWithDetailsById(orderId)
                 .orElseThrow(() -> new IllegalArgumentException("Đơn hàng không tồn tại"));
         if (newDeliveryDate == null) {
             throw new IllegalArgumentException("Thời gian giao hàng không được để trống");
@@ -286,54 +594,6 @@ public class OrderService {
         }
         order.setDeliveryDate(newDeliveryDate);
         Order updatedOrder = orderRepository.save(order);
-        return convertToDTO(updatedOrder);
-    }
-
-    // Chuyển đổi Order sang OrderDTO
-    private OrderDTO convertToDTO(Order order) {
-        OrderDTO orderDTO = new OrderDTO();
-        orderDTO.setId(order.getId());
-        orderDTO.setFullname(order.getFullname());
-        orderDTO.setEmail(order.getEmail());
-        orderDTO.setPhoneNumber(order.getPhoneNumber());
-        orderDTO.setDeliveryAddress(order.getDeliveryAddress());
-        orderDTO.setOrderDate(order.getOrderDate());
-        orderDTO.setDeliveryDate(order.getDeliveryDate());
-        orderDTO.setPaymentStatus(order.getPaymentStatus().name());
-        orderDTO.setOrderStatus(order.getOrderStatus().name());
-        orderDTO.setTotalAmount(order.getTotalAmount());
-        // Fetch payment method from Payment entity
-        Payment payment = paymentRepository.findByOrderId(order.getId());
-        if (payment != null) {
-            orderDTO.setPaymentMethod(payment.getPaymentMethod().name());
-        }
-        orderDTO.setOrderItems(order.getOrderItems().stream()
-                .map(this::convertToOrderItemDTO)
-                .collect(Collectors.toList()));
-        return orderDTO;
-    }
-
-    // Chuyển đổi OrderItem sang OrderItemDTO
-    private OrderItemDTO convertToOrderItemDTO(OrderItem orderItem) {
-        OrderItemDTO orderItemDTO = new OrderItemDTO();
-        orderItemDTO.setId(orderItem.getId());
-        orderItemDTO.setProductId(orderItem.getProduct().getId());
-        orderItemDTO.setProductName(orderItem.getProduct().getName());
-        orderItemDTO.setQuantity(orderItem.getQuantity());
-        orderItemDTO.setProductImage(orderItem.getProduct().getImg());
-        orderItemDTO.setUnitPrice(orderItem.getUnitPrice());
-        orderItemDTO.setSubtotal(orderItem.getSubtotal());
-
-        reviewRepository
-                .findByUserAndOrderAndProduct(
-                        orderItem.getOrder().getUser(),
-                        orderItem.getOrder(),
-                        orderItem.getProduct()
-                )
-                .ifPresent(review -> {
-                    orderItemDTO.setUserRating(review.getRating());
-                    orderItemDTO.setUserComment(review.getComment());
-                });
-        return orderItemDTO;
+        return orderDtoAssembler.toDTO(updatedOrder);
     }
 }
\ No newline at end of file
@@ -0,0 +1,143 @@
+package com.example.b_food_ordering.Service;
+
+import com.example.b_food_ordering.Entity.Order;
+import com.example.b_food_ordering.Repository.OrderRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Máy trạng thái của đơn hàng: 1 bảng chuyển trạng thái cho OrderStatus và 1 bảng cho PaymentStatus.
+ * Chuyển trạng thái: đọc trạng thái hiện tại bằng 1 câu SELECT ... FOR UPDATE, kiểm tra với bảng trong bộ nhớ,
+ * rồi 1 câu UPDATE ... WHERE id = :id AND status = hiện tại. Đơn đã bị khoá nên 2 thao tác đồng thời
+ * trên cùng 1 đơn chạy lần lượt: thao tác sau đọc trạng thái mới và bị từ chối nếu không còn hợp lệ.
+ */
+@Component
+public class OrderStateMachine {
+
+    private static final Map<Order.OrderStatus, Set<Order.OrderStatus>> ORDER_TRANSITIONS =
+            new EnumMap<>(Order.OrderStatus.class);
+    private static final Map<Order.PaymentStatus, Set<Order.PaymentStatus>> PAYMENT_TRANSITIONS =
+            new EnumMap<>(Order.PaymentStatus.class);
+
+    static {
+        // DELIVERED và CANCELLED là trạng thái cuối
+        ORDER_TRANSITIONS.put(Order.OrderStatus.PENDING,
+                EnumSet.of(Order.OrderStatus.CONFIRMED, Order.OrderStatus.CANCEL_REQUESTED, Order.OrderStatus.CANCELLED));
+        ORDER_TRANSITIONS.put(Order.OrderStatus.CONFIRMED,
+                EnumSet.of(Order.OrderStatus.SHIPPING, Order.OrderStatus.CANCEL_REQUESTED, Order.OrderStatus.CANCELLED));
+        ORDER_TRANSITIONS.put(Order.OrderStatus.SHIPPING,
+                EnumSet.of(Order.OrderStatus.DELIVERED));
+        ORDER_TRANSITIONS.put(Order.OrderStatus.CANCEL_REQUESTED,
+                EnumSet.of(Order.OrderStatus.CANCELLED, Order.OrderStatus.CONFIRMED));
+        ORDER_TRANSITIONS.put(Order.OrderStatus.DELIVERED, EnumSet.noneOf(Order.OrderStatus.class));
+        ORDER_TRANSITIONS.put(Order.OrderStatus.CANCELLED, EnumSet.noneOf(Order.OrderStatus.class));
+
+        // Thanh toán lỗi có thể thanh toán lại; REFUNDED là trạng thái cuối
+        PAYMENT_TRANSITIONS.put(Order.PaymentStatus.PENDING,
+                EnumSet.of(Order.PaymentStatus.PAID, Order.PaymentStatus.FAILED));
+        PAYMENT_TRANSITIONS.put(Order.PaymentStatus.FAILED,
+                EnumSet.of(Order.PaymentStatus.PAID, Order.PaymentStatus.PENDING));
+        PAYMENT_TRANSITIONS.put(Order.PaymentStatus.PAID,
+                EnumSet.of(Order.PaymentStatus.REFUNDED));
+        PAYMENT_TRANSITIONS.put(Order.PaymentStatus.REFUNDED, EnumSet.noneOf(Order.PaymentStatus.class));
+    }
+
+    private final OrderRepository orderRepository;
+
+    @Autowired
+    public OrderStateMachine(OrderRepository orderRepository) {
+        this.orderRepository = orderRepository;
+    }
+
+    public boolean canTransition(Order.OrderStatus from, Order.OrderStatus to) {
+        return ORDER_TRANSITIONS.getOrDefault(from, Collections.emptySet()).contains(to);
+    }
+
+    public boolean canTransition(Order.PaymentStatus from, Order.PaymentStatus to) {
+        return PAYMENT_TRANSITIONS.getOrDefault(from, Collections.emptySet()).contains(to);
+    }
+
+    // Chỉ xoá được đơn đã hủy
+    public boolean canDelete(Order.OrderStatus status) {
+        return status == Order.OrderStatus.CANCELLED;
+    }
+
+    // Mọi trạng thái nguồn được phép chuyển sang target
+    public Set<Order.OrderStatus> sourcesOf(Order.OrderStatus target) {
+        Set<Order.OrderStatus> sources = EnumSet.noneOf(Order.OrderStatus.class);
+        ORDER_TRANSITIONS.forEach((from, targets) -> {
+            if (targets.contains(target)) {
+                sources.add(from);
+            }
+        });
+        return sources;
+    }
+
+    public Set<Order.PaymentStatus> sourcesOf(Order.PaymentStatus target) {
+        Set<Order.PaymentStatus> sources = EnumSet.noneOf(Order.PaymentStatus.class);
+        PAYMENT_TRANSITIONS.forEach((from, targets) -> {
+            if (targets.contains(target)) {
+                sources.add(from);
+            }
+        });
+        return sources;
+    }
+
+    /**
+     * Chuyển trạng thái đơn sang target nếu đơn đang ở 1 trong các trạng thái nguồn (và thuộc ownerId nếu khác null).
+     * Trả về trạng thái nguồn đã khớp, hoặc null nếu không chuyển được (không có đơn / sai trạng thái / sai chủ).
+     */
+    public Order.OrderStatus transition(Long orderId, Collection<Order.OrderStatus> sources,
+                                        Order.OrderStatus target, Long ownerId) {
+        Object[] row = lockStatus(orderId);
+        if (row == null || (ownerId != null && !ownerId.equals(row[2]))) {
+            return null;
+        }
+        Order.OrderStatus current = (Order.OrderStatus) row[0];
+        if (!sources.contains(current)) {
+            return null;
+        }
+        if (!canTransition(current, target)) {
+            throw new IllegalStateException("Chuyển trạng thái không có trong bảng: " + current + " -> " + target);
+        }
+        return orderRepository.compareAndSetOrderStatus(orderId, current, target) == 1 ? current : null;
+    }
+
+    public Order.OrderStatus transition(Long orderId, Order.OrderStatus target) {
+        return transition(orderId, sourcesOf(target), target, null);
+    }
+
+    public Order.PaymentStatus transition(Long orderId, Collection<Order.PaymentStatus> sources,
+                                          Order.PaymentStatus target) {
+        Object[] row = lockStatus(orderId);
+        if (row == null) {
+            return null;
+        }
+        Order.PaymentStatus current = (Order.PaymentStatus) row[1];
+        if (!sources.contains(current)) {
+            return null;
+        }
+        if (!canTransition(current, target)) {
+            throw new IllegalStateException("Chuyển trạng thái không có trong bảng: " + current + " -> " + target);
+        }
+        return orderRepository.compareAndSetPaymentStatus(orderId, current, target) == 1 ? current : null;
+    }
+
+    public Order.PaymentStatus transition(Long orderId, Order.PaymentStatus target) {
+        return transition(orderId, sourcesOf(target), target);
+    }
+
+    // [orderStatus, paymentStatus, userId] đã khoá; null nếu không có đơn
+    private Object[] lockStatus(Long orderId) {
+        List<Object[]> rows = orderRepository.lockStatusById(orderId);
+        return rows.isEmpty() ? null : rows.get(0);
+    }
+}
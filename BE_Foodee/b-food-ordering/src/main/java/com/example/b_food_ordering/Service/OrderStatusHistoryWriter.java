@@ -0,0 +1,99 @@
+package com.example.b_food_ordering.Service;
+
+import com.example.b_food_ordering.Event.OrderStatusChangedEvent;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Ghi lịch sử chuyển trạng thái vào bảng order_status_history (chỉ thêm, không sửa).
+ * Event được xếp hàng trong bộ nhớ sau khi transaction commit, rồi ghi theo lô bằng 1 batch INSERT mỗi giây,
+ * nên không thêm câu lệnh nào vào transaction chuyển trạng thái.
+ * Đánh đổi: các dòng còn trong hàng đợi sẽ mất nếu tiến trình chết đột ngột (tắt bình thường thì vẫn được ghi).
+ */
+@Component
+public class OrderStatusHistoryWriter {
+
+    private static final Logger logger = LoggerFactory.getLogger(OrderStatusHistoryWriter.class);
+
+    private static final String INSERT_SQL = "INSERT INTO order_status_history " +
+            "(order_id, status_type, from_status, to_status, changed_at) VALUES (?, ?, ?, ?, ?)";
+
+    private static final int BATCH_SIZE = 500;
+    // Giới hạn hàng đợi khi DB lỗi kéo dài, tránh đầy bộ nhớ
+    private static final int MAX_PENDING = 100_000;
+
+    static final String ORDER_STATUS = "ORDER";
+    static final String PAYMENT_STATUS = "PAYMENT";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ConcurrentLinkedQueue<Object[]> pending = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pendingCount = new AtomicInteger();
+
+    @Autowired
+    public OrderStatusHistoryWriter(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onOrderStatusChanged(OrderStatusChangedEvent event) {
+        Timestamp changedAt = Timestamp.valueOf(event.getChangedAt());
+        if (event.getOrderStatus() != event.getPreviousOrderStatus()) {
+            enqueue(new Object[]{event.getOrderId(), ORDER_STATUS, name(event.getPreviousOrderStatus()),
+                    name(event.getOrderStatus()), changedAt});
+        }
+        if (event.getPaymentStatus() != event.getPreviousPaymentStatus()) {
+            enqueue(new Object[]{event.getOrderId(), PAYMENT_STATUS, name(event.getPreviousPaymentStatus()),
+                    name(event.getPaymentStatus()), changedAt});
+        }
+    }
+
+    private void enqueue(Object[] row) {
+        if (pendingCount.incrementAndGet() > MAX_PENDING) {
+            pending.poll();
+            pendingCount.decrementAndGet();
+            logger.warn("Order status history queue full, dropping oldest entry");
+        }
+        pending.add(row);
+    }
+
+    @Scheduled(fixedDelay = 1000L)
+    public void flush() {
+        while (!pending.isEmpty()) {
+            List<Object[]> batch = new ArrayList<>(BATCH_SIZE);
+            Object[] row;
+            while (batch.size() < BATCH_SIZE && (row = pending.poll()) != null) {
+                batch.add(row);
+            }
+            pendingCount.addAndGet(-batch.size());
+            try {
+                jdbcTemplate.batchUpdate(INSERT_SQL, batch);
+            } catch (RuntimeException e) {
+                // Đưa lại vào hàng đợi, thử lại ở lần sau
+                logger.error("Failed to write {} order status history rows: {}", batch.size(), e.getMessage());
+                batch.forEach(this::enqueue);
+                return;
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+
+    private static String name(Enum<?> value) {
+        return value != null ? value.name() : null;
+    }
+}
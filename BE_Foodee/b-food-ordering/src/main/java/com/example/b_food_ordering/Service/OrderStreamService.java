@@ -0,0 +1,332 @@
+package com.example.b_food_ordering.Service;
+
+import com.example.b_food_ordering.Event.OrderStatusChangedEvent;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Đẩy thay đổi trạng thái đơn hàng tới người dùng qua Server-Sent Events, thay cho việc client gọi lại GET /api/orders.
+ * - Mỗi user có thể mở nhiều kết nối (nhiều tab / thiết bị).
+ * - Mỗi user có ring buffer nhỏ các event gần nhất; khi client kết nối lại với Last-Event-ID thì gửi bù phần còn thiếu,
+ *   không gửi bù đủ được (buffer đã trôi / đã dọn / server restart) thì gửi event "resync".
+ * - Mỗi kết nối có hàng đợi gửi riêng, chạy trên pool nhỏ: client chậm chỉ giữ 1 luồng, không chặn stream khác.
+ *   Gửi treo quá SEND_TIMEOUT_MS hoặc tồn quá MAX_PENDING_PER_EMITTER event -> đóng kết nối, client tự nối lại.
+ * - Heartbeat định kỳ giữ kết nối qua proxy và phát hiện kết nối chết để dọn.
+ */
+@Service
+public class OrderStreamService {
+
+    private static final Logger logger = LoggerFactory.getLogger(OrderStreamService.class);
+
+    public static final String EVENT_NAME = "order-status";
+    // Gửi khi không thể gửi bù đủ (buffer đã trôi qua / server đã restart) -> client nên tải lại danh sách đơn
+    public static final String RESYNC_EVENT_NAME = "resync";
+
+    private static final long EMITTER_TIMEOUT_MS = 30 * 60 * 1000L;
+    private static final int BUFFER_SIZE_PER_USER = 50;
+    private static final long HEARTBEAT_INTERVAL_MS = 15_000L;
+    // Chỉ gửi bù cho client mất kết nối trong khoảng này
+    private static final long REPLAY_WINDOW_MINUTES = 30;
+    private static final int SENDER_THREADS = 4;
+    private static final long SEND_TIMEOUT_MS = 10_000L;
+    private static final int MAX_PENDING_PER_EMITTER = 100;
+
+    // Id event dạng "<epoch>-<seq>": epoch đổi sau mỗi lần khởi động -> id cũ không bị hiểu nhầm
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+    private final AtomicLong sequence = new AtomicLong();
+    // seq lớn nhất trong các buffer đã bị dọn vì quá REPLAY_WINDOW_MINUTES
+    private final AtomicLong expiredUpTo = new AtomicLong();
+
+    private final Map<Long, List<Subscriber>> emitters = new ConcurrentHashMap<>();
+    private final Map<Long, UserBuffer> buffers = new ConcurrentHashMap<>();
+
+    // Gửi trên luồng riêng để client chậm không giữ luồng đang commit đơn hàng
+    private final ExecutorService sender;
+
+    public OrderStreamService() {
+        AtomicInteger counter = new AtomicInteger();
+        this.sender = Executors.newFixedThreadPool(SENDER_THREADS, r -> {
+            Thread thread = new Thread(r, "order-sse-sender-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    // Mở kết nối SSE cho user, gửi bù các event sau lastEventId (nếu có)
+    public SseEmitter subscribe(Long userId, String lastEventId) {
+        SseEmitter emitter = new SseEmitter(EMITTER_TIMEOUT_MS);
+        Subscriber subscriber = new Subscriber(userId, emitter);
+        emitters.compute(userId, (k, list) -> {
+            List<Subscriber> userEmitters = list != null ? list : new CopyOnWriteArrayList<>();
+            userEmitters.add(subscriber);
+            return userEmitters;
+        });
+
+        emitter.onCompletion(subscriber::detach);
+        emitter.onTimeout(subscriber::detach);
+        emitter.onError(e -> subscriber.detach());
+
+        List<BufferedEvent> missed = new ArrayList<>();
+        boolean resync = collectMissed(userId, lastEventId, missed);
+        if (resync) {
+            subscriber.enqueue(() -> SseEmitter.event().name(RESYNC_EVENT_NAME).data("{}", MediaType.APPLICATION_JSON));
+        }
+        for (BufferedEvent event : missed) {
+            subscriber.enqueue(() -> toSse(event));
+        }
+        logger.info("User {} subscribed to order stream (lastEventId={}, replay={}, resync={})",
+                userId, lastEventId, missed.size(), resync);
+        return emitter;
+    }
+
+    // Nhận event sau khi transaction commit; không có transaction (VD: IPN VNPay) thì nhận ngay
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onOrderStatusChanged(OrderStatusChangedEvent event) {
+        long seq = sequence.incrementAndGet();
+        BufferedEvent buffered = new BufferedEvent(epoch + "-" + seq, seq, event);
+        // compute giữ khoá của key: heartbeat không thể dọn buffer giữa lúc lấy ra và lúc thêm event
+        buffers.compute(event.getUserId(), (k, buffer) -> {
+            UserBuffer userBuffer = buffer != null ? buffer : new UserBuffer();
+            userBuffer.append(buffered);
+            return userBuffer;
+        });
+
+        List<Subscriber> userEmitters = emitters.get(event.getUserId());
+        if (userEmitters == null) {
+            return;
+        }
+        for (Subscriber subscriber : userEmitters) {
+            subscriber.enqueue(() -> toSse(buffered));
+        }
+    }
+
+    // Comment SSE rỗng giữ kết nối; gửi lỗi nghĩa là client đã đi -> dọn emitter
+    @Scheduled(fixedRate = HEARTBEAT_INTERVAL_MS)
+    public void heartbeat() {
+        // Bỏ buffer của user đã lâu không có event mới, tránh map phình theo số user.
+        // Dọn từng key bằng computeIfPresent để không xen vào giữa 1 lần thêm event.
+        LocalDateTime replayHorizon = LocalDateTime.now().minusMinutes(REPLAY_WINDOW_MINUTES);
+        for (Long userId : buffers.keySet()) {
+            buffers.computeIfPresent(userId, (k, buffer) -> {
+                long newestSeq = buffer.newestSeqBefore(replayHorizon);
+                if (newestSeq < 0) {
+                    return buffer;
+                }
+                expiredUpTo.accumulateAndGet(newestSeq, Math::max);
+                return null;
+            });
+        }
+
+        long now = System.currentTimeMillis();
+        emitters.values().forEach(userEmitters -> {
+            for (Subscriber subscriber : userEmitters) {
+                if (subscriber.isStuck(now)) {
+                    logger.warn("Order stream of user {} stalled for more than {} ms, closing", subscriber.userId, SEND_TIMEOUT_MS);
+                    subscriber.close(new TimeoutException("SSE send timed out"));
+                } else {
+                    subscriber.enqueue(() -> SseEmitter.event().comment("ping"));
+                }
+            }
+        });
+    }
+
+    // true nếu client cần tải lại toàn bộ (không gửi bù đủ được)
+    private boolean collectMissed(Long userId, String lastEventId, List<BufferedEvent> missed) {
+        if (lastEventId == null || lastEventId.isBlank()) {
+            return false;
+        }
+        int dash = lastEventId.lastIndexOf('-');
+        if (dash <= 0 || !lastEventId.substring(0, dash).equals(epoch)) {
+            return true;
+        }
+        long lastSeq;
+        try {
+            lastSeq = Long.parseLong(lastEventId.substring(dash + 1));
+        } catch (NumberFormatException e) {
+            return true;
+        }
+
+        UserBuffer buffer = buffers.get(userId);
+        boolean gap = buffer != null && buffer.collectAfter(lastSeq, missed);
+        // Đọc sau buffer: buffer bị dọn trước lúc get() thì expiredUpTo đã được nâng.
+        // Event cuối client đã nhận cũ hơn 1 buffer đã bị dọn -> có thể đã mất event của user này
+        return gap || lastSeq < expiredUpTo.get();
+    }
+
+    private void remove(Long userId, Subscriber subscriber) {
+        emitters.computeIfPresent(userId, (k, list) -> {
+            list.remove(subscriber);
+            return list.isEmpty() ? null : list;
+        });
+    }
+
+    private static SseEmitter.SseEventBuilder toSse(BufferedEvent event) {
+        return SseEmitter.event()
+                .id(event.id)
+                .name(EVENT_NAME)
+                .data(event.payload, MediaType.APPLICATION_JSON);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        sender.shutdownNow();
+        emitters.values().forEach(list -> list.forEach(subscriber -> subscriber.emitter.complete()));
+        emitters.clear();
+    }
+
+    // Ring buffer event của 1 user; droppedUpTo = seq lớn nhất đã bị đẩy ra khi buffer đầy
+    private static final class UserBuffer {
+        private final Deque<BufferedEvent> events = new ArrayDeque<>();
+        private long droppedUpTo;
+
+        synchronized void append(BufferedEvent event) {
+            events.addLast(event);
+            while (events.size() > BUFFER_SIZE_PER_USER) {
+                droppedUpTo = events.removeFirst().seq;
+            }
+        }
+
+        // seq của event mới nhất nếu nó cũ hơn horizon (buffer nên bị dọn), ngược lại -1
+        synchronized long newestSeqBefore(LocalDateTime horizon) {
+            BufferedEvent newest = events.peekLast();
+            if (newest == null) {
+                return 0;
+            }
+            return newest.payload.getChangedAt().isBefore(horizon) ? newest.seq : -1;
+        }
+
+        // Thêm các event sau lastSeq vào missed; true nếu có event sau lastSeq đã bị đẩy ra
+        synchronized boolean collectAfter(long lastSeq, List<BufferedEvent> missed) {
+            for (BufferedEvent event : events) {
+                if (event.seq > lastSeq) {
+                    missed.add(event);
+                }
+            }
+            return lastSeq < droppedUpTo;
+        }
+    }
+
+    // 1 kết nối SSE + hàng đợi gửi riêng; tại mỗi thời điểm tối đa 1 luồng gửi cho kết nối này (giữ thứ tự event)
+    private final class Subscriber {
+        private final Long userId;
+        private final SseEmitter emitter;
+        private final Queue<Supplier<SseEmitter.SseEventBuilder>> pending = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger pendingCount = new AtomicInteger();
+        private final AtomicBoolean draining = new AtomicBoolean();
+        private volatile long sendStartedAt;
+        private volatile boolean closed;
+
+        private Subscriber(Long userId, SseEmitter emitter) {
+            this.userId = userId;
+            this.emitter = emitter;
+        }
+
+        void enqueue(Supplier<SseEmitter.SseEventBuilder> event) {
+            if (closed) {
+                return;
+            }
+            if (pendingCount.incrementAndGet() > MAX_PENDING_PER_EMITTER) {
+                logger.warn("Order stream of user {} has more than {} pending events, closing", userId, MAX_PENDING_PER_EMITTER);
+                close(new TimeoutException("SSE client too slow"));
+                return;
+            }
+            pending.add(event);
+            scheduleDrain();
+        }
+
+        private void scheduleDrain() {
+            if (!draining.compareAndSet(false, true)) {
+                return;
+            }
+            try {
+                sender.execute(this::drain);
+            } catch (RejectedExecutionException e) {
+                // Đang tắt ứng dụng
+                draining.set(false);
+            }
+        }
+
+        private void drain() {
+            try {
+                Supplier<SseEmitter.SseEventBuilder> event;
+                while (!closed && (event = pending.poll()) != null) {
+                    pendingCount.decrementAndGet();
+                    sendStartedAt = System.currentTimeMillis();
+                    try {
+                        emitter.send(event.get());
+                    } catch (IOException | IllegalStateException e) {
+                        detach();
+                    } finally {
+                        sendStartedAt = 0;
+                    }
+                }
+            } finally {
+                draining.set(false);
+            }
+            // Event tới sau lần poll cuối nhưng trước khi bỏ cờ draining
+            if (!closed && !pending.isEmpty()) {
+                scheduleDrain();
+            }
+        }
+
+        boolean isStuck(long now) {
+            long startedAt = sendStartedAt;
+            return startedAt != 0 && now - startedAt > SEND_TIMEOUT_MS;
+        }
+
+        // Kết nối đã kết thúc (client đi / lỗi gửi / hết hạn): chỉ dọn
+        void detach() {
+            closed = true;
+            pending.clear();
+            remove(userId, this);
+        }
+
+        // Chủ động đóng kết nối (gửi treo / tồn quá nhiều); client tự nối lại với Last-Event-ID
+        void close(Throwable reason) {
+            detach();
+            try {
+                emitter.completeWithError(reason);
+            } catch (IllegalStateException e) {
+                // Đã đóng từ trước
+            }
+        }
+    }
+
+    private static final class BufferedEvent {
+        private final String id;
+        private final long seq;
+        private final OrderStatusChangedEvent payload;
+
+        private BufferedEvent(String id, long seq, OrderStatusChangedEvent payload) {
+            this.id = id;
+            this.seq = seq;
+            this.payload = payload;
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package com.example.b_food_ordering.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+// Con trỏ keyset trên (cột sắp xếp, id) của danh sách món - mã hoá base64url để client coi như chuỗi mờ.
+// Mang theo kiểu sắp xếp để không dùng nhầm cursor của thứ tự khác.
+final class ProductCursor {
+
+    private final String sort;
+    private final Long id;
+    private final String value;
+
+    private ProductCursor(String sort, Long id, String value) {
+        this.sort = sort;
+        this.id = id;
+        this.value = value;
+    }
+
+    String getSort() {
+        return sort;
+    }
+
+    Long getId() {
+        return id;
+    }
+
+    String getValue() {
+        return value;
+    }
+
+    // value đứng cuối vì có thể chứa '|' (tên món)
+    static String encode(String sort, Long id, Object value) {
+        String raw = sort + "|" + id + "|" + value;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    // Trả về null nếu không truyền cursor (trang đầu tiên)
+    static ProductCursor decode(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int first = raw.indexOf('|');
+            int second = raw.indexOf('|', first + 1);
+            return new ProductCursor(raw.substring(0, first), Long.valueOf(raw.substring(first + 1, second)),
+                    raw.substring(second + 1));
+        } catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+            throw new IllegalArgumentException("Cursor không hợp lệ");
+        }
+    }
+}
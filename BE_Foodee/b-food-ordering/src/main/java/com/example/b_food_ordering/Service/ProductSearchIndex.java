@@ -0,0 +1,232 @@
+package com.example.b_food_ordering.Service;
+
+import com.example.b_food_ordering.Dto.ProductDTO;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.regex.Pattern;
+
+/**
+ * Chỉ mục đảo (inverted index) bất biến trên tên, mô tả, loại món và danh mục của các món, chấm điểm BM25.
+ * - Bỏ dấu thanh + dấu tiếng Việt, đ -> d, chữ thường: "pho ga" khớp "Phở Gà".
+ * - Món phải chứa mọi từ của câu tìm; từ cuối khớp theo tiền tố (đang gõ dở).
+ * - Điểm BM25 với trọng số theo trường (tên nặng nhất); bằng điểm thì theo id -> thứ tự ổn định.
+ * - Dựng lại cùng CatalogSnapshot; món không đổi nội dung dùng lại kết quả phân tích của chỉ mục trước.
+ */
+final class ProductSearchIndex {
+
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+    private static final Pattern NON_WORD = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    private static final float NAME_WEIGHT = 3f;
+    private static final float TYPE_WEIGHT = 2f;
+    private static final float CATEGORY_WEIGHT = 2f;
+    private static final float DESCRIPTION_WEIGHT = 1f;
+
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+
+    // Kết quả phân tích 1 món: tf có trọng số theo từ + độ dài có trọng số
+    private static final class Analyzed {
+        final String source;
+        final Map<String, Float> termFrequencies;
+        final float length;
+
+        Analyzed(String source, Map<String, Float> termFrequencies, float length) {
+            this.source = source;
+            this.termFrequencies = termFrequencies;
+            this.length = length;
+        }
+    }
+
+    private final ProductDTO[] documents;
+    private final Map<Long, Analyzed> analyzedById;
+    private final float[] lengths;
+    private final float averageLength;
+
+    // Từ điển đã sắp xếp + danh sách (vị trí món, tf) theo từ
+    private final String[] terms;
+    private final int[][] postingDocuments;
+    private final float[][] postingFrequencies;
+
+    ProductSearchIndex(List<ProductDTO> products, ProductSearchIndex previous) {
+        this.documents = products.toArray(new ProductDTO[0]);
+        this.analyzedById = new HashMap<>(products.size() * 2);
+        this.lengths = new float[documents.length];
+
+        Map<String, List<Integer>> positions = new TreeMap<>();
+        Map<String, List<Float>> frequencies = new HashMap<>();
+        double totalLength = 0;
+        for (int doc = 0; doc < documents.length; doc++) {
+            ProductDTO product = documents[doc];
+            String source = sourceText(product);
+            Analyzed analyzed = previous != null ? previous.analyzedById.get(product.getId()) : null;
+            if (analyzed == null || !analyzed.source.equals(source)) {
+                analyzed = analyze(product, source);
+            }
+            analyzedById.put(product.getId(), analyzed);
+            lengths[doc] = analyzed.length;
+            totalLength += analyzed.length;
+            for (Map.Entry<String, Float> entry : analyzed.termFrequencies.entrySet()) {
+                positions.computeIfAbsent(entry.getKey(), k -> new ArrayList<>()).add(doc);
+                frequencies.computeIfAbsent(entry.getKey(), k -> new ArrayList<>()).add(entry.getValue());
+            }
+        }
+        this.averageLength = documents.length > 0 ? (float) (totalLength / documents.length) : 0f;
+
+        this.terms = positions.keySet().toArray(new String[0]);
+        this.postingDocuments = new int[terms.length][];
+        this.postingFrequencies = new float[terms.length][];
+        for (int t = 0; t < terms.length; t++) {
+            List<Integer> docs = positions.get(terms[t]);
+            List<Float> tfs = frequencies.get(terms[t]);
+            int[] docArray = new int[docs.size()];
+            float[] tfArray = new float[docs.size()];
+            for (int i = 0; i < docArray.length; i++) {
+                docArray[i] = docs.get(i);
+                tfArray[i] = tfs.get(i);
+            }
+            postingDocuments[t] = docArray;
+            postingFrequencies[t] = tfArray;
+        }
+    }
+
+    // ================== Phân tích ==================
+
+    // "Phở Gà Đặc Biệt" -> "pho ga dac biet"
+    static String fold(String text) {
+        if (text == null) {
+            return "";
+        }
+        String decomposed = Normalizer.normalize(text, Normalizer.Form.NFD);
+        return MARKS.matcher(decomposed).replaceAll("")
+                .replace('đ', 'd').replace('Đ', 'd')
+                .toLowerCase(Locale.ROOT);
+    }
+
+    static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        for (String token : NON_WORD.split(fold(text))) {
+            if (!token.isEmpty()) {
+                tokens.add(token);
+            }
+        }
+        return tokens;
+    }
+
+    private static String sourceText(ProductDTO product) {
+        return product.getName() + '\u0000' + product.getDescription() + '\u0000'
+                + product.getProductTypeName() + '\u0000' + product.getCategoryName();
+    }
+
+    private static Analyzed analyze(ProductDTO product, String source) {
+        Map<String, Float> termFrequencies = new HashMap<>();
+        float length = addField(termFrequencies, product.getName(), NAME_WEIGHT)
+                + addField(termFrequencies, product.getDescription(), DESCRIPTION_WEIGHT)
+                + addField(termFrequencies, product.getProductTypeName(), TYPE_WEIGHT)
+                + addField(termFrequencies, product.getCategoryName(), CATEGORY_WEIGHT);
+        return new Analyzed(source, termFrequencies, length);
+    }
+
+    private static float addField(Map<String, Float> termFrequencies, String text, float weight) {
+        List<String> tokens = tokenize(text);
+        for (String token : tokens) {
+            termFrequencies.merge(token, weight, Float::sum);
+        }
+        return tokens.size() * weight;
+    }
+
+    // ================== Tìm kiếm ==================
+
+    // Vị trí (trong danh sách món lúc dựng) của các món khớp, điểm giảm dần rồi id tăng dần
+    int[] search(String query, int limit) {
+        List<String> tokens = tokenize(query);
+        if (tokens.isEmpty() || documents.length == 0) {
+            return new int[0];
+        }
+
+        double[] scores = new double[documents.length];
+        int[] matchedTerms = new int[documents.length];
+        for (int i = 0; i < tokens.size(); i++) {
+            String token = tokens.get(i);
+            boolean last = i == tokens.size() - 1;
+            // Từ cuối: mọi từ có tiền tố token; các từ khác: khớp đúng
+            int from = lowerBound(token);
+            int to;
+            if (last) {
+                to = lowerBound(token + Character.MAX_VALUE);
+            } else {
+                to = from < terms.length && terms[from].equals(token) ? from + 1 : from;
+            }
+            boolean[] seen = new boolean[documents.length];
+            for (int t = from; t < to; t++) {
+                int[] docs = postingDocuments[t];
+                float[] tfs = postingFrequencies[t];
+                double idf = Math.log(1 + (documents.length - docs.length + 0.5) / (docs.length + 0.5));
+                for (int p = 0; p < docs.length; p++) {
+                    int doc = docs[p];
+                    double tf = tfs[p];
+                    double norm = K1 * (1 - B + B * lengths[doc] / averageLength);
+                    scores[doc] += idf * tf * (K1 + 1) / (tf + norm);
+                    if (!seen[doc]) {
+                        seen[doc] = true;
+                        matchedTerms[doc]++;
+                    }
+                }
+            }
+        }
+
+        int required = tokens.size();
+        int count = 0;
+        for (int doc = 0; doc < documents.length; doc++) {
+            if (matchedTerms[doc] == required) {
+                count++;
+            }
+        }
+        Integer[] hits = new Integer[count];
+        int h = 0;
+        for (int doc = 0; doc < documents.length; doc++) {
+            if (matchedTerms[doc] == required) {
+                hits[h++] = doc;
+            }
+        }
+        Arrays.sort(hits, (a, b) -> {
+            int byScore = Double.compare(scores[b], scores[a]);
+            return byScore != 0 ? byScore : Long.compare(documents[a].getId(), documents[b].getId());
+        });
+        int size = Math.min(limit, hits.length);
+        int[] result = new int[size];
+        for (int i = 0; i < size; i++) {
+            result[i] = hits[i];
+        }
+        return result;
+    }
+
+    ProductDTO document(int position) {
+        return documents[position];
+    }
+
+    int termCount() {
+        return terms.length;
+    }
+
+    private int lowerBound(String key) {
+        int low = 0;
+        int high = terms.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (terms[mid].compareTo(key) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+}
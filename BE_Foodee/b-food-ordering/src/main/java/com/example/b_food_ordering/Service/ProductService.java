@@ -1,17 +1,28 @@
 package com.example.b_food_ordering.Service;
 
 import com.example.b_food_ordering.Dto.ProductDTO;
+import com.example.b_food_ordering.Dto.ProductPageDTO;
 import com.example.b_food_ordering.Dto.ProductTypeStatsDTO;
+import com.example.b_food_ordering.Dto.SuggestionDTO;
 import com.example.b_food_ordering.Entity.Product;
 import com.example.b_food_ordering.Entity.ProductType;
 import com.example.b_food_ordering.Entity.Category;
+import com.example.b_food_ordering.Event.CatalogChangedEvent;
 import com.example.b_food_ordering.Repository.ProductRepository;
 import com.example.b_food_ordering.Repository.ProductTypeRepository;
 import com.example.b_food_ordering.Repository.CategoryRepository;
+import com.example.b_food_ordering.Repository.ProductSpecifications;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 import java.util.stream.Collectors;
@@ -19,6 +30,61 @@ import java.util.stream.Collectors;
 @Service
 public class ProductService {
 
+    private static final int DEFAULT_PAGE_SIZE = 20;
+    private static final int MAX_PAGE_SIZE = 100;
+    private static final int DEFAULT_SUGGEST_LIMIT = 8;
+
+    // Cột sắp xếp của danh sách món phân trang; luôn kèm id để thứ tự ổn định (keyset)
+    public enum SortField {
+        ID("id", false), PRICE("sellingPrice", false), NAME("name", false),
+        DISCOUNT("discount", true), POPULARITY("ratingCount", true);
+
+        private final String attribute;
+        private final boolean defaultDescending;
+
+        SortField(String attribute, boolean defaultDescending) {
+            this.attribute = attribute;
+            this.defaultDescending = defaultDescending;
+        }
+
+        public static SortField parse(String value) {
+            if (value == null || value.isBlank()) {
+                return ID;
+            }
+            for (SortField field : values()) {
+                if (field.name().equalsIgnoreCase(value.trim())) {
+                    return field;
+                }
+            }
+            throw new IllegalArgumentException("Kiểu sắp xếp không hợp lệ: " + value
+                    + " (price | name | discount | popularity)");
+        }
+
+        private Object valueOf(Product product) {
+            return switch (this) {
+                case ID -> product.getId();
+                case PRICE -> product.getSellingPrice();
+                case NAME -> product.getName();
+                case DISCOUNT -> product.getDiscount();
+                case POPULARITY -> product.getRatingCount();
+            };
+        }
+
+        private Specification<Product> after(ProductCursor cursor, boolean descending) {
+            String value = cursor.getValue();
+            try {
+                return switch (this) {
+                    case ID -> ProductSpecifications.after(attribute, cursor.getId(), cursor.getId(), descending);
+                    case PRICE, DISCOUNT -> ProductSpecifications.after(attribute, Double.valueOf(value), cursor.getId(), descending);
+                    case NAME -> ProductSpecifications.after(attribute, value, cursor.getId(), descending);
+                    case POPULARITY -> ProductSpecifications.after(attribute, Long.valueOf(value), cursor.getId(), descending);
+                };
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Cursor không hợp lệ");
+            }
+        }
+    }
+
     @Autowired
     private ProductRepository productRepository;
 
@@ -28,8 +94,14 @@ public class ProductService {
     @Autowired
     private CategoryRepository categoryRepository;
 
+    @Autowired
+    private CatalogCacheService catalogCacheService;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
     // Ánh xạ từ Product sang ProductDTO
-    private ProductDTO toDTO(Product product) {
+    static ProductDTO toDTO(Product product) {
         ProductDTO dto = new ProductDTO();
         dto.setId(product.getId());
         dto.setName(product.getName());
@@ -43,6 +115,9 @@ public class ProductService {
         dto.setStatus(product.getStatus());
         dto.setCategoryId(product.getCategory() != null ? product.getCategory().getId() : null);
         dto.setCategoryName(product.getCategory() != null ? product.getCategory().getName() : null);
+        dto.setRatingCount(product.getRatingCount());
+        dto.setAverageRating(product.getAverageRating());
+        dto.setRatingHistogram(product.getRatingHistogram());
         return dto;
     }
 
@@ -133,14 +208,13 @@ public class ProductService {
 
         Product product = toEntity(productDTO);
         Product savedProduct = productRepository.save(product);
+        eventPublisher.publishEvent(new CatalogChangedEvent(CatalogChangedEvent.Source.PRODUCT, savedProduct.getId()));
         return toDTO(savedProduct);
     }
 
-    // Lấy tất cả sản phẩm
+    // Lấy tất cả sản phẩm (từ cache danh sách món)
     public List<ProductDTO> getAllProducts() {
-        return productRepository.findAll().stream()
-                .map(this::toDTO)
-                .collect(Collectors.toList());
+        return catalogCacheService.getAll();
     }
 
     // Lấy sản phẩm theo ID
@@ -148,12 +222,8 @@ public class ProductService {
         if (id == null || id <= 0) {
             throw new IllegalArgumentException("ID sản phẩm không hợp lệ");
         }
-        Optional<Product> product = productRepository.findById(id);
-        if (product.isPresent()) {
-            return toDTO(product.get());
-        } else {
-            throw new RuntimeException("Sản phẩm không tồn tại với ID: " + id);
-        }
+        return catalogCacheService.getById(id)
+                .orElseThrow(() -> new RuntimeException("Sản phẩm không tồn tại với ID: " + id));
     }
 
     // Lấy sản phẩm theo ID loại sản phẩm
@@ -161,9 +231,7 @@ public class ProductService {
         if (productTypeId == null || productTypeId <= 0) {
             throw new IllegalArgumentException("ID loại sản phẩm không hợp lệ");
         }
-        return productRepository.findByProductTypeId(productTypeId).stream()
-                .map(this::toDTO)
-                .collect(Collectors.toList());
+        return catalogCacheService.getByProductTypeId(productTypeId);
     }
 
     // Lấy sản phẩm theo ID danh mục
@@ -171,19 +239,112 @@ public class ProductService {
         if (categoryId == null || categoryId <= 0) {
             throw new IllegalArgumentException("ID danh mục không hợp lệ");
         }
-        return productRepository.findByCategoryId(categoryId).stream()
-                .map(this::toDTO)
+        return catalogCacheService.getByCategoryId(categoryId);
+    }
+
+    // Danh sách món phân trang: lọc (danh mục, loại món, trạng thái, khoảng giá, đang giảm giá) + sắp xếp.
+    // Có page -> phân trang theo số trang; không có -> keyset theo cursor (trang sau không chậm dần như OFFSET).
+    // Chỉ chạy query COUNT khi withTotal = true; hasNext lấy bằng cách đọc dư 1 dòng.
+    @Transactional(readOnly = true)
+    public ProductPageDTO getProductPage(Long categoryId, Long productTypeId, String status,
+                                         Double minPrice, Double maxPrice, boolean discountedOnly,
+                                         String sort, String direction, Integer page, Integer size,
+                                         String cursor, boolean withTotal) {
+        if (status != null && !List.of("AVAILABLE", "OUT_OF_STOCK", "DISCONTINUED").contains(status)) {
+            throw new IllegalArgumentException("Trạng thái không hợp lệ. Phải là một trong: AVAILABLE, OUT_OF_STOCK, DISCONTINUED");
+        }
+        if ((minPrice != null && minPrice < 0) || (maxPrice != null && maxPrice < 0)
+                || (minPrice != null && maxPrice != null && minPrice > maxPrice)) {
+            throw new IllegalArgumentException("Khoảng giá không hợp lệ");
+        }
+        if (page != null && page < 0) {
+            throw new IllegalArgumentException("Số trang không hợp lệ");
+        }
+        if (page != null && cursor != null && !cursor.isBlank()) {
+            throw new IllegalArgumentException("Không dùng đồng thời page và cursor");
+        }
+
+        SortField sortField = SortField.parse(sort);
+        boolean descending;
+        if (direction == null || direction.isBlank()) {
+            descending = sortField.defaultDescending;
+        } else if (direction.equalsIgnoreCase("asc") || direction.equalsIgnoreCase("desc")) {
+            descending = direction.equalsIgnoreCase("desc");
+        } else {
+            throw new IllegalArgumentException("Chiều sắp xếp không hợp lệ (asc | desc)");
+        }
+        int pageSize = size == null ? DEFAULT_PAGE_SIZE : Math.min(Math.max(size, 1), MAX_PAGE_SIZE);
+
+        List<Specification<Product>> conditions = new ArrayList<>();
+        addIfPresent(conditions, ProductSpecifications.hasCategory(categoryId));
+        addIfPresent(conditions, ProductSpecifications.hasProductType(productTypeId));
+        addIfPresent(conditions, ProductSpecifications.hasStatus(status));
+        addIfPresent(conditions, ProductSpecifications.priceBetween(minPrice, maxPrice));
+        addIfPresent(conditions, ProductSpecifications.discountedOnly(discountedOnly));
+        Specification<Product> filter = Specification.allOf(conditions);
+
+        Sort.Direction sortDirection = descending ? Sort.Direction.DESC : Sort.Direction.ASC;
+        Sort order = sortField == SortField.ID
+                ? Sort.by(sortDirection, "id")
+                : Sort.by(sortDirection, sortField.attribute, "id");
+        Long totalElements = withTotal ? productRepository.count(filter) : null;
+
+        if (page != null) {
+            Slice<Product> slice = productRepository.findBy(filter.and(ProductSpecifications.fetchTypeAndCategory()),
+                    query -> query.sortBy(order).slice(PageRequest.of(page, pageSize)));
+            List<ProductDTO> items = slice.getContent().stream()
+                    .map(ProductService::toDTO)
+                    .collect(Collectors.toList());
+            return new ProductPageDTO(items, page, pageSize, slice.hasNext(), null, totalElements);
+        }
+
+        // Keyset: cursor chỉ hợp lệ với đúng kiểu + chiều sắp xếp đã tạo ra nó
+        String sortKey = sortField.name() + (descending ? ":desc" : ":asc");
+        ProductCursor after = ProductCursor.decode(cursor);
+        Specification<Product> keyset = filter;
+        if (after != null) {
+            if (!sortKey.equals(after.getSort())) {
+                throw new IllegalArgumentException("Cursor không khớp với kiểu sắp xếp hiện tại");
+            }
+            keyset = keyset.and(sortField.after(after, descending));
+        }
+        // Lấy dư 1 bản ghi để biết còn trang sau hay không
+        List<Product> rows = productRepository.findBy(keyset.and(ProductSpecifications.fetchTypeAndCategory()),
+                query -> query.sortBy(order).limit(pageSize + 1).all());
+        String nextCursor = null;
+        if (rows.size() > pageSize) {
+            rows = rows.subList(0, pageSize);
+            Product last = rows.get(rows.size() - 1);
+            nextCursor = ProductCursor.encode(sortKey, last.getId(), sortField.valueOf(last));
+        }
+        List<ProductDTO> items = rows.stream()
+                .map(ProductService::toDTO)
                 .collect(Collectors.toList());
+        return new ProductPageDTO(items, null, pageSize, nextCursor != null, nextCursor, totalElements);
     }
 
-    // Tìm sản phẩm theo tên (gần đúng, không phân biệt hoa thường)
+    private static void addIfPresent(List<Specification<Product>> conditions, Specification<Product> condition) {
+        if (condition != null) {
+            conditions.add(condition);
+        }
+    }
+
+    // Tìm sản phẩm theo tên / mô tả / loại món / danh mục (không dấu, không phân biệt hoa thường),
+    // xếp theo độ liên quan - chỉ mục trong bộ nhớ, không truy vấn DB
     public List<ProductDTO> searchProductsByName(String name) {
         if (name == null || name.trim().isEmpty()) {
             throw new IllegalArgumentException("Tên sản phẩm không được để trống");
         }
-        return productRepository.findByNameContainingIgnoreCase(name).stream()
-                .map(this::toDTO)
-                .collect(Collectors.toList());
+        return catalogCacheService.search(name, Integer.MAX_VALUE);
+    }
+
+    // Gợi ý khi gõ ô tìm kiếm (món / danh mục / loại món theo tiền tố, phổ biến nhất trước)
+    public List<SuggestionDTO> suggest(String query, Integer limit) {
+        if (query == null || query.isBlank()) {
+            return List.of();
+        }
+        int size = limit == null ? DEFAULT_SUGGEST_LIMIT : Math.min(Math.max(limit, 1), ProductSuggestIndex.TOP_K);
+        return catalogCacheService.suggest(query, size);
     }
 
     // Cập nhật sản phẩm
@@ -252,6 +413,7 @@ public class ProductService {
                 product.setCategory(null);
             }
             Product updatedProduct = productRepository.save(product);
+            eventPublisher.publishEvent(new CatalogChangedEvent(CatalogChangedEvent.Source.PRODUCT, id));
             return toDTO(updatedProduct);
         } else {
             throw new RuntimeException("Sản phẩm không tồn tại với ID: " + id);
@@ -265,6 +427,7 @@ public class ProductService {
         }
         if (productRepository.existsById(id)) {
             productRepository.deleteById(id);
+            eventPublisher.publishEvent(new CatalogChangedEvent(CatalogChangedEvent.Source.PRODUCT, id));
         } else {
             throw new RuntimeException("Sản phẩm không tồn tại với ID: " + id);
         }
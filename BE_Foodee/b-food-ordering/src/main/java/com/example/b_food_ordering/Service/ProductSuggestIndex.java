@@ -0,0 +1,175 @@
+package com.example.b_food_ordering.Service;
+
+import com.example.b_food_ordering.Dto.ProductDTO;
+import com.example.b_food_ordering.Dto.SuggestionDTO;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Trie tiền tố bất biến cho ô tìm kiếm: tên món, danh mục, loại món (đã bỏ dấu, xem ProductSearchIndex.fold).
+ * - Mỗi tên được chèn từ mọi vị trí đầu từ: "pho ga" -> "pho ga", "ga" -> gõ "ga" cũng ra "Phở gà".
+ * - Mỗi nút giữ sẵn TOP_K gợi ý phổ biến nhất của cả nhánh -> 1 lần gõ = đi xuống vài nút, không sắp xếp lại.
+ * - Độ phổ biến: món = số lượt đánh giá; danh mục / loại món = món phổ biến nhất của nó.
+ * - Con của 1 nút lưu thành mảng ký tự đã sắp xếp + tìm nhị phân (không HashMap mỗi nút).
+ */
+final class ProductSuggestIndex {
+
+    static final int TOP_K = 10;
+
+    private enum Kind {
+        PRODUCT, CATEGORY, PRODUCT_TYPE
+    }
+
+    private static final char[] NO_LABELS = new char[0];
+    private static final Node[] NO_CHILDREN = new Node[0];
+    private static final int[] NO_ENTRIES = new int[0];
+
+    private static final class Node {
+        char[] labels = NO_LABELS;
+        Node[] children = NO_CHILDREN;
+        int[] top = NO_ENTRIES;
+
+        // Chỉ dùng lúc dựng
+        TreeMap<Character, Node> building = new TreeMap<>();
+        List<Integer> ends = new ArrayList<>(0);
+    }
+
+    private static final class Candidate {
+        final Kind kind;
+        final long id;
+        final String name;
+        long popularity;
+
+        Candidate(Kind kind, long id, String name, long popularity) {
+            this.kind = kind;
+            this.id = id;
+            this.name = name;
+            this.popularity = popularity;
+        }
+
+        void raise(long score) {
+            popularity = Math.max(popularity, score);
+        }
+    }
+
+    private final Kind[] kinds;
+    private final long[] ids;
+    private final String[] names;
+    private final long[] popularity;
+    private final Node root = new Node();
+
+    ProductSuggestIndex(List<ProductDTO> products) {
+        // Danh mục / loại món lấy từ chính các món (chỉ những cái còn món để gợi ý)
+        Map<String, Candidate> candidates = new LinkedHashMap<>();
+        for (ProductDTO product : products) {
+            if ("DISCONTINUED".equals(product.getStatus()) || product.getName() == null) {
+                continue;
+            }
+            long score = product.getRatingCount();
+            candidates.put("P" + product.getId(), new Candidate(Kind.PRODUCT, product.getId(), product.getName(), score));
+            if (product.getCategoryId() != null && product.getCategoryName() != null) {
+                candidates.computeIfAbsent("C" + product.getCategoryId(),
+                        k -> new Candidate(Kind.CATEGORY, product.getCategoryId(), product.getCategoryName(), 0))
+                        .raise(score);
+            }
+            if (product.getProductTypeId() != null && product.getProductTypeName() != null) {
+                candidates.computeIfAbsent("T" + product.getProductTypeId(),
+                        k -> new Candidate(Kind.PRODUCT_TYPE, product.getProductTypeId(), product.getProductTypeName(), 0))
+                        .raise(score);
+            }
+        }
+
+        int size = candidates.size();
+        this.kinds = new Kind[size];
+        this.ids = new long[size];
+        this.names = new String[size];
+        this.popularity = new long[size];
+        int entry = 0;
+        for (Candidate candidate : candidates.values()) {
+            kinds[entry] = candidate.kind;
+            ids[entry] = candidate.id;
+            names[entry] = candidate.name;
+            popularity[entry] = candidate.popularity;
+            insert(entry);
+            entry++;
+        }
+
+        Comparator<Integer> ranking = Comparator.<Integer>comparingLong(e -> -popularity[e])
+                .thenComparing(e -> kinds[e])
+                .thenComparing(e -> names[e])
+                .thenComparingLong(e -> ids[e]);
+        freeze(root, ranking);
+    }
+
+    // Chèn tên từ mọi vị trí đầu từ
+    private void insert(int entry) {
+        List<String> tokens = ProductSearchIndex.tokenize(names[entry]);
+        for (int start = 0; start < tokens.size(); start++) {
+            String key = String.join(" ", tokens.subList(start, tokens.size()));
+            Node node = root;
+            for (int i = 0; i < key.length(); i++) {
+                node = node.building.computeIfAbsent(key.charAt(i), c -> new Node());
+            }
+            node.ends.add(entry);
+        }
+    }
+
+    // Chuyển con sang mảng đã sắp xếp và tính top-K của nhánh từ dưới lên
+    private List<Integer> freeze(Node node, Comparator<Integer> ranking) {
+        List<Integer> candidates = new ArrayList<>(node.ends);
+        int childCount = node.building.size();
+        if (childCount > 0) {
+            node.labels = new char[childCount];
+            node.children = new Node[childCount];
+            int i = 0;
+            for (Map.Entry<Character, Node> child : node.building.entrySet()) {
+                node.labels[i] = child.getKey();
+                node.children[i] = child.getValue();
+                candidates.addAll(freeze(child.getValue(), ranking));
+                i++;
+            }
+        }
+        node.building = null;
+        node.ends = null;
+
+        List<Integer> top = candidates.stream()
+                .distinct()
+                .sorted(ranking)
+                .limit(TOP_K)
+                .toList();
+        node.top = top.stream().mapToInt(Integer::intValue).toArray();
+        return top;
+    }
+
+    List<SuggestionDTO> suggest(String query, int limit) {
+        String key = String.join(" ", ProductSearchIndex.tokenize(query));
+        if (key.isEmpty()) {
+            return List.of();
+        }
+        Node node = root;
+        for (int i = 0; i < key.length() && node != null; i++) {
+            int child = Arrays.binarySearch(node.labels, key.charAt(i));
+            node = child >= 0 ? node.children[child] : null;
+        }
+        if (node == null) {
+            return List.of();
+        }
+        int size = Math.min(limit, node.top.length);
+        List<SuggestionDTO> result = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            int entry = node.top[i];
+            result.add(new SuggestionDTO(kinds[entry].name(), ids[entry], names[entry]));
+        }
+        return result;
+    }
+
+    int size() {
+        return names.length;
+    }
+}
@@ -2,8 +2,10 @@ package com.example.b_food_ordering.Service;
 
 import com.example.b_food_ordering.Dto.ProductTypeDTO;
 import com.example.b_food_ordering.Entity.ProductType;
+import com.example.b_food_ordering.Event.CatalogChangedEvent;
 import com.example.b_food_ordering.Repository.ProductTypeRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
@@ -16,6 +18,9 @@ public class ProductTypeService {
     @Autowired
     private ProductTypeRepository productTypeRepository;
 
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
     // Ánh xạ từ ProductType sang ProductTypeDTO
     private ProductTypeDTO toDTO(ProductType productType) {
         ProductTypeDTO dto = new ProductTypeDTO();
@@ -46,6 +51,7 @@ public class ProductTypeService {
 
         ProductType productType = toEntity(productTypeDTO);
         ProductType savedProductType = productTypeRepository.save(productType);
+        eventPublisher.publishEvent(new CatalogChangedEvent(CatalogChangedEvent.Source.PRODUCT_TYPE, savedProductType.getId()));
         return toDTO(savedProductType);
     }
 
@@ -89,6 +95,7 @@ public class ProductTypeService {
             ProductType productType = existingProductType.get();
             productType.setName(productTypeDTO.getName());
             ProductType updatedProductType = productTypeRepository.save(productType);
+            eventPublisher.publishEvent(new CatalogChangedEvent(CatalogChangedEvent.Source.PRODUCT_TYPE, id));
             return toDTO(updatedProductType);
         } else {
             throw new RuntimeException("Loại sản phẩm không tồn tại với ID: " + id);
@@ -102,6 +109,7 @@ public class ProductTypeService {
         }
         if (productTypeRepository.existsById(id)) {
             productTypeRepository.deleteById(id);
+            eventPublisher.publishEvent(new CatalogChangedEvent(CatalogChangedEvent.Source.PRODUCT_TYPE, id));
         } else {
             throw new RuntimeException("Loại sản phẩm không tồn tại với ID: " + id);
         }
@@ -0,0 +1,117 @@
+package com.example.b_food_ordering.Service;
+
+import com.example.b_food_ordering.Event.CatalogChangedEvent;
+import com.example.b_food_ordering.Repository.CategoryRepository;
+import com.example.b_food_ordering.Repository.NewsRepository;
+import com.example.b_food_ordering.Repository.ProductTypeRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Số phiên bản tăng dần cho từng nhóm tài nguyên public (món, danh mục, loại món, tin tức),
+ * dùng làm ETag cho GET có điều kiện (xem ConditionalGetFilter).
+ * - Tăng sau khi ghi đã commit, nên client không thể nhận tag mới kèm dữ liệu cũ.
+ * - Ghi không đi qua instance này (sửa trực tiếp trong DB, instance khác) được bắt bằng dấu vân tay nội dung:
+ *   món lấy từ ảnh chụp của CatalogCacheService mỗi lần nạp, danh mục / loại món / tin tức kiểm tra định kỳ.
+ *   Dấu vân tay khác lần trước -> tăng phiên bản.
+ * - Tag mang thêm mốc khởi động của instance: khởi động lại / instance khác -> tag khác, client tải lại 1 lần.
+ */
+@Service
+public class ResourceVersions {
+
+    private static final Logger logger = LoggerFactory.getLogger(ResourceVersions.class);
+
+    public enum Family {
+        PRODUCTS("p"), CATEGORIES("c"), PRODUCT_TYPES("t"), NEWS("n");
+
+        private final String prefix;
+
+        Family(String prefix) {
+            this.prefix = prefix;
+        }
+    }
+
+    private final CategoryRepository categoryRepository;
+    private final ProductTypeRepository productTypeRepository;
+    private final NewsRepository newsRepository;
+
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+    private final AtomicLongArray versions = new AtomicLongArray(Family.values().length);
+    private final AtomicReferenceArray<String> fingerprints = new AtomicReferenceArray<>(Family.values().length);
+
+    @Autowired
+    public ResourceVersions(CategoryRepository categoryRepository,
+                            ProductTypeRepository productTypeRepository,
+                            NewsRepository newsRepository) {
+        this.categoryRepository = categoryRepository;
+        this.productTypeRepository = productTypeRepository;
+        this.newsRepository = newsRepository;
+    }
+
+    public long get(Family family) {
+        return versions.get(family.ordinal());
+    }
+
+    public void bump(Family family) {
+        versions.incrementAndGet(family.ordinal());
+    }
+
+    // Ghi nhận dấu vân tay nội dung mới nhất của 1 nhóm; khác lần trước (kể cả lần đầu) thì tăng phiên bản,
+    // để dữ liệu đổi trước lần ghi nhận đầu tiên cũng không bị trả 304
+    public void observe(Family family, String fingerprint) {
+        String previous = fingerprints.getAndSet(family.ordinal(), fingerprint);
+        if (!fingerprint.equals(previous)) {
+            bump(family);
+        }
+    }
+
+    // Weak ETag ghép phiên bản của các nhóm mà 1 route phụ thuộc, vd W/"lx3k9a-p12-t3"
+    public String etag(Family... families) {
+        StringBuilder tag = new StringBuilder("W/\"").append(epoch);
+        for (Family family : families) {
+            tag.append('-').append(family.prefix).append(get(family));
+        }
+        return tag.append('"').toString();
+    }
+
+    // Chạy sau CatalogCacheService: khi tag đã đổi thì cache danh sách món chắc chắn đã bị huỷ
+    @TransactionalEventListener(fallbackExecution = true)
+    @Order(Ordered.LOWEST_PRECEDENCE)
+    public void onCatalogChanged(CatalogChangedEvent event) {
+        switch (event.getSource()) {
+            // Tin tức không nằm trong DTO món
+            case NEWS -> {
+                bump(Family.NEWS);
+                return;
+            }
+            case CATEGORY -> bump(Family.CATEGORIES);
+            case PRODUCT_TYPE -> bump(Family.PRODUCT_TYPES);
+            default -> { }
+        }
+        // DTO món mang cả tên danh mục / loại món
+        bump(Family.PRODUCTS);
+    }
+
+    // Món đã có CatalogCacheService làm mới định kỳ; 3 nhóm còn lại chỉ cần 1 query tổng hợp mỗi bảng.
+    // contentFingerprint() của mỗi repository trả "số dòng:tổng CRC32 các cột hiển thị",
+    // đổi khi có dòng thêm / sửa / xoá.
+    @Scheduled(fixedDelayString = "${app.etag.check-interval-ms:60000}")
+    public void checkContent() {
+        try {
+            observe(Family.CATEGORIES, categoryRepository.contentFingerprint());
+            observe(Family.PRODUCT_TYPES, productTypeRepository.contentFingerprint());
+            observe(Family.NEWS, newsRepository.contentFingerprint());
+        } catch (RuntimeException e) {
+            logger.error("Không thể kiểm tra dấu vân tay nội dung cho ETag: {}", e.getMessage(), e);
+        }
+    }
+}
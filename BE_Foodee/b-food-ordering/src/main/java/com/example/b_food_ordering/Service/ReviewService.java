@@ -2,19 +2,29 @@ package com.example.b_food_ordering.Service;
 
 import com.example.b_food_ordering.Dto.ReviewRequestDTO;
 import com.example.b_food_ordering.Entity.*;
+import com.example.b_food_ordering.Event.CatalogChangedEvent;
 import com.example.b_food_ordering.Repository.*;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import lombok.RequiredArgsConstructor;
 
 @Service
 @RequiredArgsConstructor
 public class ReviewService {
 
+    private static final Logger logger = LoggerFactory.getLogger(ReviewService.class);
+
     private final UserRepository userRepository;
     private final OrderRepository orderRepository;
     private final ProductRepository productRepository;
     private final ReviewRepository reviewRepository;
+    private final ApplicationEventPublisher eventPublisher;
 
+    @Transactional
     public void createReview(String username, ReviewRequestDTO dto) {
 
         User user = userRepository.findByUsername(username);
@@ -33,6 +43,10 @@ public class ReviewService {
             throw new RuntimeException("Chỉ được đánh giá khi đơn đã giao");
         }
 
+        if (dto.getRating() < 1 || dto.getRating() > 5) {
+            throw new RuntimeException("Số sao phải từ 1 đến 5");
+        }
+
         // Không cho đánh giá trùng
         if (reviewRepository.findByUserAndOrderAndProduct(user, order, product).isPresent()) {
             throw new RuntimeException("Bạn đã đánh giá món này rồi");
@@ -46,5 +60,19 @@ public class ReviewService {
         review.setComment(dto.getComment());
 
         reviewRepository.save(review);
+        // Cùng transaction với review: tổng hợp của món luôn khớp với các review đã commit
+        productRepository.addRating(product.getId(), dto.getRating());
+        eventPublisher.publishEvent(new CatalogChangedEvent(CatalogChangedEvent.Source.RATING, product.getId()));
+    }
+
+    // Đối soát cột tổng hợp đánh giá trên products với bảng reviews (sửa review trực tiếp trong DB, dữ liệu cũ...)
+    @Scheduled(cron = "${app.rating.repair-cron:0 30 4 * * *}")
+    @Transactional
+    public void repairRatingAggregates() {
+        int repaired = productRepository.repairRatingAggregates();
+        if (repaired > 0) {
+            logger.warn("Đã sửa tổng hợp đánh giá của {} món", repaired);
+            eventPublisher.publishEvent(new CatalogChangedEvent(CatalogChangedEvent.Source.RATING, null));
+        }
     }
 }
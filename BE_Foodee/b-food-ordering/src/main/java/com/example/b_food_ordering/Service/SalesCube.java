@@ -0,0 +1,451 @@
+package com.example.b_food_ordering.Service;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Kho cột (columnar) các dòng món trong bộ nhớ, dùng cho SalesCubeService.
+ * - Mỗi thuộc tính là 1 mảng nguyên thuỷ; món / loại món / danh mục được mã hoá từ điển thành int nhỏ,
+ *   tiền lưu theo đơn vị nhỏ nhất (x100) dạng long.
+ * - 1 luồng ghi: ghi các dòng mới vào phần mảng sau size rồi publish() 1 Columns mới (volatile)
+ *   -> luồng đọc không khoá và chỉ thấy các dòng đã ghi xong.
+ *   Đổi trạng thái đơn ghi thẳng vào mảng trạng thái (byte), luồng đọc có thể thấy trễ 1 chút.
+ * - Group-by: chia dải dòng cho ForkJoin, mỗi lá gom vào bảng băm nguyên thuỷ rồi gộp dần lên.
+ * Khoá nhóm ghép tối đa MAX_GROUP_DIMENSIONS chiều, mỗi chiều DIM_BITS bit.
+ */
+final class SalesCube {
+
+    static final int MAX_GROUP_DIMENSIONS = 3;
+    static final byte REMOVED = -1;
+    private static final int DIM_BITS = 21;
+    private static final int MAX_DIM_VALUE = (1 << DIM_BITS) - 1;
+    private static final int SCAN_THRESHOLD = 1 << 16;
+    private static final int INITIAL_CAPACITY = 1 << 12;
+
+    // Bản nhìn bất biến cho luồng đọc: mảng dùng chung với luồng ghi, chỉ đọc các dòng < size
+    private static final class Columns {
+        final long[] orderIds;
+        final int[] products;
+        final int[] productTypes;
+        final int[] categories;
+        final int[] epochDays;
+        final int[] quantities;
+        final long[] amounts;
+        final byte[] orderStatuses;
+        final byte[] paymentStatuses;
+        final int size;
+
+        Columns(SalesCube cube) {
+            this.orderIds = cube.orderIds;
+            this.products = cube.products;
+            this.productTypes = cube.productTypes;
+            this.categories = cube.categories;
+            this.epochDays = cube.epochDays;
+            this.quantities = cube.quantities;
+            this.amounts = cube.amounts;
+            this.orderStatuses = cube.orderStatuses;
+            this.paymentStatuses = cube.paymentStatuses;
+            this.size = cube.size;
+        }
+    }
+
+    // Bộ lọc của 1 truy vấn (mã từ điển, -1 = không lọc; mask theo ordinal của enum trạng thái)
+    static final class Filter {
+        int fromDay = Integer.MIN_VALUE;
+        int toDay = Integer.MAX_VALUE;
+        int orderStatusMask = ~0;
+        int paymentStatusMask = ~0;
+        int productType = -1;
+        int category = -1;
+    }
+
+    final Dictionary productDictionary = new Dictionary();
+    final Dictionary productTypeDictionary = new Dictionary();
+    final Dictionary categoryDictionary = new Dictionary();
+
+    // ---- Phần của luồng ghi ----
+    private long[] orderIds = new long[INITIAL_CAPACITY];
+    private int[] products = new int[INITIAL_CAPACITY];
+    private int[] productTypes = new int[INITIAL_CAPACITY];
+    private int[] categories = new int[INITIAL_CAPACITY];
+    private int[] epochDays = new int[INITIAL_CAPACITY];
+    private int[] quantities = new int[INITIAL_CAPACITY];
+    private long[] amounts = new long[INITIAL_CAPACITY];
+    private byte[] orderStatuses = new byte[INITIAL_CAPACITY];
+    private byte[] paymentStatuses = new byte[INITIAL_CAPACITY];
+    private int size;
+    // orderId -> dòng đầu tiên của đơn (các dòng của 1 đơn luôn liền nhau)
+    private final OrderIndex orderIndex = new OrderIndex();
+
+    private volatile Columns published = new Columns(this);
+
+    // ================== Ghi (1 luồng) ==================
+
+    boolean containsOrder(long orderId) {
+        return orderIndex.get(orderId) >= 0;
+    }
+
+    void append(long orderId, int product, int productType, int category, int epochDay,
+                int quantity, long amount, byte orderStatus, byte paymentStatus) {
+        if (size == orderIds.length) {
+            grow();
+        }
+        if (orderIndex.get(orderId) < 0) {
+            orderIndex.put(orderId, size);
+        }
+        orderIds[size] = orderId;
+        products[size] = product;
+        productTypes[size] = productType;
+        categories[size] = category;
+        epochDays[size] = epochDay;
+        quantities[size] = quantity;
+        amounts[size] = amount;
+        orderStatuses[size] = orderStatus;
+        paymentStatuses[size] = paymentStatus;
+        size++;
+    }
+
+    // Cho luồng đọc thấy các dòng đã append
+    void publish() {
+        published = new Columns(this);
+    }
+
+    // Đổi trạng thái mọi dòng của đơn; trả về số dòng đã đổi
+    int updateStatus(long orderId, byte orderStatus, byte paymentStatus) {
+        int start = orderIndex.get(orderId);
+        if (start < 0) {
+            return 0;
+        }
+        int i = start;
+        while (i < size && orderIds[i] == orderId) {
+            orderStatuses[i] = orderStatus;
+            paymentStatuses[i] = paymentStatus;
+            i++;
+        }
+        return i - start;
+    }
+
+    private void grow() {
+        int capacity = orderIds.length * 2;
+        orderIds = Arrays.copyOf(orderIds, capacity);
+        products = Arrays.copyOf(products, capacity);
+        productTypes = Arrays.copyOf(productTypes, capacity);
+        categories = Arrays.copyOf(categories, capacity);
+        epochDays = Arrays.copyOf(epochDays, capacity);
+        quantities = Arrays.copyOf(quantities, capacity);
+        amounts = Arrays.copyOf(amounts, capacity);
+        orderStatuses = Arrays.copyOf(orderStatuses, capacity);
+        paymentStatuses = Arrays.copyOf(paymentStatuses, capacity);
+    }
+
+    // ================== Đọc ==================
+
+    int size() {
+        return published.size;
+    }
+
+    // Ước lượng bộ nhớ các cột + chỉ mục đơn
+    long memoryBytes() {
+        return (long) orderIds.length * (8 + 4 * 5 + 8 + 2) + orderIndex.memoryBytes();
+    }
+
+    // Gom nhóm theo các chiều (đã chọn trước), song song trên ForkJoinPool chung
+    GroupTable groupBy(SalesCubeService.Dimension[] dimensions, Filter filter) {
+        Columns columns = published;
+        return ForkJoinPool.commonPool().invoke(new ScanTask(columns, dimensions, filter, 0, columns.size));
+    }
+
+    private static final class ScanTask extends RecursiveTask<GroupTable> {
+        private final Columns c;
+        private final SalesCubeService.Dimension[] dimensions;
+        private final Filter filter;
+        private final int from;
+        private final int to;
+
+        ScanTask(Columns c, SalesCubeService.Dimension[] dimensions, Filter filter, int from, int to) {
+            this.c = c;
+            this.dimensions = dimensions;
+            this.filter = filter;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected GroupTable compute() {
+            if (to - from <= SCAN_THRESHOLD) {
+                return scan();
+            }
+            int mid = (from + to) >>> 1;
+            ScanTask left = new ScanTask(c, dimensions, filter, from, mid);
+            left.fork();
+            GroupTable right = new ScanTask(c, dimensions, filter, mid, to).compute();
+            GroupTable leftResult = left.join();
+            // Gộp bảng nhỏ vào bảng lớn
+            if (leftResult.size() >= right.size()) {
+                leftResult.merge(right);
+                return leftResult;
+            }
+            right.merge(leftResult);
+            return right;
+        }
+
+        private GroupTable scan() {
+            GroupTable table = new GroupTable();
+            // Các dòng gần như sắp theo ngày: nhớ tháng của ngày vừa tính
+            int lastDay = Integer.MIN_VALUE;
+            int lastYearMonth = 0;
+            for (int i = from; i < to; i++) {
+                int orderStatus = c.orderStatuses[i];
+                int paymentStatus = c.paymentStatuses[i];
+                int day = c.epochDays[i];
+                if (orderStatus < 0
+                        || (filter.orderStatusMask & (1 << orderStatus)) == 0
+                        || (filter.paymentStatusMask & (1 << paymentStatus)) == 0
+                        || day < filter.fromDay || day >= filter.toDay
+                        || (filter.productType >= 0 && c.productTypes[i] != filter.productType)
+                        || (filter.category >= 0 && c.categories[i] != filter.category)) {
+                    continue;
+                }
+                long key = 0;
+                for (SalesCubeService.Dimension dimension : dimensions) {
+                    int value;
+                    switch (dimension) {
+                        case PRODUCT:
+                            value = c.products[i];
+                            break;
+                        case PRODUCT_TYPE:
+                            value = c.productTypes[i];
+                            break;
+                        case CATEGORY:
+                            value = c.categories[i];
+                            break;
+                        case DAY:
+                            value = day;
+                            break;
+                        case WEEKDAY:
+                            value = Math.floorMod(day + 3, 7); // 1970-01-01 là thứ Năm -> thứ Hai = 0
+                            break;
+                        case ORDER_STATUS:
+                            value = orderStatus;
+                            break;
+                        case PAYMENT_STATUS:
+                            value = paymentStatus;
+                            break;
+                        default: // MONTH, YEAR
+                            if (day != lastDay) {
+                                LocalDate date = LocalDate.ofEpochDay(day);
+                                lastDay = day;
+                                lastYearMonth = date.getYear() * 12 + date.getMonthValue() - 1;
+                            }
+                            value = dimension == SalesCubeService.Dimension.MONTH ? lastYearMonth : lastYearMonth / 12;
+                    }
+                    key = (key << DIM_BITS) | value;
+                }
+                table.add(key, c.quantities[i], c.amounts[i], 1);
+            }
+            return table;
+        }
+    }
+
+    // Tách khoá nhóm thành giá trị từng chiều (thứ tự như lúc group-by)
+    static int[] splitKey(long key, int dimensionCount) {
+        int[] values = new int[dimensionCount];
+        for (int d = dimensionCount - 1; d >= 0; d--) {
+            values[d] = (int) (key & MAX_DIM_VALUE);
+            key >>>= DIM_BITS;
+        }
+        return values;
+    }
+
+    // ================== Bảng gom nhóm ==================
+
+    // Bảng băm địa chỉ mở khoá long -> (tổng số lượng, tổng tiền, số dòng)
+    static final class GroupTable {
+        private long[] keys = new long[16];
+        private long[] quantities = new long[16];
+        private long[] amounts = new long[16];
+        private long[] lines = new long[16];
+        private boolean[] used = new boolean[16];
+        private int size;
+
+        int size() {
+            return size;
+        }
+
+        int capacity() {
+            return keys.length;
+        }
+
+        boolean used(int slot) {
+            return used[slot];
+        }
+
+        long key(int slot) {
+            return keys[slot];
+        }
+
+        long quantity(int slot) {
+            return quantities[slot];
+        }
+
+        long amount(int slot) {
+            return amounts[slot];
+        }
+
+        long lines(int slot) {
+            return lines[slot];
+        }
+
+        void add(long key, long quantity, long amount, long lineCount) {
+            int mask = keys.length - 1;
+            int slot = (int) CountMinSketch.mix(key) & mask;
+            while (used[slot] && keys[slot] != key) {
+                slot = (slot + 1) & mask;
+            }
+            if (!used[slot]) {
+                used[slot] = true;
+                keys[slot] = key;
+                if (++size * 2 > keys.length) {
+                    quantities[slot] = quantity;
+                    amounts[slot] = amount;
+                    lines[slot] = lineCount;
+                    resize();
+                    return;
+                }
+            }
+            quantities[slot] += quantity;
+            amounts[slot] += amount;
+            lines[slot] += lineCount;
+        }
+
+        void merge(GroupTable other) {
+            for (int slot = 0; slot < other.keys.length; slot++) {
+                if (other.used[slot]) {
+                    add(other.keys[slot], other.quantities[slot], other.amounts[slot], other.lines[slot]);
+                }
+            }
+        }
+
+        private void resize() {
+            long[] oldKeys = keys;
+            long[] oldQuantities = quantities;
+            long[] oldAmounts = amounts;
+            long[] oldLines = lines;
+            boolean[] oldUsed = used;
+            int capacity = oldKeys.length * 2;
+            keys = new long[capacity];
+            quantities = new long[capacity];
+            amounts = new long[capacity];
+            lines = new long[capacity];
+            used = new boolean[capacity];
+            size = 0;
+            for (int slot = 0; slot < oldKeys.length; slot++) {
+                if (oldUsed[slot]) {
+                    add(oldKeys[slot], oldQuantities[slot], oldAmounts[slot], oldLines[slot]);
+                }
+            }
+        }
+    }
+
+    // ================== Từ điển id <-> mã ==================
+
+    // Mã hoá id (món, loại món, danh mục) thành mã 0..n-1; giữ tên mới nhất để hiển thị
+    static final class Dictionary {
+        private final Map<Long, Integer> codes = new HashMap<>();
+        private long[] ids = new long[16];
+        private String[] names = new String[16];
+        private int size;
+
+        synchronized int encode(long id, String name) {
+            Integer code = codes.get(id);
+            if (code == null) {
+                if (size > MAX_DIM_VALUE) {
+                    throw new IllegalStateException("Từ điển SalesCube vượt quá " + MAX_DIM_VALUE + " phần tử");
+                }
+                if (size == ids.length) {
+                    ids = Arrays.copyOf(ids, size * 2);
+                    names = Arrays.copyOf(names, size * 2);
+                }
+                code = size++;
+                codes.put(id, code);
+                ids[code] = id;
+            }
+            names[code] = name;
+            return code;
+        }
+
+        // -1 nếu id chưa từng xuất hiện
+        synchronized int find(long id) {
+            Integer code = codes.get(id);
+            return code != null ? code : -1;
+        }
+
+        synchronized long id(int code) {
+            return ids[code];
+        }
+
+        synchronized String name(int code) {
+            return names[code];
+        }
+
+        synchronized int size() {
+            return size;
+        }
+    }
+
+    // ================== Chỉ mục đơn ==================
+
+    // orderId (> 0) -> vị trí dòng đầu; địa chỉ mở, 0 = ô trống
+    private static final class OrderIndex {
+        private long[] keys = new long[INITIAL_CAPACITY];
+        private int[] values = new int[INITIAL_CAPACITY];
+        private int size;
+
+        int get(long orderId) {
+            int mask = keys.length - 1;
+            for (int slot = (int) CountMinSketch.mix(orderId) & mask; keys[slot] != 0; slot = (slot + 1) & mask) {
+                if (keys[slot] == orderId) {
+                    return values[slot];
+                }
+            }
+            return -1;
+        }
+
+        void put(long orderId, int line) {
+            if ((size + 1) * 2 > keys.length) {
+                resize();
+            }
+            int mask = keys.length - 1;
+            int slot = (int) CountMinSketch.mix(orderId) & mask;
+            while (keys[slot] != 0 && keys[slot] != orderId) {
+                slot = (slot + 1) & mask;
+            }
+            if (keys[slot] == 0) {
+                size++;
+            }
+            keys[slot] = orderId;
+            values[slot] = line;
+        }
+
+        long memoryBytes() {
+            return (long) keys.length * (8 + 4);
+        }
+
+        private void resize() {
+            long[] oldKeys = keys;
+            int[] oldValues = values;
+            keys = new long[oldKeys.length * 2];
+            values = new int[oldKeys.length * 2];
+            size = 0;
+            for (int slot = 0; slot < oldKeys.length; slot++) {
+                if (oldKeys[slot] != 0) {
+                    put(oldKeys[slot], oldValues[slot]);
+                }
+            }
+        }
+    }
+}
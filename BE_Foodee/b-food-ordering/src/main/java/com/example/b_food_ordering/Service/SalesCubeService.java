@@ -0,0 +1,367 @@
+package com.example.b_food_ordering.Service;
+
+import com.example.b_food_ordering.Entity.Order;
+import com.example.b_food_ordering.Event.OrderLifecycleEvent;
+import com.example.b_food_ordering.Event.OrderStatusChangedEvent;
+import com.example.b_food_ordering.Repository.SalesCubeRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Cắt lát doanh số tuỳ ý (loại món x danh mục x tháng x thứ...) trên SalesCube trong bộ nhớ,
+ * không truy vấn MySQL khi đọc.
+ * - Nạp toàn bộ dòng món (cả đơn đã lưu trữ) khi khởi động và nạp lại mỗi đêm (đổi loại món / danh mục của món...).
+ * - Đơn mới / đổi trạng thái / xoá đơn: event sau commit được xếp hàng, mỗi giây 1 luồng ghi
+ *   nạp dòng món của các đơn mới bằng 1 query rồi áp các thay đổi trạng thái theo đúng thứ tự.
+ * - Truy vấn: group-by tối đa 3 chiều + bộ lọc, quét song song bằng ForkJoin.
+ */
+@Service
+public class SalesCubeService {
+
+    private static final Logger logger = LoggerFactory.getLogger(SalesCubeService.class);
+
+    private static final int MAX_OPS_PER_BATCH = 1000;
+    private static final int MAX_ROWS = 10_000;
+
+    public enum Dimension {
+        PRODUCT, PRODUCT_TYPE, CATEGORY, YEAR, MONTH, DAY, WEEKDAY, ORDER_STATUS, PAYMENT_STATUS;
+
+        // "productType", "product_type", "PRODUCT-TYPE"... đều hợp lệ
+        public static Dimension parse(String value) {
+            String normalized = value.trim().replace("_", "").replace("-", "");
+            for (Dimension dimension : values()) {
+                if (dimension.name().replace("_", "").equalsIgnoreCase(normalized)) {
+                    return dimension;
+                }
+            }
+            throw new IllegalArgumentException("Chiều gom nhóm không hợp lệ: " + value
+                    + " (product | productType | category | year | month | day | weekday | orderStatus | paymentStatus)");
+        }
+    }
+
+    private enum OpType {
+        CREATED, STATUS, DELETED
+    }
+
+    private static final class Op {
+        final OpType type;
+        final long orderId;
+        final Order.OrderStatus orderStatus;
+        final Order.PaymentStatus paymentStatus;
+
+        Op(OpType type, long orderId, Order.OrderStatus orderStatus, Order.PaymentStatus paymentStatus) {
+            this.type = type;
+            this.orderId = orderId;
+            this.orderStatus = orderStatus;
+            this.paymentStatus = paymentStatus;
+        }
+    }
+
+    private final SalesCubeRepository salesCubeRepository;
+    private final ConcurrentLinkedQueue<Op> ops = new ConcurrentLinkedQueue<>();
+    // Luồng ghi duy nhất: drain() và reload() giữ khoá này
+    private final Object writeLock = new Object();
+
+    private volatile SalesCube cube = new SalesCube();
+    private volatile boolean loaded;
+    private volatile LocalDateTime loadedAt;
+    private volatile long lastLoadMs;
+
+    @Autowired
+    public SalesCubeService(SalesCubeRepository salesCubeRepository) {
+        this.salesCubeRepository = salesCubeRepository;
+    }
+
+    // ================== Nạp ==================
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadOnStartup() {
+        reload();
+    }
+
+    @Scheduled(cron = "${app.sales-cube.reload-cron:0 30 5 * * *}")
+    public void reload() {
+        synchronized (writeLock) {
+            long start = System.nanoTime();
+            try {
+                SalesCube fresh = new SalesCube();
+                salesCubeRepository.streamAllLines(new Appender(fresh));
+                fresh.publish();
+                cube = fresh;
+                loaded = true;
+                loadedAt = LocalDateTime.now();
+                lastLoadMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+                logger.info("Đã nạp SalesCube: {} dòng món trong {} ms", fresh.size(), lastLoadMs);
+            } catch (RuntimeException e) {
+                logger.error("Không thể nạp SalesCube: {}", e.getMessage(), e);
+            }
+        }
+    }
+
+    // Ghi dòng món vào cube; bỏ qua đơn đã có (các dòng của 1 đơn luôn liền nhau trong kết quả query)
+    private static final class Appender implements Consumer<SalesCubeRepository.Line> {
+        private final SalesCube target;
+        private long currentOrderId = -1;
+        private boolean skip;
+
+        Appender(SalesCube target) {
+            this.target = target;
+        }
+
+        @Override
+        public void accept(SalesCubeRepository.Line line) {
+            if (line.orderId() != currentOrderId) {
+                currentOrderId = line.orderId();
+                skip = target.containsOrder(currentOrderId);
+            }
+            if (skip) {
+                return;
+            }
+            int product = target.productDictionary.encode(line.productId(), line.productName());
+            int productType = target.productTypeDictionary.encode(line.productTypeId(), line.productTypeName());
+            // Món không có danh mục -> id 0
+            int category = target.categoryDictionary.encode(
+                    line.categoryId() != null ? line.categoryId() : 0L, line.categoryName());
+            target.append(line.orderId(), product, productType, category, (int) line.orderDate().toEpochDay(),
+                    line.quantity(), Math.round(line.subtotal() * 100),
+                    (byte) line.orderStatus().ordinal(), (byte) line.paymentStatus().ordinal());
+        }
+    }
+
+    // ================== Cập nhật từ event ==================
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onOrderLifecycle(OrderLifecycleEvent event) {
+        if (event.getOrderId() == null) {
+            return;
+        }
+        ops.add(new Op(event.getType() == OrderLifecycleEvent.Type.CREATED ? OpType.CREATED : OpType.DELETED,
+                event.getOrderId(), null, null));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onOrderStatusChanged(OrderStatusChangedEvent event) {
+        ops.add(new Op(OpType.STATUS, event.getOrderId(), event.getOrderStatus(), event.getPaymentStatus()));
+    }
+
+    @Scheduled(fixedDelay = 1000L)
+    public void drain() {
+        if (!loaded) {
+            return;
+        }
+        synchronized (writeLock) {
+            while (!ops.isEmpty()) {
+                List<Op> batch = new ArrayList<>();
+                Op op;
+                while (batch.size() < MAX_OPS_PER_BATCH && (op = ops.poll()) != null) {
+                    batch.add(op);
+                }
+                SalesCube target = cube;
+
+                // 1. Đơn mới: 1 query cho cả lô. Query đọc trạng thái hiện tại nên các thay đổi
+                //    trạng thái trong lô (áp lại ở bước 2) không làm sai kết quả.
+                Set<Long> createdIds = new LinkedHashSet<>();
+                for (Op item : batch) {
+                    if (item.type == OpType.CREATED && !target.containsOrder(item.orderId)) {
+                        createdIds.add(item.orderId);
+                    }
+                }
+                boolean failed = false;
+                if (!createdIds.isEmpty()) {
+                    // Đọc hết rồi mới ghi: query lỗi giữa chừng không để lại đơn thiếu dòng
+                    List<SalesCubeRepository.Line> lines = new ArrayList<>();
+                    try {
+                        salesCubeRepository.findLinesByOrderIds(createdIds, lines::add);
+                        lines.forEach(new Appender(target));
+                    } catch (RuntimeException e) {
+                        logger.warn("Không đọc được dòng món của {} đơn mới, thử lại sau: {}", createdIds.size(), e.getMessage());
+                        failed = true;
+                    }
+                }
+
+                // 2. Đổi trạng thái / xoá theo đúng thứ tự event
+                for (Op item : batch) {
+                    if (item.type == OpType.STATUS) {
+                        target.updateStatus(item.orderId,
+                                (byte) item.orderStatus.ordinal(), (byte) item.paymentStatus.ordinal());
+                    } else if (item.type == OpType.DELETED) {
+                        target.updateStatus(item.orderId, SalesCube.REMOVED, SalesCube.REMOVED);
+                    } else if (failed && createdIds.contains(item.orderId)) {
+                        ops.add(item);
+                    }
+                }
+                target.publish();
+                if (failed) {
+                    return;
+                }
+            }
+        }
+    }
+
+    // ================== Truy vấn ==================
+
+    /**
+     * Doanh số gom nhóm theo groupBy (phân tách bằng dấu phẩy, tối đa 3 chiều; rỗng = 1 dòng tổng).
+     * Bộ lọc: [from, to] theo ngày đặt, trạng thái đơn / thanh toán, loại món, danh mục (null = bỏ qua).
+     * Mỗi dòng: giá trị các chiều + quantity, revenue, lines; sắp theo revenue giảm dần.
+     */
+    public Map<String, Object> query(String groupBy, LocalDate from, LocalDate to,
+                                     Order.OrderStatus orderStatus, Order.PaymentStatus paymentStatus,
+                                     Long productTypeId, Long categoryId, Integer limit) {
+        long start = System.nanoTime();
+        Dimension[] dimensions = parseDimensions(groupBy);
+        SalesCube current = cube;
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        List<Map<String, Object>> rows = new ArrayList<>();
+        result.put("groupBy", dimensions);
+        result.put("rows", rows);
+
+        SalesCube.Filter filter = new SalesCube.Filter();
+        if (from != null) {
+            filter.fromDay = (int) from.toEpochDay();
+        }
+        if (to != null) {
+            filter.toDay = (int) to.plusDays(1).toEpochDay();
+        }
+        if (orderStatus != null) {
+            filter.orderStatusMask = 1 << orderStatus.ordinal();
+        }
+        if (paymentStatus != null) {
+            filter.paymentStatusMask = 1 << paymentStatus.ordinal();
+        }
+        boolean empty = false;
+        if (productTypeId != null) {
+            filter.productType = current.productTypeDictionary.find(productTypeId);
+            empty = filter.productType < 0;
+        }
+        if (categoryId != null) {
+            filter.category = current.categoryDictionary.find(categoryId);
+            empty |= filter.category < 0;
+        }
+
+        long totalQuantity = 0;
+        long totalAmount = 0;
+        if (!empty) {
+            SalesCube.GroupTable table = current.groupBy(dimensions, filter);
+            for (int slot = 0; slot < table.capacity(); slot++) {
+                if (!table.used(slot)) {
+                    continue;
+                }
+                Map<String, Object> row = new LinkedHashMap<>();
+                int[] values = SalesCube.splitKey(table.key(slot), dimensions.length);
+                for (int d = 0; d < dimensions.length; d++) {
+                    describe(current, dimensions[d], values[d], row);
+                }
+                row.put("quantity", table.quantity(slot));
+                row.put("revenue", table.amount(slot) / 100.0);
+                row.put("lines", table.lines(slot));
+                rows.add(row);
+                totalQuantity += table.quantity(slot);
+                totalAmount += table.amount(slot);
+            }
+        }
+        rows.sort((a, b) -> Double.compare((Double) b.get("revenue"), (Double) a.get("revenue")));
+        int size = limit != null ? Math.min(Math.max(1, limit), MAX_ROWS) : MAX_ROWS;
+        if (rows.size() > size) {
+            rows.subList(size, rows.size()).clear();
+        }
+
+        result.put("totalQuantity", totalQuantity);
+        result.put("totalRevenue", totalAmount / 100.0);
+        result.put("scannedLines", current.size());
+        result.put("loaded", loaded);
+        result.put("elapsedMs", (System.nanoTime() - start) / 1_000_000.0);
+        return result;
+    }
+
+    private static Dimension[] parseDimensions(String groupBy) {
+        List<Dimension> dimensions = new ArrayList<>();
+        if (groupBy != null) {
+            for (String part : groupBy.split(",")) {
+                if (!part.isBlank()) {
+                    Dimension dimension = Dimension.parse(part);
+                    if (dimensions.contains(dimension)) {
+                        throw new IllegalArgumentException("Chiều gom nhóm bị lặp: " + part.trim());
+                    }
+                    dimensions.add(dimension);
+                }
+            }
+        }
+        if (dimensions.size() > SalesCube.MAX_GROUP_DIMENSIONS) {
+            throw new IllegalArgumentException("Chỉ gom nhóm tối đa " + SalesCube.MAX_GROUP_DIMENSIONS + " chiều");
+        }
+        return dimensions.toArray(new Dimension[0]);
+    }
+
+    // Giải mã giá trị 1 chiều ra các cột hiển thị
+    private static void describe(SalesCube current, Dimension dimension, int value, Map<String, Object> row) {
+        switch (dimension) {
+            case PRODUCT:
+                row.put("productId", current.productDictionary.id(value));
+                row.put("productName", current.productDictionary.name(value));
+                break;
+            case PRODUCT_TYPE:
+                row.put("productTypeId", current.productTypeDictionary.id(value));
+                row.put("productTypeName", current.productTypeDictionary.name(value));
+                break;
+            case CATEGORY:
+                long categoryId = current.categoryDictionary.id(value);
+                row.put("categoryId", categoryId != 0 ? categoryId : null);
+                row.put("categoryName", current.categoryDictionary.name(value));
+                break;
+            case YEAR:
+                row.put("year", value);
+                break;
+            case MONTH:
+                row.put("month", YearMonth.of(value / 12, value % 12 + 1).toString());
+                break;
+            case DAY:
+                row.put("date", LocalDate.ofEpochDay(value));
+                break;
+            case WEEKDAY:
+                row.put("weekday", DayOfWeek.of(value + 1));
+                break;
+            case ORDER_STATUS:
+                row.put("orderStatus", Order.OrderStatus.values()[value]);
+                break;
+            default:
+                row.put("paymentStatus", Order.PaymentStatus.values()[value]);
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        SalesCube current = cube;
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("loaded", loaded);
+        stats.put("loadedAt", loadedAt);
+        stats.put("lastLoadMs", lastLoadMs);
+        stats.put("lines", current.size());
+        stats.put("products", current.productDictionary.size());
+        stats.put("productTypes", current.productTypeDictionary.size());
+        stats.put("categories", current.categoryDictionary.size());
+        stats.put("memoryBytes", current.memoryBytes());
+        stats.put("pendingEvents", ops.size());
+        return stats;
+    }
+}
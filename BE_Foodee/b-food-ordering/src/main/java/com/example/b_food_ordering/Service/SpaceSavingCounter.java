@@ -0,0 +1,188 @@
+package com.example.b_food_ordering.Service;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Space-Saving (Metwally et al.) trên mảng nguyên thuỷ, dùng cho top món bán chạy.
+ * Giữ tối đa capacity bộ đếm, luôn sắp theo count giảm dần:
+ * - Top-K chỉ là K phần tử đầu mảng -> O(K).
+ * - Bộ đếm nhỏ nhất nằm cuối mảng -> thay thế O(1); tăng count chỉ đẩy phần tử lên vài vị trí.
+ * Sai số (N = tổng trọng số đã thêm, m = capacity):
+ * - count(x) >= số thật của x, và count(x) - error(x) <= số thật.
+ * - error(x) <= N / m; mọi key có số thật > N / m chắc chắn nằm trong bảng.
+ * Không thread-safe: HeavyHittersService đồng bộ bên ngoài.
+ */
+final class SpaceSavingCounter {
+
+    private static final int EMPTY = -1;
+
+    private final int capacity;
+    private final long[] keys;
+    private final long[] counts;
+    private final long[] errors;
+    private int size;
+
+    // Chỉ mục key -> vị trí trong mảng: bảng băm địa chỉ mở (linear probing), kích thước luỹ thừa 2
+    private final long[] indexKeys;
+    private final int[] indexSlots;
+    private final int indexMask;
+
+    SpaceSavingCounter(int capacity) {
+        this.capacity = capacity;
+        this.keys = new long[capacity];
+        this.counts = new long[capacity];
+        this.errors = new long[capacity];
+        int tableSize = Integer.highestOneBit(Math.max(4, capacity * 2 - 1)) << 1;
+        this.indexKeys = new long[tableSize];
+        this.indexSlots = new int[tableSize];
+        this.indexMask = tableSize - 1;
+        clear();
+    }
+
+    int capacity() {
+        return capacity;
+    }
+
+    int size() {
+        return size;
+    }
+
+    void clear() {
+        size = 0;
+        Arrays.fill(indexSlots, EMPTY);
+    }
+
+    void add(long key, long weight) {
+        int pos = find(key);
+        if (pos == EMPTY) {
+            if (size < capacity) {
+                pos = size++;
+                keys[pos] = key;
+                counts[pos] = weight;
+                errors[pos] = 0;
+            } else {
+                // Thay bộ đếm nhỏ nhất (cuối mảng): key mới kế thừa count cũ làm sai số
+                pos = size - 1;
+                long min = counts[pos];
+                remove(keys[pos]);
+                keys[pos] = key;
+                counts[pos] = min + weight;
+                errors[pos] = min;
+            }
+            put(key, pos);
+        } else {
+            counts[pos] += weight;
+        }
+        moveUp(pos);
+    }
+
+    // Sao chép k phần tử lớn nhất vào mảng đích, trả về số phần tử đã chép. O(k).
+    int top(int k, long[] outKeys, long[] outCounts, long[] outErrors) {
+        int n = Math.min(k, size);
+        System.arraycopy(keys, 0, outKeys, 0, n);
+        System.arraycopy(counts, 0, outCounts, 0, n);
+        System.arraycopy(errors, 0, outErrors, 0, n);
+        return n;
+    }
+
+    private void moveUp(int pos) {
+        while (pos > 0 && counts[pos - 1] < counts[pos]) {
+            swap(pos - 1, pos);
+            pos--;
+        }
+    }
+
+    private void swap(int a, int b) {
+        long key = keys[a];
+        long count = counts[a];
+        long error = errors[a];
+        keys[a] = keys[b];
+        counts[a] = counts[b];
+        errors[a] = errors[b];
+        keys[b] = key;
+        counts[b] = count;
+        errors[b] = error;
+        put(keys[a], a);
+        put(keys[b], b);
+    }
+
+    // ================== Chỉ mục key -> vị trí ==================
+
+    private int slotOf(long key) {
+        return (int) CountMinSketch.mix(key) & indexMask;
+    }
+
+    private int find(long key) {
+        for (int i = slotOf(key); indexSlots[i] != EMPTY; i = (i + 1) & indexMask) {
+            if (indexKeys[i] == key) {
+                return indexSlots[i];
+            }
+        }
+        return EMPTY;
+    }
+
+    // Thêm mới hoặc cập nhật vị trí của key
+    private void put(long key, int pos) {
+        int i = slotOf(key);
+        while (indexSlots[i] != EMPTY && indexKeys[i] != key) {
+            i = (i + 1) & indexMask;
+        }
+        indexKeys[i] = key;
+        indexSlots[i] = pos;
+    }
+
+    // Xoá theo kiểu dời lùi (backward shift) để không cần tombstone
+    private void remove(long key) {
+        int i = slotOf(key);
+        while (indexSlots[i] != EMPTY && indexKeys[i] != key) {
+            i = (i + 1) & indexMask;
+        }
+        if (indexSlots[i] == EMPTY) {
+            return;
+        }
+        int gap = i;
+        for (int j = (gap + 1) & indexMask; indexSlots[j] != EMPTY; j = (j + 1) & indexMask) {
+            int home = slotOf(indexKeys[j]);
+            // j được phép dời về gap nếu home không nằm trong đoạn (gap, j]
+            if (((j - home) & indexMask) >= ((j - gap) & indexMask)) {
+                indexKeys[gap] = indexKeys[j];
+                indexSlots[gap] = indexSlots[j];
+                gap = j;
+            }
+        }
+        indexSlots[gap] = EMPTY;
+    }
+
+    // ================== Lưu / nạp ==================
+
+    void writeTo(DataOutputStream out) throws IOException {
+        out.writeInt(capacity);
+        out.writeInt(size);
+        for (int i = 0; i < size; i++) {
+            out.writeLong(keys[i]);
+            out.writeLong(counts[i]);
+            out.writeLong(errors[i]);
+        }
+    }
+
+    // Nạp lại từ snapshot; false nếu snapshot được ghi với capacity khác
+    boolean readFrom(DataInputStream in) throws IOException {
+        int savedCapacity = in.readInt();
+        int savedSize = in.readInt();
+        if (savedCapacity != capacity || savedSize > capacity) {
+            return false;
+        }
+        clear();
+        for (int i = 0; i < savedSize; i++) {
+            keys[i] = in.readLong();
+            counts[i] = in.readLong();
+            errors[i] = in.readLong();
+            put(keys[i], i);
+        }
+        size = savedSize;
+        return true;
+    }
+}
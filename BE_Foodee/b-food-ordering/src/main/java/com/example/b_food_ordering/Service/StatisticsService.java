@@ -11,6 +11,7 @@ import jakarta.transaction.Transactional;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import com.example.b_food_ordering.Dto.OrderStatusSummaryDTO;
 import java.time.LocalDate;
@@ -26,6 +27,10 @@ public class StatisticsService {
 
     private static final Logger logger = LoggerFactory.getLogger(StatisticsService.class);
 
+    // Giới hạn kích thước response của top user
+    private static final int MAX_TOP_USERS = 50;
+    private static final int MAX_SUMMARY_ENTRIES = 10;
+
     private final CategoryRepository categoryRepository;
     private final OrderRepository orderRepository;
     private final BookingRepository bookingRepository;
@@ -33,8 +38,9 @@ public class StatisticsService {
     private final ProductTypeRepository productTypeRepository;
     private final ProductRepository productRepository;
     private final OrderItemRepository orderItemRepository;
-    private final ReviewRepository reviewRepository;
-
+    private final DailySalesRollupRepository dailySalesRollupRepository;
+    private final OrderArchiveService orderArchiveService;
+    private final CustomerSketchService customerSketchService;
 
 
     @Autowired
@@ -43,7 +49,10 @@ public class StatisticsService {
                              BookingRepository bookingRepository,
                              UserRepository userRepository,
                              ProductTypeRepository productTypeRepository,
-                             ProductRepository productRepository, OrderItemRepository orderItemRepository, ReviewRepository reviewRepository){
+                             ProductRepository productRepository, OrderItemRepository orderItemRepository,
+                             DailySalesRollupRepository dailySalesRollupRepository,
+                             OrderArchiveService orderArchiveService,
+                             CustomerSketchService customerSketchService){
 
         this.categoryRepository = categoryRepository;
         this.orderRepository = orderRepository;
@@ -52,7 +61,9 @@ public class StatisticsService {
         this.productTypeRepository = productTypeRepository;
         this.productRepository = productRepository;
         this.orderItemRepository = orderItemRepository;
-        this.reviewRepository = reviewRepository;
+        this.dailySalesRollupRepository = dailySalesRollupRepository;
+        this.orderArchiveService = orderArchiveService;
+        this.customerSketchService = customerSketchService;
     }
 
     public List<Category> getAllCategories() {
@@ -65,143 +76,110 @@ public class StatisticsService {
 
     @Transactional
     public List<OrderItemDTO> getTopPopularDishes(int limit) {
-        List<Order> orders = orderRepository.findAll();
-        Map<Long, Integer> productQuantityMap = new HashMap<>();
-        Map<Long, OrderItemDTO> productDetailsMap = new HashMap<>();
-
-        for (Order order : orders) {
-
-            // ⭐ CHỈ đếm những đơn đã giao thành công
-            if (order.getOrderStatus() != Order.OrderStatus.DELIVERED) {
-                continue;
-            }
-
-            for (OrderItem item : order.getOrderItems()) {
-                if (item.getProduct() == null) {
-                    logger.warn("OrderItem ID {} has null product", item.getId());
-                    continue;
-                }
-
-                Long productId = item.getProduct().getId();
-                productQuantityMap.merge(productId, item.getQuantity(), Integer::sum);
-
-                if (!productDetailsMap.containsKey(productId)) {
-                    OrderItemDTO itemDTO = new OrderItemDTO();
-                    itemDTO.setId(item.getId());
-                    itemDTO.setProductId(productId);
-                    itemDTO.setProductName(item.getProduct().getName());
-                    itemDTO.setQuantity(item.getQuantity());
-                    itemDTO.setProductImage(item.getProduct().getImg());
-                    itemDTO.setUnitPrice(item.getUnitPrice());
-                    itemDTO.setSubtotal(item.getSubtotal());
-
-                    productDetailsMap.put(productId, itemDTO);
-                }
-            }
+        // ⭐ CHỈ đếm những đơn đã giao thành công; gom nhóm + sắp xếp + LIMIT trong DB
+        int size = Math.max(1, limit);
+        List<Object[]> rows = orderArchiveService.needsArchive(null)
+                ? orderItemRepository.findTopDishesWithArchive(Order.OrderStatus.DELIVERED.name(), size)
+                : orderItemRepository.findTopDishes(Order.OrderStatus.DELIVERED, PageRequest.of(0, size));
+
+        // [productId, name, img, doanh thu theo đơn giá lúc đặt, tổng số lượng]
+        List<OrderItemDTO> result = new ArrayList<>(rows.size());
+        for (Object[] row : rows) {
+            int totalOrdered = ((Number) row[4]).intValue();
+            double revenue = ((Number) row[3]).doubleValue();
+            OrderItemDTO itemDTO = new OrderItemDTO();
+            itemDTO.setProductId(((Number) row[0]).longValue());
+            itemDTO.setProductName((String) row[1]);
+            itemDTO.setProductImage((String) row[2]);
+            // Đơn giá bình quân đã bán
+            itemDTO.setUnitPrice(totalOrdered > 0 ? revenue / totalOrdered : 0.0);
+            itemDTO.setSubtotal(revenue);
+            itemDTO.setQuantity(totalOrdered);
+            itemDTO.setTotalOrdered(totalOrdered); // lượt đặt = số lượng trong các đơn đã giao
+            result.add(itemDTO);
         }
-
-        return productQuantityMap.entrySet().stream()
-                .sorted(Map.Entry.<Long, Integer>comparingByValue().reversed())
-                .limit(Math.max(1, limit))
-                .map(entry -> {
-                    OrderItemDTO dto = productDetailsMap.get(entry.getKey());
-                    if (dto != null) {
-                        dto.setTotalOrdered(entry.getValue()); // lượt đặt = số lượng trong các đơn đã giao
-                    }
-                    return dto;
-                })
-                .collect(Collectors.toList());
+        return result;
     }
 
 
+    /**
+     * Top user theo tổng chi tiêu.
+     * 1 query xếp hạng (SUM + ORDER BY + LIMIT trong DB), rồi đúng 2 query nạp món đã đặt / đặt bàn
+     * cho riêng N user đứng đầu. Mỗi user chỉ liệt kê tối đa MAX_SUMMARY_ENTRIES mục.
+     */
     @Transactional
-    public List<String> getRecentActivities(int limit) {
-        List<String> activities = new ArrayList<>();
-
-        List<Order> recentOrders = orderRepository.findAll().stream()
-                .sorted((o1, o2) -> o2.getOrderDate().compareTo(o1.getOrderDate()))
-                .limit(limit)
-                .collect(Collectors.toList());
-
-        List<Booking> recentBookings = bookingRepository.findAll().stream()
-                .sorted((b1, b2) -> b2.getCreatedAt().compareTo(b1.getCreatedAt()))
-                .limit(limit)
-                .collect(Collectors.toList());
-
-        for (Order order : recentOrders) {
-            String items = order.getOrderItems().stream()
-                    .filter(item -> item.getProduct() != null)
-                    .map(item -> item.getProduct().getName() + " (x" + item.getQuantity() + ")"
-                            + (item.getProduct().getProductType() != null
-                            ? " [" + item.getProduct().getProductType().getName() + "]" : ""))
-                    .collect(Collectors.joining(", "));
-            activities.add("User " + order.getUser().getUsername() + " đặt đơn hàng: " + items + " vào " + order.getOrderDate());
+    public List<Map<String, Object>> getTopUsers(int limit) {
+        int size = Math.min(Math.max(1, limit), MAX_TOP_USERS);
+        boolean withArchive = orderArchiveService.needsArchive(null);
+
+        // [userId, username, tổng chi tiêu]
+        List<Object[]> ranking = withArchive
+                ? orderRepository.findTopSpendersWithArchive(size)
+                : orderRepository.findTopSpenders(PageRequest.of(0, size));
+        if (ranking.isEmpty()) {
+            return new ArrayList<>();
         }
-
-        for (Booking booking : recentBookings) {
-            activities.add("User " + booking.getUser().getUsername() + " đặt bàn cho " + booking.getNumberOfGuests() +
-                    " người vào " + booking.getBookingDate() + " " + booking.getBookingTime());
+        List<Long> userIds = new ArrayList<>(ranking.size());
+        for (Object[] row : ranking) {
+            userIds.add(((Number) row[0]).longValue());
         }
 
-        return activities.stream()
-                .sorted(Comparator.reverseOrder())
-                .limit(Math.max(1, limit))
-                .collect(Collectors.toList());
-    }
+        // [userId, tên món, tên loại món, tổng số lượng]
+        Map<Long, List<String>> orderSummaries = new HashMap<>();
+        List<Object[]> itemRows = withArchive
+                ? orderItemRepository.sumQuantitiesByUserIdsWithArchive(userIds)
+                : orderItemRepository.sumQuantitiesByUserIds(userIds);
+        for (Object[] row : itemRows) {
+            addSummary(orderSummaries, ((Number) row[0]).longValue(), row[1] + " (x" + ((Number) row[3]).longValue() + ")"
+                    + (row[2] != null ? " [" + row[2] + "]" : ""));
+        }
 
-    @Transactional
-    public List<Map<String, Object>> getTopUsers(int limit) {
-        List<User> users = userRepository.findAll();
-        List<Map<String, Object>> topUsers = new ArrayList<>();
+        // [userId, số khách, ngày đặt]
+        Map<Long, List<String>> bookingSummaries = new HashMap<>();
+        for (Object[] row : bookingRepository.findSummariesByUserIds(userIds)) {
+            addSummary(bookingSummaries, (Long) row[0], "Đặt bàn cho " + row[1] + " người vào " + row[2]);
+        }
 
-        for (User user : users) {
+        List<Map<String, Object>> topUsers = new ArrayList<>(ranking.size());
+        for (Object[] row : ranking) {
+            Long userId = ((Number) row[0]).longValue();
             Map<String, Object> userStats = new HashMap<>();
-            userStats.put("username", user.getUsername());
-
-            List<Order> userOrders = orderRepository.findByUser(user);
-            double totalSpending = userOrders.stream()
-                    .mapToDouble(Order::getTotalAmount)
-                    .sum();
-
-            String orderItems = userOrders.stream()
-                    .flatMap(order -> order.getOrderItems().stream())
-                    .filter(item -> item.getProduct() != null)
-                    .map(item -> item.getProduct().getName() + " (x" + item.getQuantity() + ")"
-                            + (item.getProduct().getProductType() != null
-                            ? " [" + item.getProduct().getProductType().getName() + "]" : ""))
-                    .collect(Collectors.joining(", "));
-            userStats.put("orders", orderItems.isEmpty() ? "Không có đơn hàng" : orderItems);
-
-            List<Booking> userBookings = bookingRepository.findByUserUsername(user.getUsername());
-            String bookings = userBookings.stream()
-                    .map(b -> "Đặt bàn cho " + b.getNumberOfGuests() + " người vào " + b.getBookingDate())
-                    .collect(Collectors.joining(", "));
-            userStats.put("bookings", bookings.isEmpty() ? "Không có đặt bàn" : bookings);
-            userStats.put("totalSpending", totalSpending);
+            userStats.put("username", row[1]);
+            userStats.put("orders", joinSummary(orderSummaries.get(userId), "Không có đơn hàng"));
+            userStats.put("bookings", joinSummary(bookingSummaries.get(userId), "Không có đặt bàn"));
+            userStats.put("totalSpending", ((Number) row[2]).doubleValue());
             topUsers.add(userStats);
         }
+        return topUsers;
+    }
 
-        return topUsers.stream()
-                .sorted(Comparator.comparingDouble(u -> -(Double) u.get("totalSpending")))
-                .limit(Math.max(1, limit))
-                .collect(Collectors.toList());
+    // Giữ tối đa MAX_SUMMARY_ENTRIES + 1 mục / user (mục dư chỉ để biết có bị cắt hay không)
+    private static void addSummary(Map<Long, List<String>> summaries, Long userId, String entry) {
+        List<String> entries = summaries.computeIfAbsent(userId, k -> new ArrayList<>());
+        if (entries.size() <= MAX_SUMMARY_ENTRIES) {
+            entries.add(entry);
+        }
+    }
+
+    private static String joinSummary(List<String> entries, String empty) {
+        if (entries == null || entries.isEmpty()) {
+            return empty;
+        }
+        if (entries.size() > MAX_SUMMARY_ENTRIES) {
+            return String.join(", ", entries.subList(0, MAX_SUMMARY_ENTRIES)) + ", ...";
+        }
+        return String.join(", ", entries);
     }
 
     @Transactional
     public Map<String, Object> getQuickSummary() {
         Map<String, Object> summary = new HashMap<>();
-        summary.put("totalDishes", orderRepository.findAll().stream()
-                .flatMap(o -> o.getOrderItems().stream())
-                .map(OrderItem::getProduct)
-                .filter(Objects::nonNull)
-                .distinct()
-                .count());
+        summary.put("totalDishes", orderItemRepository.countDistinctOrderedProducts());
         summary.put("totalUsers", userRepository.count());
         summary.put("totalBookings", bookingRepository.count());
-        summary.put("totalOrders", orderRepository.count());
-        summary.put("totalRevenue", orderRepository.findAll().stream()
-                .mapToDouble(Order::getTotalAmount)
-                .sum());
+        // Tổng đơn / doanh thu đọc từ daily_sales_rollup (gồm cả đơn đã lưu trữ)
+        summary.put("totalOrders", dailySalesRollupRepository.sumOrderCount());
+        summary.put("totalRevenue", dailySalesRollupRepository.sumRevenue());
         summary.put("totalProductTypes", productTypeRepository.count());
         return summary;
     }
@@ -254,10 +232,8 @@ public class StatisticsService {
 
         long totalUsers = userRepository.count();
         long totalBookings = bookingRepository.count();
-        long totalOrders = orderRepository.count();
-        double totalRevenue = orderRepository.findAll().stream()
-                .mapToDouble(Order::getTotalAmount)
-                .sum();
+        long totalOrders = dailySalesRollupRepository.sumOrderCount();
+        double totalRevenue = dailySalesRollupRepository.sumRevenue();
 
         dto.setTotalProducts(totalProducts);   // 👈 dùng tổng món đang bán
         dto.setTotalUsers(totalUsers);
@@ -265,6 +241,13 @@ public class StatisticsService {
         dto.setTotalBookings(totalBookings);
         dto.setTotalRevenue(totalRevenue);
 
+        CustomerSketchService.CustomerCounts customers = customerSketchService.getCustomerCounts();
+        dto.setUniqueCustomersToday(customers.uniqueToday);
+        dto.setUniqueCustomersThisMonth(customers.uniqueThisMonth);
+        dto.setUniqueCustomersThisYear(customers.uniqueThisYear);
+        dto.setRepeatCustomersToday(customers.repeatToday);
+        dto.setRepeatCustomersThisMonth(customers.repeatThisMonth);
+
         return dto;
     }
 
@@ -278,17 +261,9 @@ public class StatisticsService {
             year = Calendar.getInstance().get(Calendar.YEAR);
         }
 
-        Map<Integer, Double> revenueByMonth = new HashMap<>();
-
-        for (Order order : orderRepository.findAll()) {
-            if (order.getOrderDate() == null) continue;
-
-            int orderYear = order.getOrderDate().getYear();
-            if (orderYear != year) continue;
-
-            int month = order.getOrderDate().getMonthValue();
-            revenueByMonth.merge(month, order.getTotalAmount(), Double::sum);
-        }
+        LocalDate start = LocalDate.of(year, 1, 1);
+        Map<Integer, Double> revenueByMonth =
+                dailySalesRollupRepository.sumRevenueByMonth(start, start.plusYears(1));
 
         List<Map<String, Object>> result = new ArrayList<>();
         // chỉ trả những tháng có doanh thu > 0
@@ -313,6 +288,16 @@ public class StatisticsService {
     public List<Map<String, Object>> getDashboardTopFoods(int limit) {
         List<OrderItemDTO> topItems = getTopPopularDishes(limit);
         List<Map<String, Object>> result = new ArrayList<>();
+        if (topItems.isEmpty()) {
+            return result;
+        }
+
+        // productId -> [productId, ratingCount, ratingSum] (cột tổng hợp trên products, tra theo khoá chính)
+        List<Long> productIds = topItems.stream().map(OrderItemDTO::getProductId).collect(Collectors.toList());
+        Map<Long, Object[]> ratingStats = new HashMap<>();
+        for (Object[] row : productRepository.findRatingAggregatesByIds(productIds)) {
+            ratingStats.put((Long) row[0], row);
+        }
 
         for (OrderItemDTO item : topItems) {
             if (item == null) continue;
@@ -324,26 +309,10 @@ public class StatisticsService {
             map.put("totalOrdered", item.getTotalOrdered());
             map.put("unitPrice", item.getUnitPrice());
 
-            // ⭐ Tính điểm trung bình + số lượt đánh giá cho sản phẩm này
-            double averageRating = 0.0;
-            int ratingCount = 0;
-
-            if (item.getProductId() != null) {
-                Product product = productRepository
-                        .findById(item.getProductId())
-                        .orElse(null);
-
-                if (product != null) {
-                    List<Review> reviews = reviewRepository.findByProduct(product);
-                    ratingCount = reviews.size();
-                    if (ratingCount > 0) {
-                        averageRating = reviews.stream()
-                                .mapToInt(Review::getRating)
-                                .average()
-                                .orElse(0.0);
-                    }
-                }
-            }
+            // ⭐ Điểm trung bình + số lượt đánh giá (đã nạp 1 lần cho cả danh sách)
+            Object[] stats = ratingStats.get(item.getProductId());
+            int ratingCount = stats != null ? ((Number) stats[1]).intValue() : 0;
+            double averageRating = ratingCount > 0 ? ((Number) stats[2]).doubleValue() / ratingCount : 0.0;
 
             map.put("averageRating", averageRating);   // ví dụ 4.2
             map.put("ratingCount", ratingCount);       // ví dụ 15
@@ -394,10 +363,8 @@ public class StatisticsService {
             to = from;
         }
 
-        LocalDateTime start = from.atStartOfDay();
-        LocalDateTime end = to.plusDays(1).atStartOfDay(); // < to+1d  => trọn ngày
-
-        List<Object[]> raw = orderRepository.countOrdersByStatusInRange(start, end);
+        // Rollup theo ngày nên [from, to+1d) là trọn các ngày
+        List<Object[]> raw = dailySalesRollupRepository.countOrdersByStatus(from, to.plusDays(1));
 
         // Khởi tạo tất cả trạng thái = 0
         Map<Order.OrderStatus, Long> counts = new EnumMap<>(Order.OrderStatus.class);
@@ -2,11 +2,14 @@ package com.example.b_food_ordering.Service;
 
 import com.example.b_food_ordering.Config.VnPayConfig;
 import com.example.b_food_ordering.Entity.Order;
+import com.example.b_food_ordering.Event.OrderStatusChangedEvent;
 import com.example.b_food_ordering.Payment.VnPayUtil;
 import com.example.b_food_ordering.Repository.OrderRepository;
 import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
@@ -19,6 +22,8 @@ public class VNPayService implements IVNPayService {
 
     private final VnPayConfig vnPayConfig;
     private final OrderRepository orderRepository;
+    private final OrderStateMachine orderStateMachine;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Override
     public String createPaymentUrl(Long orderId, HttpServletRequest request) {
@@ -99,6 +104,7 @@ public class VNPayService implements IVNPayService {
     }
 
     // Dùng cho /vnpay/confirm để cập nhật trạng thái đơn
+    @Transactional
     public boolean handleVnPayIpn(HttpServletRequest request) {
 
         String orderIdStr = request.getParameter("vnp_TxnRef");
@@ -114,17 +120,31 @@ public class VNPayService implements IVNPayService {
             return false;
         }
 
-        Order order = orderRepository.findById(orderId).orElse(null);
-        if (order == null) return false;
-
+        // Compare-and-set qua OrderStateMachine: IPN gửi lại nhiều lần cũng chỉ chuyển trạng thái 1 lần
+        Order.OrderStatus previousOrderStatus = null;
+        Order.PaymentStatus previousPaymentStatus;
         if ("00".equals(responseCode) && "00".equals(transactionStatus)) {
-            order.setPaymentStatus(Order.PaymentStatus.PAID);
-            order.setOrderStatus(Order.OrderStatus.CONFIRMED);
+            previousPaymentStatus = orderStateMachine.transition(orderId, Order.PaymentStatus.PAID);
+            if (previousPaymentStatus != null) {
+                previousOrderStatus = orderStateMachine.transition(orderId,
+                        EnumSet.of(Order.OrderStatus.PENDING), Order.OrderStatus.CONFIRMED, null);
+            }
         } else {
-            order.setPaymentStatus(Order.PaymentStatus.FAILED);
+            previousPaymentStatus = orderStateMachine.transition(orderId,
+                    EnumSet.of(Order.PaymentStatus.PENDING), Order.PaymentStatus.FAILED);
         }
 
-        orderRepository.save(order);
+        Order order = orderRepository.findById(orderId).orElse(null);
+        if (order == null) return false;
+
+        if (previousPaymentStatus != null) {
+            OrderStatusChangedEvent event = OrderStatusChangedEvent.of(order,
+                    previousOrderStatus != null ? previousOrderStatus : order.getOrderStatus(),
+                    previousPaymentStatus);
+            if (event != null) {
+                eventPublisher.publishEvent(event);
+            }
+        }
         return true;
     }
 }
@@ -0,0 +1,156 @@
+package com.example.b_food_ordering.Service;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ActivityRingTest {
+
+    private static final LocalDateTime BASE = LocalDateTime.of(2024, 1, 1, 12, 0);
+
+    @Test
+    void capacityRoundsUpToPowerOfTwo() {
+        assertEquals(8, new ActivityRing(5).capacity());
+        assertEquals(8, new ActivityRing(8).capacity());
+        assertEquals(2, new ActivityRing(0).capacity());
+    }
+
+    @Test
+    void wraparoundKeepsOnlyNewestEntries() {
+        ActivityRing ring = new ActivityRing(4);
+        for (int i = 0; i < 10; i++) {
+            ring.add(i, BASE.plusMinutes(i), "a" + i);
+        }
+
+        ActivityRing.Entry[] out = new ActivityRing.Entry[8];
+        int n = ring.snapshot(out, out.length);
+        assertEquals(4, n);
+        assertArrayEquals(new long[]{9, 8, 7, 6}, sourceIds(out, n));
+
+        // limit nhỏ hơn số mục -> lấy các mục mới nhất
+        n = ring.snapshot(out, 2);
+        assertArrayEquals(new long[]{9, 8}, sourceIds(out, n));
+    }
+
+    @Test
+    void snapshotSortsByTimeWhenCommitsInterleave() {
+        ActivityRing ring = new ActivityRing(8);
+        // Thứ tự ghi khác thứ tự thời gian (transaction commit đan xen)
+        ring.add(1, BASE.plusMinutes(1), "a1");
+        ring.add(3, BASE.plusMinutes(3), "a3");
+        ring.add(2, BASE.plusMinutes(2), "a2");
+        ring.add(5, BASE.plusMinutes(5), "a5");
+        ring.add(4, BASE.plusMinutes(4), "a4");
+
+        ActivityRing.Entry[] out = new ActivityRing.Entry[8];
+        int n = ring.snapshot(out, out.length);
+        assertArrayEquals(new long[]{5, 4, 3, 2, 1}, sourceIds(out, n));
+    }
+
+    @Test
+    void removeClearsOnlyMatchingSource() {
+        ActivityRing ring = new ActivityRing(4);
+        ring.add(1, BASE, "a1");
+        ring.add(2, BASE.plusMinutes(1), "a2");
+        ring.add(3, BASE.plusMinutes(2), "a3");
+        ring.remove(2);
+
+        ActivityRing.Entry[] out = new ActivityRing.Entry[4];
+        int n = ring.snapshot(out, out.length);
+        assertArrayEquals(new long[]{3, 1}, sourceIds(out, n));
+    }
+
+    @Test
+    void concurrentPublishersKeepNewestDistinctEntries() throws InterruptedException {
+        int capacity = 64;
+        int threads = 8;
+        int perThread = 1_000;
+        ActivityRing ring = new ActivityRing(capacity);
+
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        for (int t = 0; t < threads; t++) {
+            int thread = t;
+            pool.execute(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                for (int i = 0; i < perThread; i++) {
+                    long id = (long) thread * perThread + i;
+                    ring.add(id, BASE.plusSeconds(i), "a" + id);
+                }
+            });
+        }
+        start.countDown();
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(30, TimeUnit.SECONDS));
+
+        ActivityRing.Entry[] out = new ActivityRing.Entry[capacity];
+        int n = ring.snapshot(out, capacity);
+        // Luồng bị dừng giữa lấy seq và ghi slot có thể ghi muộn mục cũ vào slot của mục mới hơn;
+        // snapshot bỏ slot đó -> mỗi luồng làm thiếu tối đa 1 mục
+        assertTrue(n <= capacity && n >= capacity - threads, "snapshot size " + n);
+
+        long total = (long) threads * perThread;
+        Set<Long> ids = new HashSet<>();
+        for (int i = 0; i < n; i++) {
+            // Không mục nào bị lặp, và chỉ còn các mục thuộc capacity lần ghi sau cùng
+            assertTrue(ids.add(out[i].sourceId));
+            assertTrue(out[i].seq >= total - capacity);
+            assertEquals("a" + out[i].sourceId, out[i].text);
+            if (i > 0) {
+                assertFalse(out[i].time.isAfter(out[i - 1].time));
+            }
+        }
+    }
+
+    @Test
+    void snapshotsMergeByTimeAcrossRings() {
+        // Cách ActivityFeedService ghép feed đơn hàng + đặt bàn: 2 danh sách đã sắp giảm dần theo time
+        ActivityRing orders = new ActivityRing(8);
+        ActivityRing bookings = new ActivityRing(8);
+        orders.add(1, BASE.plusMinutes(1), "o1");
+        bookings.add(2, BASE.plusMinutes(2), "b2");
+        orders.add(3, BASE.plusMinutes(3), "o3");
+        orders.add(4, BASE.plusMinutes(5), "o5");
+        bookings.add(5, BASE.plusMinutes(4), "b4");
+
+        ActivityRing.Entry[] left = new ActivityRing.Entry[8];
+        ActivityRing.Entry[] right = new ActivityRing.Entry[8];
+        int leftCount = orders.snapshot(left, 8);
+        int rightCount = bookings.snapshot(right, 8);
+
+        List<String> merged = new ArrayList<>();
+        int i = 0;
+        int j = 0;
+        while (i < leftCount || j < rightCount) {
+            boolean takeLeft = j >= rightCount || (i < leftCount && !left[i].time.isBefore(right[j].time));
+            merged.add(takeLeft ? left[i++].text : right[j++].text);
+        }
+        assertEquals(List.of("o5", "b4", "o3", "b2", "o1"), merged);
+    }
+
+    private static long[] sourceIds(ActivityRing.Entry[] entries, int n) {
+        long[] ids = new long[n];
+        for (int i = 0; i < n; i++) {
+            ids[i] = entries[i].sourceId;
+        }
+        return ids;
+    }
+}
@@ -0,0 +1,44 @@
+package com.example.b_food_ordering.Service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HyperLogLogTest {
+
+    @Test
+    void estimatesWithinErrorBound() {
+        for (int n : new int[]{10, 1_000, 100_000}) {
+            HyperLogLog sketch = new HyperLogLog();
+            for (long userId = 1; userId <= n; userId++) {
+                sketch.add(userId);
+                sketch.add(userId); // trùng không làm tăng số đếm
+            }
+            // ~3 lần sai số chuẩn 1.6%
+            assertEquals(n, sketch.estimate(), Math.max(1, n * 0.05), "n = " + n);
+        }
+    }
+
+    @Test
+    void mergeAndIntersection() {
+        HyperLogLog a = new HyperLogLog();
+        HyperLogLog b = new HyperLogLog();
+        for (long userId = 0; userId < 20_000; userId++) {
+            a.add(userId);
+        }
+        for (long userId = 15_000; userId < 30_000; userId++) {
+            b.add(userId);
+        }
+        HyperLogLog union = a.copy();
+        union.merge(b);
+        assertEquals(30_000, union.estimate(), 1_500);
+        long common = HyperLogLog.intersection(a, b);
+        assertTrue(common > 3_000 && common < 7_000, "common = " + common);
+
+        HyperLogLog restored = HyperLogLog.fromBytes(union.toBytes());
+        assertArrayEquals(union.toBytes(), restored.toBytes());
+        assertEquals(0, new HyperLogLog().estimate());
+    }
+}
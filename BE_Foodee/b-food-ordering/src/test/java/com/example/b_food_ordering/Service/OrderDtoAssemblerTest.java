@@ -0,0 +1,113 @@
+package com.example.b_food_ordering.Service;
+
+import com.example.b_food_ordering.Dto.OrderDTO;
+import com.example.b_food_ordering.Entity.Order;
+import com.example.b_food_ordering.Entity.OrderItem;
+import com.example.b_food_ordering.Entity.Payment;
+import com.example.b_food_ordering.Entity.Product;
+import com.example.b_food_ordering.Entity.User;
+import com.example.b_food_ordering.Repository.PaymentRepository;
+import com.example.b_food_ordering.Repository.ReviewRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.when;
+
+class OrderDtoAssemblerTest {
+
+    // Số query phải cố định (1 payment + 1 review) dù danh sách có 1 hay 5000 đơn
+    @ParameterizedTest
+    @ValueSource(ints = {1, 50, 5000})
+    void queryCountIsConstantRegardlessOfListSize(int orderCount) {
+        PaymentRepository paymentRepository = mock(PaymentRepository.class);
+        ReviewRepository reviewRepository = mock(ReviewRepository.class);
+        OrderDtoAssembler assembler = new OrderDtoAssembler(paymentRepository, reviewRepository);
+
+        List<Order> orders = new ArrayList<>();
+        for (long i = 1; i <= orderCount; i++) {
+            orders.add(order(i, 7L, 3));
+        }
+
+        List<OrderDTO> dtos = assembler.toDTOs(orders);
+
+        assertEquals(orderCount, dtos.size());
+        verify(paymentRepository, times(1)).findPaymentMethodsByOrderIds(anyCollection());
+        verify(reviewRepository, times(1)).findRatingsByOrderIds(anyCollection());
+        verifyNoMoreInteractions(paymentRepository, reviewRepository);
+    }
+
+    @Test
+    void mapsPaymentAndOwnReviewOntoItems() {
+        PaymentRepository paymentRepository = mock(PaymentRepository.class);
+        ReviewRepository reviewRepository = mock(ReviewRepository.class);
+        OrderDtoAssembler assembler = new OrderDtoAssembler(paymentRepository, reviewRepository);
+
+        Order first = order(1L, 7L, 2);
+        Order second = order(2L, 8L, 1);
+
+        when(paymentRepository.findPaymentMethodsByOrderIds(anyCollection())).thenReturn(List.<Object[]>of(
+                new Object[]{1L, Payment.PaymentMethod.ONLINE_PAYMENT}));
+        when(reviewRepository.findRatingsByOrderIds(anyCollection())).thenReturn(List.of(
+                new Object[]{1L, 101L, 7L, 5, "Ngon"},
+                // đánh giá của người khác không được gắn vào đơn của user 8
+                new Object[]{2L, 201L, 9L, 1, "Dở"}));
+
+        List<OrderDTO> dtos = assembler.toDTOs(List.of(first, second));
+
+        assertEquals(1L, dtos.get(0).getId());
+        assertEquals("ONLINE_PAYMENT", dtos.get(0).getPaymentMethod());
+        assertEquals(5, dtos.get(0).getOrderItems().get(0).getUserRating());
+        assertEquals("Ngon", dtos.get(0).getOrderItems().get(0).getUserComment());
+        assertNull(dtos.get(0).getOrderItems().get(1).getUserRating());
+
+        assertEquals(2L, dtos.get(1).getId());
+        assertNull(dtos.get(1).getPaymentMethod());
+        assertNull(dtos.get(1).getOrderItems().get(0).getUserRating());
+    }
+
+    private static Order order(long id, long userId, int itemCount) {
+        User user = new User();
+        user.setId(userId);
+
+        Order order = new Order();
+        order.setId(id);
+        order.setUser(user);
+        order.setFullname("Nguyen Van A");
+        order.setEmail("a@example.com");
+        order.setDeliveryAddress("HCM");
+        order.setOrderDate(LocalDateTime.now());
+        order.setPaymentStatus(Order.PaymentStatus.PENDING);
+        order.setOrderStatus(Order.OrderStatus.PENDING);
+
+        List<OrderItem> items = new ArrayList<>();
+        for (int i = 1; i <= itemCount; i++) {
+            Product product = new Product();
+            product.setId(id * 100 + i);
+            product.setName("Món " + i);
+
+            OrderItem item = new OrderItem();
+            item.setId(id * 100 + i);
+            item.setOrder(order);
+            item.setProduct(product);
+            item.setQuantity(1);
+            item.setUnitPrice(10000);
+            item.updateSubtotal();
+            items.add(item);
+        }
+        order.setOrderItems(items);
+        order.setTotalAmount(itemCount * 10000);
+        return order;
+    }
+}
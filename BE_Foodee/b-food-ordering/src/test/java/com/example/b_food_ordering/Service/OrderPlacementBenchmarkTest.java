@@ -0,0 +1,129 @@
+package com.example.b_food_ordering.Service;
+
+import com.example.b_food_ordering.Entity.Product;
+import com.example.b_food_ordering.Entity.User;
+import com.example.b_food_ordering.Repository.ProductRepository;
+import com.example.b_food_ordering.Repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Đo số đơn/giây khi đặt hàng từ giỏ 10 món trên MySQL thật (cần DB foodee đã có sản phẩm).
+ * Không chạy trong build thường, chỉ chạy khi bật -Dbenchmark=true.
+ *
+ * Có batch (mặc định):
+ *   mvn test -Dtest=OrderPlacementBenchmarkTest -Dbenchmark=true
+ * Không batch:
+ *   mvn test -Dtest=OrderPlacementBenchmarkTest -Dbenchmark=true -Dspring.jpa.properties.hibernate.jdbc.batch_size=1
+ * Lần chạy batch_size=1 vẫn cấp id bằng bảng id_generators, nên chỉ tách riêng tác dụng của JDBC batch.
+ * Nó không phải số "trước" thật: muốn đo cách cũ (@GeneratedValue IDENTITY) phải chạy test này
+ * trên commit trước khi đổi sang id theo lô.
+ *
+ * User, đơn, thanh toán và giỏ hàng sinh ra bị xoá sau khi chạy, daily_sales_rollup được dựng lại.
+ * Sketch khách hàng theo ngày (HyperLogLog) không trừ được, nên vẫn tính thêm 1 khách cho ngày chạy test.
+ */
+@SpringBootTest
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class OrderPlacementBenchmarkTest {
+
+    private static final int ITEMS_PER_CART = 10;
+    private static final int WARMUP_ORDERS = 50;
+    private static final int MEASURED_ORDERS = 500;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private CartService cartService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private DailySalesRollupService dailySalesRollupService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${spring.jpa.properties.hibernate.jdbc.batch_size:1}")
+    private int batchSize;
+
+    private Long userId;
+
+    @Test
+    void ordersPerSecondWithTenItemCarts() {
+        List<Product> products = productRepository.findAll().stream()
+                .filter(p -> "AVAILABLE".equalsIgnoreCase(p.getStatus()))
+                .limit(ITEMS_PER_CART)
+                .toList();
+        assertEquals(ITEMS_PER_CART, products.size(), "Cần ít nhất " + ITEMS_PER_CART + " sản phẩm AVAILABLE");
+
+        userId = createBenchmarkUser().getId();
+
+        for (int i = 0; i < WARMUP_ORDERS; i++) {
+            placeOrder(userId, products);
+        }
+
+        long start = System.nanoTime();
+        for (int i = 0; i < MEASURED_ORDERS; i++) {
+            placeOrder(userId, products);
+        }
+        double seconds = (System.nanoTime() - start) / 1_000_000_000.0;
+        double ordersPerSecond = MEASURED_ORDERS / seconds;
+
+        System.out.printf("[benchmark] batch_size=%d, %d orders x %d items: %.2f s, %.1f orders/s%n",
+                batchSize, MEASURED_ORDERS, ITEMS_PER_CART, seconds, ordersPerSecond);
+        assertTrue(ordersPerSecond > 0);
+    }
+
+    // Xoá mọi dữ liệu của user benchmark, kể cả khi test lỗi giữa chừng
+    @AfterEach
+    void deleteBenchmarkData() {
+        if (userId == null) {
+            return;
+        }
+        jdbcTemplate.update("DELETE FROM order_items WHERE order_id IN (SELECT id FROM orders WHERE user_id = ?)", userId);
+        jdbcTemplate.update("DELETE FROM payments WHERE order_id IN (SELECT id FROM orders WHERE user_id = ?)", userId);
+        jdbcTemplate.update("DELETE FROM orders WHERE user_id = ?", userId);
+        jdbcTemplate.update("DELETE FROM cart_items WHERE cart_id IN (SELECT id FROM carts WHERE user_id = ?)", userId);
+        jdbcTemplate.update("DELETE FROM carts WHERE user_id = ?", userId);
+        jdbcTemplate.update("DELETE FROM user_roles WHERE user_id = ?", userId);
+        jdbcTemplate.update("DELETE FROM users WHERE id = ?", userId);
+        dailySalesRollupService.rebuild();
+        userId = null;
+    }
+
+    // Đổ 10 món vào giỏ rồi đặt hàng (cart_items cũng dùng id theo lô nên cũng được batch)
+    private void placeOrder(Long userId, List<Product> products) {
+        for (Product product : products) {
+            cartService.addToCart(userId, product.getId(), 1);
+        }
+        orderService.createOrder(userId, "Benchmark address", "CASH_ON_DELIVERY");
+    }
+
+    private User createBenchmarkUser() {
+        String suffix = String.valueOf(System.currentTimeMillis());
+        User user = new User();
+        user.setUsername("bench_" + suffix);
+        user.setPassword("benchmark");
+        user.setEmail("bench_" + suffix + "@foodee.local");
+        user.setEnabled(true);
+        user.setFullname("Benchmark User");
+        user.setAddress("Benchmark address");
+        user.setPhoneNumber("0900000000");
+        return userRepository.save(user);
+    }
+}
@@ -0,0 +1,55 @@
+package com.example.b_food_ordering.Service;
+
+import com.example.b_food_ordering.Dto.ProductDTO;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ProductSearchIndexTest {
+
+    private static ProductDTO product(long id, String name, String description, String type, String category) {
+        return new ProductDTO(id, name, description, 50_000, 45_000, 10, 1L, type, null, "AVAILABLE", 1L, category);
+    }
+
+    private static List<Long> ids(ProductSearchIndex index, String query) {
+        List<Long> result = new ArrayList<>();
+        for (int hit : index.search(query, 10)) {
+            result.add(index.document(hit).getId());
+        }
+        return result;
+    }
+
+    @Test
+    void foldsVietnameseDiacritics() {
+        assertEquals("pho ga dac biet", ProductSearchIndex.fold("Phở Gà Đặc Biệt"));
+        assertEquals(List.of("bun", "bo", "hue"), ProductSearchIndex.tokenize("Bún bò-Huế!"));
+    }
+
+    @Test
+    void ranksByRelevanceWithStableTies() {
+        List<ProductDTO> products = List.of(
+                product(1, "Cơm gà xối mỡ", "Gà chiên giòn", "Món chính", "Cơm"),
+                product(2, "Phở gà", "Nước dùng gà", "Món chính", "Phở"),
+                product(3, "Phở bò tái", "Bò tái chín", "Món chính", "Phở"),
+                product(4, "Trà đào", null, "Đồ uống", "Trà"),
+                product(5, "Phở gà", "Nước dùng gà", "Món chính", "Phở"));
+        ProductSearchIndex index = new ProductSearchIndex(products, null);
+
+        // Phải khớp mọi từ; bằng điểm thì theo id
+        assertEquals(List.of(2L, 5L), ids(index, "pho ga"));
+        // Từ cuối khớp theo tiền tố
+        assertEquals(List.of(3L), ids(index, "PHỞ b"));
+        // Tên nặng hơn mô tả
+        assertEquals(1L, ids(index, "ga").get(2));
+        assertEquals(List.of(4L), ids(index, "do uong"));
+        assertEquals(List.of(), ids(index, "lẩu"));
+
+        // Dựng lại từ chỉ mục cũ cho cùng kết quả
+        ProductSearchIndex rebuilt = new ProductSearchIndex(products, index);
+        assertArrayEquals(index.search("mon chinh", 10), rebuilt.search("mon chinh", 10));
+    }
+}
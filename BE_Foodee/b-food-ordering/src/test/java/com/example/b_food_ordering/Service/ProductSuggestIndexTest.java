@@ -0,0 +1,43 @@
+package com.example.b_food_ordering.Service;
+
+import com.example.b_food_ordering.Dto.ProductDTO;
+import com.example.b_food_ordering.Dto.SuggestionDTO;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ProductSuggestIndexTest {
+
+    private static ProductDTO product(long id, String name, String status, long ratingCount) {
+        ProductDTO dto = new ProductDTO(id, name, null, 50_000, 45_000, 10, 7L, "Món nước", null, status, 9L, "Phở");
+        dto.setRatingCount(ratingCount);
+        return dto;
+    }
+
+    private static List<String> names(List<SuggestionDTO> suggestions) {
+        return suggestions.stream().map(SuggestionDTO::getName).collect(Collectors.toList());
+    }
+
+    @Test
+    void suggestsByWordPrefixRankedByPopularity() {
+        ProductSuggestIndex index = new ProductSuggestIndex(List.of(
+                product(1, "Phở gà", "AVAILABLE", 5),
+                product(2, "Phở bò tái", "AVAILABLE", 40),
+                product(3, "Cơm gà", "OUT_OF_STOCK", 12),
+                product(4, "Phở cuốn", "DISCONTINUED", 100)));
+
+        // Món phổ biến trước; danh mục "Phở" mang độ phổ biến của món tốt nhất, xếp sau món
+        assertEquals(List.of("Phở bò tái", "Phở", "Phở gà"), names(index.suggest("pho", 10)));
+        // Khớp từ giữa tên, không dấu
+        assertEquals(List.of("Cơm gà", "Phở gà"), names(index.suggest("GÀ", 10)));
+        assertEquals(List.of("Phở gà"), names(index.suggest("pho g", 10)));
+        assertEquals("CATEGORY", index.suggest("pho", 10).get(1).getType());
+        assertEquals(1, index.suggest("pho", 1).size());
+        assertTrue(index.suggest("lau", 10).isEmpty());
+        assertTrue(index.suggest("  ", 10).isEmpty());
+    }
+}
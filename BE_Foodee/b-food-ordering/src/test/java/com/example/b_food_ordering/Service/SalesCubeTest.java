@@ -0,0 +1,87 @@
+package com.example.b_food_ordering.Service;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class SalesCubeTest {
+
+    @Test
+    void groupByMatchesNaiveAggregation() {
+        SalesCube cube = new SalesCube();
+        Random random = new Random(11);
+        int firstDay = (int) LocalDate.of(2024, 1, 1).toEpochDay();
+        Map<String, long[]> expected = new HashMap<>();
+
+        // Đủ nhiều dòng để ForkJoin phải chia nhỏ
+        int lines = 300_000;
+        for (int i = 0; i < lines; i++) {
+            long orderId = i / 3 + 1;
+            int type = cube.productTypeDictionary.encode(100 + random.nextInt(4), null);
+            int category = cube.categoryDictionary.encode(random.nextInt(3), null);
+            int day = firstDay + random.nextInt(730);
+            int quantity = 1 + random.nextInt(5);
+            long amount = quantity * 1_500_00L;
+            byte status = (byte) random.nextInt(6);
+            cube.append(orderId, 0, type, category, day, quantity, amount, status, (byte) 0);
+
+            if (status == 3) {
+                LocalDate date = LocalDate.ofEpochDay(day);
+                String key = type + "|" + category + "|" + date.getYear() + "-" + date.getMonthValue();
+                long[] sums = expected.computeIfAbsent(key, k -> new long[2]);
+                sums[0] += quantity;
+                sums[1] += amount;
+            }
+        }
+        cube.publish();
+
+        SalesCube.Filter filter = new SalesCube.Filter();
+        filter.orderStatusMask = 1 << 3;
+        SalesCubeService.Dimension[] dimensions = {
+                SalesCubeService.Dimension.PRODUCT_TYPE,
+                SalesCubeService.Dimension.CATEGORY,
+                SalesCubeService.Dimension.MONTH
+        };
+        SalesCube.GroupTable table = cube.groupBy(dimensions, filter);
+
+        assertEquals(expected.size(), table.size());
+        for (int slot = 0; slot < table.capacity(); slot++) {
+            if (!table.used(slot)) {
+                continue;
+            }
+            int[] values = SalesCube.splitKey(table.key(slot), dimensions.length);
+            String key = values[0] + "|" + values[1] + "|" + (values[2] / 12) + "-" + (values[2] % 12 + 1);
+            long[] sums = expected.get(key);
+            assertEquals(sums[0], table.quantity(slot), key);
+            assertEquals(sums[1], table.amount(slot), key);
+        }
+    }
+
+    @Test
+    void statusUpdatesApplyToAllLinesOfOrder() {
+        SalesCube cube = new SalesCube();
+        cube.append(1, 0, 0, 0, 0, 2, 100, (byte) 0, (byte) 0);
+        cube.append(1, 0, 0, 0, 0, 3, 200, (byte) 0, (byte) 0);
+        cube.append(2, 0, 0, 0, 0, 4, 400, (byte) 0, (byte) 0);
+        cube.publish();
+
+        assertEquals(2, cube.updateStatus(1, (byte) 3, (byte) 1));
+        assertEquals(1, cube.updateStatus(2, SalesCube.REMOVED, SalesCube.REMOVED));
+
+        SalesCube.Filter filter = new SalesCube.Filter();
+        SalesCube.GroupTable table = cube.groupBy(new SalesCubeService.Dimension[]{SalesCubeService.Dimension.ORDER_STATUS}, filter);
+        assertEquals(1, table.size());
+        for (int slot = 0; slot < table.capacity(); slot++) {
+            if (table.used(slot)) {
+                assertEquals(3, SalesCube.splitKey(table.key(slot), 1)[0]);
+                assertEquals(5, table.quantity(slot));
+                assertEquals(300, table.amount(slot));
+            }
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package com.example.b_food_ordering.Service;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SpaceSavingCounterTest {
+
+    @Test
+    void exactWhenDistinctKeysFitInCapacity() {
+        SpaceSavingCounter counter = new SpaceSavingCounter(8);
+        counter.add(1, 5);
+        counter.add(2, 1);
+        counter.add(3, 7);
+        counter.add(2, 10);
+
+        long[] keys = new long[3];
+        long[] counts = new long[3];
+        long[] errors = new long[3];
+        assertEquals(3, counter.top(3, keys, counts, errors));
+        assertArrayEquals(new long[]{2, 3, 1}, keys);
+        assertArrayEquals(new long[]{11, 7, 5}, counts);
+        assertArrayEquals(new long[]{0, 0, 0}, errors);
+    }
+
+    @Test
+    void errorBoundsHoldOnSkewedStream() {
+        int capacity = 32;
+        SpaceSavingCounter counter = new SpaceSavingCounter(capacity);
+        CountMinSketch sketch = new CountMinSketch(4, 256);
+        Map<Long, Long> exact = new HashMap<>();
+        Random random = new Random(7);
+        long total = 0;
+        for (int i = 0; i < 50_000; i++) {
+            // Vài món rất chạy + nhiều món lẻ
+            long key = random.nextInt(10) < 6 ? random.nextInt(5) : 100 + random.nextInt(5_000);
+            long weight = 1 + random.nextInt(3);
+            counter.add(key, weight);
+            sketch.add(key, weight);
+            exact.merge(key, weight, Long::sum);
+            total += weight;
+        }
+
+        long[] keys = new long[capacity];
+        long[] counts = new long[capacity];
+        long[] errors = new long[capacity];
+        int n = counter.top(capacity, keys, counts, errors);
+        for (int i = 0; i < n; i++) {
+            long actual = exact.getOrDefault(keys[i], 0L);
+            assertTrue(counts[i] >= actual);
+            assertTrue(counts[i] - errors[i] <= actual);
+            assertTrue(errors[i] <= total / capacity);
+            if (i > 0) {
+                assertTrue(counts[i - 1] >= counts[i]);
+            }
+        }
+        // Các món có số thật > N / capacity phải nằm trong bảng
+        for (Map.Entry<Long, Long> entry : exact.entrySet()) {
+            if (entry.getValue() > total / capacity) {
+                boolean found = false;
+                for (int i = 0; i < n; i++) {
+                    found |= keys[i] == entry.getKey();
+                }
+                assertTrue(found, "Thiếu món " + entry.getKey());
+            }
+            assertTrue(sketch.estimate(entry.getKey()) >= entry.getValue());
+        }
+    }
+
+    @Test
+    void snapshotRoundTrip() throws IOException {
+        SpaceSavingCounter counter = new SpaceSavingCounter(4);
+        for (long key = 0; key < 10; key++) {
+            counter.add(key, key + 1);
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        counter.writeTo(new DataOutputStream(bytes));
+
+        SpaceSavingCounter restored = new SpaceSavingCounter(4);
+        assertTrue(restored.readFrom(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()))));
+        restored.add(9, 1);
+        counter.add(9, 1);
+
+        long[] expectedKeys = new long[4], expectedCounts = new long[4], expectedErrors = new long[4];
+        long[] keys = new long[4], counts = new long[4], errors = new long[4];
+        counter.top(4, expectedKeys, expectedCounts, expectedErrors);
+        restored.top(4, keys, counts, errors);
+        assertArrayEquals(expectedKeys, keys);
+        assertArrayEquals(expectedCounts, counts);
+        assertArrayEquals(expectedErrors, errors);
+    }
+}
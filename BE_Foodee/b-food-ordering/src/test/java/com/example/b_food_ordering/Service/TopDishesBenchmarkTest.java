@@ -0,0 +1,170 @@
+package com.example.b_food_ordering.Service;
+
+import com.example.b_food_ordering.Dto.OrderItemDTO;
+import com.example.b_food_ordering.Entity.Order;
+import com.example.b_food_ordering.Entity.OrderItem;
+import com.example.b_food_ordering.Entity.Product;
+import com.example.b_food_ordering.Entity.User;
+import com.example.b_food_ordering.Repository.OrderRepository;
+import com.example.b_food_ordering.Repository.ProductRepository;
+import com.example.b_food_ordering.Repository.UserRepository;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * So sánh top món bán chạy: cách cũ (findAll + gom nhóm trong Java) và query GROUP BY mới,
+ * trên MySQL thật với dữ liệu tăng dần 1k -> 5k -> 20k đơn (mỗi đơn 3 món).
+ * Dữ liệu sinh ra nằm trong transaction của test và được rollback khi xong.
+ * Chỉ chạy khi bật -Dbenchmark=true:
+ *   mvn test -Dtest=TopDishesBenchmarkTest -Dbenchmark=true
+ */
+@SpringBootTest
+@Transactional
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class TopDishesBenchmarkTest {
+
+    private static final int[] DATASET_SIZES = {1_000, 5_000, 20_000};
+    private static final int ITEMS_PER_ORDER = 3;
+    private static final int TOP_LIMIT = 10;
+    private static final int RUNS = 5;
+
+    @Autowired
+    private StatisticsService statisticsService;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Test
+    void topDishesScalesWithDatasetSize() {
+        List<Long> productIds = productRepository.findAll().stream().map(Product::getId).toList();
+        assertTrue(productIds.size() >= ITEMS_PER_ORDER, "Cần ít nhất " + ITEMS_PER_ORDER + " sản phẩm");
+        Long userId = createBenchmarkUser().getId();
+        Random random = new Random(42);
+
+        int seeded = 0;
+        for (int size : DATASET_SIZES) {
+            seedDeliveredOrders(userId, productIds, size - seeded, random);
+            seeded = size;
+
+            double legacyMs = measure(() -> legacyTopDishes(TOP_LIMIT, new HashMap<>()));
+            double groupByMs = measure(() -> statisticsService.getTopPopularDishes(TOP_LIMIT));
+
+            // Cùng món, cùng thứ tự, cùng doanh thu (theo đơn giá lúc đặt)
+            Map<Long, Double> revenues = new HashMap<>();
+            List<Long> legacy = legacyTopDishes(TOP_LIMIT, revenues);
+            List<OrderItemDTO> current = statisticsService.getTopPopularDishes(TOP_LIMIT);
+            assertEquals(legacy, current.stream().map(OrderItemDTO::getProductId).toList());
+            for (OrderItemDTO item : current) {
+                assertEquals(revenues.get(item.getProductId()), item.getSubtotal(), 0.01);
+            }
+
+            System.out.printf("[benchmark] +%d orders: findAll %.1f ms, GROUP BY %.1f ms (x%.1f)%n",
+                    size, legacyMs, groupByMs, legacyMs / Math.max(groupByMs, 0.001));
+        }
+    }
+
+    // Trung bình RUNS lần, xoá persistence context trước mỗi lần để không đo cache
+    private double measure(Supplier<?> action) {
+        entityManager.clear();
+        action.get();
+        long total = 0;
+        for (int i = 0; i < RUNS; i++) {
+            entityManager.clear();
+            long start = System.nanoTime();
+            action.get();
+            total += System.nanoTime() - start;
+        }
+        return total / (RUNS * 1_000_000.0);
+    }
+
+    // Cách cũ: nạp toàn bộ đơn rồi đếm số lượng (và doanh thu vào revenues) theo món trong Java.
+    // Bằng số lượng thì theo id tăng dần, giống ORDER BY của query.
+    private List<Long> legacyTopDishes(int limit, Map<Long, Double> revenues) {
+        Map<Long, Integer> quantities = new HashMap<>();
+        for (Order order : orderRepository.findAll()) {
+            if (order.getOrderStatus() != Order.OrderStatus.DELIVERED) {
+                continue;
+            }
+            for (OrderItem item : order.getOrderItems()) {
+                Long productId = item.getProduct().getId();
+                quantities.merge(productId, item.getQuantity(), Integer::sum);
+                revenues.merge(productId, item.getUnitPrice() * item.getQuantity(), Double::sum);
+            }
+        }
+        return quantities.entrySet().stream()
+                .sorted(Map.Entry.<Long, Integer>comparingByValue().reversed()
+                        .thenComparing(Map.Entry.comparingByKey()))
+                .limit(limit)
+                .map(Map.Entry::getKey)
+                .toList();
+    }
+
+    private void seedDeliveredOrders(Long userId, List<Long> productIds, int count, Random random) {
+        String marker = "bench-top-" + System.nanoTime();
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now().minusDays(1));
+        List<Object[]> orders = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            orders.add(new Object[]{marker, "bench@foodee.local", "Benchmark User", now, 0.0, userId});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO orders (delivery_address, email, fullname, order_date, " +
+                "order_status, payment_status, total_amount, user_id) " +
+                "VALUES (?, ?, ?, ?, 'DELIVERED', 'PAID', ?, ?)", orders);
+
+        List<Long> orderIds = jdbcTemplate.queryForList(
+                "SELECT id FROM orders WHERE delivery_address = ?", Long.class, marker);
+        List<Object[]> items = new ArrayList<>(orderIds.size() * ITEMS_PER_ORDER);
+        for (Long orderId : orderIds) {
+            for (int i = 0; i < ITEMS_PER_ORDER; i++) {
+                int quantity = 1 + random.nextInt(3);
+                // Đơn giá lúc đặt khác nhau giữa các đơn -> doanh thu không suy ra được từ giá hiện tại
+                double unitPrice = 5_000.0 + 1_000.0 * random.nextInt(20);
+                items.add(new Object[]{quantity, quantity * unitPrice, unitPrice, orderId,
+                        productIds.get(random.nextInt(productIds.size()))});
+            }
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO order_items (quantity, subtotal, unit_price, order_id, product_id) " +
+                "VALUES (?, ?, ?, ?, ?)", items);
+    }
+
+    private User createBenchmarkUser() {
+        String suffix = String.valueOf(System.currentTimeMillis());
+        User user = new User();
+        user.setUsername("bench_" + suffix);
+        user.setPassword("benchmark");
+        user.setEmail("bench_" + suffix + "@foodee.local");
+        user.setEnabled(true);
+        user.setFullname("Benchmark User");
+        user.setAddress("Benchmark address");
+        user.setPhoneNumber("0900000000");
+        return userRepository.saveAndFlush(user);
+    }
+}
@@ -25,6 +25,8 @@ import { ToastContainer, toast } from 'react-toastify';
 import 'react-toastify/dist/ReactToastify.css';
 import Swal from 'sweetalert2';
 
+const ORDER_PAGE_SIZE = 50; // số đơn mỗi lần gọi /orders/admin
+
 function AdminOrderManagement() {
     const [orders, setOrders] = useState([]);
     const [loading, setLoading] = useState(true);
@@ -34,9 +36,25 @@ function AdminOrderManagement() {
     const token = localStorage.getItem('token');
     const navigate = useNavigate();
 
-    // 🔍 state cho ô tìm kiếm
+    // 🔍 state cho ô tìm kiếm (lọc trong các đơn đã tải)
     const [search, setSearch] = useState('');
 
+    // Bộ lọc gửi lên server + phân trang cursor: mỗi lần tải thêm 1 trang đơn cũ hơn
+    const [statusFilter, setStatusFilter] = useState('');
+    const [customerInput, setCustomerInput] = useState('');
+    const [customerFilter, setCustomerFilter] = useState('');
+    const [nextCursor, setNextCursor] = useState(null);
+    const [hasMore, setHasMore] = useState(false);
+    const [loadingMore, setLoadingMore] = useState(false);
+
+    const fetchOrderPage = async (cursor) => {
+        const params = { limit: ORDER_PAGE_SIZE };
+        if (cursor) params.cursor = cursor;
+        if (statusFilter) params.orderStatus = statusFilter;
+        if (customerFilter) params.customer = customerFilter;
+        return getAdminOrders(token, params);
+    };
+
     useEffect(() => {
         const fetchOrders = async () => {
             if (!token) {
@@ -46,8 +64,11 @@ function AdminOrderManagement() {
             }
 
             try {
-                const orderData = await getAdminOrders(token);
-                setOrders(orderData);
+                const page = await fetchOrderPage(null);
+                setOrders(page.items || []);
+                setNextCursor(page.nextCursor);
+                setHasMore(page.hasMore);
+                setCurrentPage(1);
                 setLoading(false);
             } catch (err) {
                 setError(err.message || 'Không thể tải danh sách đơn hàng.');
@@ -56,7 +77,32 @@ function AdminOrderManagement() {
         };
 
         fetchOrders();
-    }, [token]);
+        // eslint-disable-next-line react-hooks/exhaustive-deps
+    }, [token, statusFilter, customerFilter]);
+
+    const handleLoadMore = async () => {
+        if (!hasMore || loadingMore) return;
+        setLoadingMore(true);
+        try {
+            const page = await fetchOrderPage(nextCursor);
+            // Bỏ trùng phòng khi đơn vừa cập nhật đã có trong danh sách
+            setOrders((prev) => {
+                const loadedIds = new Set(prev.map((order) => order.id));
+                return [...prev, ...(page.items || []).filter((order) => !loadedIds.has(order.id))];
+            });
+            setNextCursor(page.nextCursor);
+            setHasMore(page.hasMore);
+        } catch (err) {
+            toast.error(err.message || 'Không thể tải thêm đơn hàng.');
+        } finally {
+            setLoadingMore(false);
+        }
+    };
+
+    const handleCustomerSubmit = (e) => {
+        e.preventDefault();
+        setCustomerFilter(customerInput.trim());
+    };
 
     const handleConfirmOrder = async (id) => {
         const confirmResult = await Swal.fire({
@@ -413,6 +459,37 @@ function AdminOrderManagement() {
                 </div>
             </div>
 
+            {/* Lọc phía server: áp dụng cho toàn bộ đơn, không chỉ các đơn đã tải */}
+            <div className="flex flex-col md:flex-row gap-4 mb-6">
+                <select
+                    className="px-4 py-3 border border-gray-300 rounded-lg focus:ring-indigo-500 focus:border-indigo-500"
+                    value={statusFilter}
+                    onChange={(e) => setStatusFilter(e.target.value)}
+                >
+                    <option value="">Tất cả trạng thái</option>
+                    {['PENDING', 'CONFIRMED', 'SHIPPING', 'DELIVERED', 'CANCEL_REQUESTED', 'CANCELLED'].map((status) => (
+                        <option key={status} value={status}>
+                            {formatStatus(status)}
+                        </option>
+                    ))}
+                </select>
+                <form onSubmit={handleCustomerSubmit} className="flex gap-2 w-full md:w-96">
+                    <input
+                        type="text"
+                        className="w-full px-4 py-3 border border-gray-300 rounded-lg focus:ring-indigo-500 focus:border-indigo-500"
+                        placeholder="Email hoặc SĐT khách hàng"
+                        value={customerInput}
+                        onChange={(e) => setCustomerInput(e.target.value)}
+                    />
+                    <button
+                        type="submit"
+                        className="px-4 py-3 bg-indigo-500 text-white rounded-lg hover:bg-indigo-600 transition-all duration-200"
+                    >
+                        Lọc
+                    </button>
+                </form>
+            </div>
+
             <div className="bg-white rounded-xl shadow-lg overflow-hidden">
                 <div className="overflow-x-auto">
                     <table className="w-full border-collapse">
@@ -645,6 +722,23 @@ function AdminOrderManagement() {
                         </button>
                     </div>
                 )}
+
+                {/* Tải thêm trang đơn cũ hơn theo nextCursor */}
+                {hasMore && (
+                    <div className="flex justify-center pb-4">
+                        <button
+                            onClick={handleLoadMore}
+                            disabled={loadingMore}
+                            className={`px-4 py-2 rounded-lg text-sm font-medium ${
+                                loadingMore
+                                    ? 'bg-gray-200 text-gray-500 cursor-not-allowed'
+                                    : 'bg-indigo-500 text-white hover:bg-indigo-600'
+                            }`}
+                        >
+                            {loadingMore ? 'Đang tải...' : 'Tải thêm đơn cũ hơn'}
+                        </button>
+                    </div>
+                )}
             </div>
         </div>
     );
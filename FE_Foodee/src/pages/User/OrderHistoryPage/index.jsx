@@ -4,7 +4,9 @@ import { FaTimes, FaBoxOpen, FaShippingFast, FaCheckCircle, FaClock, FaTimesCirc
 import Swal from 'sweetalert2';
 import { toast, ToastContainer } from 'react-toastify';
 import 'react-toastify/dist/ReactToastify.css';
-import { getOrders, cancelOrder, submitReviewApi  } from '../../../services/api/orderService';
+import { getOrderSummaries, getOrderDetail, cancelOrder, submitReviewApi } from '../../../services/api/orderService';
+
+const ORDER_PAGE_SIZE = 20; // số đơn rút gọn mỗi lần gọi /orders/summary
 
 const OrderHistoryPage = () => {
     const [orders, setOrders] = useState([]);
@@ -18,6 +20,14 @@ const OrderHistoryPage = () => {
     const [comment, setComment] = useState("");
     const [toast, setToast] = useState(null);
 
+    // Danh sách chỉ tải bản rút gọn theo trang; chi tiết (địa chỉ, món) tải khi mở từng đơn
+    const [nextCursor, setNextCursor] = useState(null);
+    const [hasMore, setHasMore] = useState(false);
+    const [loadingMore, setLoadingMore] = useState(false);
+    const [details, setDetails] = useState({});
+    const [expandedId, setExpandedId] = useState(null);
+    const [loadingDetailId, setLoadingDetailId] = useState(null);
+
 
     const openReviewModal = (order, item) => {
         setSelectedOrder(order);
@@ -66,40 +76,82 @@ const OrderHistoryPage = () => {
 
 
 
+    const handleFetchError = (error) => {
+        let errorMessage = error.message || 'Lỗi không xác định';
+        if (error.response?.status === 401) {
+            errorMessage = 'Vui lòng đăng nhập lại';
+            localStorage.removeItem('token');
+            navigate('/login');
+        } else if (error.response?.status === 404) {
+            errorMessage = 'Không tìm thấy đơn hàng';
+        }
+        console.error('Lỗi khi lấy danh sách đơn hàng:', errorMessage);
+        return errorMessage;
+    };
+
+    const fetchOrderPage = async (cursor) => {
+        const token = localStorage.getItem('token');
+        if (!token) {
+            throw new Error('Vui lòng đăng nhập lại');
+        }
+        const params = { limit: ORDER_PAGE_SIZE };
+        if (cursor) params.cursor = cursor;
+        // Server đã sắp đơn mới -> cũ
+        return getOrderSummaries(token, params);
+    };
+
     const fetchOrders = async () => {
         setLoading(true);
         setError('');
         try {
-            const token = localStorage.getItem('token');
-            if (!token) {
-                throw new Error('Vui lòng đăng nhập lại');
-            }
-
-            const orderData = await getOrders(token);
+            const page = await fetchOrderPage(null);
+            setOrders(page.items || []);
+            setNextCursor(page.nextCursor);
+            setHasMore(page.hasMore);
+        } catch (error) {
+            setError(handleFetchError(error));
+        } finally {
+            setLoading(false);
+        }
+    };
 
-            // ⭐ SẮP XẾP ĐƠN MỚI → CŨ
-            const sortedOrders = [...orderData].sort((a, b) => {
-                if (a.createdAt && b.createdAt) {
-                    return new Date(b.createdAt) - new Date(a.createdAt);
-                }
-                return b.id - a.id;
+    const handleLoadMore = async () => {
+        if (!hasMore || loadingMore) return;
+        setLoadingMore(true);
+        try {
+            const page = await fetchOrderPage(nextCursor);
+            setOrders((prev) => {
+                const loadedIds = new Set(prev.map((order) => order.id));
+                return [...prev, ...(page.items || []).filter((order) => !loadedIds.has(order.id))];
             });
+            setNextCursor(page.nextCursor);
+            setHasMore(page.hasMore);
+        } catch (error) {
+            setToast({ type: 'error', message: handleFetchError(error) });
+        } finally {
+            setLoadingMore(false);
+        }
+    };
 
-            setOrders(sortedOrders);
-
+    // Mở / đóng chi tiết 1 đơn; chi tiết chỉ tải 1 lần qua GET /orders/{id}
+    const toggleDetail = async (orderId) => {
+        if (expandedId === orderId) {
+            setExpandedId(null);
+            return;
+        }
+        setExpandedId(orderId);
+        if (details[orderId]) return;
+        setLoadingDetailId(orderId);
+        try {
+            const token = localStorage.getItem('token');
+            if (!token) throw new Error('Vui lòng đăng nhập lại');
+            const detail = await getOrderDetail(token, orderId);
+            setDetails((prev) => ({ ...prev, [orderId]: detail }));
         } catch (error) {
-            let errorMessage = error.message || 'Lỗi không xác định';
-            if (error.response?.status === 401) {
-                errorMessage = 'Vui lòng đăng nhập lại';
-                localStorage.removeItem('token');
-                navigate('/login');
-            } else if (error.response?.status === 404) {
-                errorMessage = 'Không tìm thấy đơn hàng';
-            }
-            setError(errorMessage);
-            console.error('Lỗi khi lấy danh sách đơn hàng:', errorMessage);
+            setToast({ type: 'error', message: error.message || 'Lỗi khi lấy chi tiết đơn hàng' });
+            setExpandedId(null);
         } finally {
-            setLoading(false);
+            setLoadingDetailId(null);
         }
     };
 
@@ -126,9 +178,10 @@ const OrderHistoryPage = () => {
                     if (!token) throw new Error('Vui lòng đăng nhập lại');
 
                     const updatedOrder = await cancelOrder(token, id);
-                    setOrders(orders.map((order) =>
+                    setOrders((prev) => prev.map((order) =>
                         order.id === id ? { ...order, orderStatus: updatedOrder.orderStatus } : order
                     ));
+                    setDetails((prev) => (prev[id] ? { ...prev, [id]: updatedOrder } : prev));
 
                     toast.success('Yêu cầu hủy đơn hàng thành công!', {
                         position: 'top-right',
@@ -266,32 +319,27 @@ const OrderHistoryPage = () => {
                                             </div>
                                         </div>
 
-                                        {/* Order Details */}
+                                        {/* Order Summary */}
                                         <div className="grid md:grid-cols-2 gap-4">
-                                            <div className="space-y-3">
-                                                <div className="flex items-start gap-2">
-                                                    <div className="w-1.5 h-1.5 bg-blue-500 rounded-full mt-2"></div>
-                                                    <div>
-                                                        <p className="text-slate-500 text-xs font-medium">Địa chỉ giao hàng</p>
-                                                        <p className="text-slate-800 font-semibold text-sm">
-                                                            {order.deliveryAddress || 'Không có thông tin'}
-                                                        </p>
-                                                    </div>
-                                                </div>
-
-                                                <div className="flex items-start gap-2">
-                                                    <div className="w-1.5 h-1.5 bg-green-500 rounded-full mt-2"></div>
-                                                    <div>
-                                                        <p className="text-slate-500 text-xs font-medium">Ngày giao hàng</p>
-                                                        <p className="text-slate-800 font-semibold text-sm">
-                                                            {order.deliveryDate
-                                                                ? new Date(order.deliveryDate).toLocaleString('vi-VN', {
-                                                                    dateStyle: 'medium',
-                                                                    timeStyle: 'short',
-                                                                })
-                                                                : 'Đang cập nhật thời gian giao hàng'}
-                                                        </p>
-                                                    </div>
+                                            <div className="flex items-start gap-3">
+                                                {order.firstItemImage && (
+                                                    <img
+                                                        src={order.firstItemImage}
+                                                        alt="Sản phẩm"
+                                                        className="w-12 h-12 object-cover rounded-lg shadow-sm"
+                                                    />
+                                                )}
+                                                <div>
+                                                    <p className="text-slate-500 text-xs font-medium">Ngày đặt</p>
+                                                    <p className="text-slate-800 font-semibold text-sm">
+                                                        {order.orderDate
+                                                            ? new Date(order.orderDate).toLocaleString('vi-VN', {
+                                                                dateStyle: 'medium',
+                                                                timeStyle: 'short',
+                                                            })
+                                                            : 'Không có thông tin'}
+                                                    </p>
+                                                    <p className="text-slate-500 text-xs">{order.itemCount || 0} sản phẩm</p>
                                                 </div>
                                             </div>
 
@@ -310,64 +358,108 @@ const OrderHistoryPage = () => {
                                             </div>
                                         </div>
 
-                                        {/* Order Items */}
-                                        {order.orderItems && order.orderItems.length > 0 && (
-                                            <div className="mt-4 p-4 bg-gradient-to-r from-slate-50 to-blue-50 rounded-lg border border-slate-100">
-                                                <h3 className="text-md font-bold text-slate-800 mb-3 flex items-center gap-1.5">
-                                                    <div className="w-1.5 h-1.5 bg-indigo-500 rounded-full"></div>
-                                                    Danh sách sản phẩm
-                                                </h3>
-                                                <div className="space-y-3">
-                                                    {order.orderItems.map((item, itemIndex) => (
-                                                        <div
-                                                            key={item.id || `item-${index}-${itemIndex}`}
-                                                            className="flex items-center p-3 bg-white rounded-lg shadow-sm border border-white/50 hover:shadow-md transition-all duration-300"
-                                                        >
-                                                            <div className="relative overflow-hidden rounded-lg mr-3">
-                                                                <img
-                                                                    src={item.productImage || 'https://via.placeholder.com/60'}
-                                                                    alt={item.productName || 'Sản phẩm'}
-                                                                    className="w-16 h-16 object-cover transform hover:scale-110 transition-transform duration-300"
-                                                                />
-                                                                <div className="absolute inset-0 bg-gradient-to-t from-black/20 to-transparent opacity-0 hover:opacity-100 transition-opacity duration-300"></div>
-                                                            </div>
-                                                            <div className="flex-1">
-                                                                <p className="font-semibold text-slate-800 text-sm">{item.productName || 'Không xác định'}</p>
-                                                                <p className="text-slate-500 text-xs">Số lượng: {item.quantity || 0}</p>
-                                                            </div>
-                                                            <div className="text-right">
-                                                                <p className="font-bold text-indigo-600 text-sm">
-                                                                    {(item.unitPrice || 0).toLocaleString('vi-VN')} ₫
+                                        <button
+                                            onClick={() => toggleDetail(order.id)}
+                                            className="text-sm font-semibold text-blue-600 hover:text-blue-800 transition"
+                                        >
+                                            {loadingDetailId === order.id
+                                                ? 'Đang tải chi tiết...'
+                                                : expandedId === order.id ? 'Ẩn chi tiết' : 'Xem chi tiết'}
+                                        </button>
+
+                                        {/* Order Details: tải khi mở đơn */}
+                                        {expandedId === order.id && details[order.id] && (() => {
+                                            const detail = details[order.id];
+                                            return (
+                                                <>
+                                                    <div className="space-y-3">
+                                                        <div className="flex items-start gap-2">
+                                                            <div className="w-1.5 h-1.5 bg-blue-500 rounded-full mt-2"></div>
+                                                            <div>
+                                                                <p className="text-slate-500 text-xs font-medium">Địa chỉ giao hàng</p>
+                                                                <p className="text-slate-800 font-semibold text-sm">
+                                                                    {detail.deliveryAddress || 'Không có thông tin'}
                                                                 </p>
-                                                                <p className="text-slate-500 text-xs">
-                                                                    Tổng: {(item.subtotal || item.unitPrice * item.quantity || 0).toLocaleString('vi-VN')} ₫
+                                                            </div>
+                                                        </div>
+
+                                                        <div className="flex items-start gap-2">
+                                                            <div className="w-1.5 h-1.5 bg-green-500 rounded-full mt-2"></div>
+                                                            <div>
+                                                                <p className="text-slate-500 text-xs font-medium">Ngày giao hàng</p>
+                                                                <p className="text-slate-800 font-semibold text-sm">
+                                                                    {detail.deliveryDate
+                                                                        ? new Date(detail.deliveryDate).toLocaleString('vi-VN', {
+                                                                            dateStyle: 'medium',
+                                                                            timeStyle: 'short',
+                                                                        })
+                                                                        : 'Đang cập nhật thời gian giao hàng'}
                                                                 </p>
+                                                            </div>
+                                                        </div>
+                                                    </div>
 
-                                                                {/* ⭐ Nếu user đã đánh giá, hiển thị sao */}
-                                                                {item.userRating && (
-                                                                    <div className="mt-1 text-xs text-amber-500 font-semibold flex items-center gap-1">
-                                                                        {Array.from({ length: 5 }).map((_, i) => (
-                                                                            <span key={i}>{i < item.userRating ? '★' : '☆'}</span>
-                                                                        ))}
-                                                                        <span className="text-slate-500 ml-1">(Bạn đã đánh giá)</span>
-                                                                    </div>
-                                                                )}
-                                                                {order.orderStatus === 'DELIVERED' && !item.userRating && (
-                                                                    <button
-                                                                        onClick={() => openReviewModal(order, item)}
-                                                                        className="mt-2 px-3 py-1 bg-yellow-500 text-white rounded-lg text-xs hover:bg-yellow-600 transition"
+                                                    {/* Order Items */}
+                                                    {detail.orderItems && detail.orderItems.length > 0 && (
+                                                        <div className="mt-4 p-4 bg-gradient-to-r from-slate-50 to-blue-50 rounded-lg border border-slate-100">
+                                                            <h3 className="text-md font-bold text-slate-800 mb-3 flex items-center gap-1.5">
+                                                                <div className="w-1.5 h-1.5 bg-indigo-500 rounded-full"></div>
+                                                                Danh sách sản phẩm
+                                                            </h3>
+                                                            <div className="space-y-3">
+                                                                {detail.orderItems.map((item, itemIndex) => (
+                                                                    <div
+                                                                        key={item.id || `item-${index}-${itemIndex}`}
+                                                                        className="flex items-center p-3 bg-white rounded-lg shadow-sm border border-white/50 hover:shadow-md transition-all duration-300"
                                                                     >
-                                                                        ⭐ Đánh giá món này
-                                                                    </button>
-                                                                )}
-
-
+                                                                        <div className="relative overflow-hidden rounded-lg mr-3">
+                                                                            <img
+                                                                                src={item.productImage || 'https://via.placeholder.com/60'}
+                                                                                alt={item.productName || 'Sản phẩm'}
+                                                                                className="w-16 h-16 object-cover transform hover:scale-110 transition-transform duration-300"
+                                                                            />
+                                                                            <div className="absolute inset-0 bg-gradient-to-t from-black/20 to-transparent opacity-0 hover:opacity-100 transition-opacity duration-300"></div>
+                                                                        </div>
+                                                                        <div className="flex-1">
+                                                                            <p className="font-semibold text-slate-800 text-sm">{item.productName || 'Không xác định'}</p>
+                                                                            <p className="text-slate-500 text-xs">Số lượng: {item.quantity || 0}</p>
+                                                                        </div>
+                                                                        <div className="text-right">
+                                                                            <p className="font-bold text-indigo-600 text-sm">
+                                                                                {(item.unitPrice || 0).toLocaleString('vi-VN')} ₫
+                                                                            </p>
+                                                                            <p className="text-slate-500 text-xs">
+                                                                                Tổng: {(item.subtotal || item.unitPrice * item.quantity || 0).toLocaleString('vi-VN')} ₫
+                                                                            </p>
+
+                                                                            {/* ⭐ Nếu user đã đánh giá, hiển thị sao */}
+                                                                            {item.userRating && (
+                                                                                <div className="mt-1 text-xs text-amber-500 font-semibold flex items-center gap-1">
+                                                                                    {Array.from({ length: 5 }).map((_, i) => (
+                                                                                        <span key={i}>{i < item.userRating ? '★' : '☆'}</span>
+                                                                                    ))}
+                                                                                    <span className="text-slate-500 ml-1">(Bạn đã đánh giá)</span>
+                                                                                </div>
+                                                                            )}
+                                                                            {detail.orderStatus === 'DELIVERED' && !item.userRating && (
+                                                                                <button
+                                                                                    onClick={() => openReviewModal(detail, item)}
+                                                                                    className="mt-2 px-3 py-1 bg-yellow-500 text-white rounded-lg text-xs hover:bg-yellow-600 transition"
+                                                                                >
+                                                                                    ⭐ Đánh giá món này
+                                                                                </button>
+                                                                            )}
+
+
+                                                                        </div>
+                                                                    </div>
+                                                                ))}
                                                             </div>
                                                         </div>
-                                                    ))}
-                                                </div>
-                                            </div>
-                                        )}
+                                                    )}
+                                                </>
+                                            );
+                                        })()}
                                     </div>
 
                                     {/* Order Actions */}
@@ -399,6 +491,23 @@ const OrderHistoryPage = () => {
                                 </div>
                             </div>
                         ))}
+
+                        {/* Tải thêm trang đơn cũ hơn theo nextCursor */}
+                        {hasMore && (
+                            <div className="flex justify-center">
+                                <button
+                                    onClick={handleLoadMore}
+                                    disabled={loadingMore}
+                                    className={`px-4 py-2 rounded-lg text-sm font-semibold shadow-sm ${
+                                        loadingMore
+                                            ? 'bg-slate-200 text-slate-500 cursor-not-allowed'
+                                            : 'bg-gradient-to-r from-blue-500 to-indigo-600 text-white hover:shadow-md'
+                                    }`}
+                                >
+                                    {loadingMore ? 'Đang tải...' : 'Tải thêm đơn cũ hơn'}
+                                </button>
+                            </div>
+                        )}
                     </div>
                 ) : (
                     <div className="bg-white/80 backdrop-blur-sm p-8 rounded-xl shadow-md text-center border border-white/20">
@@ -56,20 +56,6 @@ export const createOrderFromProduct = async (token, orderData) => {
     }
 };
 
-export const getOrders = async (token) => {
-    try {
-        const response = await axios.get(`${API_BASE_URL}/orders`, {
-            headers: getAuthHeaders(token),
-            timeout: 5000,
-        });
-        return response.data.data || [];
-    } catch (error) {
-        const errorMessage = error.response?.data?.message || error.response?.data || error.message || 'Lỗi khi lấy danh sách đơn hàng';
-        console.error('Lỗi khi lấy danh sách đơn hàng:', errorMessage);
-        throw new Error(errorMessage);
-    }
-};
-
 export const cancelOrder = async (token, orderId) => {
     try {
         const response = await axios.put(`${API_BASE_URL}/orders/${orderId}/cancel`, null, {
@@ -126,13 +112,16 @@ export const deleteOrder = async (token, orderId) => {
     }
 };
 
-export const getAdminOrders = async (token) => {
+// params: { cursor, limit, orderStatus, paymentStatus, from, to, customer } (tùy chọn)
+// Trả về 1 trang: { items, nextCursor, hasMore } - gọi tiếp với cursor = nextCursor để lấy đơn cũ hơn
+export const getAdminOrders = async (token, params = {}) => {
     try {
         const response = await axios.get(`${API_BASE_URL}/orders/admin`, {
             headers: getAuthHeaders(token),
+            params,
             timeout: 5000,
         });
-        return response.data.data || [];
+        return response.data.data || { items: [], nextCursor: null, hasMore: false };
     } catch (error) {
         const errorMessage = error.response?.data?.message || error.response?.data || error.message || 'Không có quyền truy cập hoặc lỗi khi lấy danh sách đơn hàng';
         console.error('Lỗi khi lấy danh sách đơn hàng admin:', errorMessage);
@@ -246,3 +235,33 @@ export const submitReviewApi = async (token, reviewData) => {
 };
 
 
+
+// Danh sách đơn rút gọn của người dùng: trả về { items, nextCursor, hasMore }
+export const getOrderSummaries = async (token, params = {}) => {
+    try {
+        const response = await axios.get(`${API_BASE_URL}/orders/summary`, {
+            headers: getAuthHeaders(token),
+            params,
+            timeout: 5000,
+        });
+        return response.data.data || { items: [], nextCursor: null, hasMore: false };
+    } catch (error) {
+        const errorMessage = error.response?.data?.message || error.response?.data || error.message || 'Lỗi khi lấy danh sách đơn hàng';
+        console.error('Lỗi khi lấy danh sách đơn hàng:', errorMessage);
+        throw new Error(errorMessage);
+    }
+};
+
+export const getOrderDetail = async (token, orderId) => {
+    try {
+        const response = await axios.get(`${API_BASE_URL}/orders/${orderId}`, {
+            headers: getAuthHeaders(token),
+            timeout: 5000,
+        });
+        return response.data.data;
+    } catch (error) {
+        const errorMessage = error.response?.data?.message || error.response?.data || error.message || 'Lỗi khi lấy chi tiết đơn hàng';
+        console.error('Lỗi khi lấy chi tiết đơn hàng:', errorMessage);
+        throw new Error(errorMessage);
+    }
+};
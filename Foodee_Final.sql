@@ -83,10 +83,25 @@ CREATE TABLE products (
   discounted_price DOUBLE NOT NULL,
   img VARCHAR(255),
   original_price DOUBLE NOT NULL,
+  -- Gia ban (gia khach tra): giong CartService / OrderService, dung de loc / sap xep theo gia
+  selling_price DOUBLE AS (IF(discounted_price > 0, discounted_price, original_price)) STORED,
   status VARCHAR(255) NOT NULL,
   category_id BIGINT,
   product_type_id BIGINT NOT NULL,
+  rating_count BIGINT NOT NULL DEFAULT 0,
+  rating_sum BIGINT NOT NULL DEFAULT 0,
+  rating_1 BIGINT NOT NULL DEFAULT 0,
+  rating_2 BIGINT NOT NULL DEFAULT 0,
+  rating_3 BIGINT NOT NULL DEFAULT 0,
+  rating_4 BIGINT NOT NULL DEFAULT 0,
+  rating_5 BIGINT NOT NULL DEFAULT 0,
   PRIMARY KEY (id),
+  KEY idx_products_category_price (category_id, selling_price, id),
+  KEY idx_products_type_price (product_type_id, selling_price, id),
+  KEY idx_products_status_price (status, selling_price, id),
+  KEY idx_products_price (selling_price, id),
+  KEY idx_products_name (name, id),
+  KEY idx_products_popularity (rating_count, id),
   CONSTRAINT fk_products_category FOREIGN KEY (category_id) REFERENCES categories(id),
   CONSTRAINT fk_products_producttype FOREIGN KEY (product_type_id) REFERENCES product_types(id)
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4;
@@ -134,6 +149,12 @@ CREATE TABLE orders (
   total_amount DOUBLE NOT NULL,
   user_id BIGINT NOT NULL,
   PRIMARY KEY (id),
+  KEY idx_orders_date_id (order_date, id),
+  KEY idx_orders_user_date (user_id, order_date, id),
+  KEY idx_orders_status_date (order_status, order_date, id),
+  KEY idx_orders_payment_date (payment_status, order_date, id),
+  KEY idx_orders_email (email),
+  KEY idx_orders_phone (phone_number),
   CONSTRAINT fk_orders_user FOREIGN KEY (user_id) REFERENCES users(id)
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4;
 
@@ -149,6 +170,8 @@ CREATE TABLE order_items (
   order_id BIGINT NOT NULL,
   product_id BIGINT NOT NULL,
   PRIMARY KEY (id),
+  KEY idx_order_items_order_product (order_id, product_id, quantity, unit_price),
+  KEY idx_order_items_product (product_id),
   CONSTRAINT fk_orderitems_order FOREIGN KEY (order_id) REFERENCES orders(id),
   CONSTRAINT fk_orderitems_product FOREIGN KEY (product_id) REFERENCES products(id)
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4;
@@ -166,6 +189,62 @@ CREATE TABLE payments (
   CONSTRAINT fk_payments_order FOREIGN KEY (order_id) REFERENCES orders(id)
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4;
 
+-- ===============================
+-- ORDER STATUS HISTORY (chỉ thêm; ghi theo lô từ OrderStatusHistoryWriter)
+-- status_type: ORDER | PAYMENT
+-- Không có FK tới orders để lịch sử còn lại khi đơn bị xoá
+-- ===============================
+DROP TABLE IF EXISTS order_status_history;
+CREATE TABLE order_status_history (
+  id BIGINT NOT NULL AUTO_INCREMENT,
+  order_id BIGINT NOT NULL,
+  status_type VARCHAR(16) NOT NULL,
+  from_status VARCHAR(32),
+  to_status VARCHAR(32) NOT NULL,
+  changed_at DATETIME(6) NOT NULL,
+  PRIMARY KEY (id),
+  KEY idx_osh_order (order_id, changed_at),
+  KEY idx_osh_changed (changed_at)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4;
+
+-- ===============================
+-- ORDERS ARCHIVE (đơn DELIVERED/CANCELLED đã cũ, chuyển khỏi orders bởi OrderArchiveService)
+-- payment_method lấy từ payments lúc lưu trữ (payments của đơn bị xoá)
+-- ===============================
+DROP TABLE IF EXISTS orders_archive;
+CREATE TABLE orders_archive (
+  id BIGINT NOT NULL,
+  delivery_address VARCHAR(255) NOT NULL,
+  delivery_date DATETIME(6),
+  email VARCHAR(255) NOT NULL,
+  fullname VARCHAR(255) NOT NULL,
+  order_date DATETIME(6) NOT NULL,
+  order_status VARCHAR(32) NOT NULL,
+  payment_status VARCHAR(32) NOT NULL,
+  phone_number VARCHAR(255),
+  total_amount DOUBLE NOT NULL,
+  user_id BIGINT NOT NULL,
+  payment_method VARCHAR(32),
+  archived_at DATETIME(6) NOT NULL,
+  PRIMARY KEY (id),
+  KEY idx_orders_archive_user_date (user_id, order_date, id),
+  KEY idx_orders_archive_date (order_date, id),
+  KEY idx_orders_archive_status_date (order_status, order_date)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4;
+
+DROP TABLE IF EXISTS order_items_archive;
+CREATE TABLE order_items_archive (
+  id BIGINT NOT NULL,
+  quantity INT NOT NULL,
+  subtotal DOUBLE NOT NULL,
+  unit_price DOUBLE NOT NULL,
+  order_id BIGINT NOT NULL,
+  product_id BIGINT NOT NULL,
+  PRIMARY KEY (id),
+  KEY idx_order_items_archive_order (order_id),
+  KEY idx_order_items_archive_product (product_id)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4;
+
 -- ===============================
 -- BOOKINGS
 -- ===============================
@@ -183,6 +262,8 @@ CREATE TABLE bookings (
   status ENUM('CANCELLED','CANCEL_REQUESTED','CONFIRMED','PENDING') NOT NULL,
   user_id BIGINT NOT NULL,
   PRIMARY KEY (id),
+  KEY idx_bookings_user_date (user_id, booking_date, id),
+  KEY idx_bookings_created (created_at, id),
   CONSTRAINT fk_bookings_user FOREIGN KEY (user_id) REFERENCES users(id)
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4;
 
@@ -214,6 +295,75 @@ CREATE TABLE password_reset_tokens (
   CONSTRAINT fk_passwordtoken_user FOREIGN KEY (user_id) REFERENCES users(id)
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4;
 
+-- ===============================
+-- ID GENERATORS (hi/lo cho orders, order_items, payments, cart_items)
+-- Id cấp sẵn theo lô (thay cho AUTO_INCREMENT / IDENTITY) -> Hibernate biết id trước khi INSERT
+-- nên gom được INSERT của các entity này thành batch
+-- next_val = cận trên của lô kế tiếp; Hibernate cấp id theo lô 50 (allocationSize)
+-- DB đang có dữ liệu: giá trị seed = MAX(id) + 50 để lô đầu tiên bắt đầu sau id lớn nhất
+-- ===============================
+DROP TABLE IF EXISTS id_generators;
+CREATE TABLE id_generators (
+  gen_name VARCHAR(64) NOT NULL,
+  next_val BIGINT NOT NULL,
+  PRIMARY KEY (gen_name)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4;
+
+INSERT INTO id_generators (gen_name, next_val) SELECT 'orders', COALESCE(MAX(id), 0) + 50 FROM orders;
+INSERT INTO id_generators (gen_name, next_val) SELECT 'order_items', COALESCE(MAX(id), 0) + 50 FROM order_items;
+INSERT INTO id_generators (gen_name, next_val) SELECT 'payments', COALESCE(MAX(id), 0) + 50 FROM payments;
+INSERT INTO id_generators (gen_name, next_val) SELECT 'cart_items', COALESCE(MAX(id), 0) + 50 FROM cart_items;
+
+-- ===============================
+-- IDEMPOTENCY KEYS (kết quả đặt hàng theo header Idempotency-Key)
+-- ===============================
+DROP TABLE IF EXISTS idempotency_keys;
+CREATE TABLE idempotency_keys (
+  id_key VARCHAR(191) NOT NULL,
+  request_hash VARCHAR(64) NOT NULL,
+  response_body TEXT NOT NULL,
+  created_at DATETIME(6) NOT NULL,
+  expires_at DATETIME(6) NOT NULL,
+  PRIMARY KEY (id_key),
+  KEY idx_idempotency_expires (expires_at)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4;
+
+-- ===============================
+-- DAILY SALES ROLLUP (doanh thu theo ngày x trạng thái đơn x trạng thái thanh toán)
+-- Cập nhật cộng dồn khi tạo đơn / đổi trạng thái / xoá đơn (DailySalesRollupService),
+-- dựng lại toàn bộ từ orders + orders_archive mỗi đêm
+-- ===============================
+DROP TABLE IF EXISTS daily_sales_rollup;
+CREATE TABLE daily_sales_rollup (
+  sales_date DATE NOT NULL,
+  order_status VARCHAR(32) NOT NULL,
+  payment_status VARCHAR(32) NOT NULL,
+  order_count BIGINT NOT NULL DEFAULT 0,
+  revenue DOUBLE NOT NULL DEFAULT 0,
+  item_quantity BIGINT NOT NULL DEFAULT 0,
+  PRIMARY KEY (sales_date, order_status, payment_status)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4;
+
+INSERT INTO daily_sales_rollup (sales_date, order_status, payment_status, order_count, revenue, item_quantity)
+SELECT DATE(o.order_date), o.order_status, o.payment_status, COUNT(*), SUM(o.total_amount),
+       COALESCE(SUM((SELECT SUM(oi.quantity) FROM order_items oi WHERE oi.order_id = o.id)), 0)
+FROM orders o
+GROUP BY DATE(o.order_date), o.order_status, o.payment_status;
+
+-- ===============================
+-- DAILY CUSTOMER SKETCH
+-- Số khách phân biệt đặt đơn mỗi ngày dạng HyperLogLog (4096 thanh ghi x 1 byte),
+-- gộp thành tháng / năm trong CustomerSketchService; tự dựng lại từ orders 1 lần,
+-- dòng sketch_date = '1000-01-01' (sketch rỗng) đánh dấu đã dựng xong
+-- ===============================
+DROP TABLE IF EXISTS daily_customer_sketch;
+CREATE TABLE daily_customer_sketch (
+  sketch_date DATE NOT NULL,
+  sketch VARBINARY(4096) NOT NULL,
+  updated_at DATETIME(6) NOT NULL,
+  PRIMARY KEY (sketch_date)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4;
+
 SET FOREIGN_KEY_CHECKS=1;
 
 -- ===============================